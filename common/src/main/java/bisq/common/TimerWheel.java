@@ -0,0 +1,152 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+
+/**
+ * Hashed timer wheel used by {@link TimerWheelTimer}. Timers are kept in intrusive doubly linked lists, one per
+ * bucket, so scheduling and cancelling are O(1). On each tick only the bucket of the current tick is visited.
+ * Timers with a delay larger than one revolution of the wheel carry a remaining rounds counter which is decremented
+ * each time their bucket is visited.
+ * <p>
+ * In contrast to the {@link MasterTimer} which runs all registered {@link FrameRateTimer}s at each frame, the cost of
+ * a tick is proportional to the number of timers in the visited bucket, not to the number of all timers.
+ */
+public class TimerWheel {
+    // We use the same resolution as the MasterTimer
+    public static final long TICK_MS = MasterTimer.FRAME_INTERVAL_MS;
+    // Must be a power of 2. With 100 ms ticks one revolution takes about 51 sec.
+    private static final int WHEEL_SIZE = 512;
+
+    private static final TimerWheel INSTANCE = new TimerWheel(WHEEL_SIZE);
+    private static final java.util.Timer timer = new java.util.Timer("TimerWheel", true);
+
+    static {
+        timer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                List<TimerWheelTimer> dueTimers = INSTANCE.tick();
+                if (!dueTimers.isEmpty()) {
+                    UserThread.execute(() -> dueTimers.forEach(TimerWheelTimer::onDue));
+                }
+            }
+        }, TICK_MS, TICK_MS);
+    }
+
+    static TimerWheel getInstance() {
+        return INSTANCE;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Instance
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private final TimerWheelTimer[] buckets;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    TimerWheel(int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of 2. wheelSize=" + wheelSize);
+        }
+        buckets = new TimerWheelTimer[wheelSize];
+        mask = wheelSize - 1;
+    }
+
+    synchronized void schedule(TimerWheelTimer timerWheelTimer, long delayMs) {
+        if (timerWheelTimer.scheduled) {
+            unlink(timerWheelTimer);
+        }
+
+        // We round up so that a timer never fires before its delay has passed. A delay of 0 fires at the next tick.
+        long ticks = Math.max(1, (delayMs + TICK_MS - 1) / TICK_MS);
+        long deadlineTick = currentTick + ticks;
+        int index = (int) (deadlineTick & mask);
+        // The bucket at index gets visited for the first time at tick (deadlineTick - remainingRounds * wheelSize)
+        timerWheelTimer.remainingRounds = (ticks - 1) / buckets.length;
+
+        TimerWheelTimer head = buckets[index];
+        timerWheelTimer.bucketIndex = index;
+        timerWheelTimer.prev = null;
+        timerWheelTimer.next = head;
+        if (head != null) {
+            head.prev = timerWheelTimer;
+        }
+        buckets[index] = timerWheelTimer;
+        timerWheelTimer.scheduled = true;
+        size++;
+    }
+
+    synchronized void cancel(TimerWheelTimer timerWheelTimer) {
+        if (timerWheelTimer.scheduled) {
+            unlink(timerWheelTimer);
+        }
+    }
+
+    /**
+     * Advances the wheel by one tick and returns the timers which became due. The returned timers are removed from
+     * the wheel.
+     */
+    synchronized List<TimerWheelTimer> tick() {
+        currentTick++;
+        int index = (int) (currentTick & mask);
+        TimerWheelTimer current = buckets[index];
+        if (current == null) {
+            return List.of();
+        }
+
+        List<TimerWheelTimer> dueTimers = new ArrayList<>();
+        while (current != null) {
+            TimerWheelTimer next = current.next;
+            if (current.remainingRounds <= 0) {
+                unlink(current);
+                dueTimers.add(current);
+            } else {
+                current.remainingRounds--;
+            }
+            current = next;
+        }
+        return dueTimers;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void unlink(TimerWheelTimer timerWheelTimer) {
+        TimerWheelTimer prev = timerWheelTimer.prev;
+        TimerWheelTimer next = timerWheelTimer.next;
+        if (prev != null) {
+            prev.next = next;
+        } else {
+            buckets[timerWheelTimer.bucketIndex] = next;
+        }
+        if (next != null) {
+            next.prev = prev;
+        }
+        timerWheelTimer.prev = null;
+        timerWheelTimer.next = null;
+        timerWheelTimer.scheduled = false;
+        size--;
+    }
+}
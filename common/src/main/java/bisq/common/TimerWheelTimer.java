@@ -0,0 +1,97 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timer backed by the shared {@link TimerWheel}. Alternative to the {@link FrameRateTimer} for headless apps with
+ * many concurrent timers like the seed node, as scheduling and cancelling are O(1) and a tick only visits the timers
+ * which are due.
+ * The runnable gets executed on the user thread.
+ */
+public class TimerWheelTimer implements Timer {
+    private final Logger log = LoggerFactory.getLogger(TimerWheelTimer.class);
+
+    private final TimerWheel timerWheel;
+    private long interval;
+    private Runnable runnable;
+    private boolean isPeriodically;
+    private volatile boolean stopped;
+
+    // Guarded by timerWheel
+    TimerWheelTimer prev;
+    TimerWheelTimer next;
+    int bucketIndex;
+    long remainingRounds;
+    boolean scheduled;
+
+    public TimerWheelTimer() {
+        this(TimerWheel.getInstance());
+    }
+
+    TimerWheelTimer(TimerWheel timerWheel) {
+        this.timerWheel = timerWheel;
+    }
+
+    @Override
+    public Timer runLater(Duration delay, Runnable runnable) {
+        this.interval = delay.toMillis();
+        this.runnable = runnable;
+        timerWheel.schedule(this, interval);
+        return this;
+    }
+
+    @Override
+    public Timer runPeriodically(Duration interval, Runnable runnable) {
+        this.interval = interval.toMillis();
+        isPeriodically = true;
+        this.runnable = runnable;
+        timerWheel.schedule(this, this.interval);
+        return this;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        timerWheel.cancel(this);
+    }
+
+    void onDue() {
+        if (stopped) {
+            return;
+        }
+
+        try {
+            if (isPeriodically) {
+                // We reschedule before running so that a stop call from inside the runnable takes effect.
+                timerWheel.schedule(this, interval);
+            } else {
+                stopped = true;
+            }
+            runnable.run();
+        } catch (Throwable t) {
+            log.error("exception in TimerWheelTimer", t);
+            stop();
+            throw t;
+        }
+    }
+}
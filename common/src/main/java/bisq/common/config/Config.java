@@ -27,6 +27,8 @@ import java.util.Optional;
 
 import ch.qos.logback.classic.Level;
 
+import lombok.extern.slf4j.Slf4j;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
@@ -52,6 +54,7 @@ import static java.util.stream.Collectors.toList;
  * @see #Config(String...)
  * @see #Config(String, File, String...)
  */
+@Slf4j
 public class Config {
 
     // Option name constants
@@ -95,6 +98,9 @@ public class Config {
     public static final String MSG_THROTTLE_PER_SEC = "msgThrottlePerSec";
     public static final String MSG_THROTTLE_PER_10_SEC = "msgThrottlePer10Sec";
     public static final String SEND_MSG_THROTTLE_TRIGGER = "sendMsgThrottleTrigger";
+    // Ignored since outbound messages are throttled with a token bucket. Still accepted so that existing
+    // configurations do not fail at startup.
+    @Deprecated
     public static final String SEND_MSG_THROTTLE_SLEEP = "sendMsgThrottleSleep";
     public static final String IGNORE_LOCAL_BTC_NODE = "ignoreLocalBtcNode";
     public static final String BITCOIN_REGTEST_HOST = "bitcoinRegtestHost";
@@ -127,6 +133,9 @@ public class Config {
     public static final String BTC_FEES_TS = "bitcoinFeesTs";
     public static final String BTC_FEE_INFO = "bitcoinFeeInfo";
     public static final String BYPASS_MEMPOOL_VALIDATION = "bypassMempoolValidation";
+    public static final String USE_NIO_NETWORK_CORE = "useNioNetworkCore";
+    public static final String NUM_RESIDENT_BSQ_BLOCKS = "numResidentBsqBlocks";
+    public static final String NUM_POW_MINTING_THREADS = "numPowMintingThreads";
 
     // Default values for certain options
     public static final int UNSPECIFIED_PORT = -1;
@@ -134,6 +143,8 @@ public class Config {
     public static final int DEFAULT_NUM_CONNECTIONS_FOR_BTC_PROVIDED = 7; // down from BitcoinJ default of 12
     public static final int DEFAULT_NUM_CONNECTIONS_FOR_BTC_PUBLIC = 9;
     public static final boolean DEFAULT_FULL_DAO_NODE = false;
+    // Covers the blocks we persist at a DAO state snapshot (up to 1000 blocks since the last full bucket)
+    public static final int DEFAULT_NUM_RESIDENT_BSQ_BLOCKS = 3000;
     static final String DEFAULT_CONFIG_FILE_NAME = "bisq.properties";
 
     // Static fields that provide access to Config properties in locations where injecting
@@ -190,7 +201,6 @@ public class Config {
     public final int msgThrottlePerSec;
     public final int msgThrottlePer10Sec;
     public final int sendMsgThrottleTrigger;
-    public final int sendMsgThrottleSleep;
     public final String btcNodes;
     public final boolean useTorForBtc;
     public final boolean useTorForBtcOptionSetExplicitly;
@@ -217,6 +227,9 @@ public class Config {
     public final boolean preventPeriodicShutdownAtSeedNode;
     public final boolean republishMailboxEntries;
     public final boolean bypassMempoolValidation;
+    public final boolean useNioNetworkCore;
+    public final int numResidentBsqBlocks;
+    public final int numPowMintingThreads;
 
     // Properties derived from options but not exposed as options themselves
     public final File torDir;
@@ -512,10 +525,10 @@ public class Config {
                         .defaultsTo(20); // Time in ms when we trigger a sleep if 2 messages are sent
 
         ArgumentAcceptingOptionSpec<Integer> sendMsgThrottleSleepOpt =
-                parser.accepts(SEND_MSG_THROTTLE_SLEEP, "Pause in ms to sleep if we get too many messages to send")
+                parser.accepts(SEND_MSG_THROTTLE_SLEEP, "Deprecated and ignored. Sending is throttled without " +
+                        "sleeping (see " + SEND_MSG_THROTTLE_TRIGGER + ")")
                         .withRequiredArg()
-                        .ofType(int.class)
-                        .defaultsTo(50); // Pause in ms to sleep if we get too many messages to send
+                        .ofType(int.class);
 
         ArgumentAcceptingOptionSpec<String> btcNodesOpt =
                 parser.accepts(BTC_NODES, "Custom nodes used for BitcoinJ as comma separated IP addresses.")
@@ -672,6 +685,30 @@ public class Config {
                         .ofType(boolean.class)
                         .defaultsTo(false);
 
+        ArgumentAcceptingOptionSpec<Boolean> useNioNetworkCoreOpt =
+                parser.accepts(USE_NIO_NETWORK_CORE,
+                        "Read from P2P connections with a shared selector thread instead of a thread per " +
+                                "connection. Only applies to connections without Tor (useLocalhostForP2P)")
+                        .withRequiredArg()
+                        .ofType(boolean.class)
+                        .defaultsTo(false);
+
+        ArgumentAcceptingOptionSpec<Integer> numResidentBsqBlocksOpt =
+                parser.accepts(NUM_RESIDENT_BSQ_BLOCKS,
+                        "Number of recent BSQ blocks kept in memory. Older blocks are read from the block archive " +
+                                "on disk. Use 0 to keep all blocks in memory")
+                        .withRequiredArg()
+                        .ofType(int.class)
+                        .defaultsTo(DEFAULT_NUM_RESIDENT_BSQ_BLOCKS);
+
+        ArgumentAcceptingOptionSpec<Integer> numPowMintingThreadsOpt =
+                parser.accepts(NUM_POW_MINTING_THREADS,
+                        "Number of threads used for minting the proof of work of offers. " +
+                                "Use 0 for the number of available processors")
+                        .withRequiredArg()
+                        .ofType(int.class)
+                        .defaultsTo(0);
+
         try {
             CompositeOptionSet options = new CompositeOptionSet();
 
@@ -762,7 +799,9 @@ public class Config {
             this.msgThrottlePerSec = options.valueOf(msgThrottlePerSecOpt);
             this.msgThrottlePer10Sec = options.valueOf(msgThrottlePer10SecOpt);
             this.sendMsgThrottleTrigger = options.valueOf(sendMsgThrottleTriggerOpt);
-            this.sendMsgThrottleSleep = options.valueOf(sendMsgThrottleSleepOpt);
+            if (options.has(sendMsgThrottleSleepOpt)) {
+                log.warn("The option {} is deprecated and gets ignored.", SEND_MSG_THROTTLE_SLEEP);
+            }
             this.btcNodes = options.valueOf(btcNodesOpt);
             this.useTorForBtc = options.valueOf(useTorForBtcOpt);
             this.useTorForBtcOptionSetExplicitly = options.has(useTorForBtcOpt);
@@ -790,6 +829,9 @@ public class Config {
             this.preventPeriodicShutdownAtSeedNode = options.valueOf(preventPeriodicShutdownAtSeedNodeOpt);
             this.republishMailboxEntries = options.valueOf(republishMailboxEntriesOpt);
             this.bypassMempoolValidation = options.valueOf(bypassMempoolValidationOpt);
+            this.useNioNetworkCore = options.valueOf(useNioNetworkCoreOpt);
+            this.numResidentBsqBlocks = options.valueOf(numResidentBsqBlocksOpt);
+            this.numPowMintingThreads = options.valueOf(numPowMintingThreadsOpt);
         } catch (OptionException ex) {
             throw new ConfigException("problem parsing option '%s': %s",
                     ex.options().get(0),
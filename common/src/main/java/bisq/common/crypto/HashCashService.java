@@ -46,7 +46,22 @@ public class HashCashService {
         return HashCashService.mint(payload,
                 challenge,
                 difficulty,
-                HashCashService::testDifficulty);
+                0);
+    }
+
+    // If numThreads is 0 we use all available processors
+    public static CompletableFuture<ProofOfWork> mint(byte[] payload,
+                                                      byte[] challenge,
+                                                      int difficulty,
+                                                      int numThreads) {
+        long ts = System.currentTimeMillis();
+        return ParallelMinter.mint(payload, challenge, ParallelMinter.hasMoreLeadingZerosThan(difficulty), numThreads)
+                .thenApply(counter -> {
+                    ProofOfWork proofOfWork = new ProofOfWork(payload, counter, challenge, difficulty,
+                            System.currentTimeMillis() - ts);
+                    log.info("Completed minting proofOfWork: {}", proofOfWork);
+                    return proofOfWork;
+                });
     }
 
     public static boolean verify(ProofOfWork proofOfWork) {
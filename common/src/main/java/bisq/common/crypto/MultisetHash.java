@@ -0,0 +1,75 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental, order independent hash over a multiset of byte arrays. Each element is hashed with SHA-256 and the
+ * element hashes are summed up modulo 2^256. Adding and removing an element are O(1) and the resulting digest does
+ * not depend on the order of the operations, so two collections with the same elements have the same digest.
+ * <p>
+ * It is used for detecting diverging state (e.g. the DAO state monitor) where the elements are derived from
+ * validated data. It is not meant as a commitment scheme against an adversary who can freely choose the elements.
+ */
+public class MultisetHash {
+    // Big endian limbs, limbs[0] is the most significant one
+    private final long[] limbs = new long[4];
+
+    public void add(byte[] element) {
+        long[] elementLimbs = toLimbs(Hash.getSha256Hash(element));
+        long carry = 0;
+        for (int i = 3; i >= 0; i--) {
+            long a = limbs[i];
+            long sum = a + elementLimbs[i] + carry;
+            // Unsigned overflow detection
+            carry = Long.compareUnsigned(sum, a) < 0 || (carry == 1 && sum == a) ? 1 : 0;
+            limbs[i] = sum;
+        }
+    }
+
+    public void remove(byte[] element) {
+        long[] elementLimbs = toLimbs(Hash.getSha256Hash(element));
+        long borrow = 0;
+        for (int i = 3; i >= 0; i--) {
+            long a = limbs[i];
+            long diff = a - elementLimbs[i] - borrow;
+            borrow = Long.compareUnsigned(a, elementLimbs[i]) < 0 || (borrow == 1 && a == elementLimbs[i]) ? 1 : 0;
+            limbs[i] = diff;
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < 4; i++) {
+            limbs[i] = 0;
+        }
+    }
+
+    public byte[] getDigest() {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(32);
+        for (long limb : limbs) {
+            byteBuffer.putLong(limb);
+        }
+        return byteBuffer.array();
+    }
+
+    private static long[] toLimbs(byte[] hash) {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(hash);
+        return new long[]{byteBuffer.getLong(), byteBuffer.getLong(), byteBuffer.getLong(), byteBuffer.getLong()};
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.crypto;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.math.BigInteger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+/**
+ * Searches the counter for a proof of work with multiple threads. The hash is the SHA-256 hash of payload, challenge
+ * and counter as in {@link ProofOfWorkService} and {@link HashCashService}.
+ * <p>
+ * With numThreads threads, thread i tests the counters i + 1, i + 1 + numThreads, i + 1 + 2 * numThreads,... so the
+ * counter space is split without overlap and the found counter is about as small as with a single thread. Each thread
+ * reuses its MessageDigest, pre-image and hash buffers, so no objects are created per hash. The hash test gets the
+ * raw hash bytes and must not keep a reference to them.
+ */
+class ParallelMinter {
+    private static final int HASH_SIZE = 32;
+    // We check for a result of other threads or a cancelled future only after a number of hashes
+    private static final int NUM_HASHES_PER_CHECK = 256;
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("ParallelMinter-%d")
+            .setDaemon(true)
+            .build());
+
+    /**
+     * @param numThreads Number of threads to use. If 0 or less we use the number of available processors.
+     * @return Future of the counter for which the hash passes the hashTest. Cancelling the future stops the minting.
+     */
+    static CompletableFuture<Long> mint(byte[] payload,
+                                        byte[] challenge,
+                                        Predicate<byte[]> hashTest,
+                                        int numThreads) {
+        int threads = numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors();
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        for (int i = 0; i < threads; i++) {
+            long firstCounter = i + 1;
+            executor.execute(() -> {
+                try {
+                    search(payload, challenge, hashTest, firstCounter, threads, future);
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        }
+        return future;
+    }
+
+    // Same result as new BigInteger(1, hash).compareTo(target) < 0 without creating a BigInteger per hash
+    static Predicate<byte[]> isLessThan(BigInteger target) {
+        if (target.signum() <= 0) {
+            return hash -> false;
+        }
+        if (target.bitLength() > 8 * HASH_SIZE) {
+            return hash -> true;
+        }
+        byte[] targetBytes = toUnsignedBytes(target);
+        return hash -> compareUnsigned(hash, targetBytes) < 0;
+    }
+
+    static Predicate<byte[]> hasMoreLeadingZerosThan(int difficulty) {
+        return hash -> HashCashService.numberOfLeadingZeros(hash) > difficulty;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static void search(byte[] payload,
+                               byte[] challenge,
+                               Predicate<byte[]> hashTest,
+                               long firstCounter,
+                               int step,
+                               CompletableFuture<Long> future) throws NoSuchAlgorithmException, DigestException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        // Pre-image is payload, challenge and the counter as 8 bytes big endian like Longs.toByteArray
+        byte[] preImage = new byte[payload.length + challenge.length + 8];
+        System.arraycopy(payload, 0, preImage, 0, payload.length);
+        System.arraycopy(challenge, 0, preImage, payload.length, challenge.length);
+        int counterOffset = payload.length + challenge.length;
+        byte[] hash = new byte[HASH_SIZE];
+
+        long counter = firstCounter;
+        while (true) {
+            for (int i = 0; i < NUM_HASHES_PER_CHECK; i++) {
+                writeLong(counter, preImage, counterOffset);
+                digest.update(preImage);
+                digest.digest(hash, 0, HASH_SIZE);
+                if (hashTest.test(hash)) {
+                    future.complete(counter);
+                    return;
+                }
+                counter += step;
+            }
+            if (future.isDone()) {
+                return;
+            }
+        }
+    }
+
+    private static void writeLong(long value, byte[] bytes, int offset) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>= 8;
+        }
+    }
+
+    // Returns the target as big endian byte array of HASH_SIZE bytes
+    private static byte[] toUnsignedBytes(BigInteger target) {
+        byte[] bytes = target.toByteArray();
+        byte[] result = new byte[HASH_SIZE];
+        // toByteArray might have a leading sign byte or fewer bytes
+        int length = Math.min(bytes.length, HASH_SIZE);
+        System.arraycopy(bytes, bytes.length - length, result, HASH_SIZE - length, length);
+        return result;
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        for (int i = 0; i < HASH_SIZE; i++) {
+            int diff = (a[i] & 0xff) - (b[i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+}
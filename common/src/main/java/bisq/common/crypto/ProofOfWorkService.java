@@ -49,7 +49,17 @@ public class ProofOfWorkService {
         return mint(payload,
                 challenge,
                 target,
-                ProofOfWorkService::testTarget);
+                0);
+    }
+
+    // If numThreads is 0 we use all available processors
+    public static CompletableFuture<ProofOfWork> mint(byte[] payload,
+                                                      byte[] challenge,
+                                                      BigInteger target,
+                                                      int numThreads) {
+        long ts = System.currentTimeMillis();
+        return ParallelMinter.mint(payload, challenge, ParallelMinter.isLessThan(target), numThreads)
+                .thenApply(counter -> new ProofOfWork(payload, counter, challenge, target, System.currentTimeMillis() - ts));
     }
 
     public static boolean verify(ProofOfWork proofOfWork) {
@@ -97,6 +97,10 @@ public class PersistenceManager<T extends PersistableEnvelope> {
         });
     }
 
+    public static boolean isAllServicesInitialized() {
+        return allServicesInitialized.get();
+    }
+
     public static void flushAllDataToDiskAtBackup(ResultHandler completeHandler) {
         flushAllDataToDisk(completeHandler, false);
     }
@@ -209,6 +213,7 @@ public class PersistenceManager<T extends PersistableEnvelope> {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private final File dir;
+    @Getter
     private final PersistenceProtoResolver persistenceProtoResolver;
     private final CorruptedStorageFileHandler corruptedStorageFileHandler;
     private File storageFile;
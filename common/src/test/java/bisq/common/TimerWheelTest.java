@@ -0,0 +1,113 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common;
+
+import java.time.Duration;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimerWheelTest {
+    private TimerWheel timerWheel;
+
+    @Before
+    public void setup() {
+        timerWheel = new TimerWheel(8);
+    }
+
+    @Test
+    public void testRunLater() {
+        AtomicInteger counter = new AtomicInteger();
+        new TimerWheelTimer(timerWheel).runLater(Duration.ofMillis(3 * TimerWheel.TICK_MS), counter::incrementAndGet);
+
+        assertTrue(tick().isEmpty());
+        assertTrue(tick().isEmpty());
+        List<TimerWheelTimer> due = tick();
+        assertEquals(1, due.size());
+        due.forEach(TimerWheelTimer::onDue);
+        assertEquals(1, counter.get());
+        assertEquals(0, timerWheel.size());
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(tick().isEmpty());
+        }
+    }
+
+    @Test
+    public void testDelayLongerThanOneRevolution() {
+        new TimerWheelTimer(timerWheel).runLater(Duration.ofMillis(19 * TimerWheel.TICK_MS), () -> {
+        });
+
+        for (int i = 1; i < 19; i++) {
+            assertTrue(tick().isEmpty());
+        }
+        assertEquals(1, tick().size());
+    }
+
+    @Test
+    public void testStop() {
+        Timer timer = new TimerWheelTimer(timerWheel).runLater(Duration.ofMillis(TimerWheel.TICK_MS), () -> {
+        });
+        assertEquals(1, timerWheel.size());
+        timer.stop();
+        assertEquals(0, timerWheel.size());
+        assertTrue(tick().isEmpty());
+    }
+
+    @Test
+    public void testRunPeriodically() {
+        AtomicInteger counter = new AtomicInteger();
+        Timer timer = new TimerWheelTimer(timerWheel).runPeriodically(Duration.ofMillis(2 * TimerWheel.TICK_MS),
+                counter::incrementAndGet);
+
+        for (int i = 0; i < 10; i++) {
+            tick().forEach(TimerWheelTimer::onDue);
+        }
+        assertEquals(5, counter.get());
+
+        timer.stop();
+        for (int i = 0; i < 10; i++) {
+            tick().forEach(TimerWheelTimer::onDue);
+        }
+        assertEquals(5, counter.get());
+        assertEquals(0, timerWheel.size());
+    }
+
+    @Test
+    public void testManyTimersInSameBucket() {
+        AtomicInteger counter = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            new TimerWheelTimer(timerWheel).runLater(Duration.ofMillis(i * TimerWheel.TICK_MS), counter::incrementAndGet);
+        }
+        for (int i = 0; i < 100; i++) {
+            tick().forEach(TimerWheelTimer::onDue);
+        }
+        assertEquals(100, counter.get());
+        assertEquals(0, timerWheel.size());
+    }
+
+    private List<TimerWheelTimer> tick() {
+        return timerWheel.tick();
+    }
+}
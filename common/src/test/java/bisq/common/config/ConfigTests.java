@@ -194,6 +194,12 @@ public class ConfigTests {
         assertThat(config.bannedBtcNodes, contains("foo.onion:8333", "bar.onion:8333"));
     }
 
+    @Test
+    public void whenDeprecatedSendMsgThrottleSleepOptionIsSet_thenItIsIgnored() {
+        Config config = configWithOpts(opt(SEND_MSG_THROTTLE_SLEEP, 50));
+        assertThat(config.sendMsgThrottleTrigger, equalTo(20));
+    }
+
     @Test
     public void whenHelpOptionIsSet_thenIsHelpRequestedIsTrue() {
         assertFalse(new Config().helpRequested);
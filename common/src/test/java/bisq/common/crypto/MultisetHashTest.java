@@ -0,0 +1,79 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.crypto;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+
+public class MultisetHashTest {
+
+    @Test
+    public void testOrderIndependence() {
+        MultisetHash first = new MultisetHash();
+        MultisetHash second = new MultisetHash();
+        for (int i = 0; i < 100; i++) {
+            first.add(toBytes("element" + i));
+        }
+        for (int i = 99; i >= 0; i--) {
+            second.add(toBytes("element" + i));
+        }
+        assertArrayEquals(first.getDigest(), second.getDigest());
+    }
+
+    @Test
+    public void testRemove() {
+        MultisetHash multisetHash = new MultisetHash();
+        byte[] empty = multisetHash.getDigest();
+
+        multisetHash.add(toBytes("a"));
+        byte[] withA = multisetHash.getDigest();
+        multisetHash.add(toBytes("b"));
+        assertFalse(Arrays.equals(withA, multisetHash.getDigest()));
+
+        multisetHash.remove(toBytes("b"));
+        assertArrayEquals(withA, multisetHash.getDigest());
+
+        multisetHash.remove(toBytes("a"));
+        assertArrayEquals(empty, multisetHash.getDigest());
+
+        // Removing from an empty set wraps around and adding it again gets us back to the empty digest
+        multisetHash.remove(toBytes("c"));
+        multisetHash.add(toBytes("c"));
+        assertArrayEquals(empty, multisetHash.getDigest());
+    }
+
+    @Test
+    public void testMultiplicity() {
+        MultisetHash once = new MultisetHash();
+        once.add(toBytes("a"));
+        MultisetHash twice = new MultisetHash();
+        twice.add(toBytes("a"));
+        twice.add(toBytes("a"));
+        assertFalse(Arrays.equals(once.getDigest(), twice.getDigest()));
+    }
+
+    private static byte[] toBytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
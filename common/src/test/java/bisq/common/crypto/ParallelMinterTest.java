@@ -0,0 +1,125 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.crypto;
+
+import java.nio.charset.StandardCharsets;
+
+import java.math.BigInteger;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelMinterTest {
+    private final static Logger log = LoggerFactory.getLogger(ParallelMinterTest.class);
+
+    @Test
+    public void testIsLessThan() {
+        Random random = new Random(1);
+        BigInteger[] targets = {
+                BigInteger.ONE,
+                ProofOfWorkService.getTarget(0),
+                ProofOfWorkService.getTarget(8),
+                ProofOfWorkService.getTarget(20),
+                BigInteger.TWO.pow(256).subtract(BigInteger.ONE),
+                new BigInteger(256, random),
+                new BigInteger(200, random)
+        };
+        byte[] hash = new byte[32];
+        for (BigInteger target : targets) {
+            Predicate<byte[]> isLessThan = ParallelMinter.isLessThan(target);
+            for (int i = 0; i < 1000; i++) {
+                random.nextBytes(hash);
+                // Make hashes with leading zeros more likely
+                hash[0] = (byte) (hash[0] >> (i % 8));
+                assertEquals(new BigInteger(1, hash).compareTo(target) < 0, isLessThan.test(hash));
+            }
+            byte[] targetHash = toHash(target);
+            assertFalse(isLessThan.test(targetHash));
+        }
+
+        assertFalse(ParallelMinter.isLessThan(BigInteger.ZERO).test(new byte[32]));
+        assertTrue(ParallelMinter.isLessThan(BigInteger.TWO.pow(256)).test(toHash(BigInteger.TWO.pow(256).subtract(BigInteger.ONE))));
+    }
+
+    @Test
+    public void testMintedProofOfWorkIsValid() throws ExecutionException, InterruptedException {
+        for (int numThreads = 1; numThreads <= 4; numThreads++) {
+            byte[] payload = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+            byte[] challenge = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+
+            ProofOfWork proofOfWork = ProofOfWorkService.mint(payload, challenge, ProofOfWorkService.getTarget(8), numThreads).get();
+            assertTrue(ProofOfWorkService.verify(proofOfWork));
+
+            proofOfWork = HashCashService.mint(payload, challenge, 8, numThreads).get();
+            assertTrue(HashCashService.verify(proofOfWork));
+        }
+    }
+
+    // Not a unit test but a benchmark comparing the single threaded minting with the parallel one. Run manually.
+    @Ignore
+    @Test
+    public void testMintingPerformance() throws ExecutionException, InterruptedException {
+        int numTokens = 100;
+        BigInteger target = ProofOfWorkService.getTarget(16);
+        byte[] payload = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+
+        long numHashes = 0;
+        long ts = System.currentTimeMillis();
+        for (int i = 0; i < numTokens; i++) {
+            byte[] challenge = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+            numHashes += ProofOfWorkService.mint(payload, challenge, target,
+                    (hash, t) -> new BigInteger(1, hash).compareTo(t) < 0).get().getCounter();
+        }
+        long duration = System.currentTimeMillis() - ts;
+        log.info("Single threaded: {} hashes/sec, {} ms per token", numHashes * 1000 / Math.max(1, duration),
+                duration / numTokens);
+
+        for (int numThreads = 1; numThreads <= Runtime.getRuntime().availableProcessors(); numThreads *= 2) {
+            numHashes = 0;
+            ts = System.currentTimeMillis();
+            for (int i = 0; i < numTokens; i++) {
+                byte[] challenge = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+                // The counter is about the number of hashes done in total by all threads
+                numHashes += ProofOfWorkService.mint(payload, challenge, target, numThreads).get().getCounter();
+            }
+            duration = System.currentTimeMillis() - ts;
+            log.info("Parallel with {} threads: {} hashes/sec, {} ms per token", numThreads,
+                    numHashes * 1000 / Math.max(1, duration), duration / numTokens);
+        }
+    }
+
+    private static byte[] toHash(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] hash = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, hash, 32 - length, length);
+        return hash;
+    }
+}
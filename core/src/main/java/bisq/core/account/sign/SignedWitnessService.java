@@ -24,6 +24,7 @@ import bisq.core.user.User;
 
 import bisq.network.p2p.BootstrapListener;
 import bisq.network.p2p.P2PService;
+import bisq.network.p2p.storage.HashKeyedMap;
 import bisq.network.p2p.storage.P2PDataStorage;
 import bisq.network.p2p.storage.persistence.AppendOnlyDataStoreService;
 
@@ -77,7 +78,8 @@ public class SignedWitnessService {
     private final User user;
     private final FilterManager filterManager;
 
-    private final Map<P2PDataStorage.ByteArray, SignedWitness> signedWitnessMap = new HashMap<>();
+    // Keyed by the 20 byte hash. HashKeyedMap needs much less memory than a HashMap for that large map.
+    private final Map<P2PDataStorage.ByteArray, SignedWitness> signedWitnessMap = new HashKeyedMap<>(20);
 
     // This map keeps all SignedWitnesses with the same AccountAgeWitnessHash in a Set.
     // This avoids iterations over the signedWitnessMap for getting the set of such SignedWitnesses.
@@ -130,7 +132,7 @@ public class SignedWitnessService {
         });
 
         // At startup the P2PDataStorage initializes earlier, otherwise we get the listener called.
-        signedWitnessStorageService.getMap().values().forEach(e -> {
+        signedWitnessStorageService.getMapOfAllData().values().forEach(e -> {
             if (e instanceof SignedWitness)
                 addToMap((SignedWitness) e);
         });
@@ -17,9 +17,8 @@
 
 package bisq.core.account.sign;
 
-import bisq.network.p2p.storage.P2PDataStorage;
 import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
-import bisq.network.p2p.storage.persistence.MapStoreService;
+import bisq.network.p2p.storage.persistence.HistoricalDataStoreService;
 
 import bisq.common.config.Config;
 import bisq.common.persistence.PersistenceManager;
@@ -29,12 +28,17 @@ import javax.inject.Named;
 
 import java.io.File;
 
-import java.util.Map;
-
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * There are no historical stores for the signed witnesses, all of them are in the live data. New signed witnesses are
+ * appended to the log of the HistoricalDataStoreService instead of rewriting the store file each time.
+ * <p>
+ * The existing SignedWitnessStore file gets migrated by reading it as the store of the live data. It keeps its format
+ * and is only written when the log gets compacted.
+ */
 @Slf4j
-public class SignedWitnessStorageService extends MapStoreService<SignedWitnessStore, PersistableNetworkPayload> {
+public class SignedWitnessStorageService extends HistoricalDataStoreService<SignedWitnessStore> {
     private static final String FILE_NAME = "SignedWitnessStore";
 
 
@@ -62,11 +66,6 @@ public class SignedWitnessStorageService extends MapStoreService<SignedWitnessSt
         return FILE_NAME;
     }
 
-    @Override
-    public Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> getMap() {
-        return store.getMap();
-    }
-
     @Override
     public boolean canHandle(PersistableNetworkPayload payload) {
         return payload instanceof SignedWitness;
@@ -77,6 +76,13 @@ public class SignedWitnessStorageService extends MapStoreService<SignedWitnessSt
     // Protected
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    @Override
+    protected void readFromResources(String postFix, Runnable completeHandler) {
+        // The resource file is not versioned, as for a MapStoreService we copy it if we do not have a store file yet
+        makeFileFromResourceFile(getFileName(), postFix);
+        super.readFromResources(postFix, completeHandler);
+    }
+
     @Override
     protected SignedWitnessStore createStore() {
         return new SignedWitnessStore();
@@ -40,6 +40,7 @@ import bisq.core.user.User;
 
 import bisq.network.p2p.BootstrapListener;
 import bisq.network.p2p.P2PService;
+import bisq.network.p2p.storage.HashKeyedMap;
 import bisq.network.p2p.storage.P2PDataStorage;
 import bisq.network.p2p.storage.persistence.AppendOnlyDataStoreService;
 
@@ -69,7 +70,6 @@ import java.time.Clock;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.GregorianCalendar;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -148,7 +148,8 @@ public class AccountAgeWitnessService {
     @Getter
     private final AccountAgeWitnessUtils accountAgeWitnessUtils;
 
-    private final Map<P2PDataStorage.ByteArray, AccountAgeWitness> accountAgeWitnessMap = new HashMap<>();
+    // Keyed by the 20 byte hash. HashKeyedMap needs much less memory than a HashMap for that large map.
+    private final Map<P2PDataStorage.ByteArray, AccountAgeWitness> accountAgeWitnessMap = new HashKeyedMap<>(20);
 
     // The accountAgeWitnessMap is very large (70k items) and access is a bit expensive. We usually only access less
     // than 100 items, those who have offers online. So we use a cache for a fast lookup and only if
@@ -19,6 +19,7 @@ package bisq.core.api;
 
 import bisq.core.api.model.AddressBalanceInfo;
 import bisq.core.api.model.BalancesInfo;
+import bisq.core.api.model.TradeStatisticsPage;
 import bisq.core.api.model.TxFeeRateInfo;
 import bisq.core.btc.wallet.TxBroadcaster;
 import bisq.core.offer.Offer;
@@ -28,8 +29,10 @@ import bisq.core.payment.payload.PaymentMethod;
 import bisq.core.trade.bisq_v1.TradeResultHandler;
 import bisq.core.trade.model.bisq_v1.Trade;
 import bisq.core.trade.model.bsq_swap.BsqSwapTrade;
-import bisq.core.trade.statistics.TradeStatistics3;
-import bisq.core.trade.statistics.TradeStatisticsManager;
+
+import bisq.proto.grpc.BalancesEvent;
+import bisq.proto.grpc.OfferEvent;
+import bisq.proto.grpc.TradeEvent;
 
 import bisq.common.app.Version;
 import bisq.common.config.Config;
@@ -38,12 +41,13 @@ import bisq.common.handlers.ResultHandler;
 
 import org.bitcoinj.core.Transaction;
 
+import org.fxmisc.easybind.Subscription;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import com.google.common.util.concurrent.FutureCallback;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -68,9 +72,10 @@ public class CoreApi {
     private final CoreOffersService coreOffersService;
     private final CorePaymentAccountsService paymentAccountsService;
     private final CorePriceService corePriceService;
+    private final CoreSubscriptionService coreSubscriptionService;
     private final CoreTradesService coreTradesService;
+    private final CoreTradeStatisticsService coreTradeStatisticsService;
     private final CoreWalletsService walletsService;
-    private final TradeStatisticsManager tradeStatisticsManager;
 
     @Inject
     public CoreApi(Config config,
@@ -79,9 +84,10 @@ public class CoreApi {
                    CoreOffersService coreOffersService,
                    CorePaymentAccountsService paymentAccountsService,
                    CorePriceService corePriceService,
+                   CoreSubscriptionService coreSubscriptionService,
                    CoreTradesService coreTradesService,
-                   CoreWalletsService walletsService,
-                   TradeStatisticsManager tradeStatisticsManager) {
+                   CoreTradeStatisticsService coreTradeStatisticsService,
+                   CoreWalletsService walletsService) {
         this.config = config;
         this.coreDisputeAgentsService = coreDisputeAgentsService;
         this.coreHelpService = coreHelpService;
@@ -89,8 +95,9 @@ public class CoreApi {
         this.paymentAccountsService = paymentAccountsService;
         this.coreTradesService = coreTradesService;
         this.corePriceService = corePriceService;
+        this.coreSubscriptionService = coreSubscriptionService;
+        this.coreTradeStatisticsService = coreTradeStatisticsService;
         this.walletsService = walletsService;
-        this.tradeStatisticsManager = tradeStatisticsManager;
     }
 
     @SuppressWarnings("SameReturnValue")
@@ -143,6 +150,13 @@ public class CoreApi {
         return coreOffersService.getOffers(direction, currencyCode);
     }
 
+    public Subscription subscribeOffers(String direction,
+                                        String currencyCode,
+                                        long afterSequenceNumber,
+                                        Consumer<OfferEvent> consumer) {
+        return coreSubscriptionService.subscribeOffers(direction, currencyCode, afterSequenceNumber, consumer);
+    }
+
     public List<OpenOffer> getMyOffers(String direction, String currencyCode) {
         return coreOffersService.getMyOffers(direction, currencyCode);
     }
@@ -317,6 +331,10 @@ public class CoreApi {
         return coreTradesService.getTradeRole(tradeId);
     }
 
+    public Subscription subscribeTradeEvents(long afterSequenceNumber, Consumer<TradeEvent> consumer) {
+        return coreSubscriptionService.subscribeTradeEvents(afterSequenceNumber, consumer);
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Wallets
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -325,6 +343,10 @@ public class CoreApi {
         return walletsService.getBalances(currencyCode);
     }
 
+    public Subscription subscribeBalances(long afterSequenceNumber, Consumer<BalancesEvent> consumer) {
+        return coreSubscriptionService.subscribeBalances(afterSequenceNumber, consumer);
+    }
+
     public long getAddressBalance(String addressString) {
         return walletsService.getAddressBalance(addressString);
     }
@@ -397,8 +419,20 @@ public class CoreApi {
         walletsService.removeWalletPassword(password);
     }
 
-    public List<TradeStatistics3> getTradeStatistics() {
-        return new ArrayList<>(tradeStatisticsManager.getObservableTradeStatisticsSet());
+    public TradeStatisticsPage getTradeStatistics(String currencyCode,
+                                                  String paymentMethodId,
+                                                  long fromDate,
+                                                  long toDate,
+                                                  long sinceDate,
+                                                  byte[] sinceHash,
+                                                  int pageSize) {
+        return coreTradeStatisticsService.getTradeStatistics(currencyCode,
+                paymentMethodId,
+                fromDate,
+                toDate,
+                sinceDate,
+                sinceHash,
+                pageSize);
     }
 
     public int getNumConfirmationsForMostRecentTransaction(String addressString) {
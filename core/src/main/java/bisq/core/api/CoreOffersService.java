@@ -23,6 +23,7 @@ import bisq.core.offer.Offer;
 import bisq.core.offer.OfferBookService;
 import bisq.core.offer.OfferDirection;
 import bisq.core.offer.OfferFilterService;
+import bisq.core.offer.OfferRepricingService;
 import bisq.core.offer.OfferUtil;
 import bisq.core.offer.OpenOffer;
 import bisq.core.offer.OpenOfferManager;
@@ -34,6 +35,7 @@ import bisq.core.payment.PaymentAccount;
 import bisq.core.provider.price.PriceFeedService;
 import bisq.core.user.User;
 
+import bisq.common.UserThread;
 import bisq.common.crypto.KeyRing;
 
 import org.bitcoinj.core.Coin;
@@ -43,11 +45,18 @@ import org.bitcoinj.utils.Fiat;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableSet;
+import javafx.collections.SetChangeListener;
+
 import java.math.BigDecimal;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -93,6 +102,14 @@ class CoreOffersService {
     private final PriceFeedService priceFeedService;
     private final User user;
 
+    // The user thread publishes immutable snapshots of the ids of the offers the API user can take and of the ids of
+    // our open offers. Read only API calls are served at the API threads and must not evaluate the offer filter
+    // or iterate the open offers list, which both depend on mutable state of the user thread.
+    private volatile Set<String> takeableOfferIds = Set.of();
+    private volatile Set<String> myOpenOfferIds = Set.of();
+    private boolean takeableOfferIdsUpdateScheduled;
+    private boolean paymentAccountsListenerAdded;
+
     @Inject
     public CoreOffersService(CoreContext coreContext,
                              KeyRing keyRing,
@@ -100,6 +117,7 @@ class CoreOffersService {
                              CreateOfferService createOfferService,
                              OfferBookService offerBookService,
                              OfferFilterService offerFilterService,
+                             OfferRepricingService offerRepricingService,
                              OpenOfferManager openOfferManager,
                              OpenBsqSwapOfferService openBsqSwapOfferService,
                              OfferUtil offerUtil,
@@ -116,6 +134,27 @@ class CoreOffersService {
         this.offerUtil = offerUtil;
         this.priceFeedService = priceFeedService;
         this.user = user;
+
+        offerBookService.addOfferBookChangedListener(new OfferBookService.OfferBookChangedListener() {
+            @Override
+            public void onAdded(Offer offer) {
+                scheduleTakeableOfferIdsUpdate();
+            }
+
+            @Override
+            public void onRemoved(Offer offer) {
+                scheduleTakeableOfferIdsUpdate();
+            }
+        });
+        // The offer filter checks depend on the offer price and on our payment accounts, which might change without
+        // a change of the offer book, so we update the snapshot also after each price update and after changes of
+        // the payment accounts (see maybeAddPaymentAccountsListener)
+        offerRepricingService.addListener(this::scheduleTakeableOfferIdsUpdate);
+        // We delay the first update, so that the apiUser flag of the coreContext is set when we evaluate the filter
+        scheduleTakeableOfferIdsUpdate();
+
+        openOfferManager.getObservableList().addListener((ListChangeListener<OpenOffer>) c -> updateMyOpenOfferIds());
+        updateMyOpenOfferIds();
     }
 
     Offer getBsqSwapOffer(String id) {
@@ -155,8 +194,9 @@ class CoreOffersService {
     }
 
 
+    // Can be called from the API threads
     List<Offer> getBsqSwapOffers(String direction) {
-        var offers = offerBookService.getOffers().stream()
+        var offers = getOfferBookOffers(direction, "BSQ").stream()
                 .filter(o -> !o.isMyOffer(keyRing))
                 .filter(o -> o.getDirection().name().equalsIgnoreCase(direction))
                 .filter(o -> o.isBsqSwapOffer())
@@ -165,11 +205,12 @@ class CoreOffersService {
         return offers;
     }
 
+    // Can be called from the API threads
     List<Offer> getOffers(String direction, String currencyCode) {
-        return offerBookService.getOffers().stream()
-                .filter(o -> !o.isMyOffer(keyRing))
+        Set<String> takeableOfferIds = this.takeableOfferIds;
+        return getOfferBookOffers(direction, currencyCode).stream()
+                .filter(o -> takeableOfferIds.contains(o.getId()))
                 .filter(o -> offerMatchesDirectionAndCurrency(o, direction, currencyCode))
-                .filter(o -> offerFilterService.canTakeOffer(o, coreContext.isApiUser()).isValid())
                 .sorted(priceComparator(direction))
                 .collect(Collectors.toList());
     }
@@ -183,7 +224,7 @@ class CoreOffersService {
     }
 
     List<Offer> getMyBsqSwapOffers(String direction) {
-        var offers = offerBookService.getOffers().stream()
+        var offers = getOfferBookOffers(direction, "BSQ").stream()
                 .filter(o -> o.isMyOffer(keyRing))
                 .filter(o -> o.getDirection().name().equalsIgnoreCase(direction))
                 .filter(Offer::isBsqSwapOffer)
@@ -207,10 +248,9 @@ class CoreOffersService {
                         new IllegalStateException(format("offer with id '%s' not found", id)));
     }
 
+    // Can be called from the API threads
     boolean isMyOffer(String id) {
-        return openOfferManager.getOpenOfferById(id)
-                .filter(open -> open.getOffer().isMyOffer(keyRing))
-                .isPresent();
+        return myOpenOfferIds.contains(id);
     }
 
     void createAndPlaceBsqSwapOffer(String directionAsString,
@@ -424,6 +464,58 @@ class CoreOffersService {
         }
     }
 
+    private void scheduleTakeableOfferIdsUpdate() {
+        // Offers get added one by one when we receive the offer book, so we update the snapshot only once after
+        // the current task of the user thread is completed.
+        if (takeableOfferIdsUpdateScheduled) {
+            return;
+        }
+
+        takeableOfferIdsUpdateScheduled = true;
+        UserThread.execute(() -> {
+            takeableOfferIdsUpdateScheduled = false;
+            maybeAddPaymentAccountsListener();
+            takeableOfferIds = offerBookService.getOffers().stream()
+                    .filter(o -> !o.isMyOffer(keyRing))
+                    .filter(o -> offerFilterService.canTakeOffer(o, coreContext.isApiUser()).isValid())
+                    .map(Offer::getId)
+                    .collect(Collectors.toUnmodifiableSet());
+        });
+    }
+
+    // The payment accounts are not available before the user got initialized, so we add the listener at the first
+    // update of the snapshot after that.
+    private void maybeAddPaymentAccountsListener() {
+        ObservableSet<PaymentAccount> paymentAccounts = user.getPaymentAccountsAsObservable();
+        if (paymentAccountsListenerAdded || paymentAccounts == null) {
+            return;
+        }
+
+        paymentAccountsListenerAdded = true;
+        paymentAccounts.addListener((SetChangeListener<PaymentAccount>) c -> scheduleTakeableOfferIdsUpdate());
+    }
+
+    private void updateMyOpenOfferIds() {
+        myOpenOfferIds = openOfferManager.getObservableList().stream()
+                .filter(open -> open.getOffer().isMyOffer(keyRing))
+                .map(OpenOffer::getId)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    // Returns the offers of the market from the offer book index. The callers still filter by direction and counter
+    // currency code. As the counter currency code of altcoin offers is BTC, we need all offers in case of BTC.
+    private List<Offer> getOfferBookOffers(String direction, String currencyCode) {
+        if (currencyCode.equalsIgnoreCase("BTC")) {
+            return offerBookService.getOffers();
+        }
+
+        return Arrays.stream(OfferDirection.values())
+                .filter(offerDirection -> offerDirection.name().equalsIgnoreCase(direction))
+                .findAny()
+                .map(offerDirection -> offerBookService.getOffers(currencyCode.toUpperCase(), offerDirection))
+                .orElse(new ArrayList<>());
+    }
+
     private boolean offerMatchesDirectionAndCurrency(Offer offer,
                                                      String direction,
                                                      String currencyCode) {
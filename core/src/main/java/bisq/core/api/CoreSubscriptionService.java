@@ -0,0 +1,308 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.api;
+
+import bisq.core.api.model.BalancesInfo;
+import bisq.core.offer.Offer;
+import bisq.core.offer.OfferBookService;
+import bisq.core.offer.OfferFilterService;
+import bisq.core.trade.TradeManager;
+import bisq.core.trade.bisq_v1.TradeUtil;
+import bisq.core.trade.model.bisq_v1.Trade;
+
+import bisq.proto.grpc.BalancesEvent;
+import bisq.proto.grpc.OfferEvent;
+import bisq.proto.grpc.TradeEvent;
+
+import bisq.common.crypto.KeyRing;
+
+import org.fxmisc.easybind.Subscription;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import javafx.beans.value.ChangeListener;
+
+import javafx.collections.ListChangeListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+import static bisq.core.api.model.OfferInfo.toOfferInfo;
+import static bisq.core.api.model.TradeInfo.toTradeInfo;
+
+/**
+ * Streams changes of the offer book, of our trades and of our balances to API subscribers,
+ * so clients do not need to poll for them.
+ * <p>
+ * Events are created and sent at the user thread. Offer events are only recorded while there are
+ * subscribers, as the offer book changes often.
+ */
+@Singleton
+@Slf4j
+class CoreSubscriptionService {
+    // Number of retained events a client can resume from. Offer events are by far the
+    // most frequent ones, so we retain more of those.
+    private static final int NUM_RETAINED_OFFER_EVENTS = 10_000;
+    private static final int NUM_RETAINED_TRADE_EVENTS = 1000;
+    private static final int NUM_RETAINED_BALANCES_EVENTS = 100;
+
+    private final CoreContext coreContext;
+    private final KeyRing keyRing;
+    private final OfferFilterService offerFilterService;
+    private final TradeManager tradeManager;
+    private final TradeUtil tradeUtil;
+    // Dependencies on core api services in this package must be kept to an absolute
+    // minimum, but we reuse their snapshots and wallet checks.
+    private final CoreOffersService coreOffersService;
+    private final CoreWalletsService coreWalletsService;
+
+    private final EventLog<OfferEvent> offerEvents = new EventLog<>(NUM_RETAINED_OFFER_EVENTS);
+    private final EventLog<TradeEvent> tradeEvents = new EventLog<>(NUM_RETAINED_TRADE_EVENTS);
+    private final EventLog<BalancesEvent> balancesEvents = new EventLog<>(NUM_RETAINED_BALANCES_EVENTS);
+    // Listeners on the state of our open trades by trade id
+    private final Map<String, ChangeListener<Object>> tradeStateListeners = new HashMap<>();
+    @Nullable
+    private bisq.proto.grpc.BalancesInfo lastBalances;
+
+    @Inject
+    public CoreSubscriptionService(CoreContext coreContext,
+                                   KeyRing keyRing,
+                                   OfferBookService offerBookService,
+                                   OfferFilterService offerFilterService,
+                                   TradeManager tradeManager,
+                                   TradeUtil tradeUtil,
+                                   CoreOffersService coreOffersService,
+                                   CoreWalletsService coreWalletsService) {
+        this.coreContext = coreContext;
+        this.keyRing = keyRing;
+        this.offerFilterService = offerFilterService;
+        this.tradeManager = tradeManager;
+        this.tradeUtil = tradeUtil;
+        this.coreOffersService = coreOffersService;
+        this.coreWalletsService = coreWalletsService;
+
+        offerBookService.addOfferBookChangedListener(new OfferBookService.OfferBookChangedListener() {
+            @Override
+            public void onAdded(Offer offer) {
+                onOfferAdded(offer);
+            }
+
+            @Override
+            public void onRemoved(Offer offer) {
+                onOfferRemoved(offer);
+            }
+        });
+
+        tradeManager.getObservableList().addListener((ListChangeListener<Trade>) c -> {
+            while (c.next()) {
+                c.getRemoved().forEach(this::onTradeRemoved);
+                c.getAddedSubList().forEach(this::onTradeAdded);
+            }
+        });
+        tradeManager.getObservableList().forEach(this::addTradeStateListener);
+
+        coreWalletsService.addBalancesListener(this::onBalancesChanged);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    Subscription subscribeOffers(String direction,
+                                 String currencyCode,
+                                 long afterSequenceNumber,
+                                 Consumer<OfferEvent> consumer) {
+        return offerEvents.subscribe(afterSequenceNumber,
+                () -> coreOffersService.getOffers(direction, currencyCode).stream()
+                        .map(offer -> toOfferEvent(offerEvents.getLastSequenceNumber(),
+                                OfferEvent.EventType.ADDED,
+                                true,
+                                offer))
+                        .collect(Collectors.toList()),
+                event -> {
+                    if (event.getDirection().equalsIgnoreCase(direction) &&
+                            event.getCounterCurrencyCode().equalsIgnoreCase(currencyCode)) {
+                        consumer.accept(event);
+                    }
+                });
+    }
+
+    Subscription subscribeTradeEvents(long afterSequenceNumber, Consumer<TradeEvent> consumer) {
+        coreWalletsService.verifyWalletsAreAvailable();
+        coreWalletsService.verifyEncryptedWalletIsUnlocked();
+        return tradeEvents.subscribe(afterSequenceNumber, this::getTradeEventsSnapshot, consumer);
+    }
+
+    Subscription subscribeBalances(long afterSequenceNumber, Consumer<BalancesEvent> consumer) {
+        coreWalletsService.verifyWalletsAreAvailable();
+        coreWalletsService.verifyEncryptedWalletIsUnlocked();
+        return balancesEvents.subscribe(afterSequenceNumber,
+                () -> lastBalances == null ?
+                        List.of() :
+                        List.of(BalancesEvent.newBuilder()
+                                .setSequenceNumber(balancesEvents.getLastSequenceNumber())
+                                .setIsSnapshot(true)
+                                .setBalances(lastBalances)
+                                .build()),
+                consumer);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Offers
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void onOfferAdded(Offer offer) {
+        // Filtering and converting the offers of the offer book is expensive, so we do not record the events
+        // while nobody is subscribed. A client subscribing later gets a snapshot.
+        if (offerEvents.getNumSubscribers() == 0) {
+            offerEvents.skip();
+            return;
+        }
+
+        // We apply the same filter as for the getoffers call
+        if (offer.isMyOffer(keyRing) || !offerFilterService.canTakeOffer(offer, coreContext.isApiUser()).isValid()) {
+            return;
+        }
+
+        // Without a market price we cannot provide the price of a market based offer
+        if (offer.getPrice() == null) {
+            return;
+        }
+
+        offerEvents.add(sequenceNumber -> toOfferEvent(sequenceNumber, OfferEvent.EventType.ADDED, false, offer));
+    }
+
+    private void onOfferRemoved(Offer offer) {
+        if (offerEvents.getNumSubscribers() == 0) {
+            offerEvents.skip();
+            return;
+        }
+
+        // The removal of an offer we did not send is ignored by the clients, so we do not need to filter here
+        offerEvents.add(sequenceNumber -> OfferEvent.newBuilder()
+                .setSequenceNumber(sequenceNumber)
+                .setEventType(OfferEvent.EventType.REMOVED)
+                .setOfferId(offer.getId())
+                .setDirection(offer.getDirection().name())
+                .setCounterCurrencyCode(offer.getCounterCurrencyCode())
+                .build());
+    }
+
+    private OfferEvent toOfferEvent(long sequenceNumber,
+                                    OfferEvent.EventType eventType,
+                                    boolean isSnapshot,
+                                    Offer offer) {
+        return OfferEvent.newBuilder()
+                .setSequenceNumber(sequenceNumber)
+                .setEventType(eventType)
+                .setIsSnapshot(isSnapshot)
+                .setOfferId(offer.getId())
+                .setDirection(offer.getDirection().name())
+                .setCounterCurrencyCode(offer.getCounterCurrencyCode())
+                .setOffer(toOfferInfo(offer).toProtoMessage())
+                .build();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Trades
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void onTradeAdded(Trade trade) {
+        addTradeStateListener(trade);
+        addTradeEvent(trade);
+    }
+
+    private void onTradeRemoved(Trade trade) {
+        ChangeListener<Object> listener = tradeStateListeners.remove(trade.getId());
+        if (listener != null) {
+            trade.stateProperty().removeListener(listener);
+            trade.disputeStateProperty().removeListener(listener);
+        }
+        // The trade got completed or failed, we send its final state
+        addTradeEvent(trade);
+    }
+
+    private void addTradeStateListener(Trade trade) {
+        ChangeListener<Object> listener = (observable, oldValue, newValue) -> addTradeEvent(trade);
+        trade.stateProperty().addListener(listener);
+        trade.disputeStateProperty().addListener(listener);
+        tradeStateListeners.put(trade.getId(), listener);
+    }
+
+    private void addTradeEvent(Trade trade) {
+        try {
+            tradeEvents.add(sequenceNumber -> toTradeEvent(sequenceNumber, false, trade));
+        } catch (Throwable t) {
+            log.warn("Could not create trade event for trade {}. Error: {}", trade.getShortId(), t.toString());
+        }
+    }
+
+    private List<TradeEvent> getTradeEventsSnapshot() {
+        List<TradeEvent> snapshot = new ArrayList<>();
+        tradeManager.getObservableList().forEach(trade -> {
+            try {
+                snapshot.add(toTradeEvent(tradeEvents.getLastSequenceNumber(), true, trade));
+            } catch (Throwable t) {
+                log.warn("Could not create trade event for trade {}. Error: {}", trade.getShortId(), t.toString());
+            }
+        });
+        return snapshot;
+    }
+
+    private TradeEvent toTradeEvent(long sequenceNumber, boolean isSnapshot, Trade trade) {
+        // The role is not known before we have the contract
+        String role = trade.getContract() != null ? tradeUtil.getRole(trade) : "";
+        boolean isMyOffer = coreOffersService.isMyOffer(trade.getOffer().getId());
+        return TradeEvent.newBuilder()
+                .setSequenceNumber(sequenceNumber)
+                .setIsSnapshot(isSnapshot)
+                .setTrade(toTradeInfo(trade, role, isMyOffer).toProtoMessage())
+                .build();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Balances
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void onBalancesChanged(BalancesInfo balancesInfo) {
+        bisq.proto.grpc.BalancesInfo balances = balancesInfo.toProtoMessage();
+        // Several balances get updated one after the other when a transaction is applied, we only send the changes
+        if (balances.equals(lastBalances)) {
+            return;
+        }
+
+        lastBalances = balances;
+        balancesEvents.add(sequenceNumber -> BalancesEvent.newBuilder()
+                .setSequenceNumber(sequenceNumber)
+                .setBalances(balances)
+                .build());
+    }
+}
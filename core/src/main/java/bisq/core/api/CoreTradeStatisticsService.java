@@ -0,0 +1,77 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.api;
+
+import bisq.core.api.model.TradeStatisticsPage;
+import bisq.core.trade.statistics.TradeStatistics3;
+import bisq.core.trade.statistics.TradeStatisticsManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static java.lang.String.format;
+
+/**
+ * Serves the trade statistics page by page from the date sorted index of the
+ * TradeStatisticsManager.  Does not need to run at the user thread.
+ */
+@Singleton
+@Slf4j
+class CoreTradeStatisticsService {
+
+    static final int DEFAULT_PAGE_SIZE = 1000;
+    static final int MAX_PAGE_SIZE = 10_000;
+
+    private final TradeStatisticsManager tradeStatisticsManager;
+
+    @Inject
+    public CoreTradeStatisticsService(TradeStatisticsManager tradeStatisticsManager) {
+        this.tradeStatisticsManager = tradeStatisticsManager;
+    }
+
+    TradeStatisticsPage getTradeStatistics(String currencyCode,
+                                           String paymentMethodId,
+                                           long fromDate,
+                                           long toDate,
+                                           long sinceDate,
+                                           byte[] sinceHash,
+                                           int pageSize) {
+        if (pageSize < 0 || pageSize > MAX_PAGE_SIZE)
+            throw new IllegalArgumentException(format("page size must be between 0 and %d", MAX_PAGE_SIZE));
+
+        int limit = pageSize == 0 ? DEFAULT_PAGE_SIZE : pageSize;
+        boolean hasCursor = sinceHash.length > 0 && sinceDate >= fromDate;
+        long from = Math.max(fromDate, sinceDate);
+        long to = toDate == 0 ? Long.MAX_VALUE : toDate;
+        // We take one more than the page size to know if there are more
+        List<TradeStatistics3> tradeStatistics = tradeStatisticsManager.getTradeStatisticsByDate(from,
+                hasCursor ? sinceHash : null,
+                to).stream()
+                .filter(e -> currencyCode.isEmpty() || e.getCurrency().equalsIgnoreCase(currencyCode))
+                .filter(e -> paymentMethodId.isEmpty() || e.getPaymentMethod().equalsIgnoreCase(paymentMethodId))
+                .limit(limit + 1)
+                .collect(Collectors.toList());
+        boolean hasMore = tradeStatistics.size() > limit;
+        return new TradeStatisticsPage(hasMore ? tradeStatistics.subList(0, limit) : tradeStatistics, hasMore);
+    }
+}
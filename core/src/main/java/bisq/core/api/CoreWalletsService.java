@@ -74,6 +74,8 @@ import org.bouncycastle.crypto.params.KeyParameter;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -106,8 +108,15 @@ class CoreWalletsService {
     @Nullable
     private Timer lockTimer;
 
+    // Read from the API threads when checking if the wallet is unlocked
     @Nullable
-    private KeyParameter tempAesKey;
+    private volatile KeyParameter tempAesKey;
+
+    // Immutable snapshot of the BTC and BSQ balances, published at the user thread whenever a balance changes.
+    // Balance requests get served from it at the API threads.
+    @Nullable
+    private volatile BalancesInfo balancesSnapshot;
+    private final List<Consumer<BalancesInfo>> balancesListeners = new CopyOnWriteArrayList<>();
 
     private final ListeningExecutorService executor = Utilities.getSingleThreadListeningExecutor("CoreWalletsService");
 
@@ -134,6 +143,18 @@ class CoreWalletsService {
         this.btcFormatter = btcFormatter;
         this.feeService = feeService;
         this.preferences = preferences;
+
+        balances.getAvailableBalance().addListener((observable, oldValue, newValue) -> updateBalancesSnapshot());
+        balances.getReservedBalance().addListener((observable, oldValue, newValue) -> updateBalancesSnapshot());
+        balances.getLockedBalance().addListener((observable, oldValue, newValue) -> updateBalancesSnapshot());
+        bsqWalletService.addBsqBalanceListener((availableBalance,
+                                                availableNonBsqBalance,
+                                                unverifiedBalance,
+                                                unconfirmedChangeBalance,
+                                                lockedForVotingBalance,
+                                                lockedInBondsBalance,
+                                                unlockingBondsBalance) -> updateBalancesSnapshot());
+        updateBalancesSnapshot();
     }
 
     @Nullable
@@ -146,23 +167,34 @@ class CoreWalletsService {
         return btcWalletService.getWallet().getContext().getParams();
     }
 
+    // Can be called from the API threads
     BalancesInfo getBalances(String currencyCode) {
         verifyWalletCurrencyCodeIsValid(currencyCode);
         verifyWalletsAreAvailable();
         verifyEncryptedWalletIsUnlocked();
-        if (balances.getAvailableBalance().get() == null)
+        BalancesInfo balancesInfo = balancesSnapshot;
+        if (balancesInfo == null)
             throw new IllegalStateException("balance is not yet available");
 
         switch (currencyCode.trim().toUpperCase()) {
             case "BSQ":
-                return new BalancesInfo(getBsqBalances(), BtcBalanceInfo.EMPTY);
+                return new BalancesInfo(balancesInfo.getBsq(), BtcBalanceInfo.EMPTY);
             case "BTC":
-                return new BalancesInfo(BsqBalanceInfo.EMPTY, getBtcBalances());
+                return new BalancesInfo(BsqBalanceInfo.EMPTY, balancesInfo.getBtc());
             default:
-                return new BalancesInfo(getBsqBalances(), getBtcBalances());
+                return balancesInfo;
         }
     }
 
+    // The listener gets called at the user thread with the new balances. If the balances are
+    // already available, it gets called immediately with the current balances.
+    void addBalancesListener(Consumer<BalancesInfo> listener) {
+        balancesListeners.add(listener);
+        BalancesInfo balancesInfo = balancesSnapshot;
+        if (balancesInfo != null)
+            listener.accept(balancesInfo);
+    }
+
     long getAddressBalance(String addressString) {
         Address address = getAddressEntry(addressString).getAddress();
         return btcWalletService.getBalanceForAddress(address).value;
@@ -578,10 +610,19 @@ class CoreWalletsService {
         }
     }
 
-    private BsqBalanceInfo getBsqBalances() {
-        verifyWalletsAreAvailable();
-        verifyEncryptedWalletIsUnlocked();
+    private void updateBalancesSnapshot() {
+        // The BTC balances are not available before the wallet is initialized
+        if (balances.getAvailableBalance().get() == null ||
+                balances.getReservedBalance().get() == null ||
+                balances.getLockedBalance().get() == null)
+            return;
 
+        BalancesInfo balancesInfo = new BalancesInfo(getBsqBalances(), getBtcBalances());
+        balancesSnapshot = balancesInfo;
+        balancesListeners.forEach(listener -> listener.accept(balancesInfo));
+    }
+
+    private BsqBalanceInfo getBsqBalances() {
         var availableBalance = bsqWalletService.getAvailableBalance();
         var unverifiedBalance = bsqWalletService.getUnverifiedBalance();
         var unconfirmedChangeBalance = bsqWalletService.getUnconfirmedChangeBalance();
@@ -598,21 +639,9 @@ class CoreWalletsService {
     }
 
     private BtcBalanceInfo getBtcBalances() {
-        verifyWalletsAreAvailable();
-        verifyEncryptedWalletIsUnlocked();
-
         var availableBalance = balances.getAvailableBalance().get();
-        if (availableBalance == null)
-            throw new IllegalStateException("balance is not yet available");
-
         var reservedBalance = balances.getReservedBalance().get();
-        if (reservedBalance == null)
-            throw new IllegalStateException("reserved balance is not yet available");
-
         var lockedBalance = balances.getLockedBalance().get();
-        if (lockedBalance == null)
-            throw new IllegalStateException("locked balance is not yet available");
-
         return new BtcBalanceInfo(availableBalance.value,
                 reservedBalance.value,
                 availableBalance.add(reservedBalance).value,
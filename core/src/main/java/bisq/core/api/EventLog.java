@@ -0,0 +1,118 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.api;
+
+import org.fxmisc.easybind.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Log of the events of one kind which get streamed to API subscribers.
+ * <p>
+ * Each event gets a sequence number and the most recent events are retained, so a client
+ * which lost its subscription can resume after the last event it has received. If those
+ * events are not retained anymore, the client gets a snapshot of the current state
+ * instead. The sequence numbers start with the current time in milliseconds times 1000,
+ * so the sequence numbers of a previous run of the daemon are lower than the first
+ * retained one and lead to a snapshot.
+ * <p>
+ * Must only be used at the user thread.
+ */
+@Slf4j
+class EventLog<E> {
+    private final int capacity;
+    private final Deque<E> events = new ArrayDeque<>();
+    private final List<Consumer<E>> subscribers = new ArrayList<>();
+    private long lastSequenceNumber;
+
+    EventLog(int capacity) {
+        this(capacity, System.currentTimeMillis() * 1000);
+    }
+
+    EventLog(int capacity, long lastSequenceNumber) {
+        this.capacity = capacity;
+        this.lastSequenceNumber = lastSequenceNumber;
+    }
+
+    // The eventFactory creates the event for the given sequence number. If it throws, the sequence number
+    // does not get used, so the retained events always have consecutive sequence numbers.
+    void add(LongFunction<E> eventFactory) {
+        long sequenceNumber = lastSequenceNumber + 1;
+        E event = eventFactory.apply(sequenceNumber);
+        lastSequenceNumber = sequenceNumber;
+        events.add(event);
+        if (events.size() > capacity) {
+            events.remove();
+        }
+
+        new ArrayList<>(subscribers).forEach(subscriber -> {
+            try {
+                subscriber.accept(event);
+            } catch (Throwable t) {
+                log.warn("Sending event to subscriber failed. We remove the subscriber. Error: {}", t.toString());
+                subscribers.remove(subscriber);
+            }
+        });
+    }
+
+    // Used instead of add if nobody is subscribed and creating the event is expensive. The retained events get
+    // dropped and the sequence number is used without an event, so every client subscribing later gets a snapshot.
+    void skip() {
+        lastSequenceNumber++;
+        events.clear();
+    }
+
+    long getLastSequenceNumber() {
+        return lastSequenceNumber;
+    }
+
+    int getNumSubscribers() {
+        return subscribers.size();
+    }
+
+    /**
+     * Sends the retained events after afterSequenceNumber to the subscriber, or the snapshot if
+     * those are not retained anymore, and subscribes it to the new events.
+     *
+     * @param afterSequenceNumber   The sequence number of the last event the client has received or 0
+     * @param snapshotSupplier      Supplies the events describing the current state
+     * @param subscriber            Receives the events
+     * @return The subscription for unsubscribing
+     */
+    Subscription subscribe(long afterSequenceNumber, Supplier<List<E>> snapshotSupplier, Consumer<E> subscriber) {
+        long lastNotRetainedSequenceNumber = lastSequenceNumber - events.size();
+        if (afterSequenceNumber >= lastNotRetainedSequenceNumber && afterSequenceNumber <= lastSequenceNumber) {
+            events.stream()
+                    .skip(afterSequenceNumber - lastNotRetainedSequenceNumber)
+                    .forEach(subscriber);
+        } else {
+            snapshotSupplier.get().forEach(subscriber);
+        }
+
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+}
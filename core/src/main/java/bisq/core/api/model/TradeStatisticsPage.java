@@ -0,0 +1,34 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.api.model;
+
+import bisq.core.trade.statistics.TradeStatistics3;
+
+import java.util.List;
+
+import lombok.Value;
+
+/**
+ * A page of the trade statistics returned by the gettradestatistics call. If hasMore is set,
+ * the next page starts after the last trade statistics of this page.
+ */
+@Value
+public class TradeStatisticsPage {
+    List<TradeStatistics3> tradeStatistics;
+    boolean hasMore;
+}
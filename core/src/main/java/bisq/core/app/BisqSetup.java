@@ -694,7 +694,7 @@ public class BisqSetup {
 
     private void checkSigningState(AccountAgeWitnessService.SignState state,
                                    String key, Consumer<String> displayHandler) {
-        boolean signingStateFound = signedWitnessStorageService.getMap().values().stream()
+        boolean signingStateFound = signedWitnessStorageService.getMapOfAllData().values().stream()
                 .anyMatch(payload -> isSignedWitnessOfMineWithState(payload, state));
 
         maybeTriggerDisplayHandler(key, displayHandler, signingStateFound);
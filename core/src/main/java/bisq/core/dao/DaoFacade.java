@@ -209,8 +209,14 @@ public class DaoFacade implements DaoSetupService {
         daoStateService.addDaoStateListener(new DaoStateListener() {
             @Override
             public void onNewBlockHeight(int blockHeight) {
-                if (blockHeight > 0 && periodService.getCurrentCycle() != null)
-                    periodService.getCurrentCycle().getPhaseForHeight(blockHeight).ifPresent(phaseProperty::set);
+                // In catch-up mode we only update the phase once at the end
+                if (!daoStateService.isInCatchUpMode())
+                    updatePhase(blockHeight);
+            }
+
+            @Override
+            public void onCatchUpComplete() {
+                updatePhase(daoStateService.getChainHeight());
             }
         });
     }
@@ -517,6 +523,11 @@ public class DaoFacade implements DaoSetupService {
         return phaseProperty;
     }
 
+    private void updatePhase(int blockHeight) {
+        if (blockHeight > 0 && periodService.getCurrentCycle() != null)
+            periodService.getCurrentCycle().getPhaseForHeight(blockHeight).ifPresent(phaseProperty::set);
+    }
+
     public int getChainHeight() {
         return daoStateService.getChainHeight();
     }
@@ -83,10 +83,19 @@ import javax.annotation.Nullable;
  * state to the peers to not get ignored it in case they have not received the block yet.
  *
  * We do persist that chain of hashes with the snapshot.
+ *
+ * With hash chain version 2 (activated at HASH_CHAIN_V2_HEIGHT) we do not serialize the whole daoState anymore for
+ * each block but use the digests of the DaoStateHashAccumulator which are updated incrementally at each state change.
+ * Hashes below the activation height are created as before so the existing checkpoints stay valid.
  */
 @Slf4j
 public class DaoStateMonitoringService implements DaoSetupService, DaoStateListener,
         DaoStateNetworkService.Listener<NewDaoStateHashMessage, GetDaoStateHashesRequest, DaoStateHash> {
+    // Not scheduled yet on mainnet and testnet. Needs to be set to a future block height with the release which
+    // activates it, as nodes on different hash chain versions see each other in conflict.
+    private static final int HASH_CHAIN_V2_HEIGHT_MAINNET = Integer.MAX_VALUE;
+    private static final int HASH_CHAIN_V2_HEIGHT_TESTNET = Integer.MAX_VALUE;
+    private static final int HASH_CHAIN_V2_HEIGHT_REGTEST = 1;
 
     public interface Listener {
         void onDaoStateHashesChanged();
@@ -202,11 +211,26 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
     @Override
     public void onDaoStateChanged(Block block) {
         // During syncing we do not call checkUtxos as its a bit slow (about 4 ms)
-        if (parseBlockChainComplete) {
+        if (parseBlockChainComplete && !daoStateService.isInCatchUpMode()) {
             checkUtxos(block);
         }
     }
 
+    @Override
+    public void onCatchUpComplete() {
+        if (!parseBlockChainComplete) {
+            return;
+        }
+
+        // In catch-up mode we have not checked the utxos, notified our listeners and broadcast our hashes at each
+        // block, so we do it once for the last block.
+        daoStateService.getLastBlock().ifPresent(this::checkUtxos);
+        listeners.forEach(Listener::onDaoStateHashesChanged);
+        if (!daoStateHashChain.isEmpty() && daoStateHashChain.getLast().getHeight() == daoStateService.getChainHeight()) {
+            broadcastMyStateHash(daoStateHashChain.getLast());
+        }
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // StateNetworkService.Listener
@@ -251,7 +275,7 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
 
     public void createHashFromBlock(Block block) {
         createDaoStateBlock(block);
-        if (parseBlockChainComplete) {
+        if (parseBlockChainComplete && !daoStateService.isInCatchUpMode()) {
             // We notify listeners only after batch processing to avoid performance issues at UI code
             listeners.forEach(Listener::onDaoStateHashesChanged);
         }
@@ -332,7 +356,9 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
             }
         }
 
-        byte[] stateAsBytes = daoStateService.getSerializedStateForHashChain();
+        byte[] stateAsBytes = isHashChainV2Activated(height) ?
+                daoStateService.getIncrementalSerializedStateForHashChain() :
+                daoStateService.getSerializedStateForHashChain();
         // We include the prev. hash in our new hash so we can be sure that if one hash is matching all the past would
         // match as well.
         byte[] combined = ArrayUtils.addAll(prevHash, stateAsBytes);
@@ -344,15 +370,9 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
         daoStateBlockByHeight.put(height, daoStateBlock);
         daoStateHashChain.add(myDaoStateHash);
 
-        // We only broadcast after parsing of blockchain is complete
-        if (parseBlockChainComplete) {
-            // We delay broadcast to give peers enough time to have received the block.
-            // Otherwise they would ignore our data if received block is in future to their local blockchain.
-            int delayInSec = 5 + new Random().nextInt(10);
-            if (Config.baseCurrencyNetwork().isRegtest()) {
-                delayInSec = 1;
-            }
-            UserThread.runAfter(() -> daoStateNetworkService.broadcastMyStateHash(myDaoStateHash), delayInSec);
+        // We only broadcast after parsing of blockchain is complete. In catch-up mode we broadcast only the last hash.
+        if (parseBlockChainComplete && !daoStateService.isInCatchUpMode()) {
+            broadcastMyStateHash(myDaoStateHash);
         }
         long duration = System.currentTimeMillis() - ts;
         // We don't want to spam the output. We log accumulated time after parsing is completed.
@@ -364,6 +384,16 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
         return Optional.of(daoStateBlock);
     }
 
+    private void broadcastMyStateHash(DaoStateHash myDaoStateHash) {
+        // We delay broadcast to give peers enough time to have received the block.
+        // Otherwise they would ignore our data if received block is in future to their local blockchain.
+        int delayInSec = 5 + new Random().nextInt(10);
+        if (Config.baseCurrencyNetwork().isRegtest()) {
+            delayInSec = 1;
+        }
+        UserThread.runAfter(() -> daoStateNetworkService.broadcastMyStateHash(myDaoStateHash), delayInSec);
+    }
+
     private void processPeersDaoStateHashes(List<DaoStateHash> stateHashes, Optional<NodeAddress> peersNodeAddress) {
         boolean useDaoMonitor = preferences.isUseFullModeDaoMonitor();
         stateHashes.forEach(peersHash -> {
@@ -495,6 +525,16 @@ public class DaoStateMonitoringService implements DaoSetupService, DaoStateListe
         }
     }
 
+    private static boolean isHashChainV2Activated(int height) {
+        return height >= getHashChainV2Height();
+    }
+
+    private static int getHashChainV2Height() {
+        return Config.baseCurrencyNetwork().isMainnet() ? HASH_CHAIN_V2_HEIGHT_MAINNET :
+                Config.baseCurrencyNetwork().isTestnet() ? HASH_CHAIN_V2_HEIGHT_TESTNET :
+                        HASH_CHAIN_V2_HEIGHT_REGTEST;
+    }
+
     private boolean isSeedNode(String peersNodeAddress) {
         return seedNodeAddresses.contains(peersNodeAddress);
     }
@@ -19,7 +19,6 @@ package bisq.core.dao.node.explorer;
 
 import bisq.core.dao.DaoSetupService;
 import bisq.core.dao.state.DaoStateService;
-import bisq.core.dao.state.model.DaoState;
 import bisq.core.dao.state.model.blockchain.Block;
 import bisq.core.dao.state.model.blockchain.PubKeyScript;
 import bisq.core.dao.state.model.blockchain.Tx;
@@ -148,11 +147,12 @@ public class ExportJsonFilesService implements DaoSetupService {
 
             GcUtil.maybeReleaseMemory();
 
-            DaoState daoState = daoStateService.getClone();
-            List<JsonBlock> jsonBlockList = daoState.getBlocks().stream()
+            // Older blocks are not kept in memory, so we request them from the daoStateService instead of using a clone
+            // of the daoState
+            List<JsonBlock> jsonBlockList = daoStateService.getBlocksFromBlockHeight(daoStateService.getGenesisBlockHeight()).stream()
                     .map(this::getJsonBlock)
                     .collect(Collectors.toList());
-            JsonBlocks jsonBlocks = new JsonBlocks(daoState.getChainHeight(), jsonBlockList);
+            JsonBlocks jsonBlocks = new JsonBlocks(daoStateService.getChainHeight(), jsonBlockList);
 
             ListenableFuture<Void> future = executor.submit(() -> {
                 bsqStateFileManager.writeToDisc(JsonUtil.objectToJson(jsonBlocks), "blocks");
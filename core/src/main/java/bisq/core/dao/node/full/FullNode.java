@@ -239,6 +239,7 @@ public class FullNode extends BsqNode {
                                        ResultHandler resultHandler,
                                        Consumer<Throwable> errorHandler) {
         rpcService.requestDtoBlock(blockHeight,
+                chainHeight,
                 rawBlock -> {
                     try {
                         doParseBlock(rawBlock).ifPresent(newBlockHandler);
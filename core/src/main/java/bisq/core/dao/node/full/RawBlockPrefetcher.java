@@ -0,0 +1,108 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Requests the blocks following the requested block in advance, so that at the initial sync we don't have to wait
+ * for a RPC round trip to bitcoind for each block. Up to windowSize blocks are requested and decoded concurrently
+ * but the caller still gets them one by one in the order it requests them, so the blocks are parsed strictly in
+ * sequence.
+ */
+@Slf4j
+@ThreadSafe
+class RawBlockPrefetcher {
+    interface BlockSource {
+        RawBlock requestBlock(int blockHeight) throws Exception;
+    }
+
+    private final BlockSource blockSource;
+    private final ListeningExecutorService executor;
+    private final int windowSize;
+    // Pending or completed requests by block height
+    private final Map<Integer, ListenableFuture<RawBlock>> requests = new HashMap<>();
+    private int expectedBlockHeight = -1;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    RawBlockPrefetcher(BlockSource blockSource, ListeningExecutorService executor, int windowSize) {
+        this.blockSource = blockSource;
+        this.executor = executor;
+        this.windowSize = windowSize;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @param blockHeight   Height of the requested block
+     * @param chainHeight   We do not request blocks above chainHeight in advance
+     * @return Future of the block at blockHeight
+     */
+    synchronized ListenableFuture<RawBlock> getBlock(int blockHeight, int chainHeight) {
+        if (blockHeight != expectedBlockHeight) {
+            // We got requested another block as expected (e.g. after a reorg), so the blocks we have requested in
+            // advance might not be needed or might not be valid anymore.
+            clear();
+        }
+        expectedBlockHeight = blockHeight + 1;
+
+        ListenableFuture<RawBlock> future = requests.remove(blockHeight);
+        if (future == null) {
+            future = submit(blockHeight);
+        }
+
+        int maxBlockHeight = Math.min(chainHeight, blockHeight + windowSize);
+        for (int height = blockHeight + 1; height <= maxBlockHeight; height++) {
+            requests.computeIfAbsent(height, this::submit);
+        }
+        return future;
+    }
+
+    synchronized void clear() {
+        if (!requests.isEmpty()) {
+            log.info("We cancel {} requests of prefetched blocks", requests.size());
+            requests.values().forEach(future -> future.cancel(true));
+            requests.clear();
+        }
+        expectedBlockHeight = -1;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private ListenableFuture<RawBlock> submit(int blockHeight) {
+        return executor.submit(() -> blockSource.requestBlock(blockHeight));
+    }
+}
@@ -56,6 +56,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 
 import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -75,6 +76,10 @@ public class RpcService {
     private static final int ACTIVATE_HARD_FORK_2_HEIGHT_TESTNET = 1943000;
     private static final int ACTIVATE_HARD_FORK_2_HEIGHT_REGTEST = 1;
     private static final Range<Integer> SUPPORTED_NODE_VERSION_RANGE = Range.closedOpen(180000, 210100);
+    // Number of blocks we request in advance of the block we parse. Bitcoin Core handles 4 RPC requests in parallel
+    // by default (rpcthreads) and queues up to 16 (rpcworkqueue).
+    private static final int BLOCK_PREFETCH_WINDOW = 16;
+    private static final int BLOCK_PREFETCH_THREADS = 4;
 
     private final String rpcUser;
     private final String rpcPassword;
@@ -86,9 +91,12 @@ public class RpcService {
     private BitcoindClient client;
     private BitcoindDaemon daemon;
 
-    // We could use multiple threads but then we need to support ordering of results in a queue
-    // Keep that for optimization after measuring performance differences
     private final ListeningExecutorService executor = Utilities.getSingleThreadListeningExecutor("RpcService");
+    // Blocks are requested and decoded in parallel but the blockPrefetcher delivers them in the requested order
+    private final ListeningExecutorService prefetchExecutor = Utilities.getListeningExecutorService(
+            "RpcService-prefetch-%d", BLOCK_PREFETCH_THREADS, BLOCK_PREFETCH_THREADS, 60, new LinkedBlockingQueue<>());
+    private final RawBlockPrefetcher blockPrefetcher = new RawBlockPrefetcher(this::requestRawBlock,
+            prefetchExecutor, BLOCK_PREFETCH_WINDOW);
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -132,7 +140,9 @@ public class RpcService {
             log.info("daemon shut down");
         }
 
+        blockPrefetcher.clear();
         executor.shutdown();
+        prefetchExecutor.shutdownNow();
     }
 
     void setup(ResultHandler resultHandler, Consumer<Throwable> errorHandler) {
@@ -234,19 +244,12 @@ public class RpcService {
         }, MoreExecutors.directExecutor());
     }
 
+    // The blocks up to chainHeight get requested in advance, so we expect to get called with blockHeight + 1 next
     void requestDtoBlock(int blockHeight,
+                         int chainHeight,
                          Consumer<RawBlock> resultHandler,
                          Consumer<Throwable> errorHandler) {
-        ListenableFuture<RawBlock> future = executor.submit(() -> {
-            long startTs = System.currentTimeMillis();
-            String blockHash = client.getBlockHash(blockHeight);
-            var rawDtoBlock = client.getBlock(blockHash, 2);
-            var block = getBlockFromRawDtoBlock(rawDtoBlock);
-            log.info("requestDtoBlock from bitcoind at blockHeight {} with {} txs took {} ms",
-                    blockHeight, block.getRawTxs().size(), System.currentTimeMillis() - startTs);
-            return block;
-        });
-
+        ListenableFuture<RawBlock> future = blockPrefetcher.getBlock(blockHeight, chainHeight);
         Futures.addCallback(future, new FutureCallback<>() {
             @Override
             public void onSuccess(RawBlock block) {
@@ -256,6 +259,7 @@ public class RpcService {
             @Override
             public void onFailure(@NotNull Throwable throwable) {
                 log.error("Error at requestDtoBlock: blockHeight={}", blockHeight);
+                blockPrefetcher.clear();
                 UserThread.execute(() -> errorHandler.accept(throwable));
             }
         }, MoreExecutors.directExecutor());
@@ -266,7 +270,19 @@ public class RpcService {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    private static RawBlock getBlockFromRawDtoBlock(RawDtoBlock rawDtoBlock) {
+    // Called from the prefetchExecutor threads
+    private RawBlock requestRawBlock(int blockHeight) throws IOException {
+        long startTs = System.currentTimeMillis();
+        String blockHash = client.getBlockHash(blockHeight);
+        var rawDtoBlock = client.getBlock(blockHash, 2);
+        var block = getBlockFromRawDtoBlock(rawDtoBlock);
+        log.info("requestDtoBlock from bitcoind at blockHeight {} with {} txs took {} ms",
+                blockHeight, block.getRawTxs().size(), System.currentTimeMillis() - startTs);
+        return block;
+    }
+
+    @VisibleForTesting
+    static RawBlock getBlockFromRawDtoBlock(RawDtoBlock rawDtoBlock) {
         List<RawTx> txList = rawDtoBlock.getTx().stream()
                 .map(e -> getTxFromRawTransaction(e, rawDtoBlock))
                 .collect(Collectors.toList());
@@ -22,7 +22,6 @@ import bisq.core.dao.governance.voteresult.MissingDataRequestService;
 import bisq.core.dao.node.full.RawBlock;
 import bisq.core.dao.node.messages.GetBlocksRequest;
 import bisq.core.dao.node.messages.NewBlockBroadcastMessage;
-import bisq.core.dao.state.DaoStateService;
 import bisq.core.dao.state.model.blockchain.Block;
 
 import bisq.network.p2p.network.Connection;
@@ -60,7 +59,7 @@ public class FullNodeNetworkService implements MessageListener, PeerManager.List
     private final PeerManager peerManager;
     private final Broadcaster broadcaster;
     private final MissingDataRequestService missingDataRequestService;
-    private final DaoStateService daoStateService;
+    private final GetBlocksResponseCache getBlocksResponseCache;
 
     // Key is connection UID
     private final Map<String, GetBlocksRequestHandler> getBlocksRequestHandlers = new HashMap<>();
@@ -76,12 +75,12 @@ public class FullNodeNetworkService implements MessageListener, PeerManager.List
                                   PeerManager peerManager,
                                   Broadcaster broadcaster,
                                   MissingDataRequestService missingDataRequestService,
-                                  DaoStateService daoStateService) {
+                                  GetBlocksResponseCache getBlocksResponseCache) {
         this.networkNode = networkNode;
         this.peerManager = peerManager;
         this.broadcaster = broadcaster;
         this.missingDataRequestService = missingDataRequestService;
-        this.daoStateService = daoStateService;
+        this.getBlocksResponseCache = getBlocksResponseCache;
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -91,6 +90,7 @@ public class FullNodeNetworkService implements MessageListener, PeerManager.List
     public void start() {
         networkNode.addMessageListener(this);
         peerManager.addListener(this);
+        getBlocksResponseCache.start();
     }
 
     @SuppressWarnings("Duplicates")
@@ -98,6 +98,7 @@ public class FullNodeNetworkService implements MessageListener, PeerManager.List
         stopped = true;
         networkNode.removeMessageListener(this);
         peerManager.removeListener(this);
+        getBlocksResponseCache.shutDown();
     }
 
     public void publishNewBlock(Block block) {
@@ -163,7 +164,7 @@ public class FullNodeNetworkService implements MessageListener, PeerManager.List
         }
 
         GetBlocksRequestHandler requestHandler = new GetBlocksRequestHandler(networkNode,
-                daoStateService,
+                getBlocksResponseCache,
                 new GetBlocksRequestHandler.Listener() {
                     @Override
                     public void onComplete() {
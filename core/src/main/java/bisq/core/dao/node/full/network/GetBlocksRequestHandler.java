@@ -17,28 +17,23 @@
 
 package bisq.core.dao.node.full.network;
 
-import bisq.core.dao.node.full.RawBlock;
 import bisq.core.dao.node.messages.GetBlocksRequest;
-import bisq.core.dao.node.messages.GetBlocksResponse;
-import bisq.core.dao.state.DaoStateService;
-import bisq.core.dao.state.model.blockchain.Block;
 
 import bisq.network.p2p.network.CloseConnectionReason;
 import bisq.network.p2p.network.Connection;
 import bisq.network.p2p.network.NetworkNode;
+import bisq.network.p2p.network.SerializedEnvelope;
 
 import bisq.common.Timer;
 import bisq.common.UserThread;
+import bisq.common.util.Tuple2;
 
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -50,6 +45,8 @@ import org.jetbrains.annotations.NotNull;
 @Slf4j
 class GetBlocksRequestHandler {
     private static final long TIMEOUT_MIN = 3;
+    // We limit number of blocks to 6000 which is about 1.5 month.
+    private static final int MAX_BLOCKS = 6000;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -68,7 +65,7 @@ class GetBlocksRequestHandler {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private final NetworkNode networkNode;
-    private final DaoStateService daoStateService;
+    private final GetBlocksResponseCache getBlocksResponseCache;
     private final Listener listener;
     private Timer timeoutTimer;
     private boolean stopped;
@@ -78,9 +75,11 @@ class GetBlocksRequestHandler {
     // Constructor
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    public GetBlocksRequestHandler(NetworkNode networkNode, DaoStateService daoStateService, Listener listener) {
+    public GetBlocksRequestHandler(NetworkNode networkNode,
+                                   GetBlocksResponseCache getBlocksResponseCache,
+                                   Listener listener) {
         this.networkNode = networkNode;
-        this.daoStateService = daoStateService;
+        this.getBlocksResponseCache = getBlocksResponseCache;
         this.listener = listener;
     }
 
@@ -91,14 +90,16 @@ class GetBlocksRequestHandler {
 
     public void onGetBlocksRequest(GetBlocksRequest getBlocksRequest, Connection connection) {
         long ts = System.currentTimeMillis();
-        // We limit number of blocks to 6000 which is about 1.5 month.
-        List<Block> blocks = new LinkedList<>(daoStateService.getBlocksFromBlockHeight(getBlocksRequest.getFromBlockHeight(), 6000));
-        List<RawBlock> rawBlocks = blocks.stream().map(RawBlock::fromBlock).collect(Collectors.toList());
-        GetBlocksResponse getBlocksResponse = new GetBlocksResponse(rawBlocks, getBlocksRequest.getNonce());
+        // The response is assembled from the cached serialized blocks, so we send the serialized form
+        Tuple2<SerializedEnvelope, Integer> tuple = getBlocksResponseCache.getSerializedResponse(
+                getBlocksRequest.getFromBlockHeight(), MAX_BLOCKS, getBlocksRequest.getNonce());
+        SerializedEnvelope getBlocksResponse = tuple.first;
+        int numBlocks = tuple.second;
         log.info("Received GetBlocksRequest from {} for blocks from height {}. " +
-                        "Building GetBlocksResponse with {} blocks took {} ms.",
+                        "Building GetBlocksResponse with {} blocks and {} kB took {} ms. Cache hit rate: {}",
                 connection.getPeersNodeAddressOptional(), getBlocksRequest.getFromBlockHeight(),
-                rawBlocks.size(), System.currentTimeMillis() - ts);
+                numBlocks, getBlocksResponse.getSerializedSize() / 1000d, System.currentTimeMillis() - ts,
+                getBlocksResponseCache.getHitRate());
 
         if (timeoutTimer != null) {
             timeoutTimer.stop();
@@ -106,7 +107,7 @@ class GetBlocksRequestHandler {
         }
         timeoutTimer = UserThread.runAfter(() -> {  // setup before sending to avoid race conditions
                     String errorMessage = "A timeout occurred for getBlocksResponse.requestNonce:" +
-                            getBlocksResponse.getRequestNonce() +
+                            getBlocksRequest.getNonce() +
                             " on connection: " + connection;
                     handleFault(errorMessage, CloseConnectionReason.SEND_MSG_TIMEOUT, connection);
                 },
@@ -117,8 +118,8 @@ class GetBlocksRequestHandler {
             @Override
             public void onSuccess(Connection connection) {
                 if (!stopped) {
-                    log.info("Send DataResponse to {} succeeded. getBlocksResponse.getBlocks().size()={}",
-                            connection.getPeersNodeAddressOptional(), getBlocksResponse.getBlocks().size());
+                    log.info("Send DataResponse to {} succeeded. Number of blocks={}",
+                            connection.getPeersNodeAddressOptional(), numBlocks);
                     cleanup();
                     listener.onComplete();
                 } else {
@@ -130,7 +131,8 @@ class GetBlocksRequestHandler {
             public void onFailure(@NotNull Throwable throwable) {
                 if (!stopped) {
                     String errorMessage = "Sending getBlocksResponse to " + connection +
-                            " failed. That is expected if the peer is offline. getBlocksResponse=" + getBlocksResponse + "." +
+                            " failed. That is expected if the peer is offline. getBlocksResponse.requestNonce=" +
+                            getBlocksRequest.getNonce() + "." +
                             "Exception: " + throwable.getMessage();
                     handleFault(errorMessage, CloseConnectionReason.SEND_MSG_FAILURE, connection);
                 } else {
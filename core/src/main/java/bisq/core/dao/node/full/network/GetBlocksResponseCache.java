@@ -0,0 +1,349 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full.network;
+
+import bisq.core.dao.node.full.RawBlock;
+import bisq.core.dao.node.messages.GetBlocksResponse;
+import bisq.core.dao.state.DaoStateListener;
+import bisq.core.dao.state.DaoStateService;
+import bisq.core.dao.state.model.blockchain.Block;
+
+import bisq.network.p2p.network.SerializedEnvelope;
+
+import bisq.common.app.Version;
+import bisq.common.util.Tuple2;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache of the serialized RawBlocks for GetBlocksResponse messages. Most lite nodes request the same recent blocks,
+ * so we serialize each block only once and assemble the responses by concatenating the cached bytes.
+ * <p>
+ * The blocks are kept in buckets of BUCKET_SIZE blocks, which contain the serialized raw_blocks fields of the
+ * GetBlocksResponse. A request for a range of blocks is served from a few slices of those buckets. Only the last
+ * MAX_CACHED_BLOCKS blocks are cached. At a reorg the blocks from the reorg height get parsed again, so when a block
+ * gets parsed we remove all cached blocks from its height.
+ */
+@Slf4j
+@Singleton
+public class GetBlocksResponseCache implements DaoStateListener {
+    @VisibleForTesting
+    static final int BUCKET_SIZE = 100;
+    private static final int MAX_CACHED_BLOCKS = 10_000;
+
+    // Serialized raw_blocks fields of the blocks from firstHeight on
+    private static class Bucket {
+        private final int firstHeight;
+        // Offsets of the blocks in data. The last valid offset is the size of the valid data.
+        private final int[] offsets = new int[BUCKET_SIZE + 1];
+        private byte[] data = new byte[0];
+        private int numBlocks;
+
+        Bucket(int firstHeight) {
+            this.firstHeight = firstHeight;
+        }
+
+        boolean contains(int height) {
+            return height >= firstHeight && height < firstHeight + numBlocks;
+        }
+
+        int getLastHeight() {
+            return firstHeight + numBlocks - 1;
+        }
+
+        void add(byte[] field) {
+            int size = offsets[numBlocks];
+            if (data.length < size + field.length) {
+                data = Arrays.copyOf(data, Math.max(2 * data.length, size + field.length));
+            }
+            System.arraycopy(field, 0, data, size, field.length);
+            numBlocks++;
+            offsets[numBlocks] = size + field.length;
+            if (numBlocks == BUCKET_SIZE) {
+                // Once the bucket is complete we don't need the spare capacity
+                data = Arrays.copyOf(data, offsets[numBlocks]);
+            }
+        }
+
+        void truncate(int fromHeight) {
+            numBlocks = Math.max(0, fromHeight - firstHeight);
+        }
+
+        Fragment getFragment(int fromHeight, int toHeight) {
+            if (!contains(fromHeight)) {
+                return new Fragment(data, 0, 0, 0);
+            }
+            return new Fragment(data,
+                    offsets[fromHeight - firstHeight],
+                    offsets[toHeight - firstHeight + 1],
+                    toHeight - fromHeight + 1);
+        }
+    }
+
+    private final DaoStateService daoStateService;
+    // Key is the first height of the bucket
+    private final NavigableMap<Integer, Bucket> buckets = new TreeMap<>();
+
+    @Getter
+    private long numRequests;
+    @Getter
+    private long numBlocksServed;
+    private long numBlocksServedFromCache;
+    @Getter
+    private long numBytesServed;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Inject
+    public GetBlocksResponseCache(DaoStateService daoStateService) {
+        this.daoStateService = daoStateService;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void start() {
+        daoStateService.addDaoStateListener(this);
+    }
+
+    public void shutDown() {
+        daoStateService.removeDaoStateListener(this);
+        buckets.clear();
+    }
+
+    /**
+     * @return The serialized GetBlocksResponse with up to numMaxBlocks blocks from fromBlockHeight on and the number
+     * of blocks. The GetBlocksResponse of the returned envelope does not contain the blocks, they are only contained
+     * in the serialized form. It is only used for the message statistics.
+     */
+    Tuple2<SerializedEnvelope, Integer> getSerializedResponse(int fromBlockHeight, int numMaxBlocks, int requestNonce) {
+        Tuple2<byte[], Integer> tuple = serializeResponse(fromBlockHeight, numMaxBlocks, requestNonce);
+        return new Tuple2<>(SerializedEnvelope.of(new GetBlocksResponse(new ArrayList<>(), requestNonce), tuple.first),
+                tuple.second);
+    }
+
+    // Share of the served blocks which have been served from the cache
+    public double getHitRate() {
+        return numBlocksServed > 0 ? (double) numBlocksServedFromCache / numBlocksServed : 0;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // DaoStateListener
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public void onParseBlockComplete(Block block) {
+        // If we have cached blocks at that height already we got a reorg and the cached blocks are invalid
+        int height = block.getHeight();
+        buckets.tailMap(height, true).clear();
+        Bucket bucket = buckets.isEmpty() ? null : buckets.lastEntry().getValue();
+        if (bucket != null && bucket.getLastHeight() >= height) {
+            bucket.truncate(height);
+        }
+
+        // We remove the buckets below the cached range
+        buckets.headMap(getFirstCachedHeight(height), false).clear();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Returns the serialized protobuf.NetworkEnvelope and the number of blocks
+    @VisibleForTesting
+    Tuple2<byte[], Integer> serializeResponse(int fromBlockHeight, int numMaxBlocks, int requestNonce) {
+        List<Fragment> fragments = new ArrayList<>();
+        int numBlocks = 0;
+        int lastHeight = daoStateService.getBlockHeightOfLastBlock();
+        int height = Math.max(fromBlockHeight, daoStateService.getGenesisBlockHeight());
+        int toHeight = (int) Math.min(lastHeight, (long) height + numMaxBlocks - 1);
+        int firstCachedHeight = getFirstCachedHeight(lastHeight);
+        if (!daoStateService.getBlocks().isEmpty() && numMaxBlocks > 0) {
+            while (height <= toHeight) {
+                Fragment fragment;
+                if (height < firstCachedHeight) {
+                    fragment = serializeBlocks(height, Math.min(toHeight, firstCachedHeight - 1));
+                } else {
+                    Bucket bucket = getBucket(height);
+                    boolean isCached = bucket.contains(height);
+                    if (!isCached) {
+                        fillBucket(bucket, Math.min(lastHeight, bucket.firstHeight + BUCKET_SIZE - 1));
+                    }
+                    int to = Math.min(toHeight, bucket.getLastHeight());
+                    fragment = bucket.getFragment(height, to);
+                    if (isCached) {
+                        numBlocksServedFromCache += fragment.numBlocks;
+                    }
+                }
+                if (fragment.numBlocks == 0) {
+                    break;
+                }
+                fragments.add(fragment);
+                numBlocks += fragment.numBlocks;
+                height += fragment.numBlocks;
+            }
+        }
+
+        byte[] bytes = serializeEnvelope(fragments, requestNonce);
+        numRequests++;
+        numBlocksServed += numBlocks;
+        numBytesServed += bytes.length;
+        return new Tuple2<>(bytes, numBlocks);
+    }
+
+    // A slice of serialized raw_blocks fields
+    private static class Fragment {
+        private final byte[] data;
+        private final int from;
+        private final int to;
+        private final int numBlocks;
+
+        Fragment(byte[] data, int from, int to, int numBlocks) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+            this.numBlocks = numBlocks;
+        }
+    }
+
+    // First height of the bucket which contains the oldest block we cache
+    private int getFirstCachedHeight(int lastHeight) {
+        return getFirstHeightOfBucket(Math.max(daoStateService.getGenesisBlockHeight(), lastHeight - MAX_CACHED_BLOCKS + 1));
+    }
+
+    private int getFirstHeightOfBucket(int height) {
+        return height - Math.floorMod(height - daoStateService.getGenesisBlockHeight(), BUCKET_SIZE);
+    }
+
+    private Bucket getBucket(int height) {
+        return buckets.computeIfAbsent(getFirstHeightOfBucket(height), Bucket::new);
+    }
+
+    private void fillBucket(Bucket bucket, int toHeight) {
+        int fromHeight = bucket.firstHeight + bucket.numBlocks;
+        for (Block block : daoStateService.getBlocksFromBlockHeight(fromHeight, toHeight - fromHeight + 1)) {
+            if (block.getHeight() != bucket.getLastHeight() + 1) {
+                log.warn("Block at height {} does not connect to the cached blocks", block.getHeight());
+                break;
+            }
+            bucket.add(serializeBlock(block));
+        }
+    }
+
+    // For blocks which are not cached
+    private Fragment serializeBlocks(int fromHeight, int toHeight) {
+        List<Block> blocks = daoStateService.getBlocksFromBlockHeight(fromHeight, toHeight - fromHeight + 1);
+        List<byte[]> fields = new ArrayList<>();
+        int size = 0;
+        for (Block block : blocks) {
+            byte[] field = serializeBlock(block);
+            fields.add(field);
+            size += field.length;
+        }
+        byte[] data = new byte[size];
+        int offset = 0;
+        for (byte[] field : fields) {
+            System.arraycopy(field, 0, data, offset, field.length);
+            offset += field.length;
+        }
+        return new Fragment(data, 0, size, blocks.size());
+    }
+
+    // Returns the block as serialized raw_blocks field of the GetBlocksResponse
+    private static byte[] serializeBlock(Block block) {
+        byte[] rawBlock = RawBlock.fromBlock(block).toProtoMessage().toByteArray();
+        byte[] field = new byte[CodedOutputStream.computeByteArraySize(
+                protobuf.GetBlocksResponse.RAW_BLOCKS_FIELD_NUMBER, rawBlock)];
+        CodedOutputStream codedOutputStream = CodedOutputStream.newInstance(field);
+        try {
+            codedOutputStream.writeByteArray(protobuf.GetBlocksResponse.RAW_BLOCKS_FIELD_NUMBER, rawBlock);
+            codedOutputStream.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // Cannot happen as we write to an array of the computed size
+            throw new IllegalStateException(e);
+        }
+        return field;
+    }
+
+    // Writes the fields in the same order as protobuf.NetworkEnvelope.writeTo would do
+    private static byte[] serializeEnvelope(List<Fragment> fragments, int requestNonce) {
+        int responseSize = 0;
+        for (Fragment fragment : fragments) {
+            responseSize += fragment.to - fragment.from;
+        }
+        // Default values are not written in proto3
+        if (requestNonce != 0) {
+            responseSize += CodedOutputStream.computeInt32Size(protobuf.GetBlocksResponse.REQUEST_NONCE_FIELD_NUMBER,
+                    requestNonce);
+        }
+        int messageVersion = Version.getP2PMessageVersion();
+        int messageVersionSize = messageVersion != 0 ?
+                CodedOutputStream.computeInt32Size(protobuf.NetworkEnvelope.MESSAGE_VERSION_FIELD_NUMBER, messageVersion) :
+                0;
+        int size = messageVersionSize +
+                CodedOutputStream.computeTagSize(protobuf.NetworkEnvelope.GET_BLOCKS_RESPONSE_FIELD_NUMBER) +
+                CodedOutputStream.computeUInt32SizeNoTag(responseSize) +
+                responseSize;
+
+        byte[] result = new byte[size];
+        CodedOutputStream codedOutputStream = CodedOutputStream.newInstance(result);
+        try {
+            if (messageVersion != 0) {
+                codedOutputStream.writeInt32(protobuf.NetworkEnvelope.MESSAGE_VERSION_FIELD_NUMBER, messageVersion);
+            }
+            codedOutputStream.writeTag(protobuf.NetworkEnvelope.GET_BLOCKS_RESPONSE_FIELD_NUMBER,
+                    WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            codedOutputStream.writeUInt32NoTag(responseSize);
+            for (Fragment fragment : fragments) {
+                codedOutputStream.writeRawBytes(fragment.data, fragment.from, fragment.to - fragment.from);
+            }
+            if (requestNonce != 0) {
+                codedOutputStream.writeInt32(protobuf.GetBlocksResponse.REQUEST_NONCE_FIELD_NUMBER, requestNonce);
+            }
+            codedOutputStream.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // Cannot happen as we write to an array of the computed size
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+}
@@ -29,6 +29,7 @@ import bisq.core.dao.node.parser.BlockParser;
 import bisq.core.dao.node.parser.exceptions.RequiredReorgFromSnapshotException;
 import bisq.core.dao.state.DaoStateService;
 import bisq.core.dao.state.DaoStateSnapshotService;
+import bisq.core.dao.state.model.blockchain.Block;
 
 import bisq.network.p2p.P2PService;
 import bisq.network.p2p.network.Connection;
@@ -41,8 +42,8 @@ import com.google.inject.Inject;
 
 import javafx.beans.value.ChangeListener;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -55,6 +56,10 @@ import org.jetbrains.annotations.Nullable;
 @Slf4j
 public class LiteNode extends BsqNode {
     private static final int CHECK_FOR_BLOCK_RECEIVED_DELAY_SEC = 10;
+    // If we are more blocks behind we parse in catch-up mode. 144 blocks are about a day.
+    private static final int CATCH_UP_MODE_MIN_BLOCKS = 144;
+    // Max. duration we parse blocks in catch-up mode before we give the UserThread back to other tasks
+    private static final long CATCH_UP_MODE_SLICE_DURATION_MS = 50;
 
     private final LiteNodeNetworkService liteNodeNetworkService;
     private final BsqWalletService bsqWalletService;
@@ -157,8 +162,7 @@ public class LiteNode extends BsqNode {
         liteNodeNetworkService.addListener(new LiteNodeNetworkService.Listener() {
             @Override
             public void onRequestedBlocksReceived(GetBlocksResponse getBlocksResponse, Runnable onParsingComplete) {
-                LiteNode.this.onRequestedBlocksReceived(new ArrayList<>(getBlocksResponse.getBlocks()),
-                        onParsingComplete);
+                LiteNode.this.onRequestedBlocksReceived(getBlocksResponse.getBlocks(), onParsingComplete);
             }
 
             @Override
@@ -166,12 +170,16 @@ public class LiteNode extends BsqNode {
                 LiteNode.this.onNewBlockReceived(newBlockBroadcastMessage.getBlock());
             }
 
+            // If we do not get the requested blocks we leave catch-up mode, otherwise the listeners would not get
+            // updated anymore. The next response starts it again if we are still far behind.
             @Override
             public void onNoSeedNodeAvailable() {
+                daoStateService.onCatchUpComplete();
             }
 
             @Override
             public void onFault(String errorMessage, @Nullable Connection connection) {
+                daoStateService.onCatchUpComplete();
             }
         });
 
@@ -187,6 +195,8 @@ public class LiteNode extends BsqNode {
 
     @Override
     protected void startReOrgFromLastSnapshot() {
+        // The blocks we request after applying the snapshot start a new catch-up if needed
+        daoStateService.onCatchUpComplete();
         super.startReOrgFromLastSnapshot();
 
         int startBlockHeight = getStartBlockHeight();
@@ -207,51 +217,83 @@ public class LiteNode extends BsqNode {
         }
 
         // We delay the parsing to next render frame to avoid that the UI get blocked in case we parse a lot of blocks.
-        // Parsing itself is very fast (3 sec. for 7000 blocks) but creating the hash chain slows down batch processing a lot
-        // (30 sec for 7000 blocks).
-        // The updates at block height change are not much optimized yet, so that can be for sure improved
-        // 144 blocks a day would result in about 4000 in a month, so if a user downloads the app after 1 months latest
-        // release it will be a bit of a performance hit. It is a one time event as the snapshots gets created and be
-        // used at next startup. New users will get the shipped snapshot. Users who have not used Bisq for longer might
-        // experience longer durations for batch processing.
+        // If we are many blocks behind we use the catch-up mode where we parse as many blocks as we can in a time
+        // slice and the listeners which only reflect the latest state (UI, hash broadcast, utxo check) get updated
+        // once at the end instead of at each block. The UI gets progress events instead.
         long ts = System.currentTimeMillis();
 
         if (blockList.isEmpty()) {
+            daoStateService.onCatchUpComplete();
             onParseBlockChainComplete();
             return;
         }
 
-        runDelayedBatchProcessing(new ArrayList<>(blockList),
-                () -> {
-                    double duration = System.currentTimeMillis() - ts;
-                    log.info("Parsing {} blocks took {} seconds ({} min.) / {} ms in average / block", blockList.size(),
-                            MathUtils.roundDouble(duration / 1000d, 2),
-                            MathUtils.roundDouble(duration / 1000d / 60, 2),
-                            MathUtils.roundDouble(duration / blockList.size(), 2));
-                    // We only request again if wallet is synced, otherwise we would get repeated calls we want to avoid.
-                    // We deal with that case at the setupWalletBestBlockListener method above.
-                    if (walletsSetup.isDownloadComplete() &&
-                            daoStateService.getChainHeight() < bsqWalletService.getBestChainHeight()) {
-                        liteNodeNetworkService.requestBlocks(getStartBlockHeight());
-                    } else {
-                        onParsingComplete.run();
-                        onParseBlockChainComplete();
-                    }
-                });
+        Runnable resultHandler = () -> {
+            double duration = System.currentTimeMillis() - ts;
+            log.info("Parsing {} blocks took {} seconds ({} min.) / {} ms in average / block", blockList.size(),
+                    MathUtils.roundDouble(duration / 1000d, 2),
+                    MathUtils.roundDouble(duration / 1000d / 60, 2),
+                    MathUtils.roundDouble(duration / blockList.size(), 2));
+            // We only request again if wallet is synced, otherwise we would get repeated calls we want to avoid.
+            // We deal with that case at the setupWalletBestBlockListener method above.
+            if (walletsSetup.isDownloadComplete() &&
+                    daoStateService.getChainHeight() < bsqWalletService.getBestChainHeight()) {
+                // If we are in catch-up mode we stay in it for the next blocks
+                liteNodeNetworkService.requestBlocks(getStartBlockHeight());
+            } else {
+                daoStateService.onCatchUpComplete();
+                onParsingComplete.run();
+                onParseBlockChainComplete();
+            }
+        };
+
+        int targetHeight = Math.max(chainTipHeight, bsqWalletService.getBestChainHeight());
+        if (targetHeight - daoStateService.getChainHeight() >= CATCH_UP_MODE_MIN_BLOCKS) {
+            if (!daoStateService.isInCatchUpMode()) {
+                daoStateService.onCatchUpStarted(targetHeight);
+            }
+            runCatchUpBatchProcessing(blockList, 0, resultHandler);
+        } else {
+            daoStateService.onCatchUpComplete();
+            runDelayedBatchProcessing(blockList, 0, resultHandler);
+        }
     }
 
-    private void runDelayedBatchProcessing(List<RawBlock> blocks, Runnable resultHandler) {
+    private void runDelayedBatchProcessing(List<RawBlock> blocks, int index, Runnable resultHandler) {
         UserThread.execute(() -> {
-            if (blocks.isEmpty()) {
+            if (index == blocks.size()) {
                 resultHandler.run();
                 return;
             }
 
-            RawBlock block = blocks.remove(0);
             try {
-                doParseBlock(block);
-                runDelayedBatchProcessing(blocks, resultHandler);
+                doParseBlock(blocks.get(index));
+                runDelayedBatchProcessing(blocks, index + 1, resultHandler);
+            } catch (RequiredReorgFromSnapshotException e) {
+                resultHandler.run();
+            }
+        });
+    }
+
+    private void runCatchUpBatchProcessing(List<RawBlock> blocks, int startIndex, Runnable resultHandler) {
+        UserThread.execute(() -> {
+            long ts = System.currentTimeMillis();
+            int index = startIndex;
+            try {
+                while (index < blocks.size() && System.currentTimeMillis() - ts < CATCH_UP_MODE_SLICE_DURATION_MS) {
+                    doParseBlock(blocks.get(index));
+                    index++;
+                }
             } catch (RequiredReorgFromSnapshotException e) {
+                daoStateService.onCatchUpComplete();
+                resultHandler.run();
+                return;
+            }
+
+            daoStateService.onCatchUpProgress();
+            if (index < blocks.size()) {
+                runCatchUpBatchProcessing(blocks, index, resultHandler);
+            } else {
                 resultHandler.run();
             }
         });
@@ -269,7 +311,11 @@ public class LiteNode extends BsqNode {
         }
 
         try {
-            doParseBlock(block);
+            Optional<Block> parsedBlock = doParseBlock(block);
+            // The new block is at the chain tip, so we are not behind anymore
+            if (parsedBlock.isPresent() && daoStateService.getChainHeight() >= chainTipHeight) {
+                daoStateService.onCatchUpComplete();
+            }
         } catch (RequiredReorgFromSnapshotException ignore) {
         }
 
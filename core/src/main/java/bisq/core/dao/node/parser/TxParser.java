@@ -80,6 +80,11 @@ public class TxParser {
     // There might be txs without any valid BSQ txOutput but we still keep track of it,
     // for instance to calculate the total burned BSQ.
     private Optional<Tx> findTx(RawTx rawTx) {
+        // Most txs do not spend any BSQ output, so we skip those before we create the TempTx and parse the inputs.
+        // The txInputParser would not find any BSQ input either and we would return Optional.empty().
+        if (!hasUnspentBsqInput(rawTx))
+            return Optional.empty();
+
         int blockHeight = rawTx.getBlockHeight();
         TempTx tempTx = TempTx.fromRawTx(rawTx);
 
@@ -179,6 +184,14 @@ public class TxParser {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    private boolean hasUnspentBsqInput(RawTx rawTx) {
+        for (TxInput input : rawTx.getTxInputs()) {
+            if (daoStateService.isUnspent(input.getConnectedTxOutputKey()))
+                return true;
+        }
+        return false;
+    }
+
     /**
      * This method verifies after all outputs are parsed if the opReturn type and the optional txOutputs required for
      * certain use cases are valid.
@@ -0,0 +1,236 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state;
+
+import bisq.core.dao.state.model.DaoState;
+import bisq.core.dao.state.model.blockchain.SpentInfo;
+import bisq.core.dao.state.model.blockchain.TxOutput;
+import bisq.core.dao.state.model.blockchain.TxOutputKey;
+import bisq.core.dao.state.model.governance.Cycle;
+import bisq.core.dao.state.model.governance.DecryptedBallotsWithMerits;
+import bisq.core.dao.state.model.governance.EvaluatedProposal;
+import bisq.core.dao.state.model.governance.Issuance;
+import bisq.core.dao.state.model.governance.ParamChange;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records the changes of the DaoState since the last snapshot. They get updated at each insert and remove in
+ * {@link DaoStateService} like the {@link DaoStateHashAccumulator}. That way a snapshot can be persisted as delta to
+ * the previous snapshot with costs proportional to the blocks since the last snapshot instead of the size of the
+ * DaoState.
+ * <p>
+ * We only need the state at the snapshot heights, so changes of the same entry are merged. E.g. an output which got
+ * added and spent since the last snapshot is only contained in the removed keys.
+ */
+@Slf4j
+public class DaoStateChangeLog {
+    // If we have not created a snapshot for a long time (e.g. at initial parsing without the full DAO monitor mode)
+    // the delta gets too large. We stop recording in that case and the next snapshot contains the full DaoState.
+    private static final int MAX_RECORDED_CHANGES = 200_000;
+
+    @Getter
+    private boolean recording;
+    // Chain height of the snapshot the changes are relative to
+    @Getter
+    private int startHeight = -1;
+    private int numChanges;
+
+    private final List<Cycle> cycles = new ArrayList<>();
+    private final Map<TxOutputKey, TxOutput> addedUnspentTxOutputs = new HashMap<>();
+    private final Set<TxOutputKey> removedUnspentTxOutputKeys = new HashSet<>();
+    private final Map<TxOutputKey, SpentInfo> spentInfos = new HashMap<>();
+    private final List<String> confiscatedLockupTxIds = new ArrayList<>();
+    private final Map<String, Issuance> issuances = new HashMap<>();
+    private final List<ParamChange> paramChanges = new ArrayList<>();
+    private final List<EvaluatedProposal> evaluatedProposals = new ArrayList<>();
+    private final List<DecryptedBallotsWithMerits> decryptedBallotsWithMerits = new ArrayList<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void start(int startHeight) {
+        clear();
+        this.startHeight = startHeight;
+        recording = true;
+    }
+
+    public void stop() {
+        clear();
+        startHeight = -1;
+        recording = false;
+    }
+
+    public protobuf.DaoStateDelta.Builder toProtoBuilder(int chainHeight) {
+        protobuf.DaoState.Builder changes = protobuf.DaoState.newBuilder()
+                .setChainHeight(chainHeight)
+                .addAllCycles(cycles.stream().map(Cycle::toProtoMessage).collect(Collectors.toList()))
+                .putAllUnspentTxOutputMap(addedUnspentTxOutputs.entrySet().stream()
+                        .collect(Collectors.toMap(e -> e.getKey().toString(), e -> e.getValue().toProtoMessage())))
+                .putAllSpentInfoMap(spentInfos.entrySet().stream()
+                        .collect(Collectors.toMap(e -> e.getKey().toString(), e -> e.getValue().toProtoMessage())))
+                .addAllConfiscatedLockupTxList(confiscatedLockupTxIds)
+                .putAllIssuanceMap(issuances.entrySet().stream()
+                        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().toProtoMessage())))
+                .addAllParamChangeList(paramChanges.stream().map(ParamChange::toProtoMessage).collect(Collectors.toList()))
+                .addAllEvaluatedProposalList(evaluatedProposals.stream().map(EvaluatedProposal::toProtoMessage).collect(Collectors.toList()))
+                .addAllDecryptedBallotsWithMeritsList(decryptedBallotsWithMerits.stream().map(DecryptedBallotsWithMerits::toProtoMessage).collect(Collectors.toList()));
+        return protobuf.DaoStateDelta.newBuilder()
+                .setFromHeight(startHeight)
+                .setChanges(changes)
+                .addAllRemovedUnspentTxOutputKeys(removedUnspentTxOutputKeys.stream()
+                        .map(TxOutputKey::toString)
+                        .collect(Collectors.toList()));
+    }
+
+    // Replays the changes on top of the daoState at the fromHeight of the delta. The daoState need to contain already
+    // the blocks up to the height of the delta.
+    public static void applyDelta(protobuf.DaoStateDelta delta, DaoState daoState) {
+        protobuf.DaoState changes = delta.getChanges();
+        daoState.setChainHeight(changes.getChainHeight());
+
+        changes.getCyclesList().forEach(e -> daoState.getCycles().add(Cycle.fromProto(e)));
+
+        // Removed keys are not contained in the added map, so the order does not matter
+        delta.getRemovedUnspentTxOutputKeysList().forEach(key ->
+                daoState.getUnspentTxOutputMap().remove(TxOutputKey.getKeyFromString(key)));
+        changes.getUnspentTxOutputMapMap().forEach((key, value) ->
+                daoState.getUnspentTxOutputMap().put(TxOutputKey.getKeyFromString(key), TxOutput.fromProto(value)));
+
+        changes.getSpentInfoMapMap().forEach((key, value) ->
+                daoState.getSpentInfoMap().put(TxOutputKey.getKeyFromString(key), SpentInfo.fromProto(value)));
+        daoState.getConfiscatedLockupTxList().addAll(changes.getConfiscatedLockupTxListList());
+        changes.getIssuanceMapMap().forEach((key, value) -> daoState.getIssuanceMap().put(key, Issuance.fromProto(value)));
+
+        // We apply the same sorting as in DaoStateService
+        changes.getParamChangeListList().forEach(e -> daoState.getParamChangeList().add(ParamChange.fromProto(e)));
+        daoState.getParamChangeList().sort(Comparator.comparingInt(ParamChange::getActivationHeight));
+        changes.getEvaluatedProposalListList().forEach(e ->
+                daoState.getEvaluatedProposalList().add(EvaluatedProposal.fromProto(e)));
+        daoState.getEvaluatedProposalList().sort(Comparator.comparing(EvaluatedProposal::getProposalTxId));
+        changes.getDecryptedBallotsWithMeritsListList().forEach(e ->
+                daoState.getDecryptedBallotsWithMeritsList().add(DecryptedBallotsWithMerits.fromProto(e)));
+        daoState.getDecryptedBallotsWithMeritsList().sort(Comparator.comparing(DecryptedBallotsWithMerits::getBlindVoteTxId));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Changes
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void onCycleAdded(Cycle cycle) {
+        if (maybeRecord()) {
+            cycles.add(cycle);
+        }
+    }
+
+    void onUnspentTxOutputAdded(TxOutput txOutput) {
+        if (maybeRecord()) {
+            removedUnspentTxOutputKeys.remove(txOutput.getKey());
+            addedUnspentTxOutputs.put(txOutput.getKey(), txOutput);
+        }
+    }
+
+    void onUnspentTxOutputRemoved(TxOutput txOutput) {
+        if (maybeRecord()) {
+            addedUnspentTxOutputs.remove(txOutput.getKey());
+            removedUnspentTxOutputKeys.add(txOutput.getKey());
+        }
+    }
+
+    void onSpentInfoAdded(TxOutputKey txOutputKey, SpentInfo spentInfo) {
+        if (maybeRecord()) {
+            spentInfos.put(txOutputKey, spentInfo);
+        }
+    }
+
+    void onConfiscatedLockupTxAdded(String lockupTxId) {
+        if (maybeRecord()) {
+            confiscatedLockupTxIds.add(lockupTxId);
+        }
+    }
+
+    void onIssuanceAdded(Issuance issuance) {
+        if (maybeRecord()) {
+            issuances.put(issuance.getTxId(), issuance);
+        }
+    }
+
+    void onParamChangeAdded(ParamChange paramChange) {
+        if (maybeRecord()) {
+            paramChanges.add(paramChange);
+        }
+    }
+
+    void onEvaluatedProposalAdded(EvaluatedProposal evaluatedProposal) {
+        if (maybeRecord()) {
+            evaluatedProposals.add(evaluatedProposal);
+        }
+    }
+
+    void onDecryptedBallotsWithMeritsAdded(DecryptedBallotsWithMerits decryptedBallotsWithMerits) {
+        if (maybeRecord()) {
+            this.decryptedBallotsWithMerits.add(decryptedBallotsWithMerits);
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private boolean maybeRecord() {
+        if (!recording) {
+            return false;
+        }
+
+        if (++numChanges > MAX_RECORDED_CHANGES) {
+            log.info("We have recorded more than {} changes since the snapshot at height {}. " +
+                    "We stop recording and the next snapshot will contain the full DaoState.",
+                    MAX_RECORDED_CHANGES, startHeight);
+            stop();
+            return false;
+        }
+        return true;
+    }
+
+    private void clear() {
+        numChanges = 0;
+        cycles.clear();
+        addedUnspentTxOutputs.clear();
+        removedUnspentTxOutputKeys.clear();
+        spentInfos.clear();
+        confiscatedLockupTxIds.clear();
+        issuances.clear();
+        paramChanges.clear();
+        evaluatedProposals.clear();
+        decryptedBallotsWithMerits.clear();
+    }
+}
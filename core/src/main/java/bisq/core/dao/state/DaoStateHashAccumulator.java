@@ -0,0 +1,184 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state;
+
+import bisq.core.dao.state.model.DaoState;
+import bisq.core.dao.state.model.blockchain.Block;
+import bisq.core.dao.state.model.blockchain.SpentInfo;
+import bisq.core.dao.state.model.blockchain.TxOutput;
+import bisq.core.dao.state.model.blockchain.TxOutputKey;
+import bisq.core.dao.state.model.governance.Cycle;
+import bisq.core.dao.state.model.governance.DecryptedBallotsWithMerits;
+import bisq.core.dao.state.model.governance.EvaluatedProposal;
+import bisq.core.dao.state.model.governance.Issuance;
+import bisq.core.dao.state.model.governance.ParamChange;
+
+import bisq.common.crypto.MultisetHash;
+
+import com.google.common.base.Charsets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps one {@link MultisetHash} per collection of the DaoState which gets updated at each insert and remove in
+ * {@link DaoStateService}. That way the data for the hash chain (see version 2 in DaoStateMonitoringService) can be
+ * created with costs proportional to the changes in a block instead of serializing the whole DaoState.
+ * <p>
+ * As the multiset hash is order independent we do not depend on the sorting of the collections. Lists are treated as
+ * multisets as well which is fine as their order is deterministic anyway (sorted or append only).
+ */
+@Slf4j
+public class DaoStateHashAccumulator {
+    // The order of the enum entries defines the order of the digests in the serialized data, so it must not be
+    // changed without a new hash chain version.
+    enum Collection {
+        CYCLES,
+        UNSPENT_TX_OUTPUTS,
+        SPENT_INFOS,
+        CONFISCATED_LOCKUP_TXS,
+        ISSUANCES,
+        PARAM_CHANGES,
+        EVALUATED_PROPOSALS,
+        DECRYPTED_BALLOTS_WITH_MERITS
+    }
+
+    private final Map<Collection, MultisetHash> digests = new EnumMap<>(Collection.class);
+
+    public DaoStateHashAccumulator() {
+        for (Collection collection : Collection.values()) {
+            digests.put(collection, new MultisetHash());
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Recalculates all digests from the given daoState. Costs are proportional to the size of the daoState so it is
+     * only used when a snapshot gets applied.
+     */
+    public void rebuild(DaoState daoState) {
+        long ts = System.currentTimeMillis();
+        digests.values().forEach(MultisetHash::clear);
+        daoState.getCycles().forEach(this::onCycleAdded);
+        daoState.getUnspentTxOutputMap().values().forEach(this::onUnspentTxOutputAdded);
+        daoState.getSpentInfoMap().forEach(this::onSpentInfoAdded);
+        daoState.getConfiscatedLockupTxList().forEach(this::onConfiscatedLockupTxAdded);
+        daoState.getIssuanceMap().values().forEach(this::onIssuanceAdded);
+        daoState.getParamChangeList().forEach(this::onParamChangeAdded);
+        daoState.getEvaluatedProposalList().forEach(this::onEvaluatedProposalAdded);
+        daoState.getDecryptedBallotsWithMeritsList().forEach(this::onDecryptedBallotsWithMeritsAdded);
+        log.info("Rebuilding DaoStateHashAccumulator took {} ms", System.currentTimeMillis() - ts);
+    }
+
+    /**
+     * @return The chain height, the digests of all collections and the serialized last block. Only the last block is
+     * included as the previous blocks are covered by the previous hash in the hash chain.
+     */
+    public byte[] getSerializedStateForHashChain(int chainHeight, Block lastBlock) {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            outputStream.write(ByteBuffer.allocate(4).putInt(chainHeight).array());
+            for (Collection collection : Collection.values()) {
+                outputStream.write(digests.get(collection).getDigest());
+            }
+            outputStream.write(lastBlock.toProtoMessage().toByteArray());
+            return outputStream.toByteArray();
+        } catch (IOException e) {
+            // Cannot happen with a ByteArrayOutputStream
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void onCycleAdded(Cycle cycle) {
+        add(Collection.CYCLES, cycle.toProtoMessage().toByteArray());
+    }
+
+    public void onUnspentTxOutputAdded(TxOutput txOutput) {
+        add(Collection.UNSPENT_TX_OUTPUTS, txOutput.toProtoMessage().toByteArray());
+    }
+
+    public void onUnspentTxOutputRemoved(TxOutput txOutput) {
+        remove(Collection.UNSPENT_TX_OUTPUTS, txOutput.toProtoMessage().toByteArray());
+    }
+
+    public void onSpentInfoAdded(TxOutputKey txOutputKey, SpentInfo spentInfo) {
+        add(Collection.SPENT_INFOS, keyedElement(txOutputKey.toString(), spentInfo.toProtoMessage().toByteArray()));
+    }
+
+    public void onSpentInfoRemoved(TxOutputKey txOutputKey, SpentInfo spentInfo) {
+        remove(Collection.SPENT_INFOS, keyedElement(txOutputKey.toString(), spentInfo.toProtoMessage().toByteArray()));
+    }
+
+    public void onConfiscatedLockupTxAdded(String lockupTxId) {
+        add(Collection.CONFISCATED_LOCKUP_TXS, lockupTxId.getBytes(Charsets.UTF_8));
+    }
+
+    public void onIssuanceAdded(Issuance issuance) {
+        add(Collection.ISSUANCES, issuance.toProtoMessage().toByteArray());
+    }
+
+    public void onIssuanceRemoved(Issuance issuance) {
+        remove(Collection.ISSUANCES, issuance.toProtoMessage().toByteArray());
+    }
+
+    public void onParamChangeAdded(ParamChange paramChange) {
+        add(Collection.PARAM_CHANGES, paramChange.toProtoMessage().toByteArray());
+    }
+
+    public void onEvaluatedProposalAdded(EvaluatedProposal evaluatedProposal) {
+        add(Collection.EVALUATED_PROPOSALS, evaluatedProposal.toProtoMessage().toByteArray());
+    }
+
+    public void onDecryptedBallotsWithMeritsAdded(DecryptedBallotsWithMerits decryptedBallotsWithMerits) {
+        add(Collection.DECRYPTED_BALLOTS_WITH_MERITS, decryptedBallotsWithMerits.toProtoMessage().toByteArray());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void add(Collection collection, byte[] element) {
+        digests.get(collection).add(element);
+    }
+
+    private void remove(Collection collection, byte[] element) {
+        digests.get(collection).remove(element);
+    }
+
+    // We prefix the value with the length of the key to avoid ambiguous concatenations
+    private static byte[] keyedElement(String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(Charsets.UTF_8);
+        return ByteBuffer.allocate(4 + keyBytes.length + value.length)
+                .putInt(keyBytes.length)
+                .put(keyBytes)
+                .put(value)
+                .array();
+    }
+}
@@ -37,4 +37,13 @@ public interface DaoStateListener {
     // block arrives.
     default void onDaoStateChanged(Block block) {
     }
+
+    // Called in catch-up mode after a number of blocks have been parsed. Progress is between 0 and 1.
+    default void onCatchUpProgress(int chainHeight, double progress) {
+    }
+
+    // Called when catch-up mode is left. The block events which have been ignored in catch-up mode can be handled
+    // for the latest block now.
+    default void onCatchUpComplete() {
+    }
 }
@@ -36,12 +36,16 @@ import bisq.core.dao.state.model.governance.EvaluatedProposal;
 import bisq.core.dao.state.model.governance.Issuance;
 import bisq.core.dao.state.model.governance.IssuanceType;
 import bisq.core.dao.state.model.governance.ParamChange;
+import bisq.core.dao.state.storage.BsqBlockArchive;
 import bisq.core.util.ParsingUtils;
 import bisq.core.util.coin.BsqFormatter;
 
+import bisq.common.config.Config;
+
 import org.bitcoinj.core.Coin;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -67,13 +71,25 @@ import static com.google.common.base.Preconditions.checkArgument;
  */
 @Slf4j
 public class DaoStateService implements DaoSetupService {
+    private static final int REMOVE_BLOCKS_BATCH_SIZE = 100;
+
     private final DaoState daoState;
     private final GenesisTxInfo genesisTxInfo;
     private final BsqFormatter bsqFormatter;
+    private final BsqBlockArchive bsqBlockArchive;
+    // Number of recent blocks we keep in memory. Older blocks are read from the bsqBlockArchive. 0 keeps all blocks.
+    private final int numResidentBlocks;
+    // Kept in sync with the daoState at all mutations so that we can create the hash chain data with low costs
+    private final DaoStateHashAccumulator hashAccumulator = new DaoStateHashAccumulator();
+    // Changes since the last snapshot, used for persisting snapshots as deltas
+    private final DaoStateChangeLog changeLog = new DaoStateChangeLog();
     private final List<DaoStateListener> daoStateListeners = new CopyOnWriteArrayList<>();
     @Getter
     private boolean parseBlockChainComplete;
     private boolean allowDaoStateChange;
+    // Set while a lite node parses a large batch of blocks. -1 if not in catch-up mode.
+    private int catchUpStartHeight = -1;
+    private int catchUpTargetHeight;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -81,10 +97,16 @@ public class DaoStateService implements DaoSetupService {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     @Inject
-    public DaoStateService(DaoState daoState, GenesisTxInfo genesisTxInfo, BsqFormatter bsqFormatter) {
+    public DaoStateService(DaoState daoState,
+                           GenesisTxInfo genesisTxInfo,
+                           BsqFormatter bsqFormatter,
+                           BsqBlockArchive bsqBlockArchive,
+                           @Named(Config.NUM_RESIDENT_BSQ_BLOCKS) int numResidentBlocks) {
         this.daoState = daoState;
         this.genesisTxInfo = genesisTxInfo;
         this.bsqFormatter = bsqFormatter;
+        this.bsqBlockArchive = bsqBlockArchive;
+        this.numResidentBlocks = numResidentBlocks;
     }
 
 
@@ -119,6 +141,7 @@ public class DaoStateService implements DaoSetupService {
         daoState.setTxCache(snapshot.getTxCache());
 
         daoState.clearAndSetBlocks(snapshot.getBlocks());
+        maybeRemoveArchivedBlocks();
 
         daoState.getCycles().clear();
         daoState.getCycles().addAll(snapshot.getCycles());
@@ -143,6 +166,9 @@ public class DaoStateService implements DaoSetupService {
 
         daoState.getDecryptedBallotsWithMeritsList().clear();
         daoState.getDecryptedBallotsWithMeritsList().addAll(snapshot.getDecryptedBallotsWithMeritsList());
+
+        hashAccumulator.rebuild(daoState);
+        changeLog.stop();
     }
 
     public DaoState getClone() {
@@ -153,10 +179,32 @@ public class DaoStateService implements DaoSetupService {
         return DaoState.getBsqStateCloneExcludingBlocks(daoState);
     }
 
+    // Starts recording the changes relative to the current state, which is expected to be the persisted snapshot
+    public void startRecordingChanges() {
+        changeLog.start(daoState.getChainHeight());
+    }
+
+    public boolean isRecordingChanges() {
+        return changeLog.isRecording();
+    }
+
+    public int getHeightOfRecordingStart() {
+        return changeLog.getStartHeight();
+    }
+
+    public protobuf.DaoStateDelta.Builder getRecordedChangesAsDeltaBuilder() {
+        return changeLog.toProtoBuilder(daoState.getChainHeight());
+    }
+
     public byte[] getSerializedStateForHashChain() {
         return daoState.getSerializedStateForHashChain();
     }
 
+    // Used for hash chain version 2. Costs are independent of the size of the daoState.
+    public byte[] getIncrementalSerializedStateForHashChain() {
+        return hashAccumulator.getSerializedStateForHashChain(daoState.getChainHeight(), daoState.getLastBlock());
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // ChainHeight
@@ -178,6 +226,8 @@ public class DaoStateService implements DaoSetupService {
     public void addCycle(Cycle cycle) {
         assertDaoStateChange();
         getCycles().add(cycle);
+        hashAccumulator.onCycleAdded(cycle);
+        changeLog.onCycleAdded(cycle);
     }
 
     @Nullable
@@ -226,6 +276,7 @@ public class DaoStateService implements DaoSetupService {
                     "That might happen in edge cases at reorgs. Received block={}", block);
         } else {
             daoState.addBlock(block);
+            maybeRemoveArchivedBlocks();
 
             if (parseBlockChainComplete)
                 log.info("New Block added at blockHeight {}", block.getHeight());
@@ -265,7 +316,8 @@ public class DaoStateService implements DaoSetupService {
         // blocks as that causes performance issues. In earlier versions when we updated at each block it took
         // 50 sec. for 4000 blocks, after that change it was about 4 sec.
         // Clients
-        if (parseBlockChainComplete)
+        // In catch-up mode the clients get called only once at onCatchUpComplete.
+        if (parseBlockChainComplete && !isInCatchUpMode())
             daoStateListeners.forEach(l -> l.onParseBlockCompleteAfterBatchProcessing(block));
 
         // Here listeners must not trigger any state change in the DAO as we trigger the validation service to
@@ -286,6 +338,44 @@ public class DaoStateService implements DaoSetupService {
         daoStateListeners.forEach(DaoStateListener::onParseBlockChainComplete);
     }
 
+    // Catch-up mode is set by a lite node if it parses a large batch of blocks. In catch-up mode the parser events are
+    // still called for each block as the consensus relevant listeners depend on them. Listeners which only reflect the
+    // latest state (e.g. for the UI) can ignore the block events while isInCatchUpMode is true and update at
+    // onCatchUpComplete. Progress is reported at onCatchUpProgress.
+    public void onCatchUpStarted(int targetHeight) {
+        catchUpStartHeight = getChainHeight();
+        catchUpTargetHeight = targetHeight;
+        log.info("Start catch-up mode from block height {} to {}", catchUpStartHeight, targetHeight);
+        onCatchUpProgress();
+    }
+
+    public void onCatchUpProgress() {
+        if (!isInCatchUpMode())
+            return;
+
+        int chainHeight = getChainHeight();
+        int numBlocks = catchUpTargetHeight - catchUpStartHeight;
+        double progress = numBlocks > 0 ? Math.min(1, (double) (chainHeight - catchUpStartHeight) / numBlocks) : 1;
+        daoStateListeners.forEach(l -> l.onCatchUpProgress(chainHeight, progress));
+    }
+
+    public void onCatchUpComplete() {
+        if (!isInCatchUpMode())
+            return;
+
+        log.info("Catch-up mode completed at block height {}", getChainHeight());
+        catchUpStartHeight = -1;
+        if (parseBlockChainComplete) {
+            getLastBlock().ifPresent(block ->
+                    daoStateListeners.forEach(l -> l.onParseBlockCompleteAfterBatchProcessing(block)));
+        }
+        daoStateListeners.forEach(DaoStateListener::onCatchUpComplete);
+    }
+
+    public boolean isInCatchUpMode() {
+        return catchUpStartHeight >= 0;
+    }
+
     public List<Block> getBlocks() {
         return daoState.getBlocks();
     }
@@ -305,20 +395,34 @@ public class DaoStateService implements DaoSetupService {
         return getLastBlock().map(Block::getHash).orElse("");
     }
 
+    // Includes the blocks which are only available in the bsqBlockArchive
+    public int getNumBlocks() {
+        return getBlocks().isEmpty() ? 0 : getBlockHeightOfLastBlock() - getGenesisBlockHeight() + 1;
+    }
+
     public Optional<Block> getBlockAtHeight(int height) {
-        return Optional.ofNullable(daoState.getBlocksByHeight().get(height));
+        Block block = daoState.getBlocksByHeight().get(height);
+        if (block != null) {
+            return Optional.of(block);
+        }
+        return isArchivedHeight(height) ? bsqBlockArchive.readBlock(height) : Optional.empty();
     }
 
     public long getBlockTimeAtBlockHeight(int height) {
-        return getBlockAtHeight(height).map(Block::getTime).orElse(0L);
+        return getBlockTime(height);
     }
 
     public boolean containsBlock(Block block) {
-        return getBlocks().contains(block);
+        return getBlockAtHeight(block.getHeight()).map(block::equals).orElse(false);
     }
 
     public long getBlockTime(int height) {
-        return getBlockAtHeight(height).map(Block::getTime).orElse(0L);
+        Block block = daoState.getBlocksByHeight().get(height);
+        if (block != null) {
+            return block.getTime();
+        }
+        // We don't need to read the whole block as the archive keeps the block times in the index
+        return isArchivedHeight(height) ? bsqBlockArchive.getBlockTime(height).orElse(0L) : 0L;
     }
 
     public List<Block> getBlocksFromBlockHeight(int fromBlockHeight) {
@@ -328,10 +432,45 @@ public class DaoStateService implements DaoSetupService {
     public List<Block> getBlocksFromBlockHeight(int fromBlockHeight, int numMaxBlocks) {
         // We limit requests to numMaxBlocks blocks, to avoid performance issues and too
         // large network data in case a node requests too far back in history.
-        return getBlocks().stream()
-                .filter(block -> block.getHeight() >= fromBlockHeight)
-                .limit(numMaxBlocks)
-                .collect(Collectors.toList());
+        List<Block> blocks = new ArrayList<>();
+        if (getBlocks().isEmpty() || numMaxBlocks <= 0) {
+            return blocks;
+        }
+
+        int firstResidentHeight = daoState.getFirstBlock().getHeight();
+        if (fromBlockHeight < firstResidentHeight) {
+            int toBlockHeight = (int) Math.min(firstResidentHeight, (long) fromBlockHeight + numMaxBlocks);
+            blocks.addAll(bsqBlockArchive.readBlocks(fromBlockHeight, toBlockHeight));
+        }
+
+        // Blocks are contiguous, so we use the index instead of iterating the whole list
+        for (int height = Math.max(fromBlockHeight, firstResidentHeight); blocks.size() < numMaxBlocks; height++) {
+            Block block = daoState.getBlocksByHeight().get(height);
+            if (block == null) {
+                break;
+            }
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    // Blocks below the first block in memory got removed after they have been archived
+    private boolean isArchivedHeight(int height) {
+        return !getBlocks().isEmpty() && height < daoState.getFirstBlock().getHeight();
+    }
+
+    // We keep only the recent blocks in memory. Blocks get only removed once they have been persisted to the
+    // bsqBlockArchive. To avoid that we access the archive at each new block we remove them in batches.
+    private void maybeRemoveArchivedBlocks() {
+        if (numResidentBlocks <= 0 || getBlocks().size() < numResidentBlocks + REMOVE_BLOCKS_BATCH_SIZE) {
+            return;
+        }
+
+        int height = Math.min(bsqBlockArchive.getLastHeight() + 1, getBlockHeightOfLastBlock() - numResidentBlocks + 1);
+        if (height > daoState.getFirstBlock().getHeight()) {
+            daoState.removeBlocksBelowHeight(height);
+            log.info("Removed archived blocks below height {} from memory", height);
+        }
     }
 
 
@@ -465,12 +604,21 @@ public class DaoStateService implements DaoSetupService {
 
     public void addUnspentTxOutput(TxOutput txOutput) {
         assertDaoStateChange();
-        getUnspentTxOutputMap().put(txOutput.getKey(), txOutput);
+        TxOutput previous = getUnspentTxOutputMap().put(txOutput.getKey(), txOutput);
+        if (previous != null) {
+            hashAccumulator.onUnspentTxOutputRemoved(previous);
+        }
+        hashAccumulator.onUnspentTxOutputAdded(txOutput);
+        changeLog.onUnspentTxOutputAdded(txOutput);
     }
 
     public void removeUnspentTxOutput(TxOutput txOutput) {
         assertDaoStateChange();
-        getUnspentTxOutputMap().remove(txOutput.getKey());
+        TxOutput removed = getUnspentTxOutputMap().remove(txOutput.getKey());
+        if (removed != null) {
+            hashAccumulator.onUnspentTxOutputRemoved(removed);
+            changeLog.onUnspentTxOutputRemoved(removed);
+        }
     }
 
     public boolean isUnspent(TxOutputKey key) {
@@ -613,7 +761,12 @@ public class DaoStateService implements DaoSetupService {
 
     public void addIssuance(Issuance issuance) {
         assertDaoStateChange();
-        daoState.getIssuanceMap().put(issuance.getTxId(), issuance);
+        Issuance previous = daoState.getIssuanceMap().put(issuance.getTxId(), issuance);
+        if (previous != null) {
+            hashAccumulator.onIssuanceRemoved(previous);
+        }
+        hashAccumulator.onIssuanceAdded(issuance);
+        changeLog.onIssuanceAdded(issuance);
     }
 
     public Set<Issuance> getIssuanceSetForType(IssuanceType issuanceType) {
@@ -890,6 +1043,8 @@ public class DaoStateService implements DaoSetupService {
         assertDaoStateChange();
         log.warn("TxId {} added to confiscatedLockupTxIdList.", lockupTxId);
         daoState.getConfiscatedLockupTxList().add(lockupTxId);
+        hashAccumulator.onConfiscatedLockupTxAdded(lockupTxId);
+        changeLog.onConfiscatedLockupTxAdded(lockupTxId);
     }
 
     public boolean isConfiscatedOutput(TxOutputKey txOutputKey) {
@@ -922,6 +1077,8 @@ public class DaoStateService implements DaoSetupService {
                 .ifPresent(heightOfNewCycle -> {
                     ParamChange paramChange = new ParamChange(param.name(), paramValue, heightOfNewCycle);
                     paramChangeList.add(paramChange);
+                    hashAccumulator.onParamChangeAdded(paramChange);
+                    changeLog.onParamChangeAdded(paramChange);
                     // Addition with older height should not be possible but to ensure correct sorting lets run a sort.
                     paramChangeList.sort(Comparator.comparingInt(ParamChange::getActivationHeight));
                 });
@@ -985,7 +1142,12 @@ public class DaoStateService implements DaoSetupService {
 
     public void setSpentInfo(TxOutputKey txOutputKey, SpentInfo spentInfo) {
         assertDaoStateChange();
-        daoState.getSpentInfoMap().put(txOutputKey, spentInfo);
+        SpentInfo previous = daoState.getSpentInfoMap().put(txOutputKey, spentInfo);
+        if (previous != null) {
+            hashAccumulator.onSpentInfoRemoved(txOutputKey, previous);
+        }
+        hashAccumulator.onSpentInfoAdded(txOutputKey, spentInfo);
+        changeLog.onSpentInfoAdded(txOutputKey, spentInfo);
     }
 
     public Optional<SpentInfo> getSpentInfo(TxOutput txOutput) {
@@ -1006,7 +1168,11 @@ public class DaoStateService implements DaoSetupService {
 
         evaluatedProposals.stream()
                 .filter(e -> !daoState.getEvaluatedProposalList().contains(e))
-                .forEach(daoState.getEvaluatedProposalList()::add);
+                .forEach(e -> {
+                    daoState.getEvaluatedProposalList().add(e);
+                    hashAccumulator.onEvaluatedProposalAdded(e);
+                    changeLog.onEvaluatedProposalAdded(e);
+                });
 
         // We need deterministic order for the hash chain
         daoState.getEvaluatedProposalList().sort(Comparator.comparing(EvaluatedProposal::getProposalTxId));
@@ -1021,7 +1187,11 @@ public class DaoStateService implements DaoSetupService {
 
         decryptedBallotsWithMeritsSet.stream()
                 .filter(e -> !daoState.getDecryptedBallotsWithMeritsList().contains(e))
-                .forEach(daoState.getDecryptedBallotsWithMeritsList()::add);
+                .forEach(e -> {
+                    daoState.getDecryptedBallotsWithMeritsList().add(e);
+                    hashAccumulator.onDecryptedBallotsWithMeritsAdded(e);
+                    changeLog.onDecryptedBallotsWithMeritsAdded(e);
+                });
 
         // We need deterministic order for the hash chain
         daoState.getDecryptedBallotsWithMeritsList().sort(Comparator.comparing(DecryptedBallotsWithMerits::getBlindVoteTxId));
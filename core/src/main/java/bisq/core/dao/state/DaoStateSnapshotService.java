@@ -38,6 +38,7 @@ import com.google.common.annotations.VisibleForTesting;
 import java.io.File;
 import java.io.IOException;
 
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -54,10 +55,14 @@ import static com.google.common.base.Preconditions.checkArgument;
  * At each trigger height we persist the latest snapshot candidate and set the current daoState as new candidate.
  * The trigger height is determined by the SNAPSHOT_GRID. The latest persisted snapshot is min. the height of
  * SNAPSHOT_GRID old not less than 2 times the SNAPSHOT_GRID old.
+ * Snapshot candidates only contain the changes since the previous snapshot. Only every MAX_DELTAS_PER_FULL_SNAPSHOT
+ * snapshots, or if we have not recorded the changes, we clone the full daoState.
  */
 @Slf4j
 public class DaoStateSnapshotService implements DaoSetupService, DaoStateListener {
     private static final int SNAPSHOT_GRID = 20;
+    // With the SNAPSHOT_GRID we create a full snapshot about every 1000 blocks
+    private static final int MAX_DELTAS_PER_FULL_SNAPSHOT = 50;
 
     private final DaoStateService daoStateService;
     private final GenesisTxInfo genesisTxInfo;
@@ -68,6 +73,8 @@ public class DaoStateSnapshotService implements DaoSetupService, DaoStateListene
     private final File storageDir;
 
     private protobuf.DaoState daoStateCandidate;
+    // Only one of daoStateCandidate and daoStateDeltaCandidate is set
+    private protobuf.DaoStateDelta daoStateDeltaCandidate;
     private LinkedList<DaoStateHash> hashChainCandidate = new LinkedList<>();
     private List<Block> blocksCandidate;
     private int snapshotHeight;
@@ -182,6 +189,8 @@ public class DaoStateSnapshotService implements DaoSetupService, DaoStateListene
                             log.info("Persisted daoState after parsing completed at height {}. Took {} ms",
                                     chainHeight, System.currentTimeMillis() - ts);
                         });
+                // The next snapshot can be persisted as delta to that one
+                daoStateService.startRecordingChanges();
                 GcUtil.maybeReleaseMemory();
             });
         }
@@ -198,7 +207,7 @@ public class DaoStateSnapshotService implements DaoSetupService, DaoStateListene
 
         // Either we don't have a snapshot candidate yet, or if we have one the height at that snapshot candidate must be
         // different to our current height.
-        boolean noSnapshotCandidateOrDifferentHeight = daoStateCandidate == null ||
+        boolean noSnapshotCandidateOrDifferentHeight = !hasSnapshotCandidate() ||
                 snapshotHeight != chainHeight;
         if (isSnapshotHeight(chainHeight) &&
                 !daoStateService.getBlocks().isEmpty() &&
@@ -222,7 +231,7 @@ public class DaoStateSnapshotService implements DaoSetupService, DaoStateListene
                 return;
             }
 
-            if (daoStateCandidate != null) {
+            if (hasSnapshotCandidate()) {
                 persist();
             } else {
                 createSnapshot();
@@ -233,16 +242,21 @@ public class DaoStateSnapshotService implements DaoSetupService, DaoStateListene
     private void persist() {
         long ts = System.currentTimeMillis();
         readyForPersisting = false;
-        daoStateStorageService.requestPersistence(daoStateCandidate,
-                blocksCandidate,
-                hashChainCandidate,
-                () -> {
-                    log.info("Serializing daoStateCandidate for writing to Disc at chainHeight {} took {} ms.",
-                            snapshotHeight, System.currentTimeMillis() - ts);
-
-                    createSnapshot();
-                    readyForPersisting = true;
-                });
+        Runnable completeHandler = () -> {
+            log.info("Serializing daoStateCandidate for writing to Disc at chainHeight {} took {} ms.",
+                    snapshotHeight, System.currentTimeMillis() - ts);
+
+            createSnapshot();
+            readyForPersisting = true;
+        };
+        if (daoStateDeltaCandidate != null) {
+            daoStateStorageService.requestDeltaPersistence(daoStateDeltaCandidate, blocksCandidate, completeHandler);
+        } else {
+            daoStateStorageService.requestPersistence(daoStateCandidate,
+                    blocksCandidate,
+                    hashChainCandidate,
+                    completeHandler);
+        }
     }
 
     private void createSnapshot() {
@@ -252,13 +266,26 @@ public class DaoStateSnapshotService implements DaoSetupService, DaoStateListene
         // done from the write thread (mapped back to user thread).
         // As we want to prevent to maintain 2 clones we prefer that strategy. If we would do the clone
         // after the persist call we would keep an additional copy in memory.
-        daoStateCandidate = getDaoStateForSnapshot();
+        boolean isDelta = canPersistDelta();
+        if (isDelta) {
+            daoStateDeltaCandidate = getDaoStateDeltaForSnapshot();
+            daoStateCandidate = null;
+            hashChainCandidate = new LinkedList<>();
+        } else {
+            daoStateCandidate = getDaoStateForSnapshot();
+            daoStateDeltaCandidate = null;
+            hashChainCandidate = getHashChainForSnapshot();
+        }
         blocksCandidate = getBlocksForSnapshot();
-        hashChainCandidate = getHashChainForSnapshot();
         snapshotHeight = daoStateService.getChainHeight();
-        GcUtil.maybeReleaseMemory();
+        // The next candidate will contain the changes since this one
+        daoStateService.startRecordingChanges();
+        if (!isDelta) {
+            GcUtil.maybeReleaseMemory();
+        }
 
-        log.info("Cloned new daoStateCandidate at height {} took {} ms.", snapshotHeight, System.currentTimeMillis() - ts);
+        log.info("Cloned new {} at height {} took {} ms.", isDelta ? "daoStateDeltaCandidate" : "daoStateCandidate",
+                snapshotHeight, System.currentTimeMillis() - ts);
     }
 
     public void applySnapshot(boolean fromReorg) {
@@ -276,6 +303,9 @@ public class DaoStateSnapshotService implements DaoSetupService, DaoStateListene
                         daoStateService.applySnapshot(persistedBsqState);
                         daoStateMonitoringService.applySnapshot(persistedDaoStateHashChain);
                         daoStateStorageService.releaseMemory();
+                        // A delta candidate would have been relative to the state before the applied snapshot
+                        daoStateDeltaCandidate = null;
+                        daoStateService.startRecordingChanges();
                     } else {
                         // The reorg might have been caused by the previous parsing which might contains a range of
                         // blocks.
@@ -336,6 +366,34 @@ public class DaoStateSnapshotService implements DaoSetupService, DaoStateListene
         return isSnapshotHeight(genesisTxInfo.getGenesisBlockHeight(), height, SNAPSHOT_GRID);
     }
 
+    private boolean hasSnapshotCandidate() {
+        return daoStateCandidate != null || daoStateDeltaCandidate != null;
+    }
+
+    // The candidate will be persisted after the current candidate, so the recorded changes must start at its height.
+    // A candidate is only created after the previous one has been persisted, so that is the persisted height.
+    private boolean canPersistDelta() {
+        return daoStateService.isRecordingChanges() &&
+                daoStateService.getHeightOfRecordingStart() == daoStateStorageService.getChainHeightOfPersistedDaoState() &&
+                daoStateStorageService.getNumPersistedDeltas() < MAX_DELTAS_PER_FULL_SNAPSHOT;
+    }
+
+    private protobuf.DaoStateDelta getDaoStateDeltaForSnapshot() {
+        int fromHeight = daoStateService.getHeightOfRecordingStart();
+        LinkedList<protobuf.DaoStateHash> daoStateHashes = new LinkedList<>();
+        Iterator<DaoStateHash> iterator = daoStateMonitoringService.getDaoStateHashChain().descendingIterator();
+        while (iterator.hasNext()) {
+            DaoStateHash daoStateHash = iterator.next();
+            if (daoStateHash.getHeight() <= fromHeight) {
+                break;
+            }
+            daoStateHashes.addFirst(daoStateHash.toProtoMessage());
+        }
+        return daoStateService.getRecordedChangesAsDeltaBuilder()
+                .addAllDaoStateHash(daoStateHashes)
+                .build();
+    }
+
     private protobuf.DaoState getDaoStateForSnapshot() {
         return daoStateService.getBsqStateCloneExcludingBlocks();
     }
@@ -300,9 +300,10 @@ public class DaoState implements PersistablePayload {
     }
 
     /**
-     * @return Unmodifiable view of the list of blocks. This prevents callers from
+     * @return Unmodifiable view of the list of blocks kept in memory. This prevents callers from
      * directly modifying the list. We need to do this to make sure the block list is only
      * modified together with the corresponding caches and indices.
+     * Older blocks might have been removed by {@link #removeBlocksBelowHeight(int)}.
      *
      * @see #addBlock(Block) to add a single block
      * @see #addBlocks(List) to add a list of blocks
@@ -318,6 +319,10 @@ public class DaoState implements PersistablePayload {
         return blocks.getLast();
     }
 
+    public Block getFirstBlock() {
+        return blocks.getFirst();
+    }
+
     public void addBlock(Block block) {
         blocks.add(block);
         blocksByHeight.put(block.getHeight(), block);
@@ -338,6 +343,17 @@ public class DaoState implements PersistablePayload {
         addBlocks(newBlocks);
     }
 
+    /**
+     * Removes the blocks below the given height from the block list and the index. The txs of those blocks stay in
+     * the txCache as they are needed for the consensus lookups.
+     * @param height
+     */
+    public void removeBlocksBelowHeight(int height) {
+        while (!blocks.isEmpty() && blocks.getFirst().getHeight() < height) {
+            blocksByHeight.remove(blocks.removeFirst().getHeight());
+        }
+    }
+
     @Override
     public String toString() {
         return "DaoState{" +
@@ -0,0 +1,476 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state.storage;
+
+import bisq.core.dao.state.GenesisTxInfo;
+import bisq.core.dao.state.model.blockchain.Block;
+
+import bisq.common.config.Config;
+import bisq.common.file.FileUtil;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Archive of all BSQ blocks with random access by height. It allows us to keep only the recent blocks in memory.
+ * <p>
+ * The blocks are stored in segment files of SEGMENT_SIZE blocks. Each record consists of the size of the serialized
+ * block, the block time and the serialized protobuf block. Blocks are only appended in order of their height, so the
+ * height of a record is defined by its position. At startup we build an index with the record offsets and block times
+ * by reading the record headers only. Segments get memory mapped for reading, so the OS decides which parts are kept
+ * in memory. As a mapped file cannot be truncated or deleted on Windows we release the mapping explicitly before we
+ * change a segment file.
+ * <p>
+ * The bucket files of {@link BlocksPersistence} stay the source of truth. The archive gets synced with them at
+ * startup, so it gets rebuilt if it is missing or does not match.
+ */
+@Slf4j
+@Singleton
+public class BsqBlockArchive {
+    public static final String NAME = "BsqBlockArchive";
+    @VisibleForTesting
+    static final int SEGMENT_SIZE = 10_000;
+    // Size of the serialized block and block time
+    private static final int HEADER_SIZE = 4 + 8;
+
+    private static class Segment {
+        private final File file;
+        private final int firstHeight;
+        private final int[] offsets = new int[SEGMENT_SIZE];
+        private final long[] blockTimes = new long[SEGMENT_SIZE];
+        private int numBlocks;
+        // Size of the valid records in the file. We write at that position, so data after it gets overwritten.
+        private int size;
+        @Nullable
+        private MappedByteBuffer mappedByteBuffer;
+
+        Segment(File file, int firstHeight) {
+            this.file = file;
+            this.firstHeight = firstHeight;
+        }
+    }
+
+    private final File storageDir;
+    private final int genesisBlockHeight;
+    private final List<Segment> segments = new ArrayList<>();
+    private boolean isIndexLoaded;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Inject
+    public BsqBlockArchive(GenesisTxInfo genesisTxInfo,
+                           @Named(Config.STORAGE_DIR) File dbStorageDir) {
+        this(new File(dbStorageDir, NAME), genesisTxInfo.getGenesisBlockHeight());
+    }
+
+    @VisibleForTesting
+    BsqBlockArchive(File storageDir, int genesisBlockHeight) {
+        this.storageDir = storageDir;
+        this.genesisBlockHeight = genesisBlockHeight;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Makes the archive consistent with the given blocks, which are all blocks from genesis. Blocks which are not in
+     * the given list get removed. If the archive contains a different block at the same height we rebuild it.
+     */
+    public synchronized void sync(List<Block> blocks) {
+        long ts = System.currentTimeMillis();
+        loadIndex();
+        if (blocks.isEmpty() || blocks.get(0).getHeight() != genesisBlockHeight) {
+            clear();
+            return;
+        }
+
+        int lastHeight = blocks.get(blocks.size() - 1).getHeight();
+        if (getLastHeight() > lastHeight) {
+            truncate(lastHeight + 1);
+        }
+        int commonHeight = getLastHeight();
+        if (commonHeight >= genesisBlockHeight) {
+            Block archived = readBlock(commonHeight).orElse(null);
+            int index = commonHeight - genesisBlockHeight;
+            Block block = index < blocks.size() ? blocks.get(index) : null;
+            if (archived == null || block == null || !archived.getHash().equals(block.getHash())) {
+                log.warn("The archived block at height {} does not match our block. We rebuild the archive.",
+                        commonHeight);
+                clear();
+            }
+        }
+        append(blocks);
+        log.info("Syncing block archive with {} blocks took {} ms", blocks.size(), System.currentTimeMillis() - ts);
+    }
+
+    // Blocks which are already archived get ignored. Blocks must be appended without gaps. If the first block is
+    // already archived but with a different hash (e.g. left over from a resync) we replace the archived blocks from
+    // that height.
+    public synchronized void append(List<Block> blocks) {
+        loadIndex();
+        if (!blocks.isEmpty()) {
+            Block first = blocks.get(0);
+            boolean isDifferentBlock = readBlock(first.getHeight())
+                    .map(archived -> !archived.getHash().equals(first.getHash()))
+                    .orElse(false);
+            if (isDifferentBlock) {
+                log.warn("The archived block at height {} has a different hash. We replace the archived blocks " +
+                        "from that height.", first.getHeight());
+                truncate(first.getHeight());
+            }
+        }
+
+        Segment segment = null;
+        FileChannel channel = null;
+        DataOutputStream outputStream = null;
+        // State of the segment before we started writing to it, to roll back if writing fails
+        int numBlocksBeforeWrite = 0;
+        int sizeBeforeWrite = 0;
+        try {
+            for (Block block : blocks) {
+                int height = block.getHeight();
+                if (height <= getLastHeight()) {
+                    continue;
+                }
+                if (height != getLastHeight() + 1) {
+                    log.warn("Block at height {} does not connect to the archived blocks up to height {}. " +
+                            "We ignore it.", height, getLastHeight());
+                    break;
+                }
+
+                if (segment == null || segment.numBlocks == SEGMENT_SIZE) {
+                    closeAndSync(channel, outputStream);
+                    channel = null;
+                    outputStream = null;
+                    segment = getSegmentForAppend(height);
+                    numBlocksBeforeWrite = segment.numBlocks;
+                    sizeBeforeWrite = segment.size;
+                    channel = FileChannel.open(segment.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    channel.position(segment.size);
+                    outputStream = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                }
+
+                byte[] serialized = block.toProtoMessage().toByteArray();
+                outputStream.writeInt(serialized.length);
+                outputStream.writeLong(block.getTime());
+                outputStream.write(serialized);
+                segment.offsets[segment.numBlocks] = segment.size;
+                segment.blockTimes[segment.numBlocks] = block.getTime();
+                segment.numBlocks++;
+                segment.size += HEADER_SIZE + serialized.length;
+            }
+            closeAndSync(channel, outputStream);
+        } catch (IOException e) {
+            // Blocks get only removed from memory once they are archived. So we keep the archive with the blocks we
+            // have written successfully and the not archived blocks stay in memory. The archive gets completed from
+            // the bucket files at the next startup.
+            log.error("Appending blocks to archive failed. We keep the archive up to height {}.",
+                    segment != null ? segment.firstHeight + numBlocksBeforeWrite - 1 : getLastHeight(), e);
+            closeQuietly(channel);
+            if (segment != null) {
+                rollBack(segment, numBlocksBeforeWrite, sizeBeforeWrite);
+            }
+        }
+    }
+
+    public synchronized Optional<Block> readBlock(int height) {
+        loadIndex();
+        Segment segment = getSegment(height);
+        if (segment == null) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(Block.fromProto(protobuf.BaseBlock.parseFrom(getSerializedBlock(segment, height))));
+        } catch (IOException e) {
+            log.error("Reading block at height {} from archive failed", height, e);
+            return Optional.empty();
+        }
+    }
+
+    // Returns the blocks from fromHeight up to (excluding) toHeight
+    public synchronized List<Block> readBlocks(int fromHeight, int toHeight) {
+        List<Block> blocks = new ArrayList<>();
+        for (int height = Math.max(fromHeight, genesisBlockHeight); height < toHeight; height++) {
+            Optional<Block> block = readBlock(height);
+            if (!block.isPresent()) {
+                break;
+            }
+            blocks.add(block.get());
+        }
+        return blocks;
+    }
+
+    public synchronized Optional<Long> getBlockTime(int height) {
+        loadIndex();
+        Segment segment = getSegment(height);
+        return segment != null ?
+                Optional.of(segment.blockTimes[height - segment.firstHeight]) :
+                Optional.empty();
+    }
+
+    // Height of the last archived block or genesisBlockHeight - 1 if the archive is empty
+    public synchronized int getLastHeight() {
+        loadIndex();
+        if (segments.isEmpty()) {
+            return genesisBlockHeight - 1;
+        }
+        Segment last = segments.get(segments.size() - 1);
+        return last.firstHeight + last.numBlocks - 1;
+    }
+
+    public synchronized void clear() {
+        segments.forEach(BsqBlockArchive::unmap);
+        segments.clear();
+        if (storageDir.exists()) {
+            try {
+                FileUtil.deleteDirectory(storageDir);
+            } catch (IOException e) {
+                log.error("Deleting block archive failed", e);
+            }
+        }
+        // As long as we have not written to it we keep it empty. In case deleting failed we overwrite the files.
+        isIndexLoaded = true;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void loadIndex() {
+        if (isIndexLoaded) {
+            return;
+        }
+
+        isIndexLoaded = true;
+        long ts = System.currentTimeMillis();
+        int firstHeight = genesisBlockHeight;
+        while (true) {
+            File file = getSegmentFile(firstHeight);
+            if (!file.exists()) {
+                break;
+            }
+
+            Segment segment = new Segment(file, firstHeight);
+            readSegmentIndex(segment);
+            if (segment.size < file.length()) {
+                log.warn("{} contains an incomplete record. We truncate it.", file.getName());
+                truncateFile(segment);
+            }
+            if (segment.numBlocks == 0) {
+                break;
+            }
+            segments.add(segment);
+            if (segment.numBlocks < SEGMENT_SIZE) {
+                break;
+            }
+            firstHeight += SEGMENT_SIZE;
+        }
+        log.info("Loading index of block archive up to height {} took {} ms",
+                getLastHeight(), System.currentTimeMillis() - ts);
+    }
+
+    private void readSegmentIndex(Segment segment) {
+        long fileLength = segment.file.length();
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.file)))) {
+            while (segment.numBlocks < SEGMENT_SIZE) {
+                int length = inputStream.readInt();
+                long blockTime = inputStream.readLong();
+                // FileInputStream.skip does not detect the end of the file, so we check the length of the record
+                if (length < 0 || (long) segment.size + HEADER_SIZE + length > fileLength) {
+                    break;
+                }
+                inputStream.skipBytes(length);
+                segment.offsets[segment.numBlocks] = segment.size;
+                segment.blockTimes[segment.numBlocks] = blockTime;
+                segment.numBlocks++;
+                segment.size += HEADER_SIZE + length;
+            }
+        } catch (EOFException ignore) {
+            // We got to the end of the file. An incomplete last record is ignored.
+        } catch (IOException e) {
+            log.error("Reading {} failed", segment.file.getName(), e);
+        }
+    }
+
+    private ByteBuffer getSerializedBlock(Segment segment, int height) throws IOException {
+        int index = height - segment.firstHeight;
+        int offset = segment.offsets[index];
+        int end = index + 1 < segment.numBlocks ? segment.offsets[index + 1] : segment.size;
+        if (segment.mappedByteBuffer == null || segment.mappedByteBuffer.capacity() < end) {
+            // The segment grew since we mapped it
+            unmap(segment);
+            try (FileChannel channel = FileChannel.open(segment.file.toPath())) {
+                segment.mappedByteBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+            }
+        }
+        ByteBuffer buffer = segment.mappedByteBuffer.duplicate();
+        buffer.position(offset + HEADER_SIZE);
+        buffer.limit(end);
+        return buffer.slice();
+    }
+
+    @Nullable
+    private Segment getSegment(int height) {
+        if (height < genesisBlockHeight || height > getLastHeight()) {
+            return null;
+        }
+        return segments.get((height - genesisBlockHeight) / SEGMENT_SIZE);
+    }
+
+    private Segment getSegmentForAppend(int height) {
+        if (!segments.isEmpty()) {
+            Segment last = segments.get(segments.size() - 1);
+            if (last.numBlocks < SEGMENT_SIZE) {
+                return last;
+            }
+        }
+
+        if (!storageDir.exists() && !storageDir.mkdirs()) {
+            log.warn("make dir failed {}", storageDir);
+        }
+        Segment segment = new Segment(getSegmentFile(height), height);
+        // In case a left over file could not be deleted we overwrite it
+        truncateFile(segment);
+        segments.add(segment);
+        return segment;
+    }
+
+    // Removes all blocks from the given height
+    private void truncate(int fromHeight) {
+        while (!segments.isEmpty() && segments.get(segments.size() - 1).firstHeight >= fromHeight) {
+            Segment removed = segments.remove(segments.size() - 1);
+            unmap(removed);
+            if (!removed.file.delete()) {
+                // If the file is left it must not contain blocks which get loaded at the next startup
+                log.warn("Could not delete {}. We truncate it instead.", removed.file.getName());
+                removed.size = 0;
+                truncateFile(removed);
+            }
+        }
+        Segment segment = getSegment(fromHeight);
+        if (segment != null) {
+            int index = fromHeight - segment.firstHeight;
+            segment.size = segment.offsets[index];
+            segment.numBlocks = index;
+            unmap(segment);
+            truncateFile(segment);
+        }
+    }
+
+    // Resets the segment to the state before a failed write
+    private void rollBack(Segment segment, int numBlocks, int size) {
+        segment.numBlocks = numBlocks;
+        segment.size = size;
+        unmap(segment);
+        if (numBlocks == 0 && !segments.isEmpty() && segments.get(segments.size() - 1) == segment) {
+            segments.remove(segments.size() - 1);
+        }
+        truncateFile(segment);
+    }
+
+    // If truncating fails the data after segment.size is ignored and gets overwritten at the next append
+    private void truncateFile(Segment segment) {
+        try (RandomAccessFile file = new RandomAccessFile(segment.file, "rw")) {
+            file.setLength(segment.size);
+        } catch (IOException e) {
+            log.error("Truncating {} failed", segment.file.getName(), e);
+        }
+    }
+
+    // A MappedByteBuffer gets only unmapped when it is garbage collected, but on Windows we cannot truncate or delete
+    // a mapped file. So we unmap it with Unsafe.invokeCleaner (Java 9+). The buffer and its slices must not be used
+    // afterwards. All access is synchronized and the protobuf parser copies the data, so no reference is left.
+    private static void unmap(Segment segment) {
+        MappedByteBuffer mappedByteBuffer = segment.mappedByteBuffer;
+        segment.mappedByteBuffer = null;
+        if (mappedByteBuffer == null) {
+            return;
+        }
+
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(theUnsafe.get(null), mappedByteBuffer);
+        } catch (Throwable t) {
+            // The mapping gets released at garbage collection
+            log.warn("Unmapping {} failed. {}", segment.file.getName(), t.toString());
+        }
+    }
+
+    private File getSegmentFile(int firstHeight) {
+        return new File(storageDir, NAME + "_" + firstHeight);
+    }
+
+    private void closeAndSync(@Nullable FileChannel channel,
+                              @Nullable DataOutputStream outputStream) throws IOException {
+        if (channel != null && outputStream != null) {
+            outputStream.flush();
+            channel.force(false);
+            outputStream.close();
+        }
+    }
+
+    // We close the channel and not the output stream as flushing the buffered data might fail again
+    private void closeQuietly(@Nullable FileChannel channel) {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException ignore) {
+        }
+    }
+}
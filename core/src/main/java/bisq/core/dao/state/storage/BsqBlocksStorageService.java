@@ -50,13 +50,16 @@ public class BsqBlocksStorageService {
     private final int genesisBlockHeight;
     private final File storageDir;
     private final BlocksPersistence blocksPersistence;
+    private final BsqBlockArchive bsqBlockArchive;
     @Getter
     private int chainHeightOfPersistedBlocks;
 
     @Inject
     public BsqBlocksStorageService(GenesisTxInfo genesisTxInfo,
                                    PersistenceProtoResolver persistenceProtoResolver,
+                                   BsqBlockArchive bsqBlockArchive,
                                    @Named(Config.STORAGE_DIR) File dbStorageDir) {
+        this.bsqBlockArchive = bsqBlockArchive;
         genesisBlockHeight = genesisTxInfo.getGenesisBlockHeight();
         storageDir = new File(dbStorageDir.getAbsolutePath() + File.separator + NAME);
         blocksPersistence = new BlocksPersistence(storageDir, NAME, persistenceProtoResolver);
@@ -68,6 +71,7 @@ public class BsqBlocksStorageService {
                 .map(Block::toProtoMessage)
                 .collect(Collectors.toList());
         blocksPersistence.writeBlocks(protobufBlocks);
+        bsqBlockArchive.append(blocks);
 
         if (!blocks.isEmpty()) {
             chainHeightOfPersistedBlocks = Math.max(chainHeightOfPersistedBlocks,
@@ -88,6 +92,7 @@ public class BsqBlocksStorageService {
         if (!blocks.isEmpty()) {
             chainHeightOfPersistedBlocks = getHeightOfLastFullBucket(blocks);
         }
+        bsqBlockArchive.sync(blocks);
         return blocks;
     }
 
@@ -99,6 +104,7 @@ public class BsqBlocksStorageService {
         if (!blocks.isEmpty()) {
             chainHeightOfPersistedBlocks = getHeightOfLastFullBucket(blocks);
         }
+        bsqBlockArchive.sync(blocks);
 
         log.info("Migrating blocks (write+deserialization) from DaoStateStore took {} ms", System.currentTimeMillis() - ts);
         return blocks;
@@ -149,12 +155,14 @@ public class BsqBlocksStorageService {
 
     public void removeBlocksDirectory() {
         blocksPersistence.removeBlocksDirectory();
+        bsqBlockArchive.clear();
     }
 
     // We recreate the directory so that we don't fill the blocks after restart from resources
     // In copyFromResources we only check for the directory not the files inside.
     public void removeBlocksInDirectory() {
         blocksPersistence.removeBlocksDirectory();
+        bsqBlockArchive.clear();
         if (!storageDir.exists()) {
             storageDir.mkdir();
         }
@@ -0,0 +1,119 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state.storage;
+
+import bisq.common.file.FileUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Appends the DaoStateDelta messages to a file. The deltas are relative to the DaoState in the DaoStateStore. When a
+ * new DaoStateStore gets written the file is removed.
+ */
+@Slf4j
+public class DaoStateDeltaPersistence {
+    private final File storageFile;
+
+    public DaoStateDeltaPersistence(File storageDir, String fileName) {
+        storageFile = new File(storageDir, fileName);
+    }
+
+    public void append(protobuf.DaoStateDelta delta) {
+        long ts = System.currentTimeMillis();
+        try (FileOutputStream fileOutputStream = new FileOutputStream(storageFile, true)) {
+            delta.writeDelimitedTo(fileOutputStream);
+            fileOutputStream.flush();
+            fileOutputStream.getFD().sync();
+            log.info("Appending delta with {} bytes to {} took {} ms",
+                    delta.getSerializedSize(), storageFile.getName(), System.currentTimeMillis() - ts);
+        } catch (Throwable t) {
+            log.error("Error at appending delta to {}", storageFile.getName(), t);
+        }
+    }
+
+    // Returns the deltas which continue the chain from the given height. Others are left overs from an older
+    // DaoStateStore and get ignored. If the last write got interrupted we ignore the incomplete delta. In both cases we
+    // rewrite the file with the valid deltas, so that we can append again.
+    public List<protobuf.DaoStateDelta> readDeltas(int fromHeight) {
+        List<protobuf.DaoStateDelta> deltas = new ArrayList<>();
+        if (!storageFile.exists()) {
+            return deltas;
+        }
+
+        long ts = System.currentTimeMillis();
+        int height = fromHeight;
+        boolean hasInvalidData = false;
+        try (FileInputStream fileInputStream = new FileInputStream(storageFile)) {
+            protobuf.DaoStateDelta delta;
+            while ((delta = protobuf.DaoStateDelta.parseDelimitedFrom(fileInputStream)) != null) {
+                if (delta.getFromHeight() == height) {
+                    deltas.add(delta);
+                    height = delta.getChanges().getChainHeight();
+                } else {
+                    log.warn("Delta from height {} does not fit to height {}. We ignore it.",
+                            delta.getFromHeight(), height);
+                    hasInvalidData = true;
+                }
+            }
+        } catch (Throwable t) {
+            log.warn("Reading {} failed with {}. We use the {} deltas read so far.",
+                    storageFile.getName(), t.getMessage(), deltas.size());
+            hasInvalidData = true;
+        }
+        if (hasInvalidData) {
+            rewrite(deltas);
+        }
+        log.info("Reading {} deltas took {} ms", deltas.size(), System.currentTimeMillis() - ts);
+        return deltas;
+    }
+
+    private void rewrite(List<protobuf.DaoStateDelta> deltas) {
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile("temp_" + storageFile.getName(), null, storageFile.getParentFile());
+            try (FileOutputStream fileOutputStream = new FileOutputStream(tempFile)) {
+                for (protobuf.DaoStateDelta delta : deltas) {
+                    delta.writeDelimitedTo(fileOutputStream);
+                }
+                fileOutputStream.flush();
+                fileOutputStream.getFD().sync();
+            }
+            FileUtil.renameFile(tempFile, storageFile);
+        } catch (Throwable t) {
+            log.error("Error at rewriting {}. We remove it.", storageFile.getName(), t);
+            remove();
+        } finally {
+            if (tempFile != null && tempFile.exists() && !tempFile.delete()) {
+                log.error("Cannot delete temp file.");
+            }
+        }
+    }
+
+    public void remove() {
+        if (storageFile.exists() && !storageFile.delete()) {
+            log.error("Cannot delete {}", storageFile.getName());
+        }
+    }
+}
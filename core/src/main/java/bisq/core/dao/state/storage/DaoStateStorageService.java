@@ -18,6 +18,7 @@
 package bisq.core.dao.state.storage;
 
 import bisq.core.dao.monitoring.model.DaoStateHash;
+import bisq.core.dao.state.DaoStateChangeLog;
 import bisq.core.dao.state.model.DaoState;
 import bisq.core.dao.state.model.blockchain.Block;
 
@@ -29,6 +30,7 @@ import bisq.common.config.Config;
 import bisq.common.file.FileUtil;
 import bisq.common.persistence.PersistenceManager;
 import bisq.common.util.GcUtil;
+import bisq.common.util.Utilities;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -36,23 +38,38 @@ import javax.inject.Named;
 import java.io.File;
 import java.io.IOException;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * Manages persistence of the daoState.
+ * The full daoState is persisted in the DaoStateStore. Snapshots in between are appended as deltas to the
+ * DaoStateDeltas file and get replayed on top of the DaoStateStore at startup.
  */
 @Slf4j
 public class DaoStateStorageService extends StoreService<DaoStateStore> {
     private static final String FILE_NAME = "DaoStateStore";
+    private static final String DELTAS_FILE_NAME = "DaoStateDeltas";
 
     private final BsqBlocksStorageService bsqBlocksStorageService;
     private final File storageDir;
+    private final DaoStateDeltaPersistence daoStateDeltaPersistence;
+    // All writes are done in sequence as the deltas depend on the previously written data
+    private final ExecutorService writeExecutor = Utilities.getSingleThreadExecutor("Write-blocks-and-DaoState");
     private final LinkedList<Block> blocks = new LinkedList<>();
+    private final List<protobuf.DaoStateDelta> deltas = new ArrayList<>();
+    // Includes the deltas. Updated when we request persistence, so it is the height the next delta has to start from.
+    @Getter
+    private int chainHeightOfPersistedDaoState;
+    @Getter
+    private int numPersistedDeltas;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -67,6 +84,7 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
         super(storageDir, persistenceManager);
         this.bsqBlocksStorageService = bsqBlocksStorageService;
         this.storageDir = storageDir;
+        daoStateDeltaPersistence = new DaoStateDeltaPersistence(storageDir, DELTAS_FILE_NAME);
 
         resourceDataStoreService.addService(this);
     }
@@ -94,9 +112,12 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
             return;
         }
 
-        new Thread(() -> {
-            Thread.currentThread().setName("Write-blocks-and-DaoState");
+        chainHeightOfPersistedDaoState = daoStateAsProto.getChainHeight();
+        numPersistedDeltas = 0;
+        writeExecutor.execute(() -> {
             bsqBlocksStorageService.persistBlocks(blocks);
+            // The deltas are relative to the old DaoStateStore
+            daoStateDeltaPersistence.remove();
 
             store.setDaoStateAsProto(daoStateAsProto);
             store.setDaoStateHashChain(daoStateHashChain);
@@ -109,7 +130,26 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
                 GcUtil.maybeReleaseMemory();
                 UserThread.execute(completeHandler);
             });
-        }).start();
+        });
+    }
+
+    public void requestDeltaPersistence(protobuf.DaoStateDelta delta,
+                                        List<Block> blocks,
+                                        Runnable completeHandler) {
+        if (delta.getFromHeight() != chainHeightOfPersistedDaoState) {
+            log.warn("The delta from height {} does not fit to the persisted daoState at height {}. We ignore it.",
+                    delta.getFromHeight(), chainHeightOfPersistedDaoState);
+            completeHandler.run();
+            return;
+        }
+
+        chainHeightOfPersistedDaoState = delta.getChanges().getChainHeight();
+        numPersistedDeltas++;
+        writeExecutor.execute(() -> {
+            bsqBlocksStorageService.persistBlocks(blocks);
+            daoStateDeltaPersistence.append(delta);
+            UserThread.execute(completeHandler);
+        });
     }
 
     @Override
@@ -124,10 +164,15 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
                 new Thread(() -> {
                     Thread.currentThread().setName("Read-BsqBlocksStore");
                     protobuf.DaoState daoStateAsProto = store.getDaoStateAsProto();
+                    deltas.clear();
                     if (daoStateAsProto != null) {
                         LinkedList<Block> list;
+                        int chainHeight = daoStateAsProto.getChainHeight();
                         if (daoStateAsProto.getBlocksList().isEmpty()) {
-                            int chainHeight = daoStateAsProto.getChainHeight();
+                            deltas.addAll(daoStateDeltaPersistence.readDeltas(chainHeight));
+                            if (!deltas.isEmpty()) {
+                                chainHeight = deltas.get(deltas.size() - 1).getChanges().getChainHeight();
+                            }
                             list = bsqBlocksStorageService.readBlocks(chainHeight);
                             if (!list.isEmpty()) {
                                 int heightOfLastBlock = list.getLast().getHeight();
@@ -139,6 +184,8 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
                         }
                         blocks.clear();
                         blocks.addAll(list);
+                        chainHeightOfPersistedDaoState = chainHeight;
+                        numPersistedDeltas = deltas.size();
                     }
                     UserThread.execute(completeHandler);
                 }).start();
@@ -151,19 +198,30 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
         if (daoStateAsProto != null) {
             long ts = System.currentTimeMillis();
             DaoState daoState = DaoState.fromProto(daoStateAsProto, blocks);
-            log.info("Deserializing DaoState with {} blocks took {} ms",
-                    daoState.getBlocks().size(), System.currentTimeMillis() - ts);
+            deltas.forEach(delta -> DaoStateChangeLog.applyDelta(delta, daoState));
+            log.info("Deserializing DaoState with {} blocks and {} deltas took {} ms",
+                    daoState.getBlocks().size(), deltas.size(), System.currentTimeMillis() - ts);
             return daoState;
         }
         return new DaoState();
     }
 
     public LinkedList<DaoStateHash> getPersistedDaoStateHashChain() {
-        return store.getDaoStateHashChain();
+        LinkedList<DaoStateHash> daoStateHashChain = store.getDaoStateHashChain();
+        if (daoStateHashChain == null || deltas.isEmpty()) {
+            return daoStateHashChain;
+        }
+
+        LinkedList<DaoStateHash> result = new LinkedList<>(daoStateHashChain);
+        deltas.forEach(delta -> delta.getDaoStateHashList().stream()
+                .map(DaoStateHash::fromProto)
+                .forEach(result::add));
+        return result;
     }
 
     public void releaseMemory() {
         blocks.clear();
+        deltas.clear();
         store.releaseMemory();
         GcUtil.maybeReleaseMemory();
     }
@@ -178,6 +236,7 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
 
         store.setDaoStateAsProto(DaoState.getBsqStateCloneExcludingBlocks(new DaoState()));
         store.setDaoStateHashChain(new LinkedList<>());
+        daoStateDeltaPersistence.remove();
         persistenceManager.persistNow(resultHandler);
         bsqBlocksStorageService.removeBlocksInDirectory();
     }
@@ -191,6 +250,9 @@ public class DaoStateStorageService extends StoreService<DaoStateStore> {
         String newFileName = "DaoStateStore_" + System.currentTimeMillis();
         FileUtil.removeAndBackupFile(storageDir, new File(storageDir, "DaoStateStore"), newFileName, backupDirName);
 
+        newFileName = DELTAS_FILE_NAME + "_" + System.currentTimeMillis();
+        FileUtil.removeAndBackupFile(storageDir, new File(storageDir, DELTAS_FILE_NAME), newFileName, backupDirName);
+
         bsqBlocksStorageService.removeBlocksDirectory();
     }
 
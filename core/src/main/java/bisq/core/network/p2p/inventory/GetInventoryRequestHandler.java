@@ -23,6 +23,7 @@ import bisq.core.dao.monitoring.ProposalStateMonitoringService;
 import bisq.core.dao.monitoring.model.BlindVoteStateBlock;
 import bisq.core.dao.monitoring.model.DaoStateBlock;
 import bisq.core.dao.monitoring.model.ProposalStateBlock;
+import bisq.core.dao.node.full.network.GetBlocksResponseCache;
 import bisq.core.dao.state.DaoStateService;
 import bisq.core.filter.Filter;
 import bisq.core.filter.FilterManager;
@@ -70,6 +71,7 @@ public class GetInventoryRequestHandler implements MessageListener {
     private final ProposalStateMonitoringService proposalStateMonitoringService;
     private final BlindVoteStateMonitoringService blindVoteStateMonitoringService;
     private final FilterManager filterManager;
+    private final GetBlocksResponseCache getBlocksResponseCache;
     private final int maxConnections;
 
     @Inject
@@ -81,6 +83,7 @@ public class GetInventoryRequestHandler implements MessageListener {
                                       ProposalStateMonitoringService proposalStateMonitoringService,
                                       BlindVoteStateMonitoringService blindVoteStateMonitoringService,
                                       FilterManager filterManager,
+                                      GetBlocksResponseCache getBlocksResponseCache,
                                       @Named(Config.MAX_CONNECTIONS) int maxConnections) {
         this.networkNode = networkNode;
         this.peerManager = peerManager;
@@ -90,6 +93,7 @@ public class GetInventoryRequestHandler implements MessageListener {
         this.proposalStateMonitoringService = proposalStateMonitoringService;
         this.blindVoteStateMonitoringService = blindVoteStateMonitoringService;
         this.filterManager = filterManager;
+        this.getBlocksResponseCache = getBlocksResponseCache;
         this.maxConnections = maxConnections;
 
         this.networkNode.addMessageListener(this);
@@ -112,7 +116,7 @@ public class GetInventoryRequestHandler implements MessageListener {
             dataObjects.forEach((key, value) -> inventory.put(key, String.valueOf(value)));
 
             // DAO
-            int numBsqBlocks = daoStateService.getBlocks().size();
+            int numBsqBlocks = daoStateService.getNumBlocks();
             inventory.put(InventoryItem.numBsqBlocks, String.valueOf(numBsqBlocks));
 
             int daoStateChainHeight = daoStateService.getChainHeight();
@@ -136,6 +140,11 @@ public class GetInventoryRequestHandler implements MessageListener {
                 inventory.put(InventoryItem.blindVoteHash, blindVoteHash);
             }
 
+            if (getBlocksResponseCache.getNumRequests() > 0) {
+                inventory.put(InventoryItem.bsqBlocksSentBytes, String.valueOf(getBlocksResponseCache.getNumBytesServed()));
+                inventory.put(InventoryItem.bsqBlocksCacheHitRate, String.valueOf(getBlocksResponseCache.getHitRate()));
+            }
+
             // network
             inventory.put(InventoryItem.maxConnections, String.valueOf(maxConnections));
             inventory.put(InventoryItem.numConnections, String.valueOf(networkNode.getAllConnections().size()));
@@ -119,6 +119,9 @@ public enum InventoryItem {
     // No deviation check
     sentBytes("sentBytes", true),
     receivedBytes("receivedBytes", true),
+    // Only full nodes serve BSQ blocks
+    bsqBlocksSentBytes("bsqBlocksSentBytes", true),
+    bsqBlocksCacheHitRate("bsqBlocksCacheHitRate", true),
 
     // No deviation check
     version("version", false),
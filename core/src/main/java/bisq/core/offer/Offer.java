@@ -42,6 +42,7 @@ import bisq.common.proto.network.NetworkPayload;
 import bisq.common.proto.persistable.PersistablePayload;
 import bisq.common.util.JsonExclude;
 import bisq.common.util.MathUtils;
+import bisq.common.util.Tuple2;
 import bisq.common.util.Utilities;
 
 import org.bitcoinj.core.Coin;
@@ -116,6 +117,13 @@ public class Offer implements NetworkPayload, PersistablePayload {
     @JsonExclude
     transient private String currencyCode;
 
+    // Cache of the price of a market based offer and the market price it was calculated from. Market prices get
+    // replaced by new instances at each price update, so we can compare them by identity. We keep both in one
+    // volatile field as getPrice might be called from other threads than the user thread (e.g. the API).
+    @Nullable
+    @JsonExclude
+    transient private volatile Tuple2<MarketPrice, Price> marketBasedPriceCache;
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -191,29 +199,12 @@ public class Offer implements NetworkPayload, PersistablePayload {
         checkNotNull(priceFeedService, "priceFeed must not be null");
         MarketPrice marketPrice = priceFeedService.getMarketPrice(currencyCode);
         if (marketPrice != null && marketPrice.isRecentExternalPriceAvailable()) {
-            double factor;
-            double marketPriceMargin = offerPayload.getMarketPriceMargin();
-            if (CurrencyUtil.isCryptoCurrency(currencyCode)) {
-                factor = getDirection() == OfferDirection.SELL ?
-                        1 - marketPriceMargin : 1 + marketPriceMargin;
-            } else {
-                factor = getDirection() == OfferDirection.BUY ?
-                        1 - marketPriceMargin : 1 + marketPriceMargin;
-            }
-            double marketPriceAsDouble = marketPrice.getPrice();
-            double targetPriceAsDouble = marketPriceAsDouble * factor;
-            try {
-                int precision = CurrencyUtil.isCryptoCurrency(currencyCode) ?
-                        Altcoin.SMALLEST_UNIT_EXPONENT :
-                        Fiat.SMALLEST_UNIT_EXPONENT;
-                double scaled = MathUtils.scaleUpByPowerOf10(targetPriceAsDouble, precision);
-                final long roundedToLong = MathUtils.roundDoubleToLong(scaled);
-                return Price.valueOf(currencyCode, roundedToLong);
-            } catch (Exception e) {
-                log.error("Exception at getPrice / parseToFiat: " + e + "\n" +
-                        "That case should never happen.");
-                return null;
+            Tuple2<MarketPrice, Price> cache = marketBasedPriceCache;
+            if (cache == null || cache.first != marketPrice) {
+                cache = new Tuple2<>(marketPrice, getMarketBasedPrice(offerPayload, marketPrice, currencyCode));
+                marketBasedPriceCache = cache;
             }
+            return cache.second;
         } else {
             log.trace("We don't have a market price. " +
                     "That case could only happen if you don't have a price feed.");
@@ -221,6 +212,33 @@ public class Offer implements NetworkPayload, PersistablePayload {
         }
     }
 
+    @Nullable
+    private Price getMarketBasedPrice(OfferPayload offerPayload, MarketPrice marketPrice, String currencyCode) {
+        double factor;
+        double marketPriceMargin = offerPayload.getMarketPriceMargin();
+        if (CurrencyUtil.isCryptoCurrency(currencyCode)) {
+            factor = getDirection() == OfferDirection.SELL ?
+                    1 - marketPriceMargin : 1 + marketPriceMargin;
+        } else {
+            factor = getDirection() == OfferDirection.BUY ?
+                    1 - marketPriceMargin : 1 + marketPriceMargin;
+        }
+        double marketPriceAsDouble = marketPrice.getPrice();
+        double targetPriceAsDouble = marketPriceAsDouble * factor;
+        try {
+            int precision = CurrencyUtil.isCryptoCurrency(currencyCode) ?
+                    Altcoin.SMALLEST_UNIT_EXPONENT :
+                    Fiat.SMALLEST_UNIT_EXPONENT;
+            double scaled = MathUtils.scaleUpByPowerOf10(targetPriceAsDouble, precision);
+            final long roundedToLong = MathUtils.roundDoubleToLong(scaled);
+            return Price.valueOf(currencyCode, roundedToLong);
+        } catch (Exception e) {
+            log.error("Exception at getPrice / parseToFiat: " + e + "\n" +
+                    "That case should never happen.");
+            return null;
+        }
+    }
+
     public long getFixedPrice() {
         return offerPayloadBase.getPrice();
     }
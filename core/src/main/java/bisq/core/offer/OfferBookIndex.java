@@ -0,0 +1,132 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.provider.price.PriceFeedService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the offers in the offer book by currency code, direction and payment method id.
+ * It gets updated incrementally when offer payloads are added to or removed from the P2P network storage, so
+ * queries for one market do not need to iterate over all protected storage entries.
+ * <p>
+ * We only keep the immutable offer payloads. Offer has mutable state (e.g. the state set by the availability check)
+ * and is used from different threads, so each query returns new Offer instances as if they got created from the
+ * P2P network storage.
+ * <p>
+ * Updates are done at the user thread but queries might come from other threads (e.g. the API), so we use
+ * concurrent maps.
+ */
+class OfferBookIndex {
+    private final PriceFeedService priceFeedService;
+    // Value is the market key of the payload, which we need for removing it
+    private final Map<OfferPayloadBase, String> marketKeys = new ConcurrentHashMap<>();
+    // Key is the market key of currency code and direction, value is a map of payment method id to the payloads
+    private final Map<String, Map<String, Set<OfferPayloadBase>>> payloadsByMarket = new ConcurrentHashMap<>();
+
+    OfferBookIndex(PriceFeedService priceFeedService) {
+        this.priceFeedService = priceFeedService;
+    }
+
+    // Returns false if we had the payload already
+    boolean add(OfferPayloadBase offerPayloadBase) {
+        if (marketKeys.containsKey(offerPayloadBase)) {
+            return false;
+        }
+
+        Offer offer = createOffer(offerPayloadBase);
+        String marketKey = getMarketKey(offer.getCurrencyCode(), offer.getDirection());
+        marketKeys.put(offerPayloadBase, marketKey);
+        payloadsByMarket.computeIfAbsent(marketKey, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(offerPayloadBase.getPaymentMethodId(), key -> ConcurrentHashMap.newKeySet())
+                .add(offerPayloadBase);
+        return true;
+    }
+
+    // Returns false if we did not have that payload
+    boolean remove(OfferPayloadBase offerPayloadBase) {
+        String marketKey = marketKeys.remove(offerPayloadBase);
+        if (marketKey == null) {
+            return false;
+        }
+
+        Map<String, Set<OfferPayloadBase>> payloadsByPaymentMethod = payloadsByMarket.get(marketKey);
+        if (payloadsByPaymentMethod != null) {
+            String paymentMethodId = offerPayloadBase.getPaymentMethodId();
+            Set<OfferPayloadBase> payloadsOfPaymentMethod = payloadsByPaymentMethod.get(paymentMethodId);
+            if (payloadsOfPaymentMethod != null) {
+                payloadsOfPaymentMethod.remove(offerPayloadBase);
+                if (payloadsOfPaymentMethod.isEmpty()) {
+                    payloadsByPaymentMethod.remove(paymentMethodId);
+                }
+            }
+            if (payloadsByPaymentMethod.isEmpty()) {
+                payloadsByMarket.remove(marketKey);
+            }
+        }
+        return true;
+    }
+
+    List<Offer> getOffers() {
+        return createOffers(marketKeys.keySet());
+    }
+
+    List<Offer> getOffers(String currencyCode, OfferDirection direction) {
+        List<Offer> result = new ArrayList<>();
+        Map<String, Set<OfferPayloadBase>> payloadsByPaymentMethod = payloadsByMarket.get(getMarketKey(currencyCode, direction));
+        if (payloadsByPaymentMethod != null) {
+            payloadsByPaymentMethod.values().forEach(payloads -> result.addAll(createOffers(payloads)));
+        }
+        return result;
+    }
+
+    List<Offer> getOffers(String currencyCode, OfferDirection direction, String paymentMethodId) {
+        Map<String, Set<OfferPayloadBase>> payloadsByPaymentMethod = payloadsByMarket.get(getMarketKey(currencyCode, direction));
+        if (payloadsByPaymentMethod == null) {
+            return new ArrayList<>();
+        }
+        Set<OfferPayloadBase> payloadsOfPaymentMethod = payloadsByPaymentMethod.get(paymentMethodId);
+        return payloadsOfPaymentMethod != null ? createOffers(payloadsOfPaymentMethod) : new ArrayList<>();
+    }
+
+    int size() {
+        return marketKeys.size();
+    }
+
+    Offer createOffer(OfferPayloadBase offerPayloadBase) {
+        Offer offer = new Offer(offerPayloadBase);
+        offer.setPriceFeedService(priceFeedService);
+        return offer;
+    }
+
+    private List<Offer> createOffers(Collection<OfferPayloadBase> offerPayloadBases) {
+        List<Offer> offers = new ArrayList<>(offerPayloadBases.size());
+        offerPayloadBases.forEach(offerPayloadBase -> offers.add(createOffer(offerPayloadBase)));
+        return offers;
+    }
+
+    private static String getMarketKey(String currencyCode, OfferDirection direction) {
+        return currencyCode + "_" + direction.name();
+    }
+}
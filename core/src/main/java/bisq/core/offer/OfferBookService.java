@@ -50,7 +50,8 @@ import javax.annotation.Nullable;
 
 /**
  * Handles storage and retrieval of offers.
- * Uses an invalidation flag to only request the full offer map in case there was a change (anyone has added or removed an offer).
+ * The offers are kept in an index by market and payment method which gets updated when offers are added or removed
+ * from the P2P network storage.
  */
 @Slf4j
 public class OfferBookService {
@@ -66,6 +67,7 @@ public class OfferBookService {
     private final List<OfferBookChangedListener> offerBookChangedListeners = new LinkedList<>();
     private final FilterManager filterManager;
     private final JsonFileManager jsonFileManager;
+    private final OfferBookIndex offerBookIndex;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -82,30 +84,33 @@ public class OfferBookService {
         this.priceFeedService = priceFeedService;
         this.filterManager = filterManager;
         jsonFileManager = new JsonFileManager(storageDir);
+        offerBookIndex = new OfferBookIndex(priceFeedService);
+
+        p2PService.getDataMap().values().stream()
+                .filter(data -> data.getProtectedStoragePayload() instanceof OfferPayloadBase)
+                .forEach(data -> offerBookIndex.add((OfferPayloadBase) data.getProtectedStoragePayload()));
 
         p2PService.addHashSetChangedListener(new HashMapChangedListener() {
             @Override
             public void onAdded(Collection<ProtectedStorageEntry> protectedStorageEntries) {
-                protectedStorageEntries.forEach(protectedStorageEntry -> offerBookChangedListeners.forEach(listener -> {
+                protectedStorageEntries.forEach(protectedStorageEntry -> {
                     if (protectedStorageEntry.getProtectedStoragePayload() instanceof OfferPayloadBase) {
                         OfferPayloadBase offerPayloadBase = (OfferPayloadBase) protectedStorageEntry.getProtectedStoragePayload();
-                        Offer offer = new Offer(offerPayloadBase);
-                        offer.setPriceFeedService(priceFeedService);
-                        listener.onAdded(offer);
+                        offerBookIndex.add(offerPayloadBase);
+                        offerBookChangedListeners.forEach(listener -> listener.onAdded(offerBookIndex.createOffer(offerPayloadBase)));
                     }
-                }));
+                });
             }
 
             @Override
             public void onRemoved(Collection<ProtectedStorageEntry> protectedStorageEntries) {
-                protectedStorageEntries.forEach(protectedStorageEntry -> offerBookChangedListeners.forEach(listener -> {
+                protectedStorageEntries.forEach(protectedStorageEntry -> {
                     if (protectedStorageEntry.getProtectedStoragePayload() instanceof OfferPayloadBase) {
                         OfferPayloadBase offerPayloadBase = (OfferPayloadBase) protectedStorageEntry.getProtectedStoragePayload();
-                        Offer offer = new Offer(offerPayloadBase);
-                        offer.setPriceFeedService(priceFeedService);
-                        listener.onRemoved(offer);
+                        offerBookIndex.remove(offerPayloadBase);
+                        offerBookChangedListeners.forEach(listener -> listener.onRemoved(offerBookIndex.createOffer(offerPayloadBase)));
                     }
-                }));
+                });
             }
         });
 
@@ -189,16 +194,19 @@ public class OfferBookService {
         }
     }
 
+    // Returns new offer instances at each call, so callers can change their state without affecting other callers
     public List<Offer> getOffers() {
-        return p2PService.getDataMap().values().stream()
-                .filter(data -> data.getProtectedStoragePayload() instanceof OfferPayloadBase)
-                .map(data -> {
-                    OfferPayloadBase offerPayloadBase = (OfferPayloadBase) data.getProtectedStoragePayload();
-                    Offer offer = new Offer(offerPayloadBase);
-                    offer.setPriceFeedService(priceFeedService);
-                    return offer;
-                })
-                .collect(Collectors.toList());
+        return offerBookIndex.getOffers();
+    }
+
+    // Returns the offers of the market of the currency code (the non-BTC currency of the offer) and direction.
+    // The result is not sorted, as the price of market based offers changes with the market price.
+    public List<Offer> getOffers(String currencyCode, OfferDirection direction) {
+        return offerBookIndex.getOffers(currencyCode, direction);
+    }
+
+    public List<Offer> getOffers(String currencyCode, OfferDirection direction, String paymentMethodId) {
+        return offerBookIndex.getOffers(currencyCode, direction, paymentMethodId);
     }
 
     public void removeOfferAtShutDown(OfferPayloadBase offerPayloadBase) {
@@ -24,6 +24,8 @@ import com.google.inject.Singleton;
 
 import lombok.extern.slf4j.Slf4j;
 
+import static com.google.inject.name.Names.named;
+
 @Slf4j
 public class OfferModule extends AppModule {
 
@@ -35,5 +37,7 @@ public class OfferModule extends AppModule {
     protected final void configure() {
         bind(OpenOfferManager.class).in(Singleton.class);
         bind(OfferBookService.class).in(Singleton.class);
+
+        bindConstant().annotatedWith(named(Config.NUM_POW_MINTING_THREADS)).to(config.numPowMintingThreads);
     }
 }
@@ -0,0 +1,93 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.provider.price.PriceFeedService;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Calculates the prices of our market based open offers once after each update of the price feed and then calls the
+ * listeners once, so e.g. the trigger price checks use the precalculated prices.
+ * <p>
+ * The prices of the offers of the offer book are calculated lazily. Offer.getPrice caches the price per market price
+ * at the Offer instance, so an offer which is held by the UI (e.g. while sorting the offer book) calculates its price
+ * only once per update. We do not calculate them here, as OfferBookService returns new Offer instances at each call.
+ */
+@Slf4j
+@Singleton
+public class OfferRepricingService {
+
+    public interface PricesChangedListener {
+        void onPricesChanged();
+    }
+
+    private final OpenOfferManager openOfferManager;
+    private final List<PricesChangedListener> listeners = new CopyOnWriteArrayList<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Inject
+    public OfferRepricingService(PriceFeedService priceFeedService,
+                                 OpenOfferManager openOfferManager) {
+        this.openOfferManager = openOfferManager;
+
+        priceFeedService.updateCounterProperty().addListener((observable, oldValue, newValue) -> updatePrices());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void addListener(PricesChangedListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(PricesChangedListener listener) {
+        listeners.remove(listener);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void updatePrices() {
+        long ts = System.currentTimeMillis();
+        // Calling getPrice calculates the price for the new market price and caches it at the offer
+        List<OpenOffer> openOffers = openOfferManager.getObservableList();
+        openOffers.stream()
+                .map(OpenOffer::getOffer)
+                .filter(Offer::isUseMarketBasedPrice)
+                .forEach(Offer::getPrice);
+        log.debug("Updating the prices of {} open offers took {} ms", openOffers.size(),
+                System.currentTimeMillis() - ts);
+
+        listeners.forEach(PricesChangedListener::onPricesChanged);
+    }
+}
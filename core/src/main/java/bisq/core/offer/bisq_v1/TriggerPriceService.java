@@ -22,6 +22,7 @@ import bisq.core.monetary.Altcoin;
 import bisq.core.monetary.Price;
 import bisq.core.offer.Offer;
 import bisq.core.offer.OfferDirection;
+import bisq.core.offer.OfferRepricingService;
 import bisq.core.offer.OpenOffer;
 import bisq.core.offer.OpenOfferManager;
 import bisq.core.provider.mempool.MempoolService;
@@ -59,17 +60,20 @@ public class TriggerPriceService {
     private final OpenOfferManager openOfferManager;
     private final MempoolService mempoolService;
     private final PriceFeedService priceFeedService;
+    private final OfferRepricingService offerRepricingService;
     private final Map<String, Set<OpenOffer>> openOffersByCurrency = new HashMap<>();
 
     @Inject
     public TriggerPriceService(P2PService p2PService,
                                OpenOfferManager openOfferManager,
                                MempoolService mempoolService,
-                               PriceFeedService priceFeedService) {
+                               PriceFeedService priceFeedService,
+                               OfferRepricingService offerRepricingService) {
         this.p2PService = p2PService;
         this.openOfferManager = openOfferManager;
         this.mempoolService = mempoolService;
         this.priceFeedService = priceFeedService;
+        this.offerRepricingService = offerRepricingService;
     }
 
     public void onAllServicesInitialized() {
@@ -97,7 +101,8 @@ public class TriggerPriceService {
         });
         onAddedOpenOffers(openOfferManager.getObservableList());
 
-        priceFeedService.updateCounterProperty().addListener((observable, oldValue, newValue) -> onPriceFeedChanged());
+        // The prices of our market based offers got already updated by the OfferRepricingService when we get called
+        offerRepricingService.addListener(this::onPriceFeedChanged);
         onPriceFeedChanged();
     }
 
@@ -43,6 +43,7 @@ import bisq.network.p2p.P2PService;
 
 import bisq.common.UserThread;
 import bisq.common.app.Version;
+import bisq.common.config.Config;
 import bisq.common.crypto.HashCashService;
 import bisq.common.crypto.PubKeyRing;
 import bisq.common.handlers.ErrorMessageHandler;
@@ -51,6 +52,7 @@ import bisq.common.handlers.ResultHandler;
 import org.bitcoinj.core.Coin;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import javafx.beans.value.ChangeListener;
@@ -82,6 +84,7 @@ public class OpenBsqSwapOfferService {
     private final OfferUtil offerUtil;
     private final FilterManager filterManager;
     private final PubKeyRing pubKeyRing;
+    private final int numPowMintingThreads;
 
     private final Map<String, OpenBsqSwapOffer> openBsqSwapOffersById = new HashMap<>();
     private final ListChangeListener<OpenOffer> offerListChangeListener;
@@ -99,7 +102,8 @@ public class OpenBsqSwapOfferService {
                                    OfferBookService offerBookService,
                                    OfferUtil offerUtil,
                                    FilterManager filterManager,
-                                   PubKeyRing pubKeyRing) {
+                                   PubKeyRing pubKeyRing,
+                                   @Named(Config.NUM_POW_MINTING_THREADS) int numPowMintingThreads) {
         this.openOfferManager = openOfferManager;
         this.btcWalletService = btcWalletService;
         this.bsqWalletService = bsqWalletService;
@@ -110,6 +114,7 @@ public class OpenBsqSwapOfferService {
         this.offerUtil = offerUtil;
         this.filterManager = filterManager;
         this.pubKeyRing = pubKeyRing;
+        this.numPowMintingThreads = numPowMintingThreads;
 
         offerListChangeListener = c -> {
             c.next();
@@ -201,7 +206,7 @@ public class OpenBsqSwapOfferService {
         byte[] payload = HashCashService.getBytes(offerId);
         byte[] challenge = HashCashService.getBytes(offerId + Objects.requireNonNull(makerAddress));
         int difficulty = getPowDifficulty();
-        HashCashService.mint(payload, challenge, difficulty)
+        HashCashService.mint(payload, challenge, difficulty, numPowMintingThreads)
                 .whenComplete((proofOfWork, throwable) -> {
                     // We got called from a non user thread...
                     UserThread.execute(() -> {
@@ -351,7 +356,7 @@ public class OpenBsqSwapOfferService {
         NodeAddress nodeAddress = Objects.requireNonNull(openOffer.getOffer().getMakerNodeAddress());
         byte[] challenge = HashCashService.getBytes(newOfferId + nodeAddress);
         int difficulty = getPowDifficulty();
-        HashCashService.mint(payload, challenge, difficulty)
+        HashCashService.mint(payload, challenge, difficulty, numPowMintingThreads)
                 .whenComplete((proofOfWork, throwable) -> {
                     // We got called from a non user thread...
                     UserThread.execute(() -> {
@@ -58,6 +58,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import lombok.extern.slf4j.Slf4j;
@@ -76,7 +77,8 @@ public class PriceFeedService {
 
     private static final long PERIOD_SEC = 60;
 
-    private final Map<String, MarketPrice> cache = new HashMap<>();
+    // Market prices are also read from API threads, e.g. when the price of a market based offer gets calculated
+    private final Map<String, MarketPrice> cache = new ConcurrentHashMap<>();
     private PriceProvider priceProvider;
     @Nullable
     private Consumer<Double> priceConsumer;
@@ -254,7 +256,7 @@ public class PriceFeedService {
 
     @Nullable
     public MarketPrice getMarketPrice(String currencyCode) {
-        return cache.getOrDefault(currencyCode, null);
+        return currencyCode != null ? cache.get(currencyCode) : null;
     }
 
     private void setBisqMarketPrice(String currencyCode, Price price) {
@@ -42,7 +42,9 @@ public class CoreNetworkCapabilities {
                 Capability.TRADE_STATISTICS_HASH_UPDATE,
                 Capability.NO_ADDRESS_PRE_FIX,
                 Capability.TRADE_STATISTICS_3,
-                Capability.BSQ_SWAP_OFFER
+                Capability.BSQ_SWAP_OFFER,
+                Capability.EXCLUDED_KEYS_FILTER,
+                Capability.CHUNKED_GET_DATA_RESPONSE
         );
 
         if (config.daoActivated) {
@@ -46,11 +46,16 @@ import java.time.Instant;
 import java.io.File;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.annotation.Nullable;
@@ -65,6 +70,9 @@ public class TradeStatisticsManager {
     private final File storageDir;
     private final boolean dumpStatistics;
     private final ObservableSet<TradeStatistics3> observableTradeStatisticsSet = FXCollections.observableSet();
+    // Same content as observableTradeStatisticsSet sorted by date and hash. Used for paging through the trade
+    // statistics and for tailing new ones. It can be read from any thread.
+    private final NavigableMap<DateAndHash, TradeStatistics3> tradeStatisticsByDate = new ConcurrentSkipListMap<>();
     private JsonFileManager jsonFileManager;
 
     @Inject
@@ -100,6 +108,7 @@ public class TradeStatisticsManager {
                     return;
                 }
                 observableTradeStatisticsSet.add(tradeStatistics);
+                addToIndex(tradeStatistics);
                 priceFeedService.applyLatestBisqMarketPrice(observableTradeStatisticsSet);
                 maybeDumpStatistics();
             }
@@ -111,6 +120,7 @@ public class TradeStatisticsManager {
                 .filter(TradeStatistics3::isValid)
                 .collect(Collectors.toSet());
         observableTradeStatisticsSet.addAll(set);
+        set.forEach(this::addToIndex);
         priceFeedService.applyLatestBisqMarketPrice(observableTradeStatisticsSet);
         maybeDumpStatistics();
     }
@@ -119,6 +129,28 @@ public class TradeStatisticsManager {
         return observableTradeStatisticsSet;
     }
 
+    /**
+     * Returns a view of the trade statistics with a date from fromDate (inclusive) to toDate (exclusive), sorted by
+     * date and hash. If afterHash is set, the trade statistics at fromDate up to the one with that hash (inclusive)
+     * are skipped, so the date and hash of the last received trade statistics can be used as cursor.
+     * The view is weakly consistent and can be iterated at any thread.
+     */
+    public Collection<TradeStatistics3> getTradeStatisticsByDate(long fromDate,
+                                                                 @Nullable byte[] afterHash,
+                                                                 long toDate) {
+        DateAndHash fromKey = new DateAndHash(fromDate, afterHash != null ? afterHash : new byte[0]);
+        DateAndHash toKey = new DateAndHash(toDate, new byte[0]);
+        if (fromKey.compareTo(toKey) >= 0) {
+            return List.of();
+        }
+        return tradeStatisticsByDate.subMap(fromKey, afterHash == null, toKey, false).values();
+    }
+
+    private void addToIndex(TradeStatistics3 tradeStatistics) {
+        tradeStatisticsByDate.put(new DateAndHash(tradeStatistics.getDateAsLong(), tradeStatistics.getHash()),
+                tradeStatistics);
+    }
+
     private void maybeDumpStatistics() {
         if (!dumpStatistics) {
             return;
@@ -215,4 +247,28 @@ public class TradeStatisticsManager {
         log.info("maybeRepublishTradeStatistics took {} ms. Number of tradeStatistics: {}. Number of own trades: {}",
                 System.currentTimeMillis() - ts, hashes.size(), trades.size());
     }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // DateAndHash
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Key of the index. The hash makes the key unique for trade statistics with the same date. An empty hash sorts
+    // before all other hashes of the same date.
+    @EqualsAndHashCode
+    private static final class DateAndHash implements Comparable<DateAndHash> {
+        private final long date;
+        private final byte[] hash;
+
+        DateAndHash(long date, byte[] hash) {
+            this.date = date;
+            this.hash = hash;
+        }
+
+        @Override
+        public int compareTo(DateAndHash other) {
+            int result = Long.compare(date, other.date);
+            return result != 0 ? result : Arrays.compareUnsigned(hash, other.hash);
+        }
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.api;
+
+import bisq.core.api.model.TradeStatisticsPage;
+import bisq.core.trade.statistics.TradeStatistics3;
+import bisq.core.trade.statistics.TradeStatisticsManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CoreTradeStatisticsServiceTest {
+    private static final byte[] NO_HASH = new byte[0];
+
+    private TradeStatisticsManager tradeStatisticsManager;
+    private CoreTradeStatisticsService coreTradeStatisticsService;
+    private final List<TradeStatistics3> tradeStatistics = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        tradeStatisticsManager = mock(TradeStatisticsManager.class);
+        when(tradeStatisticsManager.getTradeStatisticsByDate(anyLong(), any(), anyLong())).thenReturn(tradeStatistics);
+        coreTradeStatisticsService = new CoreTradeStatisticsService(tradeStatisticsManager);
+    }
+
+    @Test
+    public void testPaging() {
+        for (int i = 0; i < 5; i++) {
+            tradeStatistics.add(tradeStatistics("USD", "SEPA"));
+        }
+
+        TradeStatisticsPage page = getPage("", "", 2);
+        assertEquals(tradeStatistics.subList(0, 2), page.getTradeStatistics());
+        assertTrue(page.isHasMore());
+
+        page = getPage("", "", 5);
+        assertEquals(tradeStatistics, page.getTradeStatistics());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    public void testDefaultPageSize() {
+        for (int i = 0; i < CoreTradeStatisticsService.DEFAULT_PAGE_SIZE + 1; i++) {
+            tradeStatistics.add(tradeStatistics("USD", "SEPA"));
+        }
+
+        TradeStatisticsPage page = getPage("", "", 0);
+        assertEquals(CoreTradeStatisticsService.DEFAULT_PAGE_SIZE, page.getTradeStatistics().size());
+        assertTrue(page.isHasMore());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPageSizeAboveMaximum() {
+        getPage("", "", CoreTradeStatisticsService.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test
+    public void testFilters() {
+        TradeStatistics3 usdSepa = tradeStatistics("USD", "SEPA");
+        TradeStatistics3 eurSepa = tradeStatistics("EUR", "SEPA");
+        TradeStatistics3 usdClearXChange = tradeStatistics("USD", "CLEAR_X_CHANGE");
+        tradeStatistics.addAll(List.of(usdSepa, eurSepa, usdClearXChange));
+
+        assertEquals(List.of(usdSepa, usdClearXChange), getPage("usd", "", 0).getTradeStatistics());
+        assertEquals(List.of(usdSepa, eurSepa), getPage("", "sepa", 0).getTradeStatistics());
+        assertEquals(List.of(usdSepa), getPage("USD", "SEPA", 0).getTradeStatistics());
+
+        // The page size applies to the filtered trade statistics
+        TradeStatisticsPage page = getPage("USD", "", 1);
+        assertEquals(List.of(usdSepa), page.getTradeStatistics());
+        assertTrue(page.isHasMore());
+        page = getPage("EUR", "", 1);
+        assertEquals(List.of(eurSepa), page.getTradeStatistics());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    public void testToDateOfZeroHasNoUpperLimit() {
+        coreTradeStatisticsService.getTradeStatistics("", "", 1000, 0, 0, NO_HASH, 0);
+
+        verify(tradeStatisticsManager).getTradeStatisticsByDate(eq(1000L), isNull(), eq(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testCursor() {
+        byte[] sinceHash = new byte[]{1};
+        coreTradeStatisticsService.getTradeStatistics("", "", 1000, 3000, 2000, sinceHash, 0);
+
+        verify(tradeStatisticsManager).getTradeStatisticsByDate(eq(2000L), eq(sinceHash), eq(3000L));
+    }
+
+    @Test
+    public void testCursorBeforeFromDateIsIgnored() {
+        coreTradeStatisticsService.getTradeStatistics("", "", 1000, 3000, 500, new byte[]{1}, 0);
+
+        verify(tradeStatisticsManager).getTradeStatisticsByDate(eq(1000L), isNull(), eq(3000L));
+    }
+
+    // Without date range and cursor
+    private TradeStatisticsPage getPage(String currencyCode, String paymentMethodId, int pageSize) {
+        return coreTradeStatisticsService.getTradeStatistics(currencyCode, paymentMethodId, 0, 0, 0, NO_HASH, pageSize);
+    }
+
+    private static TradeStatistics3 tradeStatistics(String currencyCode, String paymentMethodId) {
+        TradeStatistics3 tradeStatistics = mock(TradeStatistics3.class);
+        when(tradeStatistics.getCurrency()).thenReturn(currencyCode);
+        when(tradeStatistics.getPaymentMethod()).thenReturn(paymentMethodId);
+        return tradeStatistics;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.api;
+
+import org.fxmisc.easybind.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class EventLogTest {
+    private EventLog<String> eventLog;
+    private List<String> received;
+
+    @Before
+    public void setUp() {
+        eventLog = new EventLog<>(3, 100);
+        received = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            eventLog.add(sequenceNumber -> "event" + sequenceNumber);
+        }
+    }
+
+    @Test
+    public void testResumeAfterRetainedEvent() {
+        eventLog.subscribe(103, () -> List.of("snapshot"), received::add);
+        eventLog.add(sequenceNumber -> "event" + sequenceNumber);
+
+        assertEquals(List.of("event104", "event105", "event106"), received);
+    }
+
+    @Test
+    public void testResumeAfterLastEvent() {
+        eventLog.subscribe(105, () -> List.of("snapshot"), received::add);
+
+        assertEquals(List.of(), received);
+    }
+
+    @Test
+    public void testSnapshotIfEventsAreNotRetained() {
+        eventLog.subscribe(101, () -> List.of("snapshot"), received::add);
+        eventLog.subscribe(0, () -> List.of("snapshot"), received::add);
+        // A sequence number of a later run of the daemon
+        eventLog.subscribe(1000, () -> List.of("snapshot"), received::add);
+
+        assertEquals(List.of("snapshot", "snapshot", "snapshot"), received);
+    }
+
+    @Test
+    public void testSnapshotAfterSkippedEvent() {
+        eventLog.skip();
+        eventLog.subscribe(105, () -> List.of("snapshot"), received::add);
+        eventLog.subscribe(106, () -> List.of("snapshot"), received::add);
+        eventLog.add(sequenceNumber -> "event" + sequenceNumber);
+
+        assertEquals(List.of("snapshot", "event107", "event107"), received);
+    }
+
+    @Test
+    public void testFailingEventFactoryDoesNotUseSequenceNumber() {
+        try {
+            eventLog.add(sequenceNumber -> {
+                throw new IllegalStateException();
+            });
+        } catch (IllegalStateException ignore) {
+        }
+        eventLog.add(sequenceNumber -> "event" + sequenceNumber);
+
+        assertEquals(106, eventLog.getLastSequenceNumber());
+    }
+
+    @Test
+    public void testUnsubscribe() {
+        Subscription subscription = eventLog.subscribe(105, List::of, received::add);
+        eventLog.add(sequenceNumber -> "event" + sequenceNumber);
+        subscription.unsubscribe();
+        eventLog.add(sequenceNumber -> "event" + sequenceNumber);
+
+        assertEquals(List.of("event106"), received);
+        assertEquals(0, eventLog.getNumSubscribers());
+    }
+
+    @Test
+    public void testFailingSubscriberGetsRemoved() {
+        eventLog.subscribe(105, List::of, event -> {
+            throw new IllegalStateException();
+        });
+        eventLog.add(sequenceNumber -> "event" + sequenceNumber);
+
+        assertEquals(0, eventLog.getNumSubscribers());
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full;
+
+import bisq.core.dao.node.full.rpc.BitcoindClient;
+
+import bisq.common.util.Utilities;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.net.InetSocketAddress;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import java.io.OutputStream;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.After;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class RawBlockPrefetcherTest {
+    private final ListeningExecutorService executor = Utilities.getListeningExecutorService("RawBlockPrefetcherTest-%d",
+            4, 4, 60, new LinkedBlockingQueue<>());
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBlocksAreRequestedInAdvance() throws Exception {
+        Set<Integer> requestedHeights = ConcurrentHashMap.newKeySet();
+        CountDownLatch prefetchStarted = new CountDownLatch(3);
+        CountDownLatch prefetchBlocked = new CountDownLatch(1);
+        RawBlockPrefetcher prefetcher = new RawBlockPrefetcher(blockHeight -> {
+            requestedHeights.add(blockHeight);
+            if (blockHeight > 100) {
+                prefetchStarted.countDown();
+                prefetchBlocked.await();
+            }
+            return getRawBlock(blockHeight);
+        }, executor, 3);
+
+        assertEquals(100, prefetcher.getBlock(100, 104).get(5, TimeUnit.SECONDS).getHeight());
+        // The next 3 blocks are requested concurrently
+        assertTrue(prefetchStarted.await(5, TimeUnit.SECONDS));
+        assertEquals(Set.of(100, 101, 102, 103), requestedHeights);
+        prefetchBlocked.countDown();
+
+        for (int height = 101; height <= 104; height++) {
+            assertEquals(height, prefetcher.getBlock(height, 104).get(5, TimeUnit.SECONDS).getHeight());
+        }
+        // We do not request blocks above the chain height
+        assertEquals(Set.of(100, 101, 102, 103, 104), requestedHeights);
+    }
+
+    @Test
+    public void testBlocksAreRequestedAgainAfterOutOfSequenceRequest() throws Exception {
+        Map<Integer, Integer> numRequestsByHeight = new ConcurrentHashMap<>();
+        RawBlockPrefetcher prefetcher = new RawBlockPrefetcher(blockHeight -> {
+            numRequestsByHeight.merge(blockHeight, 1, Integer::sum);
+            return getRawBlock(blockHeight);
+        }, executor, 2);
+
+        for (int height = 10; height <= 11; height++) {
+            assertEquals(height, prefetcher.getBlock(height, 20).get(5, TimeUnit.SECONDS).getHeight());
+        }
+        // E.g. after a reorg we start again at a lower height, so the blocks we have got already are requested again
+        for (int height = 8; height <= 11; height++) {
+            assertEquals(height, prefetcher.getBlock(height, 20).get(5, TimeUnit.SECONDS).getHeight());
+        }
+
+        assertEquals(1, (int) numRequestsByHeight.get(8));
+        assertEquals(1, (int) numRequestsByHeight.get(9));
+        assertEquals(2, (int) numRequestsByHeight.get(10));
+        assertEquals(2, (int) numRequestsByHeight.get(11));
+    }
+
+    // Not a unit test but a benchmark of the blocks per second we get from a stub of the bitcoind RPC interface with
+    // a fixed latency per request. Run manually.
+    @Ignore
+    @Test
+    public void testPerformance() throws Exception {
+        String block = new String(Files.readAllBytes(Paths.get(
+                getClass().getResource("rpc/getblock-result-verbosity-2.json").toURI())), UTF_8);
+        HttpServer bitcoindStub = startBitcoindStub(block, 5);
+        try {
+            BitcoindClient client = BitcoindClient.builder()
+                    .rpcHost("127.0.0.1")
+                    .rpcPort(bitcoindStub.getAddress().getPort())
+                    .rpcUser("bisqdao")
+                    .rpcPassword("bsq")
+                    .build();
+            RawBlockPrefetcher.BlockSource blockSource = blockHeight ->
+                    RpcService.getBlockFromRawDtoBlock(client.getBlock(client.getBlockHash(blockHeight), 2));
+
+            int numBlocks = 1000;
+            StringBuilder stringBuilder = new StringBuilder();
+            for (int windowSize : new int[]{0, 4, 16, 64}) {
+                RawBlockPrefetcher prefetcher = new RawBlockPrefetcher(blockSource, executor, windowSize);
+                long ts = System.nanoTime();
+                for (int height = 0; height < numBlocks; height++) {
+                    prefetcher.getBlock(height, numBlocks - 1).get();
+                }
+                long duration = System.nanoTime() - ts;
+                stringBuilder.append("\nwindowSize ").append(windowSize).append(": ")
+                        .append(numBlocks * 1_000_000_000L / duration).append(" blocks/sec");
+            }
+            log.info(stringBuilder.toString());
+        } finally {
+            bitcoindStub.stop(0);
+        }
+    }
+
+    private static RawBlock getRawBlock(int blockHeight) {
+        return new RawBlock(blockHeight, 0, "hash" + blockHeight, "hash" + (blockHeight - 1), ImmutableList.of());
+    }
+
+    // Responds to getblockhash and getblock requests like bitcoind after the given latency
+    private static HttpServer startBitcoindStub(String block, long latencyMs) throws Exception {
+        Pattern methodPattern = Pattern.compile("\"method\":\"(\\w+)\",\"params\":\\[([^,\\]]*)");
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            String request = new String(exchange.getRequestBody().readAllBytes(), UTF_8);
+            Matcher matcher = methodPattern.matcher(request);
+            String result;
+            if (!matcher.find()) {
+                result = "null";
+            } else if (matcher.group(1).equals("getblockhash")) {
+                result = "\"" + Strings.padStart(matcher.group(2), 64, '0') + "\"";
+            } else {
+                result = block;
+            }
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException ignore) {
+            }
+            byte[] response = ("{\"result\":" + result + ",\"error\":null,\"id\":\"1\"}").getBytes(UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(response);
+            }
+        });
+        server.start();
+        return server;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.full.network;
+
+import bisq.core.dao.node.full.RawBlock;
+import bisq.core.dao.node.messages.GetBlocksResponse;
+import bisq.core.dao.state.DaoStateService;
+import bisq.core.dao.state.model.blockchain.Block;
+
+import bisq.common.util.Tuple2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GetBlocksResponseCacheTest {
+    private static final int GENESIS_HEIGHT = 100;
+
+    private final List<Block> blocks = new ArrayList<>();
+    private GetBlocksResponseCache cache;
+
+    @Before
+    public void setup() {
+        DaoStateService daoStateService = mock(DaoStateService.class);
+        when(daoStateService.getGenesisBlockHeight()).thenReturn(GENESIS_HEIGHT);
+        when(daoStateService.getBlocks()).thenAnswer(invocation -> blocks);
+        when(daoStateService.getBlockHeightOfLastBlock()).thenAnswer(invocation ->
+                blocks.isEmpty() ? 0 : blocks.get(blocks.size() - 1).getHeight());
+        when(daoStateService.getBlocksFromBlockHeight(anyInt(), anyInt())).thenAnswer(invocation -> {
+            int fromHeight = invocation.getArgument(0);
+            int numMaxBlocks = invocation.getArgument(1);
+            return blocks.stream()
+                    .filter(block -> block.getHeight() >= fromHeight)
+                    .limit(numMaxBlocks)
+                    .collect(Collectors.toList());
+        });
+        cache = new GetBlocksResponseCache(daoStateService);
+    }
+
+    @Test
+    public void testResponseIsSameAsSerializedGetBlocksResponse() {
+        addBlocks(250, "a");
+
+        assertResponse(GENESIS_HEIGHT, 1000, 1);
+        assertResponse(GENESIS_HEIGHT + 55, 120, 2);
+        assertResponse(GENESIS_HEIGHT + 249, 1000, 0);
+        assertResponse(GENESIS_HEIGHT + 250, 1000, 3);
+        assertResponse(0, 10, 4);
+    }
+
+    @Test
+    public void testHitRate() {
+        addBlocks(GetBlocksResponseCache.BUCKET_SIZE, "a");
+        assertResponse(GENESIS_HEIGHT, 1000, 1);
+        assertEquals(0, cache.getHitRate(), 0);
+
+        assertResponse(GENESIS_HEIGHT, 1000, 1);
+        assertEquals(0.5, cache.getHitRate(), 0);
+        assertEquals(2, cache.getNumRequests());
+        assertEquals(2 * GetBlocksResponseCache.BUCKET_SIZE, cache.getNumBlocksServed());
+    }
+
+    @Test
+    public void testNewBlocks() {
+        addBlocks(150, "a");
+        assertResponse(GENESIS_HEIGHT, 1000, 1);
+
+        addBlocks(10, "a");
+        cache.onParseBlockComplete(blocks.get(blocks.size() - 1));
+        assertResponse(GENESIS_HEIGHT + 100, 1000, 1);
+    }
+
+    @Test
+    public void testReorg() {
+        addBlocks(150, "a");
+        assertResponse(GENESIS_HEIGHT, 1000, 1);
+
+        // We replace the blocks from height 130 on
+        blocks.subList(130, blocks.size()).clear();
+        addBlocks(30, "b");
+        cache.onParseBlockComplete(blocks.get(130));
+        assertResponse(GENESIS_HEIGHT, 1000, 1);
+    }
+
+    private void assertResponse(int fromBlockHeight, int numMaxBlocks, int requestNonce) {
+        List<RawBlock> rawBlocks = blocks.stream()
+                .filter(block -> block.getHeight() >= fromBlockHeight)
+                .limit(numMaxBlocks)
+                .map(RawBlock::fromBlock)
+                .collect(Collectors.toList());
+        byte[] expected = new GetBlocksResponse(rawBlocks, requestNonce).toProtoNetworkEnvelope().toByteArray();
+
+        Tuple2<byte[], Integer> tuple = cache.serializeResponse(fromBlockHeight, numMaxBlocks, requestNonce);
+        assertArrayEquals(expected, tuple.first);
+        assertEquals(rawBlocks.size(), (int) tuple.second);
+    }
+
+    private void addBlocks(int numBlocks, String hashPrefix) {
+        int fromHeight = GENESIS_HEIGHT + blocks.size();
+        for (int height = fromHeight; height < fromHeight + numBlocks; height++) {
+            blocks.add(new Block(height, 1000L * height, hashPrefix + height, hashPrefix + (height - 1)));
+        }
+    }
+}
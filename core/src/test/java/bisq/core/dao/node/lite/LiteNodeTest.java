@@ -0,0 +1,268 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.node.lite;
+
+import bisq.core.btc.setup.WalletsSetup;
+import bisq.core.btc.wallet.BsqWalletService;
+import bisq.core.dao.node.explorer.ExportJsonFilesService;
+import bisq.core.dao.node.full.RawBlock;
+import bisq.core.dao.node.lite.network.LiteNodeNetworkService;
+import bisq.core.dao.node.messages.GetBlocksResponse;
+import bisq.core.dao.node.messages.NewBlockBroadcastMessage;
+import bisq.core.dao.node.parser.BlockParser;
+import bisq.core.dao.node.parser.exceptions.BlockHashNotConnectingException;
+import bisq.core.dao.node.parser.exceptions.BlockHeightNotConnectingException;
+import bisq.core.dao.state.DaoStateService;
+import bisq.core.dao.state.DaoStateSnapshotService;
+import bisq.core.dao.state.model.blockchain.Block;
+
+import bisq.network.p2p.P2PService;
+
+import bisq.common.UserThread;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LiteNodeTest {
+    private static final int START_HEIGHT = 100;
+
+    private DaoStateService daoStateService;
+    private BlockParser blockParser;
+    private BsqWalletService bsqWalletService;
+    private LiteNodeNetworkService liteNodeNetworkService;
+    private LiteNodeNetworkService.Listener networkListener;
+    private final AtomicInteger chainHeight = new AtomicInteger(START_HEIGHT);
+    private final AtomicBoolean inCatchUpMode = new AtomicBoolean();
+
+    @Before
+    public void setUp() throws Exception {
+        UserThread.setExecutor(MoreExecutors.directExecutor());
+
+        daoStateService = mock(DaoStateService.class);
+        when(daoStateService.getChainHeight()).thenAnswer(invocation -> chainHeight.get());
+        when(daoStateService.getBlockAtHeight(anyInt())).thenReturn(Optional.empty());
+        when(daoStateService.isInCatchUpMode()).thenAnswer(invocation -> inCatchUpMode.get());
+        doAnswer(invocation -> {
+            inCatchUpMode.set(true);
+            return null;
+        }).when(daoStateService).onCatchUpStarted(anyInt());
+        doAnswer(invocation -> {
+            inCatchUpMode.set(false);
+            return null;
+        }).when(daoStateService).onCatchUpComplete();
+
+        blockParser = mock(BlockParser.class);
+        when(blockParser.parseBlock(any())).thenAnswer(invocation -> {
+            RawBlock rawBlock = invocation.getArgument(0);
+            chainHeight.set(rawBlock.getHeight());
+            return mock(Block.class);
+        });
+
+        WalletsSetup walletsSetup = mock(WalletsSetup.class);
+        when(walletsSetup.isDownloadComplete()).thenReturn(true);
+        bsqWalletService = mock(BsqWalletService.class);
+        liteNodeNetworkService = mock(LiteNodeNetworkService.class);
+
+        LiteNode liteNode = new LiteNode(blockParser,
+                daoStateService,
+                mock(DaoStateSnapshotService.class),
+                mock(P2PService.class),
+                liteNodeNetworkService,
+                bsqWalletService,
+                walletsSetup,
+                mock(ExportJsonFilesService.class));
+        liteNode.onP2PNetworkReady();
+
+        ArgumentCaptor<LiteNodeNetworkService.Listener> captor =
+                ArgumentCaptor.forClass(LiteNodeNetworkService.Listener.class);
+        verify(liteNodeNetworkService).addListener(captor.capture());
+        networkListener = captor.getValue();
+    }
+
+    @Test
+    public void testCatchUpModeIfManyBlocksAreMissing() throws Exception {
+        when(bsqWalletService.getBestChainHeight()).thenReturn(START_HEIGHT + 200);
+        Runnable onParsingComplete = mock(Runnable.class);
+
+        networkListener.onRequestedBlocksReceived(getBlocksResponse(START_HEIGHT + 1, 200), onParsingComplete);
+
+        verify(blockParser, times(200)).parseBlock(any());
+        assertEquals(START_HEIGHT + 200, chainHeight.get());
+        assertFalse(inCatchUpMode.get());
+
+        InOrder inOrder = inOrder(daoStateService, onParsingComplete);
+        inOrder.verify(daoStateService).onCatchUpStarted(START_HEIGHT + 200);
+        inOrder.verify(daoStateService, atLeastOnce()).onCatchUpProgress();
+        inOrder.verify(daoStateService).onCatchUpComplete();
+        inOrder.verify(onParsingComplete).run();
+        inOrder.verify(daoStateService).onParseBlockChainComplete();
+    }
+
+    @Test
+    public void testNoCatchUpModeIfFewBlocksAreMissing() throws Exception {
+        when(bsqWalletService.getBestChainHeight()).thenReturn(START_HEIGHT + 10);
+        Runnable onParsingComplete = mock(Runnable.class);
+
+        networkListener.onRequestedBlocksReceived(getBlocksResponse(START_HEIGHT + 1, 10), onParsingComplete);
+
+        verify(blockParser, times(10)).parseBlock(any());
+        verify(daoStateService, never()).onCatchUpStarted(anyInt());
+        verify(daoStateService, never()).onCatchUpProgress();
+        verify(onParsingComplete).run();
+        verify(daoStateService).onParseBlockChainComplete();
+    }
+
+    @Test
+    public void testStayInCatchUpModeUntilChainTipIsReached() throws Exception {
+        when(bsqWalletService.getBestChainHeight()).thenReturn(START_HEIGHT + 300);
+        Runnable onFirstParsingComplete = mock(Runnable.class);
+
+        networkListener.onRequestedBlocksReceived(getBlocksResponse(START_HEIGHT + 1, 200), onFirstParsingComplete);
+
+        // We are still behind the wallet, so we request the next blocks and stay in catch-up mode
+        assertTrue(inCatchUpMode.get());
+        verify(liteNodeNetworkService).requestBlocks(START_HEIGHT + 201);
+        verify(onFirstParsingComplete, never()).run();
+        verify(daoStateService, never()).onCatchUpComplete();
+        verify(daoStateService, never()).onParseBlockChainComplete();
+
+        // The remaining 100 blocks are below the catch-up threshold, so we leave catch-up mode before parsing them
+        Runnable onSecondParsingComplete = mock(Runnable.class);
+        networkListener.onRequestedBlocksReceived(getBlocksResponse(START_HEIGHT + 201, 100), onSecondParsingComplete);
+
+        assertFalse(inCatchUpMode.get());
+        assertEquals(START_HEIGHT + 300, chainHeight.get());
+        verify(blockParser, times(300)).parseBlock(any());
+        verify(daoStateService, times(1)).onCatchUpStarted(anyInt());
+        verify(daoStateService, times(1)).onCatchUpComplete();
+        verify(onSecondParsingComplete).run();
+        verify(daoStateService).onParseBlockChainComplete();
+    }
+
+    @Test
+    public void testEmptyResponseLeavesCatchUpMode() {
+        inCatchUpMode.set(true);
+        Runnable onParsingComplete = mock(Runnable.class);
+
+        networkListener.onRequestedBlocksReceived(getBlocksResponse(START_HEIGHT + 1, 0), onParsingComplete);
+
+        assertFalse(inCatchUpMode.get());
+        verify(daoStateService).onParseBlockChainComplete();
+    }
+
+    @Test
+    public void testFaultLeavesCatchUpMode() throws Exception {
+        when(bsqWalletService.getBestChainHeight()).thenReturn(START_HEIGHT + 300);
+        networkListener.onRequestedBlocksReceived(getBlocksResponse(START_HEIGHT + 1, 200), mock(Runnable.class));
+        assertTrue(inCatchUpMode.get());
+
+        // The request for the next blocks failed
+        networkListener.onFault("Request timed out", null);
+
+        assertFalse(inCatchUpMode.get());
+        verify(daoStateService).onCatchUpComplete();
+    }
+
+    @Test
+    public void testNoSeedNodeAvailableLeavesCatchUpMode() throws Exception {
+        when(bsqWalletService.getBestChainHeight()).thenReturn(START_HEIGHT + 300);
+        networkListener.onRequestedBlocksReceived(getBlocksResponse(START_HEIGHT + 1, 200), mock(Runnable.class));
+        assertTrue(inCatchUpMode.get());
+
+        networkListener.onNoSeedNodeAvailable();
+
+        assertFalse(inCatchUpMode.get());
+    }
+
+    @Test
+    public void testReorgLeavesCatchUpMode() throws Exception {
+        inCatchUpMode.set(true);
+        RawBlock rawBlock = getRawBlock(START_HEIGHT + 1);
+        when(blockParser.parseBlock(rawBlock)).thenThrow(new BlockHashNotConnectingException(rawBlock));
+
+        networkListener.onNewBlockReceived(new NewBlockBroadcastMessage(rawBlock));
+
+        assertFalse(inCatchUpMode.get());
+        InOrder inOrder = inOrder(daoStateService, liteNodeNetworkService);
+        inOrder.verify(daoStateService).onCatchUpComplete();
+        inOrder.verify(liteNodeNetworkService).reset();
+        inOrder.verify(liteNodeNetworkService).requestBlocks(START_HEIGHT + 1);
+    }
+
+    @Test
+    public void testNewBlockAtChainTipLeavesCatchUpMode() {
+        inCatchUpMode.set(true);
+
+        networkListener.onNewBlockReceived(new NewBlockBroadcastMessage(getRawBlock(START_HEIGHT + 1)));
+
+        assertEquals(START_HEIGHT + 1, chainHeight.get());
+        assertFalse(inCatchUpMode.get());
+    }
+
+    @Test
+    public void testNewBlockNotConnectingKeepsCatchUpMode() throws Exception {
+        inCatchUpMode.set(true);
+        RawBlock rawBlock = getRawBlock(START_HEIGHT + 50);
+        when(blockParser.parseBlock(rawBlock)).thenThrow(new BlockHeightNotConnectingException(rawBlock));
+
+        // We are behind, so the block is kept as pending
+        networkListener.onNewBlockReceived(new NewBlockBroadcastMessage(rawBlock));
+
+        assertEquals(START_HEIGHT, chainHeight.get());
+        assertTrue(inCatchUpMode.get());
+    }
+
+    private static GetBlocksResponse getBlocksResponse(int fromHeight, int numBlocks) {
+        List<RawBlock> blocks = new ArrayList<>();
+        for (int height = fromHeight; height < fromHeight + numBlocks; height++) {
+            blocks.add(getRawBlock(height));
+        }
+        return new GetBlocksResponse(blocks, 0);
+    }
+
+    private static RawBlock getRawBlock(int height) {
+        RawBlock rawBlock = mock(RawBlock.class);
+        when(rawBlock.getHeight()).thenReturn(height);
+        return rawBlock;
+    }
+}
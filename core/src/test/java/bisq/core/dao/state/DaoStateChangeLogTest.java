@@ -0,0 +1,111 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state;
+
+import bisq.core.dao.state.model.DaoState;
+import bisq.core.dao.state.model.blockchain.SpentInfo;
+import bisq.core.dao.state.model.blockchain.TxOutput;
+import bisq.core.dao.state.model.governance.Issuance;
+import bisq.core.dao.state.model.governance.IssuanceType;
+import bisq.core.dao.state.model.governance.ParamChange;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DaoStateChangeLogTest {
+
+    @Test
+    public void testApplyDelta() throws InvalidProtocolBufferException {
+        DaoState daoState = new DaoState();
+        daoState.setChainHeight(100);
+        TxOutput a = getTxOutput("a");
+        TxOutput b = getTxOutput("b");
+        daoState.getUnspentTxOutputMap().put(a.getKey(), a);
+        daoState.getUnspentTxOutputMap().put(b.getKey(), b);
+
+        DaoStateChangeLog changeLog = new DaoStateChangeLog();
+        changeLog.start(100);
+        TxOutput c = getTxOutput("c");
+        TxOutput d = getTxOutput("d");
+        changeLog.onUnspentTxOutputRemoved(a);
+        changeLog.onUnspentTxOutputAdded(c);
+        changeLog.onUnspentTxOutputAdded(d);
+        changeLog.onUnspentTxOutputRemoved(d);
+        SpentInfo spentInfo = new SpentInfo(101, "e", 0);
+        changeLog.onSpentInfoAdded(a.getKey(), spentInfo);
+        Issuance issuance = new Issuance("f", 110, 1000, null, IssuanceType.COMPENSATION);
+        changeLog.onIssuanceAdded(issuance);
+        changeLog.onParamChangeAdded(new ParamChange("QUORUM_GENERIC", "1", 200));
+        changeLog.onParamChangeAdded(new ParamChange("QUORUM_GENERIC", "2", 150));
+
+        protobuf.DaoStateDelta delta = changeLog.toProtoBuilder(120).build();
+        assertEquals(100, delta.getFromHeight());
+        // An output which got added and removed is not contained in the added outputs
+        assertEquals(Set.of(c.getKey().toString()), delta.getChanges().getUnspentTxOutputMapMap().keySet());
+        assertEquals(Set.of(a.getKey().toString(), d.getKey().toString()),
+                Set.copyOf(delta.getRemovedUnspentTxOutputKeysList()));
+
+        DaoStateChangeLog.applyDelta(protobuf.DaoStateDelta.parseFrom(delta.toByteArray()), daoState);
+
+        assertEquals(120, daoState.getChainHeight());
+        assertEquals(Set.of(b.getKey(), c.getKey()), daoState.getUnspentTxOutputMap().keySet());
+        assertEquals(spentInfo, daoState.getSpentInfoMap().get(a.getKey()));
+        assertEquals(issuance, daoState.getIssuanceMap().get("f"));
+        List<ParamChange> paramChangeList = daoState.getParamChangeList();
+        assertEquals(150, paramChangeList.get(0).getActivationHeight());
+        assertEquals(200, paramChangeList.get(1).getActivationHeight());
+    }
+
+    @Test
+    public void testStartAndStop() {
+        DaoStateChangeLog changeLog = new DaoStateChangeLog();
+        changeLog.onUnspentTxOutputAdded(getTxOutput("a"));
+        assertFalse(changeLog.isRecording());
+
+        changeLog.start(100);
+        changeLog.onUnspentTxOutputAdded(getTxOutput("b"));
+        assertTrue(changeLog.isRecording());
+        assertEquals(1, changeLog.toProtoBuilder(101).getChanges().getUnspentTxOutputMapCount());
+
+        // Starting again clears the recorded changes
+        changeLog.start(101);
+        assertEquals(101, changeLog.getStartHeight());
+        assertEquals(0, changeLog.toProtoBuilder(102).getChanges().getUnspentTxOutputMapCount());
+
+        changeLog.stop();
+        assertFalse(changeLog.isRecording());
+        assertEquals(-1, changeLog.getStartHeight());
+    }
+
+    private static TxOutput getTxOutput(String txId) {
+        return TxOutput.fromProto(protobuf.BaseTxOutput.newBuilder()
+                .setTxId(txId)
+                .setIndex(0)
+                .setValue(1000)
+                .setTxOutput(protobuf.TxOutput.newBuilder().setTxOutputType(protobuf.TxOutputType.BSQ_OUTPUT))
+                .build());
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.dao.state.storage;
+
+import bisq.core.dao.state.model.blockchain.Block;
+
+import bisq.common.file.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BsqBlockArchiveTest {
+    private static final int GENESIS_HEIGHT = 100;
+
+    private File dir;
+
+    @Before
+    public void setup() throws IOException {
+        dir = File.createTempFile("temp_tests", "");
+        //noinspection ResultOfMethodCallIgnored
+        dir.delete();
+        //noinspection ResultOfMethodCallIgnored
+        dir.mkdir();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtil.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testAppendAndRead() {
+        BsqBlockArchive archive = new BsqBlockArchive(dir, GENESIS_HEIGHT);
+        assertEquals(GENESIS_HEIGHT - 1, archive.getLastHeight());
+
+        // Spans more than one segment
+        int numBlocks = BsqBlockArchive.SEGMENT_SIZE + 10;
+        archive.append(getBlocks(GENESIS_HEIGHT, numBlocks, "a"));
+        // Already archived blocks are ignored
+        archive.append(getBlocks(GENESIS_HEIGHT + 5, 10, "a"));
+
+        int lastHeight = GENESIS_HEIGHT + numBlocks - 1;
+        assertEquals(lastHeight, archive.getLastHeight());
+        assertEquals(getBlock(GENESIS_HEIGHT, "a"), archive.readBlock(GENESIS_HEIGHT).get());
+        assertEquals(getBlock(lastHeight, "a"), archive.readBlock(lastHeight).get());
+        assertEquals(Optional.of(getBlock(lastHeight, "a").getTime()), archive.getBlockTime(lastHeight));
+        assertFalse(archive.readBlock(lastHeight + 1).isPresent());
+        assertFalse(archive.readBlock(GENESIS_HEIGHT - 1).isPresent());
+
+        List<Block> blocks = archive.readBlocks(GENESIS_HEIGHT + BsqBlockArchive.SEGMENT_SIZE - 2, lastHeight + 10);
+        assertEquals(12, blocks.size());
+        assertEquals(GENESIS_HEIGHT + BsqBlockArchive.SEGMENT_SIZE - 2, blocks.get(0).getHeight());
+
+        // A block which does not connect is ignored
+        archive.append(getBlocks(lastHeight + 2, 1, "a"));
+        assertEquals(lastHeight, archive.getLastHeight());
+    }
+
+    @Test
+    public void testIndexIsLoadedFromDisk() {
+        new BsqBlockArchive(dir, GENESIS_HEIGHT).append(getBlocks(GENESIS_HEIGHT, 20, "a"));
+
+        BsqBlockArchive archive = new BsqBlockArchive(dir, GENESIS_HEIGHT);
+        assertEquals(GENESIS_HEIGHT + 19, archive.getLastHeight());
+        assertEquals(getBlock(GENESIS_HEIGHT + 10, "a"), archive.readBlock(GENESIS_HEIGHT + 10).get());
+    }
+
+    @Test
+    public void testIncompleteRecordIsRemoved() throws IOException {
+        new BsqBlockArchive(dir, GENESIS_HEIGHT).append(getBlocks(GENESIS_HEIGHT, 20, "a"));
+
+        // Simulate an interrupted write of the last block
+        File file = new File(dir, BsqBlockArchive.NAME + "_" + GENESIS_HEIGHT);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(file.length() - 3);
+        }
+
+        BsqBlockArchive archive = new BsqBlockArchive(dir, GENESIS_HEIGHT);
+        assertEquals(GENESIS_HEIGHT + 18, archive.getLastHeight());
+
+        archive.append(getBlocks(GENESIS_HEIGHT, 20, "a"));
+        assertEquals(getBlock(GENESIS_HEIGHT + 19, "a"), archive.readBlock(GENESIS_HEIGHT + 19).get());
+    }
+
+    @Test
+    public void testSync() {
+        BsqBlockArchive archive = new BsqBlockArchive(dir, GENESIS_HEIGHT);
+        archive.append(getBlocks(GENESIS_HEIGHT, 20, "a"));
+
+        // Blocks above the given blocks get removed
+        archive.sync(getBlocks(GENESIS_HEIGHT, 10, "a"));
+        assertEquals(GENESIS_HEIGHT + 9, archive.getLastHeight());
+
+        // Missing blocks get added
+        archive.sync(getBlocks(GENESIS_HEIGHT, 15, "a"));
+        assertEquals(GENESIS_HEIGHT + 14, archive.getLastHeight());
+
+        // Different blocks lead to a rebuild
+        archive.sync(getBlocks(GENESIS_HEIGHT, 15, "b"));
+        assertEquals(GENESIS_HEIGHT + 14, archive.getLastHeight());
+        assertEquals(getBlock(GENESIS_HEIGHT, "b"), archive.readBlock(GENESIS_HEIGHT).get());
+
+        archive.sync(new ArrayList<>());
+        assertEquals(GENESIS_HEIGHT - 1, archive.getLastHeight());
+    }
+
+    @Test
+    public void testAppendReplacesDifferentBlocks() {
+        BsqBlockArchive archive = new BsqBlockArchive(dir, GENESIS_HEIGHT);
+        archive.append(getBlocks(GENESIS_HEIGHT, 20, "a"));
+
+        archive.append(getBlocks(GENESIS_HEIGHT + 10, 5, "b"));
+        assertEquals(GENESIS_HEIGHT + 14, archive.getLastHeight());
+        assertEquals(getBlock(GENESIS_HEIGHT + 9, "a"), archive.readBlock(GENESIS_HEIGHT + 9).get());
+        assertEquals(getBlock(GENESIS_HEIGHT + 10, "b"), archive.readBlock(GENESIS_HEIGHT + 10).get());
+    }
+
+    @Test
+    public void testTruncateMappedSegment() {
+        BsqBlockArchive archive = new BsqBlockArchive(dir, GENESIS_HEIGHT);
+        archive.append(getBlocks(GENESIS_HEIGHT, 20, "a"));
+        // Reading maps the segment
+        assertEquals(getBlock(GENESIS_HEIGHT + 15, "a"), archive.readBlock(GENESIS_HEIGHT + 15).get());
+
+        archive.append(getBlocks(GENESIS_HEIGHT + 10, 5, "b"));
+        assertEquals(GENESIS_HEIGHT + 14, archive.getLastHeight());
+        assertEquals(getBlock(GENESIS_HEIGHT + 9, "a"), archive.readBlock(GENESIS_HEIGHT + 9).get());
+        assertEquals(getBlock(GENESIS_HEIGHT + 14, "b"), archive.readBlock(GENESIS_HEIGHT + 14).get());
+
+        BsqBlockArchive reloaded = new BsqBlockArchive(dir, GENESIS_HEIGHT);
+        assertEquals(GENESIS_HEIGHT + 14, reloaded.getLastHeight());
+        assertEquals(getBlock(GENESIS_HEIGHT + 14, "b"), reloaded.readBlock(GENESIS_HEIGHT + 14).get());
+    }
+
+    @Test
+    public void testFailedAppendKeepsArchivedBlocks() throws IOException {
+        BsqBlockArchive archive = new BsqBlockArchive(dir, GENESIS_HEIGHT);
+        int numBlocks = BsqBlockArchive.SEGMENT_SIZE;
+        archive.append(getBlocks(GENESIS_HEIGHT, numBlocks, "a"));
+
+        // The next segment file cannot be written if there is a directory with its name
+        File nextSegment = new File(dir, BsqBlockArchive.NAME + "_" + (GENESIS_HEIGHT + numBlocks));
+        assertTrue(nextSegment.mkdir());
+        archive.append(getBlocks(GENESIS_HEIGHT + numBlocks, 10, "a"));
+
+        int lastHeight = GENESIS_HEIGHT + numBlocks - 1;
+        assertEquals(lastHeight, archive.getLastHeight());
+        assertEquals(getBlock(GENESIS_HEIGHT, "a"), archive.readBlock(GENESIS_HEIGHT).get());
+        assertEquals(getBlock(lastHeight, "a"), archive.readBlock(lastHeight).get());
+
+        // Once writing works again we continue from the last archived block
+        FileUtil.deleteDirectory(nextSegment);
+        archive.append(getBlocks(GENESIS_HEIGHT + numBlocks, 10, "a"));
+        assertEquals(lastHeight + 10, archive.getLastHeight());
+        assertEquals(getBlock(lastHeight + 10, "a"), archive.readBlock(lastHeight + 10).get());
+    }
+
+    private static List<Block> getBlocks(int fromHeight, int numBlocks, String hashPrefix) {
+        List<Block> blocks = new ArrayList<>();
+        for (int height = fromHeight; height < fromHeight + numBlocks; height++) {
+            blocks.add(getBlock(height, hashPrefix));
+        }
+        return blocks;
+    }
+
+    private static Block getBlock(int height, String hashPrefix) {
+        return new Block(height, 1000L * height, hashPrefix + height, hashPrefix + (height - 1));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.provider.price.PriceFeedService;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static bisq.core.offer.OfferMaker.btcUsdOffer;
+import static bisq.core.offer.OfferMaker.counterCurrencyCode;
+import static bisq.core.offer.OfferMaker.direction;
+import static bisq.core.offer.OfferMaker.id;
+import static com.natpryce.makeiteasy.MakeItEasy.make;
+import static com.natpryce.makeiteasy.MakeItEasy.with;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class OfferBookIndexTest {
+    private OfferBookIndex offerBookIndex;
+
+    @Before
+    public void setUp() {
+        offerBookIndex = new OfferBookIndex(mock(PriceFeedService.class));
+    }
+
+    @Test
+    public void testOffersAreIndexedByMarket() {
+        OfferPayloadBase usdBuy = getPayload("1", "USD", OfferDirection.BUY);
+        OfferPayloadBase usdSell = getPayload("2", "USD", OfferDirection.SELL);
+        OfferPayloadBase eurBuy = getPayload("3", "EUR", OfferDirection.BUY);
+        offerBookIndex.add(usdBuy);
+        offerBookIndex.add(usdSell);
+        offerBookIndex.add(eurBuy);
+
+        assertEquals(3, offerBookIndex.getOffers().size());
+        assertEquals(1, offerBookIndex.getOffers("USD", OfferDirection.BUY).size());
+        assertEquals("1", offerBookIndex.getOffers("USD", OfferDirection.BUY).get(0).getId());
+        assertEquals(1, offerBookIndex.getOffers("USD", OfferDirection.SELL, "SEPA").size());
+        assertTrue(offerBookIndex.getOffers("USD", OfferDirection.SELL, "F2F").isEmpty());
+        assertTrue(offerBookIndex.getOffers("EUR", OfferDirection.SELL).isEmpty());
+        assertTrue(offerBookIndex.getOffers("XMR", OfferDirection.BUY).isEmpty());
+    }
+
+    @Test
+    public void testOffersAreNotShared() {
+        OfferPayloadBase payload = getPayload("1", "USD", OfferDirection.BUY);
+        assertTrue(offerBookIndex.add(payload));
+
+        // A payload with the same content, e.g. from a republished entry
+        assertFalse(offerBookIndex.add(getPayload("1", "USD", OfferDirection.BUY)));
+        assertEquals(1, offerBookIndex.size());
+
+        // Changing the state of a returned offer must not affect other callers
+        Offer offer = offerBookIndex.getOffers("USD", OfferDirection.BUY).get(0);
+        offer.setState(Offer.State.NOT_AVAILABLE);
+        Offer otherOffer = offerBookIndex.getOffers().get(0);
+        assertNotSame(offer, otherOffer);
+        assertEquals(payload, otherOffer.getOfferPayloadBase());
+        assertEquals(Offer.State.UNKNOWN, otherOffer.getState());
+    }
+
+    @Test
+    public void testRemove() {
+        OfferPayloadBase payload = getPayload("1", "USD", OfferDirection.BUY);
+        offerBookIndex.add(payload);
+
+        assertTrue(offerBookIndex.remove(payload));
+        assertFalse(offerBookIndex.remove(payload));
+        assertEquals(0, offerBookIndex.size());
+        assertTrue(offerBookIndex.getOffers().isEmpty());
+        assertTrue(offerBookIndex.getOffers("USD", OfferDirection.BUY).isEmpty());
+        assertTrue(offerBookIndex.getOffers("USD", OfferDirection.BUY, "SEPA").isEmpty());
+    }
+
+    private static OfferPayloadBase getPayload(String offerId, String currencyCode, OfferDirection offerDirection) {
+        return make(btcUsdOffer.but(
+                with(id, offerId),
+                with(counterCurrencyCode, currencyCode),
+                with(direction, offerDirection)))
+                .getOfferPayloadBase();
+    }
+}
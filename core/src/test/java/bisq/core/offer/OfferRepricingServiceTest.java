@@ -0,0 +1,87 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.provider.price.PriceFeedService;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+
+import javafx.collections.FXCollections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OfferRepricingServiceTest {
+    private final IntegerProperty updateCounter = new SimpleIntegerProperty(0);
+    private OfferRepricingService offerRepricingService;
+    private Offer marketBasedOffer;
+    private Offer fixedPriceOffer;
+
+    @Before
+    public void setUp() {
+        PriceFeedService priceFeedService = mock(PriceFeedService.class);
+        when(priceFeedService.updateCounterProperty()).thenReturn(updateCounter);
+
+        marketBasedOffer = mock(Offer.class);
+        when(marketBasedOffer.isUseMarketBasedPrice()).thenReturn(true);
+        fixedPriceOffer = mock(Offer.class);
+        OpenOfferManager openOfferManager = mock(OpenOfferManager.class);
+        when(openOfferManager.getObservableList()).thenReturn(FXCollections.observableArrayList(
+                getOpenOffer(marketBasedOffer), getOpenOffer(fixedPriceOffer)));
+
+        offerRepricingService = new OfferRepricingService(priceFeedService, openOfferManager);
+    }
+
+    @Test
+    public void testPricesOfMarketBasedOpenOffersAreUpdatedAtPriceFeedUpdate() {
+        verify(marketBasedOffer, never()).getPrice();
+
+        updateCounter.set(1);
+        verify(marketBasedOffer).getPrice();
+
+        updateCounter.set(2);
+        verify(marketBasedOffer, times(2)).getPrice();
+        verify(fixedPriceOffer, never()).getPrice();
+    }
+
+    @Test
+    public void testListenersAreCalledOncePerPriceFeedUpdate() {
+        OfferRepricingService.PricesChangedListener listener = mock(OfferRepricingService.PricesChangedListener.class);
+        offerRepricingService.addListener(listener);
+
+        updateCounter.set(1);
+        verify(listener).onPricesChanged();
+
+        offerRepricingService.removeListener(listener);
+        updateCounter.set(2);
+        verify(listener, times(1)).onPricesChanged();
+    }
+
+    private static OpenOffer getOpenOffer(Offer offer) {
+        OpenOffer openOffer = mock(OpenOffer.class);
+        when(openOffer.getOffer()).thenReturn(offer);
+        return openOffer;
+    }
+}
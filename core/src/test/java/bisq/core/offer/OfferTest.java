@@ -17,11 +17,24 @@
 
 package bisq.core.offer;
 
+import bisq.core.monetary.Price;
 import bisq.core.offer.bisq_v1.OfferPayload;
+import bisq.core.provider.price.MarketPrice;
+import bisq.core.provider.price.PriceFeedService;
+
+import java.time.Instant;
 
 import org.junit.Test;
 
+import static bisq.core.offer.OfferMaker.btcUsdOffer;
+import static bisq.core.offer.OfferMaker.marketPriceMargin;
+import static bisq.core.offer.OfferMaker.useMarketBasedPrice;
+import static com.natpryce.makeiteasy.MakeItEasy.make;
+import static com.natpryce.makeiteasy.MakeItEasy.with;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -47,4 +60,26 @@ public class OfferTest {
         Offer offer = new Offer(payload);
         assertTrue(offer.isRange());
     }
+
+    @Test
+    public void testMarketBasedPriceIsCachedPerMarketPrice() {
+        PriceFeedService priceFeedService = mock(PriceFeedService.class);
+        Offer offer = make(btcUsdOffer.but(
+                with(useMarketBasedPrice, true),
+                with(marketPriceMargin, 0.01)));
+        offer.setPriceFeedService(priceFeedService);
+
+        MarketPrice marketPrice = new MarketPrice("USD", 10000, Instant.now().getEpochSecond(), true);
+        when(priceFeedService.getMarketPrice("USD")).thenReturn(marketPrice);
+        Price price = offer.getPrice();
+        assertEquals(99000000, price.getValue());
+        assertSame(price, offer.getPrice());
+
+        // A price update replaces the market price instance
+        MarketPrice newMarketPrice = new MarketPrice("USD", 20000, Instant.now().getEpochSecond(), true);
+        when(priceFeedService.getMarketPrice("USD")).thenReturn(newMarketPrice);
+        Price newPrice = offer.getPrice();
+        assertNotSame(price, newPrice);
+        assertEquals(198000000, newPrice.getValue());
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import bisq.core.provider.price.PriceFeedService;
+
+import bisq.network.p2p.P2PService;
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+import bisq.network.p2p.storage.persistence.AppendOnlyDataStoreService;
+
+import java.io.File;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TradeStatisticsManagerTest {
+    private TradeStatistics3 emptyHashAt1000;
+    private TradeStatistics3 lowHashAt1000;
+    private TradeStatistics3 highHashAt1000;
+    private TradeStatistics3 at2000;
+    private TradeStatistics3 at3000;
+    private TradeStatisticsManager tradeStatisticsManager;
+
+    @Before
+    public void setUp() {
+        emptyHashAt1000 = tradeStatistics(1000, new byte[0]);
+        lowHashAt1000 = tradeStatistics(1000, new byte[]{1});
+        // Hashes are compared unsigned, so this one sorts after lowHashAt1000
+        highHashAt1000 = tradeStatistics(1000, new byte[]{(byte) 0xff});
+        at2000 = tradeStatistics(2000, new byte[]{1});
+        at3000 = tradeStatistics(3000, new byte[]{1});
+
+        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> mapOfAllData = new HashMap<>();
+        List.of(at3000, highHashAt1000, at2000, emptyHashAt1000, lowHashAt1000).forEach(tradeStatistics ->
+                mapOfAllData.put(new P2PDataStorage.ByteArray(new byte[]{(byte) mapOfAllData.size()}), tradeStatistics));
+        TradeStatistics3StorageService storageService = mock(TradeStatistics3StorageService.class);
+        when(storageService.getMapOfAllData()).thenReturn(mapOfAllData);
+        P2PService p2PService = mock(P2PService.class);
+        when(p2PService.getP2PDataStorage()).thenReturn(mock(P2PDataStorage.class));
+
+        tradeStatisticsManager = new TradeStatisticsManager(p2PService,
+                mock(PriceFeedService.class),
+                storageService,
+                mock(AppendOnlyDataStoreService.class),
+                mock(TradeStatisticsConverter.class),
+                new File("unused"),
+                false);
+        tradeStatisticsManager.onAllServicesInitialized();
+    }
+
+    @Test
+    public void testFromDateIsInclusiveAndToDateIsExclusive() {
+        assertEquals(List.of(emptyHashAt1000, lowHashAt1000, highHashAt1000, at2000),
+                getTradeStatisticsByDate(1000, null, 3000));
+        assertEquals(List.of(at2000), getTradeStatisticsByDate(1001, null, 2001));
+        assertEquals(List.of(emptyHashAt1000, lowHashAt1000, highHashAt1000, at2000, at3000),
+                getTradeStatisticsByDate(0, null, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testEmptyHashSortsFirst() {
+        // Without a cursor the trade statistics with an empty hash at fromDate are included
+        assertEquals(emptyHashAt1000, getTradeStatisticsByDate(1000, null, 1001).get(0));
+        // With the empty hash as cursor it gets skipped
+        assertEquals(List.of(lowHashAt1000, highHashAt1000), getTradeStatisticsByDate(1000, new byte[0], 1001));
+    }
+
+    @Test
+    public void testCursor() {
+        assertEquals(List.of(highHashAt1000, at2000, at3000),
+                getTradeStatisticsByDate(1000, new byte[]{1}, Long.MAX_VALUE));
+        // The cursor needs not to be the hash of existing trade statistics
+        assertEquals(List.of(highHashAt1000, at2000, at3000),
+                getTradeStatisticsByDate(1000, new byte[]{2}, Long.MAX_VALUE));
+        assertEquals(List.of(at2000, at3000),
+                getTradeStatisticsByDate(1000, new byte[]{(byte) 0xff}, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testEmptyRange() {
+        assertTrue(getTradeStatisticsByDate(2000, null, 2000).isEmpty());
+        assertTrue(getTradeStatisticsByDate(3000, null, 1000).isEmpty());
+        // The service maps a toDate of 0 to no upper limit, here it is an empty range
+        assertTrue(getTradeStatisticsByDate(1000, null, 0).isEmpty());
+        assertTrue(getTradeStatisticsByDate(3000, new byte[]{1}, Long.MAX_VALUE).isEmpty());
+    }
+
+    private List<TradeStatistics3> getTradeStatisticsByDate(long fromDate, byte[] afterHash, long toDate) {
+        return new ArrayList<>(tradeStatisticsManager.getTradeStatisticsByDate(fromDate, afterHash, toDate));
+    }
+
+    private static TradeStatistics3 tradeStatistics(long date, byte[] hash) {
+        TradeStatistics3 tradeStatistics = mock(TradeStatistics3.class);
+        when(tradeStatistics.getDateAsLong()).thenReturn(date);
+        when(tradeStatistics.getHash()).thenReturn(hash);
+        when(tradeStatistics.isValid()).thenReturn(true);
+        return tradeStatistics;
+    }
+}
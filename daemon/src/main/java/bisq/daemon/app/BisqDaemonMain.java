@@ -21,6 +21,7 @@ import bisq.core.app.BisqHeadlessAppMain;
 import bisq.core.app.BisqSetup;
 import bisq.core.app.CoreModule;
 
+import bisq.common.TimerWheelTimer;
 import bisq.common.UserThread;
 import bisq.common.app.AppModule;
 import bisq.common.handlers.ResultHandler;
@@ -56,6 +57,7 @@ public class BisqDaemonMain extends BisqHeadlessAppMain implements BisqSetup.Bis
                 .setDaemon(true)
                 .build();
         UserThread.setExecutor(Executors.newSingleThreadExecutor(threadFactory));
+        UserThread.setTimerClass(TimerWheelTimer.class);
     }
 
     @Override
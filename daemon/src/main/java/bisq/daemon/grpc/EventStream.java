@@ -0,0 +1,103 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.daemon.grpc;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import org.fxmisc.easybind.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Sends the events of a subscription to the client, respecting the flow control of the call.
+ * <p>
+ * An event is only sent while the call is ready, otherwise it gets queued until the client has
+ * read the previous events. If the client falls behind by more than MAX_PENDING_EVENTS events,
+ * the queued events are dropped and the call ends with RESOURCE_EXHAUSTED, so a slow client cannot
+ * make the daemon run out of memory. The client has to subscribe again with afterSequenceNumber 0
+ * for getting a snapshot of the current state.
+ * <p>
+ * The subscription streams are not in the concurrent methods of the GrpcServer, so the events and
+ * the on ready and on cancel handlers are all run at the user thread.
+ */
+@Slf4j
+class EventStream<E> implements Consumer<E> {
+    private static final int MAX_PENDING_EVENTS = 10_000;
+
+    private final ServerCallStreamObserver<E> responseObserver;
+    private final Queue<E> pendingEvents = new ArrayDeque<>();
+    @Nullable
+    private Subscription subscription;
+    private boolean isClosed;
+
+    // Must be created before the subscription, as the retained events or the snapshot are sent while subscribing
+    EventStream(StreamObserver<E> responseObserver) {
+        this.responseObserver = (ServerCallStreamObserver<E>) responseObserver;
+        this.responseObserver.setOnReadyHandler(this::sendPendingEvents);
+        this.responseObserver.setOnCancelHandler(this::close);
+    }
+
+    void setSubscription(Subscription subscription) {
+        this.subscription = subscription;
+        // The client might have fallen behind already while we sent the snapshot
+        if (isClosed) {
+            subscription.unsubscribe();
+        }
+    }
+
+    @Override
+    public void accept(E event) {
+        if (isClosed) {
+            return;
+        }
+
+        pendingEvents.add(event);
+        if (pendingEvents.size() > MAX_PENDING_EVENTS) {
+            log.warn("Client did not read the events of its subscription fast enough. We end the subscription.");
+            close();
+            responseObserver.onError(Status.RESOURCE_EXHAUSTED
+                    .withDescription("client fell behind, subscribe again with afterSequenceNumber 0")
+                    .asRuntimeException());
+            return;
+        }
+
+        sendPendingEvents();
+    }
+
+    private void sendPendingEvents() {
+        while (!isClosed && !pendingEvents.isEmpty() && responseObserver.isReady()) {
+            responseObserver.onNext(pendingEvents.poll());
+        }
+    }
+
+    private void close() {
+        isClosed = true;
+        pendingEvents.clear();
+        if (subscription != null) {
+            subscription.unsubscribe();
+        }
+    }
+}
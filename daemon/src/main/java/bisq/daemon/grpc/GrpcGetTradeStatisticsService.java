@@ -43,11 +43,21 @@ class GrpcGetTradeStatisticsService extends GetTradeStatisticsImplBase {
     public void getTradeStatistics(GetTradeStatisticsRequest req,
                                    StreamObserver<GetTradeStatisticsReply> responseObserver) {
         try {
-            var tradeStatistics = coreApi.getTradeStatistics().stream()
+            var page = coreApi.getTradeStatistics(req.getCurrencyCode(),
+                    req.getPaymentMethodId(),
+                    req.getFromDate(),
+                    req.getToDate(),
+                    req.getSinceDate(),
+                    req.getSinceHash().toByteArray(),
+                    req.getPageSize());
+            var tradeStatistics = page.getTradeStatistics().stream()
                     .map(TradeStatistics3::toProtoTradeStatistics3)
                     .collect(Collectors.toList());
 
-            var reply = GetTradeStatisticsReply.newBuilder().addAllTradeStatistics(tradeStatistics).build();
+            var reply = GetTradeStatisticsReply.newBuilder()
+                    .addAllTradeStatistics(tradeStatistics)
+                    .setHasMore(page.isHasMore())
+                    .build();
             responseObserver.onNext(reply);
             responseObserver.onCompleted();
         } catch (Throwable cause) {
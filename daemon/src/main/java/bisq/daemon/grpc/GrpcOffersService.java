@@ -43,6 +43,8 @@ import bisq.proto.grpc.GetOfferReply;
 import bisq.proto.grpc.GetOfferRequest;
 import bisq.proto.grpc.GetOffersReply;
 import bisq.proto.grpc.GetOffersRequest;
+import bisq.proto.grpc.OfferEvent;
+import bisq.proto.grpc.SubscribeOffersRequest;
 
 import io.grpc.ServerInterceptor;
 import io.grpc.stub.StreamObserver;
@@ -305,6 +307,22 @@ class GrpcOffersService extends OffersImplBase {
         }
     }
 
+    // Sends the offers getoffers would return, followed by their changes.
+    // The subscription ends when the client cancels the call, falls behind, or when sending an event fails.
+    @Override
+    public void subscribeOffers(SubscribeOffersRequest req,
+                                StreamObserver<OfferEvent> responseObserver) {
+        try {
+            var eventStream = new EventStream<OfferEvent>(responseObserver);
+            eventStream.setSubscription(coreApi.subscribeOffers(req.getDirection(),
+                    req.getCurrencyCode(),
+                    req.getAfterSequenceNumber(),
+                    eventStream));
+        } catch (Throwable cause) {
+            exceptionHandler.handleException(log, cause, responseObserver);
+        }
+    }
+
     final ServerInterceptor[] interceptors() {
         Optional<ServerInterceptor> rateMeteringInterceptor = rateMeteringInterceptor();
         return rateMeteringInterceptor.map(serverInterceptor ->
@@ -322,6 +340,7 @@ class GrpcOffersService extends OffersImplBase {
                             put(getCreateOfferMethod().getFullMethodName(), new GrpcCallRateMeter(1, MINUTES));
                             put(getEditOfferMethod().getFullMethodName(), new GrpcCallRateMeter(1, MINUTES));
                             put(getCancelOfferMethod().getFullMethodName(), new GrpcCallRateMeter(1, MINUTES));
+                            put(getSubscribeOffersMethod().getFullMethodName(), new GrpcCallRateMeter(10, MINUTES));
                         }}
                 )));
     }
@@ -19,7 +19,6 @@ package bisq.daemon.grpc;
 
 import bisq.core.api.CoreContext;
 
-import bisq.common.UserThread;
 import bisq.common.config.Config;
 
 import io.grpc.Server;
@@ -28,22 +27,59 @@ import io.grpc.ServerBuilder;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import java.io.IOException;
 import java.io.UncheckedIOException;
 
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import lombok.extern.slf4j.Slf4j;
 
+import static bisq.proto.grpc.GetTradeStatisticsGrpc.getGetTradeStatisticsMethod;
+import static bisq.proto.grpc.GetVersionGrpc.getGetVersionMethod;
+import static bisq.proto.grpc.HelpGrpc.getGetMethodHelpMethod;
+import static bisq.proto.grpc.OffersGrpc.getGetBsqSwapOffersMethod;
+import static bisq.proto.grpc.OffersGrpc.getGetOffersMethod;
+import static bisq.proto.grpc.WalletsGrpc.getGetBalancesMethod;
 import static io.grpc.ServerInterceptors.interceptForward;
 
 
 
 import bisq.daemon.grpc.interceptor.PasswordAuthInterceptor;
+import bisq.daemon.grpc.interceptor.UserThreadInterceptor;
 
 @Singleton
 @Slf4j
 public class GrpcServer {
 
+    private static final int NUM_EXECUTOR_THREADS = 4;
+    private static final int EXECUTOR_QUEUE_CAPACITY = 1000;
+
+    // Read only methods which are served from immutable snapshots of the domain state
+    // or from thread safe services.  All other calls are run at the user thread.
+    private static final Set<String> CONCURRENT_METHOD_NAMES = Set.of(
+            getGetVersionMethod().getFullMethodName(),
+            getGetMethodHelpMethod().getFullMethodName(),
+            getGetOffersMethod().getFullMethodName(),
+            getGetBsqSwapOffersMethod().getFullMethodName(),
+            getGetBalancesMethod().getFullMethodName(),
+            getGetTradeStatisticsMethod().getFullMethodName());
+
     private final Server server;
+    // The server calls are not run at the user thread, so read only calls do not have
+    // to wait for the processing of network messages or blocks.  The number of threads
+    // and of queued calls is bounded; calls exceeding the capacity get rejected.
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(NUM_EXECUTOR_THREADS,
+            NUM_EXECUTOR_THREADS,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(EXECUTOR_QUEUE_CAPACITY),
+            new ThreadFactoryBuilder().setNameFormat("GrpcServer-%d").setDaemon(true).build(),
+            new ThreadPoolExecutor.AbortPolicy());
 
     @Inject
     public GrpcServer(CoreContext coreContext,
@@ -60,7 +96,7 @@ public class GrpcServer {
                       GrpcTradesService tradesService,
                       GrpcWalletsService walletsService) {
         this.server = ServerBuilder.forPort(config.apiPort)
-                .executor(UserThread.getExecutor())
+                .executor(executor)
                 .addService(interceptForward(disputeAgentsService, disputeAgentsService.interceptors()))
                 .addService(interceptForward(helpService, helpService.interceptors()))
                 .addService(interceptForward(offersService, offersService.interceptors()))
@@ -71,6 +107,7 @@ public class GrpcServer {
                 .addService(interceptForward(tradesService, tradesService.interceptors()))
                 .addService(interceptForward(versionService, versionService.interceptors()))
                 .addService(interceptForward(walletsService, walletsService.interceptors()))
+                .intercept(new UserThreadInterceptor(CONCURRENT_METHOD_NAMES))
                 .intercept(passwordAuthInterceptor)
                 .build();
         coreContext.setApiUser(true);
@@ -88,6 +125,7 @@ public class GrpcServer {
     public void shutdown() {
         log.info("Server shutdown started");
         server.shutdown();
+        executor.shutdown();
         log.info("Server shutdown complete");
     }
 }
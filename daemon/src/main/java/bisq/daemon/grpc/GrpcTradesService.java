@@ -31,10 +31,12 @@ import bisq.proto.grpc.GetTradeReply;
 import bisq.proto.grpc.GetTradeRequest;
 import bisq.proto.grpc.KeepFundsReply;
 import bisq.proto.grpc.KeepFundsRequest;
+import bisq.proto.grpc.SubscribeTradeEventsRequest;
 import bisq.proto.grpc.TakeBsqSwapOfferReply;
 import bisq.proto.grpc.TakeBsqSwapOfferRequest;
 import bisq.proto.grpc.TakeOfferReply;
 import bisq.proto.grpc.TakeOfferRequest;
+import bisq.proto.grpc.TradeEvent;
 import bisq.proto.grpc.WithdrawFundsReply;
 import bisq.proto.grpc.WithdrawFundsRequest;
 
@@ -216,6 +218,19 @@ class GrpcTradesService extends TradesImplBase {
         }
     }
 
+    // Sends the open trades, followed by the changes of their states.
+    // The subscription ends when the client cancels the call, falls behind, or when sending an event fails.
+    @Override
+    public void subscribeTradeEvents(SubscribeTradeEventsRequest req,
+                                     StreamObserver<TradeEvent> responseObserver) {
+        try {
+            var eventStream = new EventStream<TradeEvent>(responseObserver);
+            eventStream.setSubscription(coreApi.subscribeTradeEvents(req.getAfterSequenceNumber(), eventStream));
+        } catch (Throwable cause) {
+            exceptionHandler.handleException(log, cause, responseObserver);
+        }
+    }
+
     final ServerInterceptor[] interceptors() {
         Optional<ServerInterceptor> rateMeteringInterceptor = rateMeteringInterceptor();
         return rateMeteringInterceptor.map(serverInterceptor ->
@@ -232,6 +247,7 @@ class GrpcTradesService extends TradesImplBase {
                             put(getConfirmPaymentReceivedMethod().getFullMethodName(), new GrpcCallRateMeter(1, MINUTES));
                             put(getKeepFundsMethod().getFullMethodName(), new GrpcCallRateMeter(1, MINUTES));
                             put(getWithdrawFundsMethod().getFullMethodName(), new GrpcCallRateMeter(1, MINUTES));
+                            put(getSubscribeTradeEventsMethod().getFullMethodName(), new GrpcCallRateMeter(10, MINUTES));
                         }}
                 )));
     }
@@ -23,6 +23,7 @@ import bisq.core.api.model.TxFeeRateInfo;
 import bisq.core.btc.exceptions.TxBroadcastException;
 import bisq.core.btc.wallet.TxBroadcaster;
 
+import bisq.proto.grpc.BalancesEvent;
 import bisq.proto.grpc.GetAddressBalanceReply;
 import bisq.proto.grpc.GetAddressBalanceRequest;
 import bisq.proto.grpc.GetBalancesReply;
@@ -47,6 +48,7 @@ import bisq.proto.grpc.SetTxFeeRatePreferenceReply;
 import bisq.proto.grpc.SetTxFeeRatePreferenceRequest;
 import bisq.proto.grpc.SetWalletPasswordReply;
 import bisq.proto.grpc.SetWalletPasswordRequest;
+import bisq.proto.grpc.SubscribeBalancesRequest;
 import bisq.proto.grpc.UnlockWalletReply;
 import bisq.proto.grpc.UnlockWalletRequest;
 import bisq.proto.grpc.UnsetTxFeeRatePreferenceReply;
@@ -359,6 +361,19 @@ class GrpcWalletsService extends WalletsImplBase {
         }
     }
 
+    // Sends the current balances, followed by their changes.
+    // The subscription ends when the client cancels the call, falls behind, or when sending an event fails.
+    @Override
+    public void subscribeBalances(SubscribeBalancesRequest req,
+                                  StreamObserver<BalancesEvent> responseObserver) {
+        try {
+            var eventStream = new EventStream<BalancesEvent>(responseObserver);
+            eventStream.setSubscription(coreApi.subscribeBalances(req.getAfterSequenceNumber(), eventStream));
+        } catch (Throwable cause) {
+            exceptionHandler.handleException(log, cause, responseObserver);
+        }
+    }
+
     final ServerInterceptor[] interceptors() {
         Optional<ServerInterceptor> rateMeteringInterceptor = rateMeteringInterceptor();
         return rateMeteringInterceptor.map(serverInterceptor ->
@@ -387,6 +402,7 @@ class GrpcWalletsService extends WalletsImplBase {
 
                             put(getLockWalletMethod().getFullMethodName(), new GrpcCallRateMeter(1, SECONDS));
                             put(getUnlockWalletMethod().getFullMethodName(), new GrpcCallRateMeter(1, SECONDS));
+                            put(getSubscribeBalancesMethod().getFullMethodName(), new GrpcCallRateMeter(10, MINUTES));
                         }}
                 )));
     }
@@ -0,0 +1,83 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.daemon.grpc.interceptor;
+
+import bisq.common.UserThread;
+
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+import java.util.Set;
+
+/**
+ * Runs the rpc server calls at the user thread, like all other changes of the domain
+ * state, except for the given read only methods.  Those are served from immutable
+ * snapshots or thread safe services, so they can run concurrently at the server's
+ * executor threads.
+ */
+public final class UserThreadInterceptor implements ServerInterceptor {
+
+    // The full method names (e.g., 'io.bisq.protobuffer.Offers/GetOffers') of the
+    // methods which do not need to run at the user thread.
+    private final Set<String> concurrentMethodNames;
+
+    public UserThreadInterceptor(Set<String> concurrentMethodNames) {
+        this.concurrentMethodNames = concurrentMethodNames;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> serverCall,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> serverCallHandler) {
+        ServerCall.Listener<ReqT> listener = serverCallHandler.startCall(serverCall, headers);
+        if (concurrentMethodNames.contains(serverCall.getMethodDescriptor().getFullMethodName()))
+            return listener;
+
+        // A unary call's service method is invoked from onHalfClose.  We forward all
+        // events to the user thread, so they are delivered in the original order.
+        return new SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onMessage(ReqT message) {
+                UserThread.execute(() -> super.onMessage(message));
+            }
+
+            @Override
+            public void onHalfClose() {
+                UserThread.execute(super::onHalfClose);
+            }
+
+            @Override
+            public void onCancel() {
+                UserThread.execute(super::onCancel);
+            }
+
+            @Override
+            public void onComplete() {
+                UserThread.execute(super::onComplete);
+            }
+
+            @Override
+            public void onReady() {
+                UserThread.execute(super::onReady);
+            }
+        };
+    }
+}
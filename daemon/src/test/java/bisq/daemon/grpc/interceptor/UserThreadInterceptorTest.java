@@ -0,0 +1,217 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.daemon.grpc.interceptor;
+
+import bisq.common.UserThread;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.Status;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UserThreadInterceptorTest {
+    private static final String CONCURRENT_METHOD = "io.bisq.protobuffer.Offers/GetOffers";
+    private static final String USER_THREAD_METHOD = "io.bisq.protobuffer.Offers/TakeOffer";
+
+    private final UserThreadInterceptor interceptor = new UserThreadInterceptor(Set.of(CONCURRENT_METHOD));
+    private Executor previousExecutor;
+    private ExecutorService userThreadExecutor;
+    private Thread userThread;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        previousExecutor = UserThread.getExecutor();
+        userThreadExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "UserThread"));
+        UserThread.setExecutor(userThreadExecutor);
+        userThread = userThreadExecutor.submit(Thread::currentThread).get();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        UserThread.setExecutor(previousExecutor);
+        userThreadExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testMethodNotInListRunsAtUserThread() throws InterruptedException {
+        ThreadRecordingListener listener = startCall(USER_THREAD_METHOD);
+
+        listener.delegate.onMessage("request");
+        listener.delegate.onHalfClose();
+        listener.delegate.onComplete();
+        assertTrue(listener.completed.await(5, TimeUnit.SECONDS));
+
+        assertSame(userThread, listener.onMessageThread.get());
+        assertSame(userThread, listener.onHalfCloseThread.get());
+        assertSame(userThread, listener.onCompleteThread.get());
+    }
+
+    @Test
+    public void testListedMethodRunsAtCallingThread() throws InterruptedException {
+        ThreadRecordingListener listener = startCall(CONCURRENT_METHOD);
+
+        listener.delegate.onMessage("request");
+        listener.delegate.onHalfClose();
+        listener.delegate.onComplete();
+        assertTrue(listener.completed.await(5, TimeUnit.SECONDS));
+
+        Thread callingThread = Thread.currentThread();
+        assertSame(callingThread, listener.onMessageThread.get());
+        assertSame(callingThread, listener.onHalfCloseThread.get());
+        assertSame(callingThread, listener.onCompleteThread.get());
+    }
+
+    @Test
+    public void testEventsAtUserThreadKeepTheirOrder() throws InterruptedException {
+        StringBuilder events = new StringBuilder();
+        CountDownLatch completed = new CountDownLatch(1);
+        ServerCall.Listener<String> listener = interceptor.interceptCall(new TestServerCall(USER_THREAD_METHOD),
+                new Metadata(),
+                (call, headers) -> new ServerCall.Listener<>() {
+                    @Override
+                    public void onMessage(String message) {
+                        events.append(message);
+                    }
+
+                    @Override
+                    public void onHalfClose() {
+                        events.append("|halfClose");
+                    }
+
+                    @Override
+                    public void onCancel() {
+                        events.append("|cancel");
+                        completed.countDown();
+                    }
+                });
+
+        listener.onMessage("request");
+        listener.onHalfClose();
+        listener.onCancel();
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+
+        assertEquals("request|halfClose|cancel", events.toString());
+    }
+
+    private ThreadRecordingListener startCall(String fullMethodName) {
+        ThreadRecordingListener listener = new ThreadRecordingListener();
+        listener.delegate = interceptor.interceptCall(new TestServerCall(fullMethodName),
+                new Metadata(),
+                (call, headers) -> listener);
+        return listener;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Test doubles
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static class ThreadRecordingListener extends ServerCall.Listener<String> {
+        private final AtomicReference<Thread> onMessageThread = new AtomicReference<>();
+        private final AtomicReference<Thread> onHalfCloseThread = new AtomicReference<>();
+        private final AtomicReference<Thread> onCompleteThread = new AtomicReference<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        // The listener returned by the interceptor
+        private ServerCall.Listener<String> delegate;
+
+        @Override
+        public void onMessage(String message) {
+            onMessageThread.set(Thread.currentThread());
+        }
+
+        @Override
+        public void onHalfClose() {
+            onHalfCloseThread.set(Thread.currentThread());
+        }
+
+        @Override
+        public void onComplete() {
+            onCompleteThread.set(Thread.currentThread());
+            completed.countDown();
+        }
+    }
+
+    private static class TestServerCall extends ServerCall<String, String> {
+        private final MethodDescriptor<String, String> methodDescriptor;
+
+        TestServerCall(String fullMethodName) {
+            MethodDescriptor.Marshaller<String> marshaller = new MethodDescriptor.Marshaller<>() {
+                @Override
+                public InputStream stream(String value) {
+                    return new ByteArrayInputStream(value.getBytes());
+                }
+
+                @Override
+                public String parse(InputStream stream) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+            methodDescriptor = MethodDescriptor.<String, String>newBuilder()
+                    .setType(MethodDescriptor.MethodType.UNARY)
+                    .setFullMethodName(fullMethodName)
+                    .setRequestMarshaller(marshaller)
+                    .setResponseMarshaller(marshaller)
+                    .build();
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void sendHeaders(Metadata headers) {
+        }
+
+        @Override
+        public void sendMessage(String message) {
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public MethodDescriptor<String, String> getMethodDescriptor() {
+            return methodDescriptor;
+        }
+    }
+}
@@ -118,6 +118,17 @@ public class DaoPresentation implements DaoStateListener {
         onUpdateAnyChainHeight();
     }
 
+    @Override
+    public void onCatchUpProgress(int chainHeight, double progress) {
+        if (DevEnv.isDaoActivated())
+            bsqSyncProgress.set(progress);
+    }
+
+    @Override
+    public void onCatchUpComplete() {
+        onUpdateAnyChainHeight();
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Public
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -270,6 +270,7 @@ public class InventoryMonitor implements SetupListener {
                 "",
                 null,
                 false,
+                false,
                 false).get();
     }
 
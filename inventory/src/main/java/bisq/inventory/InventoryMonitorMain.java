@@ -20,6 +20,7 @@ package bisq.inventory;
 
 import bisq.core.locale.Res;
 
+import bisq.common.TimerWheelTimer;
 import bisq.common.UserThread;
 import bisq.common.app.AsciiLogo;
 import bisq.common.app.Log;
@@ -103,6 +104,7 @@ public class InventoryMonitorMain {
                 .setDaemon(true)
                 .build();
         UserThread.setExecutor(Executors.newSingleThreadExecutor(threadFactory));
+        UserThread.setTimerClass(TimerWheelTimer.class);
 
         Signal.handle(new Signal("INT"), signal -> {
             UserThread.execute(InventoryMonitorMain::shutDown);
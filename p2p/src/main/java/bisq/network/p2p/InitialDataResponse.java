@@ -20,4 +20,9 @@ package bisq.network.p2p;
 // Marker interface for initial data response
 public interface InitialDataResponse {
     Class<? extends InitialDataRequest> associatedRequest();
+
+    // A response might be split into several messages
+    default boolean isLastMessageOfResponse() {
+        return true;
+    }
 }
@@ -54,9 +54,10 @@ public class NetworkNodeProvider implements Provider<NetworkNode> {
                                @Named(Config.TOR_CONTROL_PASSWORD) String password,
                                @Nullable @Named(Config.TOR_CONTROL_COOKIE_FILE) File cookieFile,
                                @Named(Config.TOR_STREAM_ISOLATION) boolean streamIsolation,
-                               @Named(Config.TOR_CONTROL_USE_SAFE_COOKIE_AUTH) boolean useSafeCookieAuthentication) {
+                               @Named(Config.TOR_CONTROL_USE_SAFE_COOKIE_AUTH) boolean useSafeCookieAuthentication,
+                               @Named(Config.USE_NIO_NETWORK_CORE) boolean useNioNetworkCore) {
         if (useLocalhostForP2P) {
-            networkNode = new LocalhostNetworkNode(port, networkProtoResolver, networkFilter);
+            networkNode = new LocalhostNetworkNode(port, networkProtoResolver, networkFilter, useNioNetworkCore);
         } else {
             TorMode torMode = getTorMode(bridgeAddressProvider,
                     torDir,
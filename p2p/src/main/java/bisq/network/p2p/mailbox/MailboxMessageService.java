@@ -54,6 +54,7 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -71,16 +72,17 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
 import org.jetbrains.annotations.NotNull;
@@ -112,6 +114,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @Slf4j
 public class MailboxMessageService implements HashMapChangedListener, PersistedDataHost {
     private static final long REPUBLISH_DELAY_SEC = TimeUnit.MINUTES.toSeconds(2);
+    private static final int DECRYPTION_BATCH_SIZE = 20;
 
     private final NetworkNode networkNode;
     private final PeerManager peerManager;
@@ -128,6 +131,8 @@ public class MailboxMessageService implements HashMapChangedListener, PersistedD
     private final Map<String, MailboxItem> mailboxItemsByUid = new HashMap<>();
 
     private boolean isBootstrapped;
+    @Nullable
+    private ListeningExecutorService decryptionExecutor;
 
     @Inject
     public MailboxMessageService(NetworkNode networkNode,
@@ -385,67 +390,115 @@ public class MailboxMessageService implements HashMapChangedListener, PersistedD
 
     private void processSingleMailboxEntry(Collection<ProtectedMailboxStorageEntry> protectedMailboxStorageEntries) {
         checkArgument(protectedMailboxStorageEntries.size() == 1);
-        var mailboxItems = new ArrayList<>(getMailboxItems(protectedMailboxStorageEntries));
-        if (mailboxItems.size() == 1) {
-            handleMailboxItem(mailboxItems.get(0));
+        ProtectedMailboxStorageEntry protectedMailboxStorageEntry = protectedMailboxStorageEntries.iterator().next();
+        if (isIgnoredOrNotAddressedToMe(protectedMailboxStorageEntry)) {
+            handleMailboxItem(new MailboxItem(protectedMailboxStorageEntry, null));
+        } else {
+            applyDecryptionResult(decrypt(protectedMailboxStorageEntry));
         }
     }
 
-    // We run the batch processing of all mailbox messages we have received at startup in a thread to not block the UI.
-    // For about 1000 messages decryption takes about 1 sec.
+    // We run the batch processing of all mailbox messages we have received at startup in a thread pool to not block
+    // the UI. For about 1000 messages decryption takes about 1 sec on a single thread.
+    // Entries which are not addressed to us or which we failed to decrypt earlier are handled directly without any
+    // decryption. The others get decrypted in parallel in small batches and each batch is applied on the user thread
+    // once it is decrypted, so the first messages do not need to wait until all entries are decrypted.
     private void threadedBatchProcessMailboxEntries(Collection<ProtectedMailboxStorageEntry> protectedMailboxStorageEntries) {
-        ListeningExecutorService executor = Utilities.getSingleThreadListeningExecutor("processMailboxEntry-" + new Random().nextInt(1000));
         long ts = System.currentTimeMillis();
-        ListenableFuture<Set<MailboxItem>> future = executor.submit(() -> {
-            var mailboxItems = getMailboxItems(protectedMailboxStorageEntries);
-            log.info("Batch processing of {} mailbox entries took {} ms",
-                    protectedMailboxStorageEntries.size(),
-                    System.currentTimeMillis() - ts);
-            return mailboxItems;
+        List<ProtectedMailboxStorageEntry> entriesToDecrypt = new ArrayList<>();
+        protectedMailboxStorageEntries.forEach(protectedMailboxStorageEntry -> {
+            if (isIgnoredOrNotAddressedToMe(protectedMailboxStorageEntry)) {
+                handleMailboxItem(new MailboxItem(protectedMailboxStorageEntry, null));
+            } else {
+                entriesToDecrypt.add(protectedMailboxStorageEntry);
+            }
         });
+        log.info("Filtering of {} mailbox entries took {} ms. {} entries need to be decrypted.",
+                protectedMailboxStorageEntries.size(),
+                System.currentTimeMillis() - ts,
+                entriesToDecrypt.size());
+        if (entriesToDecrypt.isEmpty()) {
+            return;
+        }
 
-        Futures.addCallback(future, new FutureCallback<>() {
-            public void onSuccess(Set<MailboxItem> decryptedMailboxMessageWithEntries) {
-                UserThread.execute(() -> decryptedMailboxMessageWithEntries.forEach(e -> handleMailboxItem(e)));
-            }
+        ListeningExecutorService executor = getDecryptionExecutor();
+        List<List<ProtectedMailboxStorageEntry>> batches = Lists.partition(entriesToDecrypt, DECRYPTION_BATCH_SIZE);
+        AtomicInteger numPendingBatches = new AtomicInteger(batches.size());
+        batches.forEach(batch -> {
+            ListenableFuture<List<DecryptionResult>> future = executor.submit(() -> batch.stream()
+                    .map(this::decrypt)
+                    .collect(Collectors.toList()));
 
-            public void onFailure(@NotNull Throwable throwable) {
-                log.error(throwable.toString());
-            }
-        }, MoreExecutors.directExecutor());
+            Futures.addCallback(future, new FutureCallback<>() {
+                public void onSuccess(List<DecryptionResult> decryptionResults) {
+                    UserThread.execute(() -> {
+                        decryptionResults.forEach(e -> applyDecryptionResult(e));
+                        if (numPendingBatches.decrementAndGet() == 0) {
+                            log.info("Batch processing of {} mailbox entries took {} ms",
+                                    protectedMailboxStorageEntries.size(),
+                                    System.currentTimeMillis() - ts);
+                        }
+                    });
+                }
+
+                public void onFailure(@NotNull Throwable throwable) {
+                    log.error(throwable.toString());
+                }
+            }, MoreExecutors.directExecutor());
+        });
     }
 
-    private Set<MailboxItem> getMailboxItems(Collection<ProtectedMailboxStorageEntry> protectedMailboxStorageEntries) {
-        Set<MailboxItem> mailboxItems = new HashSet<>();
-        protectedMailboxStorageEntries.stream()
-                .map(this::tryDecryptProtectedMailboxStorageEntry)
-                .forEach(mailboxItems::add);
-        return mailboxItems;
+    // The receiversPubKey of the entry must match the ownerPubKey of the payload (see
+    // ProtectedMailboxStorageEntry.isValidForAddOperation), which is the signature pubKey of the receiver. So we can
+    // skip the decryption of entries addressed to other peers.
+    private boolean isIgnoredOrNotAddressedToMe(ProtectedMailboxStorageEntry protectedMailboxStorageEntry) {
+        String uid = protectedMailboxStorageEntry.getMailboxStoragePayload().getPrefixedSealedAndSignedMessage().getUid();
+        // If we had persisted a past failed decryption attempt on that message we don't try again
+        return ignoredMailboxService.isIgnored(uid) ||
+                !keyRing.getSignatureKeyPair().getPublic().equals(protectedMailboxStorageEntry.getReceiversPubKey());
     }
 
-    private MailboxItem tryDecryptProtectedMailboxStorageEntry(ProtectedMailboxStorageEntry protectedMailboxStorageEntry) {
-        PrefixedSealedAndSignedMessage prefixedSealedAndSignedMessage = protectedMailboxStorageEntry
+    // Gets called from the decryption threads, so we must not access any mutable state here.
+    private DecryptionResult decrypt(ProtectedMailboxStorageEntry protectedMailboxStorageEntry) {
+        SealedAndSigned sealedAndSigned = protectedMailboxStorageEntry
                 .getMailboxStoragePayload()
-                .getPrefixedSealedAndSignedMessage();
-        SealedAndSigned sealedAndSigned = prefixedSealedAndSignedMessage.getSealedAndSigned();
-        String uid = prefixedSealedAndSignedMessage.getUid();
-        if (ignoredMailboxService.isIgnored(uid)) {
-            // We had persisted a past failed decryption attempt on that message so we don't try again and return early
-            return new MailboxItem(protectedMailboxStorageEntry, null);
-        }
+                .getPrefixedSealedAndSignedMessage()
+                .getSealedAndSigned();
         try {
             DecryptedMessageWithPubKey decryptedMessageWithPubKey = encryptionService.decryptAndVerify(sealedAndSigned);
             checkArgument(decryptedMessageWithPubKey.getNetworkEnvelope() instanceof MailboxMessage);
-            return new MailboxItem(protectedMailboxStorageEntry, decryptedMessageWithPubKey);
+            return new DecryptionResult(new MailboxItem(protectedMailboxStorageEntry, decryptedMessageWithPubKey), false);
         } catch (CryptoException ignore) {
             // Expected if message was not intended for us
-            // We persist those entries so at the next startup we do not need to try to decrypt it anymore
-            ignoredMailboxService.ignore(uid, protectedMailboxStorageEntry.getCreationTimeStamp());
+            return new DecryptionResult(new MailboxItem(protectedMailboxStorageEntry, null), true);
         } catch (ProtobufferException e) {
             log.error(e.toString());
             e.getStackTrace();
+            return new DecryptionResult(new MailboxItem(protectedMailboxStorageEntry, null), false);
+        }
+    }
+
+    private void applyDecryptionResult(DecryptionResult decryptionResult) {
+        MailboxItem mailboxItem = decryptionResult.getMailboxItem();
+        if (decryptionResult.isDecryptionFailed()) {
+            // We persist those entries so at the next startup we do not need to try to decrypt it anymore
+            ProtectedMailboxStorageEntry protectedMailboxStorageEntry = mailboxItem.getProtectedMailboxStorageEntry();
+            String uid = protectedMailboxStorageEntry.getMailboxStoragePayload().getPrefixedSealedAndSignedMessage().getUid();
+            ignoredMailboxService.ignore(uid, protectedMailboxStorageEntry.getCreationTimeStamp());
         }
-        return new MailboxItem(protectedMailboxStorageEntry, null);
+        handleMailboxItem(mailboxItem);
+    }
+
+    private ListeningExecutorService getDecryptionExecutor() {
+        if (decryptionExecutor == null) {
+            int numThreads = Runtime.getRuntime().availableProcessors();
+            decryptionExecutor = Utilities.getListeningExecutorService("MailboxDecryption-%d",
+                    numThreads,
+                    numThreads,
+                    60,
+                    new LinkedBlockingQueue<>());
+        }
+        return decryptionExecutor;
     }
 
     private void handleMailboxItem(MailboxItem mailboxItem) {
@@ -624,4 +677,16 @@ public class MailboxMessageService implements HashMapChangedListener, PersistedD
     private void requestPersistence() {
         persistenceManager.requestPersistence();
     }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // DecryptionResult
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Value
+    private static class DecryptionResult {
+        MailboxItem mailboxItem;
+        // True if decryption failed as the message was not addressed to us
+        boolean decryptionFailed;
+    }
 }
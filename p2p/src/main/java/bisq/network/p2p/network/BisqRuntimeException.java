@@ -18,6 +18,10 @@
 package bisq.network.p2p.network;
 
 class BisqRuntimeException extends RuntimeException {
+    BisqRuntimeException(String message) {
+        super(message);
+    }
+
     BisqRuntimeException(String message, Throwable cause) {
         super(message, cause);
     }
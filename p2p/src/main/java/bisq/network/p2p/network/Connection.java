@@ -46,6 +46,9 @@ import com.google.protobuf.InvalidProtocolBufferException;
 
 import javax.inject.Inject;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.Uninterruptibles;
 
@@ -56,6 +59,8 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 
+import java.nio.channels.SocketChannel;
+
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -63,7 +68,6 @@ import java.io.InvalidClassException;
 import java.io.OptionalDataException;
 import java.io.StreamCorruptedException;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -84,6 +88,7 @@ import java.lang.ref.WeakReference;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -114,6 +119,10 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         return PERMITTED_MESSAGE_SIZE;
     }
 
+    static int getMaxPermittedMessageSize() {
+        return MAX_PERMITTED_MESSAGE_SIZE;
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Class fields
@@ -123,6 +132,8 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
     private final ConnectionListener connectionListener;
     @Nullable
     private final NetworkFilter networkFilter;
+    @Nullable
+    private final NioNetworkCore nioNetworkCore;
     @Getter
     private final String uid;
     private final ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "Connection.java executor-service"));
@@ -144,9 +155,9 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
 
     @Getter
     private final ObjectProperty<NodeAddress> peersNodeAddressProperty = new SimpleObjectProperty<>();
-    private final List<Long> messageTimeStamps = new ArrayList<>();
+    private final TimestampRingBuffer messageTimeStamps = new TimestampRingBuffer(Math.max(1, getMsgThrottlePer10Sec()));
     private final CopyOnWriteArraySet<MessageListener> messageListeners = new CopyOnWriteArraySet<>();
-    private volatile long lastSendTimeStamp = 0;
+    private final OutboundQueue outboundQueue = new OutboundQueue(this::writeEnvelope, getSendMsgThrottleTrigger());
     // We use a weak reference here to ensure that no connection causes a memory leak in case it get closed without
     // the shutDown being called.
     private final CopyOnWriteArraySet<WeakReference<SupportedCapabilitiesListener>> capabilitiesListeners = new CopyOnWriteArraySet<>();
@@ -168,9 +179,20 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                @Nullable NodeAddress peersNodeAddress,
                NetworkProtoResolver networkProtoResolver,
                @Nullable NetworkFilter networkFilter) {
+        this(socket, messageListener, connectionListener, peersNodeAddress, networkProtoResolver, networkFilter, null);
+    }
+
+    Connection(Socket socket,
+               MessageListener messageListener,
+               ConnectionListener connectionListener,
+               @Nullable NodeAddress peersNodeAddress,
+               NetworkProtoResolver networkProtoResolver,
+               @Nullable NetworkFilter networkFilter,
+               @Nullable NioNetworkCore nioNetworkCore) {
         this.socket = socket;
         this.connectionListener = connectionListener;
         this.networkFilter = networkFilter;
+        this.nioNetworkCore = nioNetworkCore;
         uid = UUID.randomUUID().toString();
         statistic = new Statistic();
 
@@ -184,16 +206,12 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
 
     private void init(@Nullable NodeAddress peersNodeAddress) {
         try {
-            socket.setSoTimeout(SOCKET_TIMEOUT);
-            // Need to access first the ObjectOutputStream otherwise the ObjectInputStream would block
-            // See: https://stackoverflow.com/questions/5658089/java-creating-a-new-objectinputstream-blocks/5658109#5658109
-            // When you construct an ObjectInputStream, in the constructor the class attempts to read a header that
-            // the associated ObjectOutputStream on the other end of the connection has written.
-            // It will not return until that header has been read.
-            protoOutputStream = new SynchronizedProtoOutputStream(socket.getOutputStream(), statistic);
-            protoInputStream = socket.getInputStream();
-            // We create a thread for handling inputStream data
-            singleThreadExecutor.submit(this);
+            SocketChannel channel = socket.getChannel();
+            if (nioNetworkCore != null && channel != null) {
+                initNonBlocking(channel);
+            } else {
+                initBlocking();
+            }
 
             if (peersNodeAddress != null) {
                 setPeersNodeAddress(peersNodeAddress);
@@ -207,6 +225,43 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         }
     }
 
+    private void initBlocking() throws IOException {
+        socket.setSoTimeout(SOCKET_TIMEOUT);
+        // Need to access first the ObjectOutputStream otherwise the ObjectInputStream would block
+        // See: https://stackoverflow.com/questions/5658089/java-creating-a-new-objectinputstream-blocks/5658109#5658109
+        // When you construct an ObjectInputStream, in the constructor the class attempts to read a header that
+        // the associated ObjectOutputStream on the other end of the connection has written.
+        // It will not return until that header has been read.
+        protoOutputStream = new SynchronizedProtoOutputStream(socket.getOutputStream(), statistic);
+        protoInputStream = socket.getInputStream();
+        // We create a thread for handling inputStream data
+        singleThreadExecutor.submit(this);
+    }
+
+    // We do not use a thread per connection but read with the shared selector of nioNetworkCore
+    private void initNonBlocking(SocketChannel channel) throws IOException {
+        protoOutputStream = new SynchronizedProtoOutputStream(new NonBlockingChannelOutputStream(channel, SOCKET_TIMEOUT),
+                statistic,
+                OutboundQueue.WRITE_EXECUTOR);
+        nioNetworkCore.register(channel, new NioNetworkCore.Handler() {
+            @Override
+            public long onFrame(byte[] frame) {
+                return onFrameReceived(channel, frame);
+            }
+
+            @Override
+            public void onEndOfStream() {
+                log.warn("Peer closed the connection (EOF). That is expected if client got stopped without proper shutdown.");
+                shutDown(CloseConnectionReason.NO_PROTO_BUFFER_ENV);
+            }
+
+            @Override
+            public void onReadFailure(Throwable throwable) {
+                handleException(throwable);
+            }
+        }, SOCKET_TIMEOUT);
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // API
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -216,51 +271,87 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         return capabilities;
     }
 
-    // Called from various threads
-    public void sendMessage(NetworkEnvelope networkEnvelope) {
+    // Called from various threads. The returned future completes once the message got written to the stream and
+    // fails if writing failed or if the outboundQueue dropped it.
+    public ListenableFuture<Void> sendMessage(NetworkEnvelope networkEnvelope) {
         long ts = System.currentTimeMillis();
         log.debug(">> Send networkEnvelope of type: {}", networkEnvelope.getClass().getSimpleName());
 
+        if (!isReadyToSend()) {
+            return Futures.immediateFuture(null);
+        }
+
+        if (!testCapability(networkEnvelope)) {
+            log.debug("Capability for networkEnvelope is required but not supported");
+            return Futures.immediateFuture(null);
+        }
+        return outboundQueue.send(SerializedEnvelope.of(networkEnvelope), ts);
+    }
+
+    // Called from various threads. The serializedEnvelope might get sent to other peers as well, so the capability
+    // check does not change it but we send a new bundle without the envelopes not supported by the peer.
+    public ListenableFuture<Void> sendMessage(SerializedEnvelope serializedEnvelope) {
+        long ts = System.currentTimeMillis();
+        log.debug(">> Send serialized networkEnvelope of type: {}",
+                serializedEnvelope.getNetworkEnvelope().getClass().getSimpleName());
+
+        if (!isReadyToSend()) {
+            return Futures.immediateFuture(null);
+        }
+
+        SerializedEnvelope supportedEnvelope = serializedEnvelope.filter(this::testCapability);
+        if (supportedEnvelope == null) {
+            log.debug("Capability for networkEnvelope is required but not supported");
+            return Futures.immediateFuture(null);
+        }
+        return outboundQueue.send(supportedEnvelope, ts);
+    }
+
+    private boolean isReadyToSend() {
         if (stopped) {
             log.debug("called sendMessage but was already stopped");
-            return;
+            return false;
         }
 
         if (networkFilter != null &&
                 peersNodeAddressOptional.isPresent() &&
                 networkFilter.isPeerBanned(peersNodeAddressOptional.get())) {
             reportInvalidRequest(RuleViolation.PEER_BANNED);
-            return;
+            return false;
         }
+        return true;
+    }
 
-        if (!testCapability(networkEnvelope)) {
-            log.debug("Capability for networkEnvelope is required but not supported");
-            return;
+    // Called by the outboundQueue, either from the thread which called sendMessage or from the thread writing the
+    // queued messages once the throttle permits it. The returned future fails if the message was not written. For
+    // non-blocking channels we do not wait until the message got written.
+    private ListenableFuture<Void> writeEnvelope(SerializedEnvelope serializedEnvelope, long ts) {
+        NetworkEnvelope networkEnvelope = serializedEnvelope.getNetworkEnvelope();
+        // The CloseConnectionMessage is sent at shutdown and might have been queued before we got stopped
+        if (stopped && !(networkEnvelope instanceof CloseConnectionMessage)) {
+            return Futures.immediateFailedFuture(new BisqRuntimeException("Connection got stopped before " +
+                    networkEnvelope.getClass().getSimpleName() + " was written."));
         }
-        int networkEnvelopeSize = networkEnvelope.toProtoNetworkEnvelope().getSerializedSize();
-        try {
-            // Throttle outbound network_messages
-            long now = System.currentTimeMillis();
-            long elapsed = now - lastSendTimeStamp;
-            if (elapsed < getSendMsgThrottleTrigger()) {
-                log.debug("We got 2 sendMessage requests in less than {} ms. We set the thread to sleep " +
-                                "for {} ms to avoid flooding our peer. lastSendTimeStamp={}, now={}, elapsed={}, networkEnvelope={}",
-                        getSendMsgThrottleTrigger(), getSendMsgThrottleSleep(), lastSendTimeStamp, now, elapsed,
-                        networkEnvelope.getClass().getSimpleName());
-
-                Thread.sleep(getSendMsgThrottleSleep());
-            }
-
-            lastSendTimeStamp = now;
 
-            if (!stopped) {
-                protoOutputStream.writeEnvelope(networkEnvelope);
-                UserThread.execute(() -> messageListeners.forEach(e -> e.onMessageSent(networkEnvelope, this)));
-                UserThread.execute(() -> connectionStatistics.addSendMsgMetrics(System.currentTimeMillis() - ts, networkEnvelopeSize));
-            }
+        ListenableFuture<Void> future;
+        try {
+            future = protoOutputStream.write(serializedEnvelope);
         } catch (Throwable t) {
             handleException(t);
+            return Futures.immediateFailedFuture(t);
         }
+        Futures.addCallback(future, new FutureCallback<>() {
+            public void onSuccess(Void result) {
+                UserThread.execute(() -> messageListeners.forEach(e -> e.onMessageSent(networkEnvelope, Connection.this)));
+                UserThread.execute(() -> connectionStatistics.addSendMsgMetrics(System.currentTimeMillis() - ts,
+                        serializedEnvelope.getSerializedSize()));
+            }
+
+            public void onFailure(@NotNull Throwable throwable) {
+                handleException(throwable);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
     }
 
     public boolean testCapability(NetworkEnvelope networkEnvelope) {
@@ -332,10 +423,6 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
 
         messageTimeStamps.add(now);
 
-        // clean list
-        while (messageTimeStamps.size() > getMsgThrottlePer10Sec())
-            messageTimeStamps.remove(0);
-
         return violatesThrottleLimit(now, 1, getMsgThrottlePerSec()) ||
                 violatesThrottleLimit(now, 10, getMsgThrottlePer10Sec());
     }
@@ -348,10 +435,6 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         return config != null ? config.msgThrottlePer10Sec : 1000;
     }
 
-    private int getSendMsgThrottleSleep() {
-        return config != null ? config.sendMsgThrottleSleep : 50;
-    }
-
     private int getSendMsgThrottleTrigger() {
         return config != null ? config.sendMsgThrottleTrigger : 20;
     }
@@ -360,7 +443,7 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         if (messageTimeStamps.size() >= messageCountLimit) {
 
             // find the entry in the message timestamp history which determines whether we overshot the limit or not
-            long compareValue = messageTimeStamps.get(messageTimeStamps.size() - messageCountLimit);
+            long compareValue = messageTimeStamps.getRecent(messageCountLimit - 1);
 
             // if duration < seconds sec we received too much network_messages
             if (now - compareValue < TimeUnit.SECONDS.toMillis(seconds)) {
@@ -450,6 +533,10 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         return peersNodeAddressOptional.isPresent();
     }
 
+    OutboundQueue getOutboundQueue() {
+        return outboundQueue;
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // ShutDown
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -514,14 +601,22 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
             e.printStackTrace();
         } finally {
             protoOutputStream.onConnectionShutdown();
+            outboundQueue.shutDown();
 
             capabilitiesListeners.clear();
 
-            try {
-                protoInputStream.close();
-            } catch (IOException e) {
-                log.error(e.getMessage());
-                e.printStackTrace();
+            if (protoInputStream != null) {
+                try {
+                    protoInputStream.close();
+                } catch (IOException e) {
+                    log.error(e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+
+            SocketChannel channel = socket.getChannel();
+            if (nioNetworkCore != null && channel != null) {
+                nioNetworkCore.unregister(channel);
             }
 
             //noinspection UnstableApiUsage
@@ -715,8 +810,6 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                     // Blocking read from the inputStream
                     protobuf.NetworkEnvelope proto = protobuf.NetworkEnvelope.parseDelimitedFrom(protoInputStream);
 
-                    long ts = System.currentTimeMillis();
-
                     if (socket != null &&
                             socket.isClosed()) {
                         log.warn("Socket is null or closed socket={}", socket);
@@ -734,115 +827,165 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                         return;
                     }
 
-                    if (networkFilter != null &&
-                            peersNodeAddressOptional.isPresent() &&
-                            networkFilter.isPeerBanned(peersNodeAddressOptional.get())) {
-                        reportInvalidRequest(RuleViolation.PEER_BANNED);
-                        return;
+                    long throttleDelay = getInboundThrottleDelay();
+                    if (throttleDelay > 0) {
+                        Thread.sleep(throttleDelay);
                     }
 
-                    // Throttle inbound network_messages
-                    long now = System.currentTimeMillis();
-                    long elapsed = now - lastReadTimeStamp;
-                    if (elapsed < 10) {
-                        log.debug("We got 2 network_messages received in less than 10 ms. We set the thread to sleep " +
-                                        "for 20 ms to avoid getting flooded by our peer. lastReadTimeStamp={}, now={}, elapsed={}",
-                                lastReadTimeStamp, now, elapsed);
-                        Thread.sleep(20);
+                    if (!handleEnvelope(proto)) {
+                        return;
                     }
+                } catch (Throwable t) {
+                    handleReadException(t);
+                }
+            }
+        } catch (Throwable t) {
+            handleException(t);
+        }
+    }
 
-                    NetworkEnvelope networkEnvelope = networkProtoResolver.fromProto(proto);
-                    lastReadTimeStamp = now;
-                    log.debug("<< Received networkEnvelope of type: {}", networkEnvelope.getClass().getSimpleName());
-                    int size = proto.getSerializedSize();
+    // Called by the nioNetworkCore on a worker thread. The frames of one connection are delivered in order and not
+    // concurrently. Instead of blocking the shared worker thread for throttling we return the delay after which the
+    // nioNetworkCore delivers the frame again.
+    private long onFrameReceived(SocketChannel channel, byte[] frame) {
+        if (stopped) {
+            return 0;
+        }
+        long throttleDelay = getInboundThrottleDelay();
+        if (throttleDelay > 0) {
+            return throttleDelay;
+        }
+        try {
+            protobuf.NetworkEnvelope proto = protobuf.NetworkEnvelope.parseFrom(frame);
+            if (!handleEnvelope(proto)) {
+                // Same as leaving the read loop of the InputHandler
+                nioNetworkCore.unregister(channel);
+            }
+        } catch (Throwable t) {
+            handleReadException(t);
+        }
+        return 0;
+    }
 
-                    // We want to track the size of each object even if it is invalid data
-                    statistic.addReceivedBytes(size);
+    // Throttle inbound network_messages
+    private long getInboundThrottleDelay() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - lastReadTimeStamp;
+        if (elapsed < 10) {
+            log.debug("We got 2 network_messages received in less than 10 ms. We delay the next message " +
+                            "for 20 ms to avoid getting flooded by our peer. lastReadTimeStamp={}, now={}, elapsed={}",
+                    lastReadTimeStamp, now, elapsed);
+            return 20;
+        }
+        return 0;
+    }
 
-                    // We want to track the network_messages also before the checks, so do it early...
-                    statistic.addReceivedMessage(networkEnvelope);
+    // Performs several checks on the received message (including throttling limits, validity and statistics) and
+    // delivers it to the message listeners. Returns false if we must not read more messages from that connection.
+    private boolean handleEnvelope(protobuf.NetworkEnvelope proto) throws IOException {
+        long ts = System.currentTimeMillis();
 
-                    // First we check the size
-                    boolean exceeds;
-                    if (networkEnvelope instanceof ExtendedDataSizePermission) {
-                        exceeds = size > MAX_PERMITTED_MESSAGE_SIZE;
-                    } else {
-                        exceeds = size > PERMITTED_MESSAGE_SIZE;
-                    }
+        if (networkFilter != null &&
+                peersNodeAddressOptional.isPresent() &&
+                networkFilter.isPeerBanned(peersNodeAddressOptional.get())) {
+            reportInvalidRequest(RuleViolation.PEER_BANNED);
+            return false;
+        }
 
-                    if (networkEnvelope instanceof AddPersistableNetworkPayloadMessage &&
-                            !((AddPersistableNetworkPayloadMessage) networkEnvelope).getPersistableNetworkPayload().verifyHashSize()) {
-                        log.warn("PersistableNetworkPayload.verifyHashSize failed. hashSize={}; object={}",
-                                ((AddPersistableNetworkPayloadMessage) networkEnvelope).getPersistableNetworkPayload().getHash().length,
-                                Utilities.toTruncatedString(proto));
-                        if (reportInvalidRequest(RuleViolation.MAX_MSG_SIZE_EXCEEDED))
-                            return;
-                    }
+        NetworkEnvelope networkEnvelope = networkProtoResolver.fromProto(proto);
+        lastReadTimeStamp = System.currentTimeMillis();
+        log.debug("<< Received networkEnvelope of type: {}", networkEnvelope.getClass().getSimpleName());
+        int size = proto.getSerializedSize();
 
-                    if (exceeds) {
-                        log.warn("size > MAX_MSG_SIZE. size={}; object={}", size, Utilities.toTruncatedString(proto));
+        // We want to track the size of each object even if it is invalid data
+        statistic.addReceivedBytes(size);
 
-                        if (reportInvalidRequest(RuleViolation.MAX_MSG_SIZE_EXCEEDED))
-                            return;
-                    }
+        // We want to track the network_messages also before the checks, so do it early...
+        statistic.addReceivedMessage(networkEnvelope);
 
-                    if (violatesThrottleLimit() && reportInvalidRequest(RuleViolation.THROTTLE_LIMIT_EXCEEDED))
-                        return;
+        // First we check the size
+        boolean exceeds;
+        if (networkEnvelope instanceof ExtendedDataSizePermission) {
+            exceeds = size > MAX_PERMITTED_MESSAGE_SIZE;
+        } else {
+            exceeds = size > PERMITTED_MESSAGE_SIZE;
+        }
 
-                    // Check P2P network ID
-                    if (proto.getMessageVersion() != Version.getP2PMessageVersion()
-                            && reportInvalidRequest(RuleViolation.WRONG_NETWORK_ID)) {
-                        log.warn("RuleViolation.WRONG_NETWORK_ID. version of message={}, app version={}, " +
-                                        "proto.toTruncatedString={}", proto.getMessageVersion(),
-                                Version.getP2PMessageVersion(),
-                                Utilities.toTruncatedString(proto.toString()));
-                        return;
-                    }
+        if (networkEnvelope instanceof AddPersistableNetworkPayloadMessage &&
+                !((AddPersistableNetworkPayloadMessage) networkEnvelope).getPersistableNetworkPayload().verifyHashSize()) {
+            log.warn("PersistableNetworkPayload.verifyHashSize failed. hashSize={}; object={}",
+                    ((AddPersistableNetworkPayloadMessage) networkEnvelope).getPersistableNetworkPayload().getHash().length,
+                    Utilities.toTruncatedString(proto));
+            if (reportInvalidRequest(RuleViolation.MAX_MSG_SIZE_EXCEEDED))
+                return false;
+        }
 
-                    boolean causedShutDown = maybeHandleSupportedCapabilitiesMessage(networkEnvelope);
-                    if (causedShutDown) {
-                        return;
-                    }
+        if (exceeds) {
+            log.warn("size > MAX_MSG_SIZE. size={}; object={}", size, Utilities.toTruncatedString(proto));
 
-                    if (networkEnvelope instanceof CloseConnectionMessage) {
-                        // If we get a CloseConnectionMessage we shut down
-                        log.debug("CloseConnectionMessage received. Reason={}\n\t" +
-                                "connection={}", proto.getCloseConnectionMessage().getReason(), this);
+            if (reportInvalidRequest(RuleViolation.MAX_MSG_SIZE_EXCEEDED))
+                return false;
+        }
 
-                        if (CloseConnectionReason.PEER_BANNED.name().equals(proto.getCloseConnectionMessage().getReason())) {
-                            log.warn("We got shut down because we are banned by the other peer. " +
-                                    "(InputHandler.run CloseConnectionMessage). Peer: {}", getPeersNodeAddressOptional());
-                        }
-                        shutDown(CloseConnectionReason.CLOSE_REQUESTED_BY_PEER);
-                        return;
-                    } else if (!stopped) {
-                        // We don't want to get the activity ts updated by ping/pong msg
-                        if (!(networkEnvelope instanceof KeepAliveMessage))
-                            statistic.updateLastActivityTimestamp();
-
-                        // If SendersNodeAddressMessage we do some verifications and apply if successful,
-                        // otherwise we return false.
-                        if (networkEnvelope instanceof SendersNodeAddressMessage &&
-                                !processSendersNodeAddressMessage((SendersNodeAddressMessage) networkEnvelope)) {
-                            return;
-                        }
+        if (violatesThrottleLimit() && reportInvalidRequest(RuleViolation.THROTTLE_LIMIT_EXCEEDED))
+            return false;
 
-                        onMessage(networkEnvelope, this);
-                        UserThread.execute(() -> connectionStatistics.addReceivedMsgMetrics(System.currentTimeMillis() - ts, size));
-                    }
-                } catch (InvalidClassException e) {
-                    log.error(e.getMessage());
-                    e.printStackTrace();
-                    reportInvalidRequest(RuleViolation.INVALID_CLASS);
-                } catch (ProtobufferException | NoClassDefFoundError | InvalidProtocolBufferException e) {
-                    log.error(e.getMessage());
-                    e.printStackTrace();
-                    reportInvalidRequest(RuleViolation.INVALID_DATA_TYPE);
-                } catch (Throwable t) {
-                    handleException(t);
-                }
+        // Check P2P network ID
+        if (proto.getMessageVersion() != Version.getP2PMessageVersion()
+                && reportInvalidRequest(RuleViolation.WRONG_NETWORK_ID)) {
+            log.warn("RuleViolation.WRONG_NETWORK_ID. version of message={}, app version={}, " +
+                            "proto.toTruncatedString={}", proto.getMessageVersion(),
+                    Version.getP2PMessageVersion(),
+                    Utilities.toTruncatedString(proto.toString()));
+            return false;
+        }
+
+        boolean causedShutDown = maybeHandleSupportedCapabilitiesMessage(networkEnvelope);
+        if (causedShutDown) {
+            return false;
+        }
+
+        if (networkEnvelope instanceof CloseConnectionMessage) {
+            // If we get a CloseConnectionMessage we shut down
+            log.debug("CloseConnectionMessage received. Reason={}\n\t" +
+                    "connection={}", proto.getCloseConnectionMessage().getReason(), this);
+
+            if (CloseConnectionReason.PEER_BANNED.name().equals(proto.getCloseConnectionMessage().getReason())) {
+                log.warn("We got shut down because we are banned by the other peer. " +
+                        "(InputHandler.run CloseConnectionMessage). Peer: {}", getPeersNodeAddressOptional());
             }
-        } catch (Throwable t) {
+            shutDown(CloseConnectionReason.CLOSE_REQUESTED_BY_PEER);
+            return false;
+        } else if (!stopped) {
+            // We don't want to get the activity ts updated by ping/pong msg
+            if (!(networkEnvelope instanceof KeepAliveMessage))
+                statistic.updateLastActivityTimestamp();
+
+            // If SendersNodeAddressMessage we do some verifications and apply if successful,
+            // otherwise we return false.
+            if (networkEnvelope instanceof SendersNodeAddressMessage &&
+                    !processSendersNodeAddressMessage((SendersNodeAddressMessage) networkEnvelope)) {
+                return false;
+            }
+
+            onMessage(networkEnvelope, this);
+            UserThread.execute(() -> connectionStatistics.addReceivedMsgMetrics(System.currentTimeMillis() - ts, size));
+        }
+        return true;
+    }
+
+    private void handleReadException(Throwable t) {
+        if (t instanceof InvalidClassException) {
+            log.error(t.getMessage());
+            t.printStackTrace();
+            reportInvalidRequest(RuleViolation.INVALID_CLASS);
+        } else if (t instanceof ProtobufferException ||
+                t instanceof NoClassDefFoundError ||
+                t instanceof InvalidProtocolBufferException) {
+            log.error(t.getMessage());
+            t.printStackTrace();
+            reportInvalidRequest(RuleViolation.INVALID_DATA_TYPE);
+        } else {
             handleException(t);
         }
     }
@@ -100,7 +100,9 @@ public class ConnectionState implements MessageListener {
             numInitialDataRequests++;
             onInitialDataExchange();
         } else if (networkEnvelope instanceof InitialDataResponse) {
-            numInitialDataResponses++;
+            if (((InitialDataResponse) networkEnvelope).isLastMessageOfResponse()) {
+                numInitialDataResponses++;
+            }
             onInitialDataExchange();
         } else if (networkEnvelope instanceof PrefixedSealedAndSignedMessage &&
                 connection.getPeersNodeAddressOptional().isPresent()) {
@@ -107,7 +107,8 @@ public class ConnectionStatistics implements MessageListener {
                         "Sent data: %s; %s" + ls +
                         "Received data: %s; %s" + ls +
                         "CPU time spent on sending messages: %s" + ls +
-                        "CPU time spent on receiving messages: %s",
+                        "CPU time spent on receiving messages: %s" + ls +
+                        "Outbound queue: %d messages; %d dropped",
                 age,
                 seedNode ? "[Seed node] " : "", peer,
                 connectionState.getPeerType().name(),
@@ -118,7 +119,9 @@ public class ConnectionStatistics implements MessageListener {
                 Utilities.readableFileSize(sentBytes), sentDataMap.toString(),
                 Utilities.readableFileSize(receivedBytes), receivedDataMap.toString(),
                 Utilities.formatDurationAsWords(timeOnSendMsg),
-                Utilities.formatDurationAsWords(timeOnReceivedMsg));
+                Utilities.formatDurationAsWords(timeOnReceivedMsg),
+                getOutboundQueueDepth(),
+                getNumDroppedOutboundMessages());
     }
 
     @Override
@@ -161,6 +164,16 @@ public class ConnectionStatistics implements MessageListener {
         }
     }
 
+    // Number of messages waiting for the outbound throttle
+    public int getOutboundQueueDepth() {
+        return connection.getOutboundQueue().getQueueDepth();
+    }
+
+    // Number of broadcast messages we dropped because the outbound queue was full
+    public long getNumDroppedOutboundMessages() {
+        return connection.getOutboundQueue().getNumDroppedMessages();
+    }
+
     public void addSendMsgMetrics(long timeSpent, int bytes) {
         this.timeOnSendMsg += timeSpent;
         this.sentBytes += bytes;
@@ -31,4 +31,13 @@ public class InboundConnection extends Connection {
                              @Nullable NetworkFilter networkFilter) {
         super(socket, messageListener, connectionListener, null, networkProtoResolver, networkFilter);
     }
+
+    InboundConnection(Socket socket,
+                      MessageListener messageListener,
+                      ConnectionListener connectionListener,
+                      NetworkProtoResolver networkProtoResolver,
+                      @Nullable NetworkFilter networkFilter,
+                      @Nullable NioNetworkCore nioNetworkCore) {
+        super(socket, messageListener, connectionListener, null, networkProtoResolver, networkFilter, nioNetworkCore);
+    }
 }
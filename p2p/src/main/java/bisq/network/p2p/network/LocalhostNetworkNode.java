@@ -22,9 +22,13 @@ import bisq.network.p2p.NodeAddress;
 import bisq.common.UserThread;
 import bisq.common.proto.network.NetworkProtoResolver;
 
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
 import java.io.IOException;
 
 import java.util.concurrent.TimeUnit;
@@ -57,7 +61,14 @@ public class LocalhostNetworkNode extends NetworkNode {
     public LocalhostNetworkNode(int port,
                                 NetworkProtoResolver networkProtoResolver,
                                 @Nullable NetworkFilter networkFilter) {
-        super(port, networkProtoResolver, networkFilter);
+        this(port, networkProtoResolver, networkFilter, false);
+    }
+
+    public LocalhostNetworkNode(int port,
+                                NetworkProtoResolver networkProtoResolver,
+                                @Nullable NetworkFilter networkFilter,
+                                boolean useNioNetworkCore) {
+        super(port, networkProtoResolver, networkFilter, useNioNetworkCore);
     }
 
     @Override
@@ -76,7 +87,7 @@ public class LocalhostNetworkNode extends NetworkNode {
             // simulate tor HS publishing delay
             UserThread.runAfter(() -> {
                 try {
-                    startServer(new ServerSocket(servicePort));
+                    startServer(createServerSocket());
                 } catch (IOException e) {
                     e.printStackTrace();
                     log.error("Exception at startServer: " + e.getMessage());
@@ -89,6 +100,19 @@ public class LocalhostNetworkNode extends NetworkNode {
     // Called from NetworkNode thread
     @Override
     protected Socket createSocket(NodeAddress peerNodeAddress) throws IOException {
+        if (isUseNioNetworkCore()) {
+            // Only sockets created by a channel can be read by the NioNetworkCore
+            return SocketChannel.open(new InetSocketAddress(peerNodeAddress.getHostName(), peerNodeAddress.getPort()))
+                    .socket();
+        }
         return new Socket(peerNodeAddress.getHostName(), peerNodeAddress.getPort());
     }
+
+    private ServerSocket createServerSocket() throws IOException {
+        if (isUseNioNetworkCore()) {
+            // The accepted sockets of a ServerSocketChannel have a channel as well
+            return ServerSocketChannel.open().bind(new InetSocketAddress(servicePort)).socket();
+        }
+        return new ServerSocket(servicePort);
+    }
 }
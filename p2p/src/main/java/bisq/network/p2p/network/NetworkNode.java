@@ -52,6 +52,7 @@ import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -71,6 +72,10 @@ public abstract class NetworkNode implements MessageListener {
     private final NetworkProtoResolver networkProtoResolver;
     @Nullable
     private final NetworkFilter networkFilter;
+    private final boolean useNioNetworkCore;
+    // Only set if useNioNetworkCore is enabled. Is used by all connections with a socket which supports it.
+    @Nullable
+    private NioNetworkCore nioNetworkCore;
 
     private final CopyOnWriteArraySet<InboundConnection> inBoundConnections = new CopyOnWriteArraySet<>();
     private final CopyOnWriteArraySet<MessageListener> messageListeners = new CopyOnWriteArraySet<>();
@@ -92,9 +97,17 @@ public abstract class NetworkNode implements MessageListener {
     NetworkNode(int servicePort,
                 NetworkProtoResolver networkProtoResolver,
                 @Nullable NetworkFilter networkFilter) {
+        this(servicePort, networkProtoResolver, networkFilter, false);
+    }
+
+    NetworkNode(int servicePort,
+                NetworkProtoResolver networkProtoResolver,
+                @Nullable NetworkFilter networkFilter,
+                boolean useNioNetworkCore) {
         this.servicePort = servicePort;
         this.networkProtoResolver = networkProtoResolver;
         this.networkFilter = networkFilter;
+        this.useNioNetworkCore = useNioNetworkCore;
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -123,7 +136,7 @@ public abstract class NetworkNode implements MessageListener {
                     "We will create a new outbound connection.", peersNodeAddress);
 
             final SettableFuture<Connection> resultFuture = SettableFuture.create();
-            ListenableFuture<Connection> future = executorService.submit(() -> {
+            ListenableFuture<Connection> future = Futures.submitAsync(() -> {
                 Thread.currentThread().setName("NetworkNode:SendMessage-to-" + peersNodeAddress.getFullAddress());
 
                 if (peersNodeAddress.equals(getNodeAddress())) {
@@ -163,8 +176,7 @@ public abstract class NetworkNode implements MessageListener {
                         } catch (Throwable throwable) {
                             log.error("Error at closing socket " + throwable);
                         }
-                        existingConnection.sendMessage(networkEnvelope);
-                        return existingConnection;
+                        return whenWritten(existingConnection, existingConnection.sendMessage(networkEnvelope));
                     } else {
                         final ConnectionListener connectionListener = new ConnectionListener() {
                             @Override
@@ -196,7 +208,8 @@ public abstract class NetworkNode implements MessageListener {
                                 connectionListener,
                                 peersNodeAddress,
                                 networkProtoResolver,
-                                networkFilter);
+                                networkFilter,
+                                nioNetworkCore);
 
                         if (log.isDebugEnabled()) {
                             log.debug("\n\n%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%\n" +
@@ -208,8 +221,7 @@ public abstract class NetworkNode implements MessageListener {
                                     + "\n%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%\n");
                         }
                         // can take a while when using tor
-                        outboundConnection.sendMessage(networkEnvelope);
-                        return outboundConnection;
+                        return whenWritten(outboundConnection, outboundConnection.sendMessage(networkEnvelope));
                     }
                 } catch (Throwable throwable) {
                     if (!(throwable instanceof ConnectException ||
@@ -219,7 +231,7 @@ public abstract class NetworkNode implements MessageListener {
                     }
                     throw throwable;
                 }
-            });
+            }, executorService);
 
             Futures.addCallback(future, new FutureCallback<>() {
                 public void onSuccess(Connection connection) {
@@ -279,13 +291,22 @@ public abstract class NetworkNode implements MessageListener {
 
 
     public SettableFuture<Connection> sendMessage(Connection connection, NetworkEnvelope networkEnvelope) {
+        return sendMessage(connection, () -> connection.sendMessage(networkEnvelope));
+    }
+
+    // For messages which are sent to multiple peers, so they get serialized only once
+    public SettableFuture<Connection> sendMessage(Connection connection, SerializedEnvelope serializedEnvelope) {
+        return sendMessage(connection, () -> connection.sendMessage(serializedEnvelope));
+    }
+
+    // The returned future completes once the message got written, not already when it got queued by the connection
+    private SettableFuture<Connection> sendMessage(Connection connection, Supplier<ListenableFuture<Void>> sendHandler) {
         // connection.sendMessage might take a bit (compression, write to stream), so we use a thread to not block
-        ListenableFuture<Connection> future = executorService.submit(() -> {
+        ListenableFuture<Connection> future = Futures.submitAsync(() -> {
             String id = connection.getPeersNodeAddressOptional().isPresent() ? connection.getPeersNodeAddressOptional().get().getFullAddress() : connection.getUid();
             Thread.currentThread().setName("NetworkNode:SendMessage-to-" + id);
-            connection.sendMessage(networkEnvelope);
-            return connection;
-        });
+            return whenWritten(connection, sendHandler.get());
+        }, executorService);
         final SettableFuture<Connection> resultFuture = SettableFuture.create();
         Futures.addCallback(future, new FutureCallback<Connection>() {
             public void onSuccess(Connection connection) {
@@ -299,6 +320,10 @@ public abstract class NetworkNode implements MessageListener {
         return resultFuture;
     }
 
+    private static ListenableFuture<Connection> whenWritten(Connection connection, ListenableFuture<Void> writeFuture) {
+        return Futures.transform(writeFuture, ignore -> connection, MoreExecutors.directExecutor());
+    }
+
     public ReadOnlyObjectProperty<NodeAddress> nodeAddressProperty() {
         return nodeAddressProperty;
     }
@@ -328,6 +353,18 @@ public abstract class NetworkNode implements MessageListener {
 
 
     public void shutDown(Runnable shutDownCompleteHandler) {
+        // The nioNetworkCore is needed until all connections have sent their CloseConnectionMessage
+        doShutDown(() -> {
+            if (nioNetworkCore != null) {
+                nioNetworkCore.shutDown();
+            }
+            if (shutDownCompleteHandler != null) {
+                shutDownCompleteHandler.run();
+            }
+        });
+    }
+
+    private void doShutDown(Runnable shutDownCompleteHandler) {
         if (!shutDownInProgress) {
             shutDownInProgress = true;
             if (server != null) {
@@ -429,9 +466,21 @@ public abstract class NetworkNode implements MessageListener {
     // Protected
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    boolean isUseNioNetworkCore() {
+        return useNioNetworkCore;
+    }
+
     void createExecutorService() {
         if (executorService == null)
             executorService = Utilities.getListeningExecutorService("NetworkNode-" + servicePort, 15, 30, 60);
+
+        if (useNioNetworkCore && nioNetworkCore == null) {
+            try {
+                nioNetworkCore = new NioNetworkCore("NetworkNode-" + servicePort);
+            } catch (IOException e) {
+                log.error("Could not create NioNetworkCore. We use a thread per connection instead.", e);
+            }
+        }
     }
 
     void startServer(ServerSocket serverSocket) {
@@ -464,7 +513,8 @@ public abstract class NetworkNode implements MessageListener {
                 NetworkNode.this,
                 connectionListener,
                 networkProtoResolver,
-                networkFilter);
+                networkFilter,
+                nioNetworkCore);
         executorService.submit(server);
     }
 
@@ -0,0 +1,441 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads the length delimited network envelopes of all registered connections with one selector thread and hands the
+ * received frames to a shared worker pool. The frames of one connection are processed in order and never
+ * concurrently, so the Connection sees the same sequence of messages as with its own InputHandler thread. A handler
+ * which wants to throttle a connection does not block the worker thread but lets us deliver the frame again later.
+ * <p>
+ * Writes are done on the bounded write pool of OutboundQueue (see SynchronizedProtoOutputStream), so the number of
+ * threads does not grow with the number of connections.
+ * <p>
+ * Only sockets which have been created from a SocketChannel can be used. The Tor sockets do not have a channel and
+ * keep using the blocking InputHandler.
+ */
+@Slf4j
+class NioNetworkCore {
+    // Frames larger than that are rejected before we allocate the buffer for it. The Connection applies the
+    // permitted message size limits after parsing.
+    static final int MAX_FRAME_SIZE = 2 * Connection.getMaxPermittedMessageSize();
+    // If a connection has more frames waiting for processing we stop reading from it until the backlog is processed.
+    private static final int MAX_PENDING_FRAMES = 100;
+    private static final long TIMEOUT_CHECK_INTERVAL_MS = TimeUnit.SECONDS.toMillis(1);
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    interface Handler {
+        // Called for each complete frame, in the order of reception. Returns 0 if the frame got processed or the
+        // delay in ms after which the same frame should be delivered again. Until then we do not read from that
+        // connection and do not deliver later frames.
+        long onFrame(byte[] frame);
+
+        // Called when the peer closed the connection
+        void onEndOfStream();
+
+        // Called for read errors and if the peer did not send any data during the read timeout
+        void onReadFailure(Throwable throwable);
+    }
+
+    private final Selector selector;
+    private final ExecutorService workerPool;
+    private final ScheduledExecutorService deferralTimer;
+    private final Queue<Runnable> pendingSelectorTasks = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private volatile boolean stopped;
+    private long lastTimeoutCheck;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    NioNetworkCore(String name) throws IOException {
+        selector = Selector.open();
+
+        int numWorkers = Math.max(2, Runtime.getRuntime().availableProcessors());
+        workerPool = Executors.newFixedThreadPool(numWorkers, getThreadFactory(name + "-NioWorker-%d"));
+        deferralTimer = Executors.newSingleThreadScheduledExecutor(getThreadFactory(name + "-NioDeferral"));
+
+        Thread selectorThread = new Thread(this::runSelectorLoop, name + "-NioSelector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Starts reading from the channel. The channel is switched to non-blocking mode, so its socket streams must not
+     * be used anymore.
+     */
+    void register(SocketChannel channel, Handler handler, int readTimeoutMs) throws IOException {
+        channel.configureBlocking(false);
+        Registration registration = new Registration(channel, handler, readTimeoutMs);
+        runOnSelectorThread(() -> {
+            try {
+                registration.key = channel.register(selector, SelectionKey.OP_READ, registration);
+            } catch (Throwable t) {
+                registration.fail(t);
+            }
+        });
+    }
+
+    // Stops reading from the channel. Frames which have been read already are still delivered.
+    void unregister(SocketChannel channel) {
+        runOnSelectorThread(() -> {
+            SelectionKey key = channel.keyFor(selector);
+            if (key != null) {
+                key.cancel();
+            }
+        });
+    }
+
+    void shutDown() {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        selector.wakeup();
+        workerPool.shutdownNow();
+        deferralTimer.shutdownNow();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Selector thread
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void runSelectorLoop() {
+        try {
+            while (!stopped) {
+                selector.select(TIMEOUT_CHECK_INTERVAL_MS);
+
+                Runnable task;
+                while ((task = pendingSelectorTasks.poll()) != null) {
+                    task.run();
+                }
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    if (key.isValid() && key.isReadable()) {
+                        read((Registration) key.attachment());
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if (now - lastTimeoutCheck >= TIMEOUT_CHECK_INTERVAL_MS) {
+                    lastTimeoutCheck = now;
+                    checkReadTimeouts(now);
+                }
+            }
+        } catch (Throwable t) {
+            if (!stopped) {
+                log.error("Selector loop failed", t);
+            }
+        } finally {
+            closeSelector();
+        }
+    }
+
+    private void read(Registration registration) {
+        try {
+            readBuffer.clear();
+            int numBytes = registration.channel.read(readBuffer);
+            if (numBytes < 0) {
+                registration.key.cancel();
+                registration.dispatch(registration.handler::onEndOfStream);
+                return;
+            }
+
+            registration.lastReadTimeStamp = System.currentTimeMillis();
+            readBuffer.flip();
+            registration.frameDecoder.decode(readBuffer, registration::dispatchFrame);
+        } catch (SocketException | StreamCorruptedException e) {
+            registration.fail(e);
+        } catch (IOException e) {
+            // The socket streams throw a SocketException for a reset connection, the channel a plain IOException.
+            // We map it so that the Connection reports the same close reason for both modes.
+            SocketException socketException = new SocketException(e.getMessage());
+            socketException.initCause(e);
+            registration.fail(socketException);
+        }
+    }
+
+    private void checkReadTimeouts(long now) {
+        for (SelectionKey key : selector.keys()) {
+            Registration registration = (Registration) key.attachment();
+            // While reading is paused the missing data is caused by us
+            if (key.isValid() &&
+                    !registration.readingPaused &&
+                    now - registration.lastReadTimeStamp > registration.readTimeoutMs) {
+                registration.fail(new SocketTimeoutException("Read timed out"));
+            }
+        }
+    }
+
+    private void runOnSelectorThread(Runnable task) {
+        pendingSelectorTasks.add(task);
+        selector.wakeup();
+    }
+
+    private void closeSelector() {
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.warn("Closing selector failed. {}", e.toString());
+        }
+    }
+
+    private static ThreadFactory getThreadFactory(String nameFormat) {
+        return new ThreadFactoryBuilder()
+                .setNameFormat(nameFormat)
+                .setDaemon(true)
+                .build();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Registration
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private class Registration {
+        private final SocketChannel channel;
+        private final Handler handler;
+        private final int readTimeoutMs;
+        private final FrameDecoder frameDecoder = new FrameDecoder(MAX_FRAME_SIZE);
+        // The tasks of that connection. They return the delay in ms after which the task has to be run again or 0.
+        // They are run in order by at most one processTasks call on the worker pool at a time.
+        private final Queue<LongSupplier> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean processingScheduled = new AtomicBoolean();
+        private final AtomicInteger numPendingFrames = new AtomicInteger();
+        private volatile boolean deferred;
+        private SelectionKey key;
+        // Only accessed from the selector thread
+        private long lastReadTimeStamp = System.currentTimeMillis();
+        private boolean readingPaused;
+
+        Registration(SocketChannel channel, Handler handler, int readTimeoutMs) {
+            this.channel = channel;
+            this.handler = handler;
+            this.readTimeoutMs = readTimeoutMs;
+        }
+
+        private void dispatchFrame(byte[] frame) {
+            if (numPendingFrames.incrementAndGet() >= MAX_PENDING_FRAMES && !readingPaused) {
+                readingPaused = true;
+                key.interestOps(0);
+            }
+            addTask(() -> {
+                long delayMs = 0;
+                try {
+                    delayMs = handler.onFrame(frame);
+                    return delayMs;
+                } finally {
+                    if (delayMs <= 0 && numPendingFrames.decrementAndGet() == MAX_PENDING_FRAMES / 2) {
+                        runOnSelectorThread(this::maybeResumeReading);
+                    }
+                }
+            });
+        }
+
+        private void pauseReading() {
+            if (!readingPaused && key.isValid()) {
+                readingPaused = true;
+                key.interestOps(0);
+            }
+        }
+
+        private void maybeResumeReading() {
+            if (readingPaused && key.isValid() && !deferred && numPendingFrames.get() < MAX_PENDING_FRAMES) {
+                readingPaused = false;
+                lastReadTimeStamp = System.currentTimeMillis();
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        private void fail(Throwable throwable) {
+            if (key != null) {
+                key.cancel();
+            }
+            dispatch(() -> handler.onReadFailure(throwable));
+        }
+
+        private void dispatch(Runnable task) {
+            addTask(() -> {
+                task.run();
+                return 0;
+            });
+        }
+
+        private void addTask(LongSupplier task) {
+            tasks.add(task);
+            scheduleProcessing();
+        }
+
+        private void scheduleProcessing() {
+            if (processingScheduled.compareAndSet(false, true)) {
+                try {
+                    workerPool.execute(this::processTasks);
+                } catch (Throwable t) {
+                    // Expected if we got shut down
+                    if (!stopped) {
+                        log.error("Dispatching data of {} failed", channel, t);
+                    }
+                }
+            }
+        }
+
+        // Runs on the worker pool
+        private void processTasks() {
+            LongSupplier task;
+            while ((task = tasks.peek()) != null) {
+                long delayMs = runTask(task);
+                if (delayMs > 0) {
+                    defer(delayMs);
+                    return;
+                }
+                tasks.poll();
+            }
+            processingScheduled.set(false);
+            // A task might have been added after we left the loop but before we reset the flag
+            if (!tasks.isEmpty()) {
+                scheduleProcessing();
+            }
+        }
+
+        private long runTask(LongSupplier task) {
+            try {
+                return task.getAsLong();
+            } catch (Throwable t) {
+                log.error("Handling data of {} failed", channel, t);
+                return 0;
+            }
+        }
+
+        // We keep the processingScheduled flag set while the connection is deferred, so no other task of that
+        // connection gets processed until the delay has passed.
+        private void defer(long delayMs) {
+            deferred = true;
+            runOnSelectorThread(this::pauseReading);
+            try {
+                deferralTimer.schedule(() -> {
+                    deferred = false;
+                    runOnSelectorThread(this::maybeResumeReading);
+                    processingScheduled.set(false);
+                    scheduleProcessing();
+                }, delayMs, TimeUnit.MILLISECONDS);
+            } catch (Throwable t) {
+                // Expected if we got shut down
+                if (!stopped) {
+                    log.error("Deferring data of {} failed", channel, t);
+                }
+            }
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // FrameDecoder
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Splits the received bytes into frames of a varint length prefix followed by that many bytes, as written by
+     * MessageLite.writeDelimitedTo. The data of a frame can be spread over several calls of decode.
+     */
+    static class FrameDecoder {
+        private final int maxFrameSize;
+        // State of the length prefix
+        private int length;
+        private int shift;
+        // State of the frame data, null if we read the length prefix
+        private byte[] frame;
+        private int position;
+
+        FrameDecoder(int maxFrameSize) {
+            this.maxFrameSize = maxFrameSize;
+        }
+
+        void decode(ByteBuffer buffer, Consumer<byte[]> frameConsumer) throws StreamCorruptedException {
+            while (buffer.hasRemaining()) {
+                if (frame == null) {
+                    byte b = buffer.get();
+                    length |= (b & 0x7f) << shift;
+                    shift += 7;
+                    if (b < 0) {
+                        // Continuation bit is set. A 32 bit length has at most 5 bytes.
+                        if (shift >= 35) {
+                            throw new StreamCorruptedException("Malformed length prefix");
+                        }
+                        continue;
+                    }
+                    if (length < 0 || length > maxFrameSize) {
+                        throw new StreamCorruptedException("Frame size " + length + " exceeds max. frame size of " +
+                                maxFrameSize);
+                    }
+                    frame = new byte[length];
+                    position = 0;
+                } else {
+                    int numBytes = Math.min(buffer.remaining(), frame.length - position);
+                    buffer.get(frame, position, numBytes);
+                    position += numBytes;
+                }
+
+                if (frame != null && position == frame.length) {
+                    byte[] completeFrame = frame;
+                    frame = null;
+                    length = 0;
+                    shift = 0;
+                    frameConsumer.accept(completeFrame);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import java.net.SocketTimeoutException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * OutputStream for a SocketChannel in non-blocking mode, which is registered at the NioNetworkCore for reading.
+ * Blocks the writing thread until all data is written like the socket's OutputStream does. If the send buffer is full
+ * we wait on our own selector until the channel is writable again.
+ * <p>
+ * Writes are serialized by SynchronizedProtoOutputStream.
+ */
+@NotThreadSafe
+class NonBlockingChannelOutputStream extends OutputStream {
+    private final SocketChannel channel;
+    private final int writeTimeoutMs;
+    @Nullable
+    private Selector writeSelector;
+
+    NonBlockingChannelOutputStream(SocketChannel channel, int writeTimeoutMs) {
+        this.channel = channel;
+        this.writeTimeoutMs = writeTimeoutMs;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+        while (buffer.hasRemaining()) {
+            if (channel.write(buffer) == 0) {
+                awaitWritable();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (writeSelector != null) {
+                writeSelector.close();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void awaitWritable() throws IOException {
+        if (writeSelector == null) {
+            writeSelector = Selector.open();
+            channel.register(writeSelector, SelectionKey.OP_WRITE);
+        }
+        if (writeSelector.select(writeTimeoutMs) == 0) {
+            throw new SocketTimeoutException("Write timed out");
+        }
+        writeSelector.selectedKeys().clear();
+    }
+}
@@ -34,4 +34,15 @@ public class OutboundConnection extends Connection {
                               @Nullable NetworkFilter networkFilter) {
         super(socket, messageListener, connectionListener, peersNodeAddress, networkProtoResolver, networkFilter);
     }
+
+    OutboundConnection(Socket socket,
+                       MessageListener messageListener,
+                       ConnectionListener connectionListener,
+                       NodeAddress peersNodeAddress,
+                       NetworkProtoResolver networkProtoResolver,
+                       @Nullable NetworkFilter networkFilter,
+                       @Nullable NioNetworkCore nioNetworkCore) {
+        super(socket, messageListener, connectionListener, peersNodeAddress, networkProtoResolver, networkFilter,
+                nioNetworkCore);
+    }
 }
@@ -0,0 +1,309 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.network.p2p.CloseConnectionMessage;
+import bisq.network.p2p.DirectMessage;
+import bisq.network.p2p.peers.keepalive.messages.KeepAliveMessage;
+import bisq.network.p2p.storage.messages.BroadcastMessage;
+
+import bisq.common.proto.network.NetworkEnvelope;
+import bisq.common.util.Utilities;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Outbound throttling of a connection with a token bucket. Each message costs one token, tokens are refilled at a
+ * fixed rate up to BURST_SIZE. If tokens are available the message is handed to the writer by the calling thread.
+ * Otherwise it is queued and written once tokens are available again, so no thread sleeps for throttling. Writers of
+ * non-blocking channels do not block the calling thread either.
+ * <p>
+ * Queued messages are sent by priority. Direct messages (trade protocol, acks, mailbox messages), keep alive and close
+ * messages are never delayed by the token bucket and go ahead of queued bulk traffic. Broadcast messages have the
+ * lowest priority, and if too many of them are queued for a slow peer the oldest get dropped. Other peers relay them
+ * as well.
+ * <p>
+ * The future returned by send completes once the message got written. It fails if writing failed or if the message
+ * got dropped.
+ */
+@Slf4j
+@ThreadSafe
+class OutboundQueue {
+    // Max. number of messages we can send without waiting for new tokens
+    private static final int BURST_SIZE = 10;
+    private static final int MAX_QUEUED_BROADCAST_MESSAGES = 1000;
+    // A write to a slow peer blocks a thread until the write timeout. If all threads are busy the writes wait in the
+    // queue of the executor.
+    private static final int MAX_WRITE_THREADS = 32;
+
+    // Shared by all connections. The scheduler only hands over the queued messages to the executor which does the
+    // (potentially blocking) writes.
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("OutboundQueue-scheduler").setDaemon(true).build());
+    // The only pool for writes. Connections with a non-blocking channel write on it as well (see
+    // SynchronizedProtoOutputStream).
+    static final Executor WRITE_EXECUTOR = Utilities.getListeningExecutorService("OutboundQueue-write-%d",
+            MAX_WRITE_THREADS, MAX_WRITE_THREADS, 60, new LinkedBlockingQueue<>());
+
+    enum Priority {
+        HIGH,
+        NORMAL,
+        LOW;
+
+        static Priority of(NetworkEnvelope networkEnvelope) {
+            if (networkEnvelope instanceof DirectMessage ||
+                    networkEnvelope instanceof CloseConnectionMessage ||
+                    networkEnvelope instanceof KeepAliveMessage) {
+                return HIGH;
+            } else if (networkEnvelope instanceof BroadcastMessage) {
+                return LOW;
+            } else {
+                return NORMAL;
+            }
+        }
+    }
+
+    interface Writer {
+        // ts is the time when the message got queued. The returned future completes once the message got written and
+        // fails if it could not be written. The next message is written after the future completed.
+        ListenableFuture<Void> write(SerializedEnvelope serializedEnvelope, long ts);
+    }
+
+    private static class QueuedMessage {
+        private final SerializedEnvelope serializedEnvelope;
+        private final long ts;
+        private final SettableFuture<Void> resultFuture = SettableFuture.create();
+
+        QueuedMessage(SerializedEnvelope serializedEnvelope, long ts) {
+            this.serializedEnvelope = serializedEnvelope;
+            this.ts = ts;
+        }
+
+        private void onDropped(String reason) {
+            resultFuture.setException(new BisqRuntimeException(
+                    serializedEnvelope.getNetworkEnvelope().getClass().getSimpleName() + " got dropped. " + reason));
+        }
+    }
+
+    private final Writer writer;
+    // Time until we get a new token
+    private final long tokenIntervalMs;
+    private final Map<Priority, ArrayDeque<QueuedMessage>> queues = new EnumMap<>(Priority.class);
+
+    // All mutable state is guarded by this
+    private double tokens = BURST_SIZE;
+    private long lastRefillTs = System.currentTimeMillis();
+    // A thread is writing the queued messages
+    private boolean draining;
+    private boolean drainScheduled;
+    private boolean stopped;
+    private int queueDepth;
+    private long numDroppedMessages;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    OutboundQueue(Writer writer, long tokenIntervalMs) {
+        this.writer = writer;
+        this.tokenIntervalMs = Math.max(1, tokenIntervalMs);
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    ListenableFuture<Void> send(SerializedEnvelope serializedEnvelope, long ts) {
+        QueuedMessage message = new QueuedMessage(serializedEnvelope, ts);
+        QueuedMessage dropped = null;
+        boolean startDraining;
+        synchronized (this) {
+            if (stopped) {
+                message.onDropped("Connection is stopped.");
+                return message.resultFuture;
+            }
+
+            Priority priority = Priority.of(serializedEnvelope.getNetworkEnvelope());
+            ArrayDeque<QueuedMessage> queue = queues.get(priority);
+            queue.add(message);
+            queueDepth++;
+            if (priority == Priority.LOW && queue.size() > MAX_QUEUED_BROADCAST_MESSAGES) {
+                dropped = queue.poll();
+                queueDepth--;
+                numDroppedMessages++;
+                log.debug("Outbound queue is full. We drop {}",
+                        dropped.serializedEnvelope.getNetworkEnvelope().getClass().getSimpleName());
+            }
+
+            // If another thread is draining it will write our message
+            startDraining = !draining;
+            draining = true;
+        }
+        // We complete the futures outside the lock as their listeners might run on our thread
+        if (dropped != null) {
+            dropped.onDropped("Outbound queue is full.");
+        }
+        if (startDraining) {
+            drain();
+        }
+        return message.resultFuture;
+    }
+
+    void shutDown() {
+        List<QueuedMessage> dropped = new ArrayList<>();
+        synchronized (this) {
+            stopped = true;
+            queues.values().forEach(queue -> {
+                dropped.addAll(queue);
+                queue.clear();
+            });
+            queueDepth = 0;
+        }
+        dropped.forEach(message -> message.onDropped("Connection got shut down."));
+    }
+
+    synchronized int getQueueDepth() {
+        return queueDepth;
+    }
+
+    synchronized long getNumDroppedMessages() {
+        return numDroppedMessages;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Only one thread drains at a time, so the messages are written in the order we poll them. If a write does not
+    // complete immediately we do not wait for it but continue draining once it completed.
+    private void drain() {
+        while (true) {
+            QueuedMessage message;
+            synchronized (this) {
+                message = pollNext();
+                if (message == null) {
+                    draining = false;
+                    maybeScheduleDrain();
+                    return;
+                }
+            }
+            ListenableFuture<Void> writeFuture;
+            try {
+                writeFuture = writer.write(message.serializedEnvelope, message.ts);
+            } catch (Throwable t) {
+                writeFuture = Futures.immediateFailedFuture(t);
+            }
+            if (!writeFuture.isDone()) {
+                ListenableFuture<Void> pendingWrite = writeFuture;
+                pendingWrite.addListener(() -> {
+                    onWritten(message, pendingWrite);
+                    drain();
+                }, MoreExecutors.directExecutor());
+                return;
+            }
+            onWritten(message, writeFuture);
+        }
+    }
+
+    private static void onWritten(QueuedMessage message, ListenableFuture<Void> writeFuture) {
+        try {
+            Futures.getDone(writeFuture);
+            message.resultFuture.set(null);
+        } catch (Throwable t) {
+            Throwable cause = t instanceof ExecutionException ? t.getCause() : t;
+            log.error("Writing queued message failed", cause);
+            message.resultFuture.setException(cause);
+        }
+    }
+
+    @Nullable
+    private QueuedMessage pollNext() {
+        if (stopped) {
+            return null;
+        }
+
+        refillTokens();
+        QueuedMessage message = queues.get(Priority.HIGH).poll();
+        if (message == null && tokens >= 1) {
+            message = queues.get(Priority.NORMAL).poll();
+            if (message == null) {
+                message = queues.get(Priority.LOW).poll();
+            }
+        }
+        if (message != null) {
+            queueDepth--;
+            // High priority messages can use tokens in advance, so the following bulk traffic is delayed instead
+            tokens = Math.max(tokens - 1, -BURST_SIZE);
+        }
+        return message;
+    }
+
+    private void refillTokens() {
+        long now = System.currentTimeMillis();
+        tokens = Math.min(BURST_SIZE, tokens + (double) (now - lastRefillTs) / tokenIntervalMs);
+        lastRefillTs = now;
+    }
+
+    private void maybeScheduleDrain() {
+        if (stopped || queueDepth == 0 || drainScheduled) {
+            return;
+        }
+
+        drainScheduled = true;
+        long delay = (long) Math.ceil((1 - tokens) * tokenIntervalMs);
+        SCHEDULER.schedule(() -> WRITE_EXECUTOR.execute(this::onScheduledDrain), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void onScheduledDrain() {
+        synchronized (this) {
+            drainScheduled = false;
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        drain();
+    }
+}
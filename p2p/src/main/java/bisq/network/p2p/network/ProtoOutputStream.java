@@ -19,8 +19,6 @@ package bisq.network.p2p.network;
 
 import bisq.network.p2p.peers.keepalive.messages.KeepAliveMessage;
 
-import bisq.common.proto.network.NetworkEnvelope;
-
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -41,7 +39,7 @@ class ProtoOutputStream {
         this.statistic = statistic;
     }
 
-    void writeEnvelope(NetworkEnvelope envelope) {
+    void writeEnvelope(SerializedEnvelope envelope) {
         try {
             writeEnvelopeOrThrow(envelope);
         } catch (IOException e) {
@@ -58,15 +56,14 @@ class ProtoOutputStream {
         }
     }
 
-    private void writeEnvelopeOrThrow(NetworkEnvelope envelope) throws IOException {
-        protobuf.NetworkEnvelope proto = envelope.toProtoNetworkEnvelope();
-        proto.writeDelimitedTo(delegate);
+    private void writeEnvelopeOrThrow(SerializedEnvelope envelope) throws IOException {
+        envelope.writeDelimitedTo(delegate);
         delegate.flush();
 
-        statistic.addSentBytes(proto.getSerializedSize());
-        statistic.addSentMessage(envelope);
+        statistic.addSentBytes(envelope.getSerializedSize());
+        statistic.addSentMessage(envelope.getNetworkEnvelope());
 
-        if (!(envelope instanceof KeepAliveMessage)) {
+        if (!(envelope.getNetworkEnvelope() instanceof KeepAliveMessage)) {
             statistic.updateLastActivityTimestamp();
         }
     }
@@ -0,0 +1,164 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.network.p2p.BundleOfEnvelopes;
+
+import bisq.common.app.Version;
+import bisq.common.proto.network.NetworkEnvelope;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+
+/**
+ * A NetworkEnvelope together with its serialized protobuf.NetworkEnvelope. It is serialized once and can be sent to
+ * any number of peers without building the protobuf object again.
+ * <p>
+ * A bundle keeps the serialized form of its envelopes, so if some envelopes need to be removed for a peer (capability
+ * check) we only concatenate the bytes of the remaining envelopes.
+ */
+public final class SerializedEnvelope {
+    @Getter
+    private final NetworkEnvelope networkEnvelope;
+    // Serialized protobuf.NetworkEnvelope without length prefix
+    private final byte[] bytes;
+    // Only set for bundles
+    @Nullable
+    private final List<SerializedEnvelope> bundledEnvelopes;
+
+    public static SerializedEnvelope of(NetworkEnvelope networkEnvelope) {
+        if (networkEnvelope instanceof BundleOfEnvelopes) {
+            return bundle(((BundleOfEnvelopes) networkEnvelope).getEnvelopes().stream()
+                    .map(SerializedEnvelope::of)
+                    .collect(Collectors.toList()));
+        }
+        return new SerializedEnvelope(networkEnvelope, networkEnvelope.toProtoNetworkEnvelope().toByteArray(), null);
+    }
+
+    // For envelopes which got serialized by the caller, e.g. composed from cached serialized parts. The bytes need to
+    // be the serialized protobuf.NetworkEnvelope of the networkEnvelope.
+    public static SerializedEnvelope of(NetworkEnvelope networkEnvelope, byte[] bytes) {
+        return new SerializedEnvelope(networkEnvelope, bytes, null);
+    }
+
+    // Creates a BundleOfEnvelopes from the already serialized envelopes.
+    public static SerializedEnvelope bundle(List<SerializedEnvelope> envelopes) {
+        BundleOfEnvelopes bundleOfEnvelopes = new BundleOfEnvelopes(envelopes.stream()
+                .map(SerializedEnvelope::getNetworkEnvelope)
+                .collect(Collectors.toList()));
+        return new SerializedEnvelope(bundleOfEnvelopes, serializeBundle(envelopes), List.copyOf(envelopes));
+    }
+
+    private SerializedEnvelope(NetworkEnvelope networkEnvelope,
+                               byte[] bytes,
+                               @Nullable List<SerializedEnvelope> bundledEnvelopes) {
+        this.networkEnvelope = networkEnvelope;
+        this.bytes = bytes;
+        this.bundledEnvelopes = bundledEnvelopes;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public int getSerializedSize() {
+        return bytes.length;
+    }
+
+    /**
+     * @return The envelope if all its content passes the filter. For a bundle a new bundle with the envelopes which
+     * passed the filter. Null if nothing is left.
+     */
+    @Nullable
+    SerializedEnvelope filter(Predicate<NetworkEnvelope> predicate) {
+        if (bundledEnvelopes == null) {
+            return predicate.test(networkEnvelope) ? this : null;
+        }
+
+        List<SerializedEnvelope> filtered = bundledEnvelopes.stream()
+                .filter(envelope -> predicate.test(envelope.getNetworkEnvelope()))
+                .collect(Collectors.toList());
+        if (filtered.isEmpty()) {
+            return null;
+        }
+        return filtered.size() == bundledEnvelopes.size() ? this : bundle(filtered);
+    }
+
+    // Same output as protobuf.NetworkEnvelope.writeDelimitedTo
+    void writeDelimitedTo(OutputStream outputStream) throws IOException {
+        CodedOutputStream codedOutputStream = CodedOutputStream.newInstance(outputStream,
+                Math.min(CodedOutputStream.DEFAULT_BUFFER_SIZE, bytes.length + 5));
+        codedOutputStream.writeUInt32NoTag(bytes.length);
+        codedOutputStream.writeRawBytes(bytes);
+        codedOutputStream.flush();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Writes the fields in the same order as protobuf.NetworkEnvelope.writeTo would do
+    private static byte[] serializeBundle(List<SerializedEnvelope> envelopes) {
+        int bundleSize = 0;
+        for (SerializedEnvelope envelope : envelopes) {
+            bundleSize += CodedOutputStream.computeByteArraySize(protobuf.BundleOfEnvelopes.ENVELOPES_FIELD_NUMBER,
+                    envelope.bytes);
+        }
+        int messageVersion = Version.getP2PMessageVersion();
+        // Default values are not written in proto3
+        int messageVersionSize = messageVersion != 0 ?
+                CodedOutputStream.computeInt32Size(protobuf.NetworkEnvelope.MESSAGE_VERSION_FIELD_NUMBER, messageVersion) :
+                0;
+        int size = messageVersionSize +
+                CodedOutputStream.computeTagSize(protobuf.NetworkEnvelope.BUNDLE_OF_ENVELOPES_FIELD_NUMBER) +
+                CodedOutputStream.computeUInt32SizeNoTag(bundleSize) +
+                bundleSize;
+
+        byte[] result = new byte[size];
+        CodedOutputStream codedOutputStream = CodedOutputStream.newInstance(result);
+        try {
+            if (messageVersion != 0) {
+                codedOutputStream.writeInt32(protobuf.NetworkEnvelope.MESSAGE_VERSION_FIELD_NUMBER, messageVersion);
+            }
+            codedOutputStream.writeTag(protobuf.NetworkEnvelope.BUNDLE_OF_ENVELOPES_FIELD_NUMBER,
+                    WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            codedOutputStream.writeUInt32NoTag(bundleSize);
+            for (SerializedEnvelope envelope : envelopes) {
+                codedOutputStream.writeByteArray(protobuf.BundleOfEnvelopes.ENVELOPES_FIELD_NUMBER, envelope.bytes);
+            }
+            codedOutputStream.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // Cannot happen as we write to an array of the computed size
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+}
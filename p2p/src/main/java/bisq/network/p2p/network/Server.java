@@ -41,6 +41,8 @@ class Server implements Runnable {
     private final ConnectionListener connectionListener;
     @Nullable
     private final NetworkFilter networkFilter;
+    @Nullable
+    private final NioNetworkCore nioNetworkCore;
 
     // accessed from different threads
     private final ServerSocket serverSocket;
@@ -54,11 +56,21 @@ class Server implements Runnable {
                   ConnectionListener connectionListener,
                   NetworkProtoResolver networkProtoResolver,
                   @Nullable NetworkFilter networkFilter) {
+        this(serverSocket, messageListener, connectionListener, networkProtoResolver, networkFilter, null);
+    }
+
+    Server(ServerSocket serverSocket,
+           MessageListener messageListener,
+           ConnectionListener connectionListener,
+           NetworkProtoResolver networkProtoResolver,
+           @Nullable NetworkFilter networkFilter,
+           @Nullable NioNetworkCore nioNetworkCore) {
         this.networkProtoResolver = networkProtoResolver;
         this.serverSocket = serverSocket;
         this.messageListener = messageListener;
         this.connectionListener = connectionListener;
         this.networkFilter = networkFilter;
+        this.nioNetworkCore = nioNetworkCore;
     }
 
     @Override
@@ -76,7 +88,8 @@ class Server implements Runnable {
                                 messageListener,
                                 connectionListener,
                                 networkProtoResolver,
-                                networkFilter);
+                                networkFilter,
+                                nioNetworkCore);
 
                         log.debug("\n\n%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%\n" +
                                 "Server created new inbound connection:"
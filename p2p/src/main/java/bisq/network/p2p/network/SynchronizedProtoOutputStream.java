@@ -17,11 +17,14 @@
 
 package bisq.network.p2p.network;
 
-import bisq.common.proto.network.NetworkEnvelope;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import java.io.OutputStream;
 
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -29,22 +32,61 @@ import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 @ThreadSafe
 class SynchronizedProtoOutputStream extends ProtoOutputStream {
     private static final Logger log = LoggerFactory.getLogger(SynchronizedProtoOutputStream.class);
 
+    private final Executor executor;
+    // Only set if we own the executor
+    @Nullable
     private final ExecutorService executorService;
 
     SynchronizedProtoOutputStream(OutputStream delegate, Statistic statistic) {
         super(delegate, statistic);
         this.executorService = Executors.newSingleThreadExecutor();
+        this.executor = executorService;
+    }
+
+    // The writes are executed one after another on the shared executor, so we do not need a thread per connection.
+    // Used for non-blocking channels.
+    SynchronizedProtoOutputStream(OutputStream delegate, Statistic statistic, Executor sharedExecutor) {
+        super(delegate, statistic);
+        this.executorService = null;
+        this.executor = MoreExecutors.newSequentialExecutor(sharedExecutor);
     }
 
     @Override
-    void writeEnvelope(NetworkEnvelope envelope) {
-        Future<?> future = executorService.submit(() -> super.writeEnvelope(envelope));
+    void writeEnvelope(SerializedEnvelope envelope) {
+        await(write(envelope));
+    }
+
+    // The returned future completes once the envelope got written. With the shared executor we do not block the
+    // calling thread. Otherwise we return after the envelope got written, so the blocking socket slows down the
+    // caller as before.
+    ListenableFuture<Void> write(SerializedEnvelope envelope) {
+        ListenableFutureTask<Void> future = ListenableFutureTask.create(() -> super.writeEnvelope(envelope), null);
+        executor.execute(future);
+        if (executorService != null) {
+            await(future);
+        }
+        return future;
+    }
+
+    void onConnectionShutdown() {
+        try {
+            if (executorService != null) {
+                executorService.shutdownNow();
+            }
+            super.onConnectionShutdown();
+        } catch (Throwable t) {
+            log.error("Failed to handle connection shutdown. Throwable={}", t.toString());
+        }
+    }
+
+    private static void await(Future<Void> future) {
         try {
             future.get();
         } catch (InterruptedException e) {
@@ -59,13 +101,4 @@ class SynchronizedProtoOutputStream extends ProtoOutputStream {
             throw new BisqRuntimeException(msg, e);
         }
     }
-
-    void onConnectionShutdown() {
-        try {
-            executorService.shutdownNow();
-            super.onConnectionShutdown();
-        } catch (Throwable t) {
-            log.error("Failed to handle connection shutdown. Throwable={}", t.toString());
-        }
-    }
 }
@@ -0,0 +1,58 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Keeps the most recent timestamps up to the given capacity. Adding a timestamp overwrites the oldest one if the
+ * buffer is full, so add and get are O(1).
+ */
+@NotThreadSafe
+final class TimestampRingBuffer {
+    private final long[] timestamps;
+    // Index where the next timestamp is written
+    private int next;
+    private int size;
+
+    TimestampRingBuffer(int capacity) {
+        checkArgument(capacity > 0, "capacity must be positive");
+        timestamps = new long[capacity];
+    }
+
+    void add(long timestamp) {
+        timestamps[next] = timestamp;
+        next = (next + 1) % timestamps.length;
+        size = Math.min(size + 1, timestamps.length);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param age 0 for the most recent timestamp, 1 for the one before,...
+     */
+    long getRecent(int age) {
+        checkArgument(age >= 0 && age < size, "age must be less than size");
+        int index = next - 1 - age;
+        return timestamps[index < 0 ? index + timestamps.length : index];
+    }
+}
@@ -17,10 +17,10 @@
 
 package bisq.network.p2p.peers;
 
-import bisq.network.p2p.BundleOfEnvelopes;
 import bisq.network.p2p.NodeAddress;
 import bisq.network.p2p.network.Connection;
 import bisq.network.p2p.network.NetworkNode;
+import bisq.network.p2p.network.SerializedEnvelope;
 import bisq.network.p2p.storage.messages.BroadcastMessage;
 
 import bisq.common.Timer;
@@ -33,7 +33,9 @@ import com.google.common.util.concurrent.SettableFuture;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -70,6 +72,8 @@ public class BroadcastHandler implements PeerManager.Listener {
     private final PeerManager peerManager;
     private final ResultHandler resultHandler;
     private final String uid;
+    // The same messages are sent to multiple peers, so we serialize each message only once
+    private final Map<BroadcastMessage, SerializedEnvelope> serializedMessages = new IdentityHashMap<>();
 
     private boolean stopped, timeoutTriggered;
     private int numOfCompletedBroadcasts, numOfFailedBroadcasts, numPeersForBroadcast;
@@ -237,8 +241,8 @@ public class BroadcastHandler implements PeerManager.Listener {
 
     private void sendToPeer(Connection connection, List<Broadcaster.BroadcastRequest> broadcastRequestsForConnection) {
         // Can be BundleOfEnvelopes or a single BroadcastMessage
-        BroadcastMessage broadcastMessage = getMessage(broadcastRequestsForConnection);
-        SettableFuture<Connection> future = networkNode.sendMessage(connection, broadcastMessage);
+        SerializedEnvelope serializedEnvelope = getSerializedEnvelope(broadcastRequestsForConnection);
+        SettableFuture<Connection> future = networkNode.sendMessage(connection, serializedEnvelope);
 
         Futures.addCallback(future, new FutureCallback<>() {
             @Override
@@ -269,14 +273,17 @@ public class BroadcastHandler implements PeerManager.Listener {
         }, MoreExecutors.directExecutor());
     }
 
-    private BroadcastMessage getMessage(List<Broadcaster.BroadcastRequest> broadcastRequests) {
-        if (broadcastRequests.size() == 1) {
+    private SerializedEnvelope getSerializedEnvelope(List<Broadcaster.BroadcastRequest> broadcastRequests) {
+        List<SerializedEnvelope> serializedEnvelopes = broadcastRequests.stream()
+                .map(broadcastRequest -> serializedMessages.computeIfAbsent(broadcastRequest.getMessage(),
+                        SerializedEnvelope::of))
+                .collect(Collectors.toList());
+        if (serializedEnvelopes.size() == 1) {
             // If we only have 1 message we avoid the overhead of the BundleOfEnvelopes and send the message directly
-            return broadcastRequests.get(0).getMessage();
+            return serializedEnvelopes.get(0);
         } else {
-            return new BundleOfEnvelopes(broadcastRequests.stream()
-                    .map(Broadcaster.BroadcastRequest::getMessage)
-                    .collect(Collectors.toList()));
+            // The bundle is composed of the serialized messages, so only the envelope around them is new
+            return SerializedEnvelope.bundle(serializedEnvelopes);
         }
     }
 
@@ -319,6 +326,7 @@ public class BroadcastHandler implements PeerManager.Listener {
             timeoutTimer = null;
         }
         peerManager.removeListener(this);
+        serializedMessages.clear();
         resultHandler.onCompleted(this);
     }
 
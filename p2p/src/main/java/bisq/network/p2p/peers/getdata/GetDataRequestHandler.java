@@ -26,6 +26,7 @@ import bisq.network.p2p.storage.P2PDataStorage;
 
 import bisq.common.Timer;
 import bisq.common.UserThread;
+import bisq.common.app.Capability;
 
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
@@ -45,6 +46,9 @@ public class GetDataRequestHandler {
 
     private static final int MAX_ENTRIES = 10000;
 
+    // Target size of the messages of a chunked response. Must be well below Connection.MAX_PERMITTED_MESSAGE_SIZE.
+    private static final int MAX_CHUNK_SIZE = 1_000_000;
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Listener
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -88,11 +92,14 @@ public class GetDataRequestHandler {
                 .map(e -> "node address " + e.getFullAddress())
                 .orElseGet(() -> "connection UID " + connection.getUid());
 
+        // If the peer supports chunked responses the size of the single messages is bounded, so we do not need to
+        // truncate the data.
+        boolean useChunks = connection.getCapabilities().contains(Capability.CHUNKED_GET_DATA_RESPONSE);
         AtomicBoolean wasPersistableNetworkPayloadsTruncated = new AtomicBoolean(false);
         AtomicBoolean wasProtectedStorageEntriesTruncated = new AtomicBoolean(false);
         GetDataResponse getDataResponse = dataStorage.buildGetDataResponse(
                 getDataRequest,
-                MAX_ENTRIES,
+                useChunks ? Integer.MAX_VALUE : MAX_ENTRIES,
                 wasPersistableNetworkPayloadsTruncated,
                 wasProtectedStorageEntriesTruncated,
                 connection.getCapabilities());
@@ -114,14 +121,48 @@ public class GetDataRequestHandler {
                 getDataResponse.getDataSet().size(),
                 getDataResponse.getPersistableNetworkPayloadSet().size());
 
-        if (timeoutTimer == null) {
-            timeoutTimer = UserThread.runAfter(() -> {  // setup before sending to avoid race conditions
-                        String errorMessage = "A timeout occurred for getDataResponse " +
-                                " on connection:" + connection;
-                        handleFault(errorMessage, CloseConnectionReason.SEND_MSG_TIMEOUT, connection);
-                    },
-                    TIMEOUT, TimeUnit.SECONDS);
+        if (useChunks) {
+            sendChunks(new GetDataResponseChunker(getDataResponse, MAX_CHUNK_SIZE), connection);
+        } else {
+            sendResponse(getDataResponse, connection, () -> {
+                cleanup();
+                listener.onComplete();
+            });
         }
+        log.info("handle GetDataRequest took {} ms", System.currentTimeMillis() - ts);
+    }
+
+    public void stop() {
+        cleanup();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // We send the next chunk only after the previous one was sent, so we do not queue up the whole response at the
+    // connection and the memory used is limited to about one chunk.
+    private void sendChunks(GetDataResponseChunker chunker, Connection connection) {
+        GetDataResponse chunk = chunker.next();
+        sendResponse(chunk, connection, () -> {
+            if (chunker.hasNext()) {
+                sendChunks(chunker, connection);
+            } else {
+                cleanup();
+                listener.onComplete();
+            }
+        });
+    }
+
+    private void sendResponse(GetDataResponse getDataResponse, Connection connection, Runnable onSent) {
+        stopTimeoutTimer();
+        timeoutTimer = UserThread.runAfter(() -> {  // setup before sending to avoid race conditions
+                    String errorMessage = "A timeout occurred for getDataResponse " +
+                            " on connection:" + connection;
+                    handleFault(errorMessage, CloseConnectionReason.SEND_MSG_TIMEOUT, connection);
+                },
+                TIMEOUT, TimeUnit.SECONDS);
 
         SettableFuture<Connection> future = networkNode.sendMessage(connection, getDataResponse);
         Futures.addCallback(future, new FutureCallback<>() {
@@ -130,8 +171,7 @@ public class GetDataRequestHandler {
                 if (!stopped) {
                     log.trace("Send DataResponse to {} succeeded. getDataResponse={}",
                             connection.getPeersNodeAddressOptional(), getDataResponse);
-                    cleanup();
-                    listener.onComplete();
+                    onSent.run();
                 } else {
                     log.trace("We have stopped already. We ignore that networkNode.sendMessage.onSuccess call.");
                 }
@@ -149,18 +189,8 @@ public class GetDataRequestHandler {
                 }
             }
         }, MoreExecutors.directExecutor());
-        log.info("handle GetDataRequest took {} ms", System.currentTimeMillis() - ts);
-    }
-
-    public void stop() {
-        cleanup();
     }
 
-
-    ///////////////////////////////////////////////////////////////////////////////////////////
-    // Private
-    ///////////////////////////////////////////////////////////////////////////////////////////
-
     private void handleFault(String errorMessage, CloseConnectionReason closeConnectionReason, Connection connection) {
         if (!stopped) {
             log.info(errorMessage + "\n\tcloseConnectionReason=" + closeConnectionReason);
@@ -173,6 +203,10 @@ public class GetDataRequestHandler {
 
     private void cleanup() {
         stopped = true;
+        stopTimeoutTimer();
+    }
+
+    private void stopTimeoutTimer() {
         if (timeoutTimer != null) {
             timeoutTimer.stop();
             timeoutTimer = null;
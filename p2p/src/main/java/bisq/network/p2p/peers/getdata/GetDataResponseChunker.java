@@ -0,0 +1,102 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.peers.getdata;
+
+import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+
+import bisq.common.proto.network.NetworkPayload;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits the data of a GetDataResponse into chunks with a serialized size of about maxChunkSize. Only a single
+ * entry exceeding maxChunkSize results in a larger chunk. The chunks are created lazily so only the chunk which gets
+ * sent next is serialized.
+ */
+class GetDataResponseChunker {
+    private final List<ProtectedStorageEntry> protectedStorageEntries;
+    private final List<PersistableNetworkPayload> persistableNetworkPayloads;
+    private final int requestNonce;
+    private final boolean isGetUpdatedDataResponse;
+    private final int maxChunkSize;
+
+    private int protectedStorageEntriesIndex;
+    private int persistableNetworkPayloadsIndex;
+    private int chunkIndex;
+
+    GetDataResponseChunker(GetDataResponse getDataResponse, int maxChunkSize) {
+        this.protectedStorageEntries = new ArrayList<>(getDataResponse.getDataSet());
+        this.persistableNetworkPayloads = new ArrayList<>(getDataResponse.getPersistableNetworkPayloadSet());
+        this.requestNonce = getDataResponse.getRequestNonce();
+        this.isGetUpdatedDataResponse = getDataResponse.isGetUpdatedDataResponse();
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    boolean hasNext() {
+        // We always send at least one chunk, even if there is no data
+        return chunkIndex == 0 || hasRemainingData();
+    }
+
+    GetDataResponse next() {
+        long chunkSize = 0;
+        Set<ProtectedStorageEntry> dataSet = new HashSet<>();
+        while (protectedStorageEntriesIndex < protectedStorageEntries.size()) {
+            ProtectedStorageEntry entry = protectedStorageEntries.get(protectedStorageEntriesIndex);
+            int size = getSerializedSize(entry);
+            if (chunkSize > 0 && chunkSize + size > maxChunkSize) {
+                break;
+            }
+            dataSet.add(entry);
+            chunkSize += size;
+            protectedStorageEntriesIndex++;
+        }
+
+        Set<PersistableNetworkPayload> persistableNetworkPayloadSet = new HashSet<>();
+        while (persistableNetworkPayloadsIndex < persistableNetworkPayloads.size()) {
+            PersistableNetworkPayload payload = persistableNetworkPayloads.get(persistableNetworkPayloadsIndex);
+            int size = getSerializedSize(payload);
+            if (chunkSize > 0 && chunkSize + size > maxChunkSize) {
+                break;
+            }
+            persistableNetworkPayloadSet.add(payload);
+            chunkSize += size;
+            persistableNetworkPayloadsIndex++;
+        }
+
+        return new GetDataResponse(dataSet,
+                persistableNetworkPayloadSet,
+                requestNonce,
+                isGetUpdatedDataResponse,
+                chunkIndex++,
+                hasRemainingData());
+    }
+
+    private boolean hasRemainingData() {
+        return protectedStorageEntriesIndex < protectedStorageEntries.size() ||
+                persistableNetworkPayloadsIndex < persistableNetworkPayloads.size();
+    }
+
+    private static int getSerializedSize(NetworkPayload networkPayload) {
+        return networkPayload.toProtoMessage().getSerializedSize();
+    }
+}
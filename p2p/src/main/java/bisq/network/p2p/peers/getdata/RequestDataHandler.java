@@ -31,6 +31,7 @@ import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
 
 import bisq.common.Timer;
 import bisq.common.UserThread;
+import bisq.common.app.Capability;
 import bisq.common.proto.network.NetworkEnvelope;
 import bisq.common.proto.network.NetworkPayload;
 import bisq.common.util.Tuple2;
@@ -41,8 +42,10 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -92,6 +95,11 @@ class RequestDataHandler implements MessageListener {
     private final int nonce = new Random().nextInt();
     private boolean stopped;
 
+    // If the peer sends a chunked response we process the chunks one after another in the order we received them
+    private final Queue<GetDataResponse> pendingChunks = new ArrayDeque<>();
+    private int expectedChunkIndex;
+    private boolean isProcessingChunk;
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -121,24 +129,20 @@ class RequestDataHandler implements MessageListener {
         if (!stopped) {
             GetDataRequest getDataRequest;
 
+            // If the peer supports it we send a bloom filter instead of the potentially large set of known hashes.
+            // We only know the capabilities of peers we have been connected to, and seed nodes are not persisted with
+            // the peers. So the PreliminaryGetDataRequest at startup still carries the raw keys, the filter is used
+            // for the GetUpdatedDataRequest and for later requests to the same seed node.
+            boolean useExcludedKeysFilter = peerManager.peerHasCapability(nodeAddress, Capability.EXCLUDED_KEYS_FILTER);
             if (isPreliminaryDataRequest)
-                getDataRequest = dataStorage.buildPreliminaryGetDataRequest(nonce);
+                getDataRequest = dataStorage.buildPreliminaryGetDataRequest(nonce, useExcludedKeysFilter);
             else
-                getDataRequest = dataStorage.buildGetUpdatedDataRequest(networkNode.getNodeAddress(), nonce);
+                getDataRequest = dataStorage.buildGetUpdatedDataRequest(networkNode.getNodeAddress(), nonce,
+                        useExcludedKeysFilter);
 
             if (timeoutTimer == null) {
-                timeoutTimer = UserThread.runAfter(() -> {  // setup before sending to avoid race conditions
-                            if (!stopped) {
-                                String errorMessage = "A timeout occurred at sending getDataRequest:" + getDataRequest +
-                                        " on nodeAddress:" + nodeAddress;
-                                log.debug(errorMessage + " / RequestDataHandler=" + RequestDataHandler.this);
-                                handleFault(errorMessage, nodeAddress, CloseConnectionReason.SEND_MSG_TIMEOUT);
-                            } else {
-                                log.trace("We have stopped already. We ignore that timeoutTimer.run call. " +
-                                        "Might be caused by a previous networkNode.sendMessage.onFailure.");
-                            }
-                        },
-                        TIMEOUT);
+                // setup before sending to avoid race conditions
+                startTimeoutTimer("sending getDataRequest:" + getDataRequest, nodeAddress);
             }
 
             getDataRequestType = getDataRequest.getClass().getSimpleName();
@@ -197,11 +201,22 @@ class RequestDataHandler implements MessageListener {
                             return;
                         }
 
-                        dataStorage.processGetDataResponse(getDataResponse,
-                                connection.getPeersNodeAddressOptional().get());
+                        if (getDataResponse.getChunkIndex() != expectedChunkIndex) {
+                            String errorMessage = "We received a GetDataResponse chunk with an unexpected index. " +
+                                    "chunkIndex=" + getDataResponse.getChunkIndex() +
+                                    ", expectedChunkIndex=" + expectedChunkIndex;
+                            handleFault(errorMessage, peersNodeAddress, CloseConnectionReason.CORRUPTED_DATA);
+                            return;
+                        }
+                        expectedChunkIndex++;
+
+                        if (getDataResponse.isMoreChunksFollow()) {
+                            startTimeoutTimer("waiting for GetDataResponse chunk " + expectedChunkIndex,
+                                    nodeAddressOf(connection));
+                        }
 
-                        cleanup();
-                        listener.onComplete();
+                        pendingChunks.add(getDataResponse);
+                        maybeProcessNextChunk(nodeAddressOf(connection), ts1);
                         // firstRequest = false;
                     } else {
                         log.warn("Nonce not matching. That can happen rarely if we get a response after a canceled " +
@@ -228,6 +243,53 @@ class RequestDataHandler implements MessageListener {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    private void maybeProcessNextChunk(NodeAddress sender, long startTime) {
+        if (isProcessingChunk || pendingChunks.isEmpty()) {
+            return;
+        }
+
+        isProcessingChunk = true;
+        GetDataResponse getDataResponse = pendingChunks.poll();
+        // The signatures get verified on a worker pool, the data gets applied on the user thread
+        dataStorage.processGetDataResponseAsync(getDataResponse, sender, () -> {
+            isProcessingChunk = false;
+            if (stopped) {
+                log.info("We have stopped already. We do not process further chunks and do not notify the listener.");
+                if (getDataResponse.isMoreChunksFollow()) {
+                    dataStorage.onGetDataResponseAborted(sender);
+                }
+                return;
+            }
+
+            if (getDataResponse.isMoreChunksFollow()) {
+                maybeProcessNextChunk(sender, startTime);
+            } else {
+                log.info("Processing GetDataResponse completed after {} ms", System.currentTimeMillis() - startTime);
+                cleanup();
+                listener.onComplete();
+            }
+        });
+    }
+
+    private void startTimeoutTimer(String info, NodeAddress nodeAddress) {
+        stopTimeoutTimer();
+        timeoutTimer = UserThread.runAfter(() -> {
+                    if (!stopped) {
+                        String errorMessage = "A timeout occurred at " + info + " on nodeAddress:" + nodeAddress;
+                        log.debug(errorMessage + " / RequestDataHandler=" + RequestDataHandler.this);
+                        handleFault(errorMessage, nodeAddress, CloseConnectionReason.SEND_MSG_TIMEOUT);
+                    } else {
+                        log.trace("We have stopped already. We ignore that timeoutTimer.run call. " +
+                                "Might be caused by a previous networkNode.sendMessage.onFailure.");
+                    }
+                },
+                TIMEOUT);
+    }
+
+    private static NodeAddress nodeAddressOf(Connection connection) {
+        return connection.getPeersNodeAddressOptional().orElseThrow();
+    }
+
     private void logContents(GetDataResponse getDataResponse) {
         Set<ProtectedStorageEntry> dataSet = getDataResponse.getDataSet();
         Set<PersistableNetworkPayload> persistableNetworkPayloadSet = getDataResponse.getPersistableNetworkPayloadSet();
@@ -274,6 +336,10 @@ class RequestDataHandler implements MessageListener {
                              CloseConnectionReason closeConnectionReason) {
         cleanup();
         log.info(errorMessage);
+        // If a chunk is still being applied we notify the data storage once it is done
+        if (!isProcessingChunk) {
+            dataStorage.onGetDataResponseAborted(nodeAddress);
+        }
         //peerManager.shutDownConnection(nodeAddress, closeConnectionReason);
         peerManager.handleConnectionFault(nodeAddress);
         listener.onFault(errorMessage, null);
@@ -0,0 +1,150 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.peers.getdata.messages;
+
+import bisq.common.crypto.Hash;
+import bisq.common.proto.network.NetworkPayload;
+
+import com.google.protobuf.ByteString;
+
+import java.nio.ByteBuffer;
+
+import java.util.Collection;
+import java.util.Random;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bloom filter over the excluded keys of a GetDataRequest. It is sent instead of the raw keys to peers supporting
+ * Capability.EXCLUDED_KEYS_FILTER. With about 14 bits per key it is about 20 times smaller than the list of 20 or
+ * 32 byte hashes.
+ * <p>
+ * A false positive causes the responding peer to treat data the requester does not have as known, so it is not
+ * delivered. We use a false positive rate of about 0.1% and a random tweak for each filter, so the false positives
+ * of the PreliminaryGetDataRequest and the GetUpdatedDataRequest (or of a later startup) are independent and it is
+ * very unlikely that an entry is missed repeatedly. Mailbox entries are not republished by their senders and a missed
+ * one would lose the message, so their hashes are always sent as exact keys and the filter is not applied to them.
+ */
+@EqualsAndHashCode
+@Getter
+public final class ExcludedKeysFilter implements NetworkPayload {
+    // Optimal values for a false positive rate of 0.1%: k = 10, m/n = k / ln(2)
+    private static final int NUM_HASH_FUNCTIONS = 10;
+    private static final double BITS_PER_KEY = NUM_HASH_FUNCTIONS / Math.log(2);
+
+    // Limits for filters received from peers. 4 MB supports about 2.2 million keys.
+    private static final int MAX_NUM_BYTES = 4_000_000;
+    private static final int MAX_NUM_HASH_FUNCTIONS = 30;
+
+    private final byte[] bits;
+    private final int numHashFunctions;
+    private final long tweak;
+
+    public static ExcludedKeysFilter fromKeys(Collection<byte[]> keys) {
+        int numBytes = Math.max(8, (int) Math.ceil(keys.size() * BITS_PER_KEY / 8));
+        ExcludedKeysFilter filter = new ExcludedKeysFilter(new byte[numBytes], NUM_HASH_FUNCTIONS, new Random().nextLong());
+        keys.forEach(filter::put);
+        return filter;
+    }
+
+    private ExcludedKeysFilter(byte[] bits, int numHashFunctions, long tweak) {
+        this.bits = bits;
+        this.numHashFunctions = numHashFunctions;
+        this.tweak = tweak;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // PROTO BUFFER
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public protobuf.ExcludedKeysFilter toProtoMessage() {
+        return protobuf.ExcludedKeysFilter.newBuilder()
+                .setBits(ByteString.copyFrom(bits))
+                .setNumHashFunctions(numHashFunctions)
+                .setTweak(tweak)
+                .build();
+    }
+
+    public static ExcludedKeysFilter fromProto(protobuf.ExcludedKeysFilter proto) {
+        checkArgument(!proto.getBits().isEmpty() && proto.getBits().size() <= MAX_NUM_BYTES,
+                "Invalid size of ExcludedKeysFilter bits: " + proto.getBits().size());
+        checkArgument(proto.getNumHashFunctions() > 0 && proto.getNumHashFunctions() <= MAX_NUM_HASH_FUNCTIONS,
+                "Invalid numHashFunctions of ExcludedKeysFilter: " + proto.getNumHashFunctions());
+        return new ExcludedKeysFilter(proto.getBits().toByteArray(), proto.getNumHashFunctions(), proto.getTweak());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public boolean mightContain(byte[] key) {
+        long numBits = bits.length * 8L;
+        long[] hashes = getHashes(key);
+        for (int i = 0; i < numHashFunctions; i++) {
+            int index = (int) Long.remainderUnsigned(hashes[0] + i * hashes[1], numBits);
+            if ((bits[index >>> 3] & (1 << (index & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getNumBytes() {
+        return bits.length;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void put(byte[] key) {
+        long numBits = bits.length * 8L;
+        long[] hashes = getHashes(key);
+        for (int i = 0; i < numHashFunctions; i++) {
+            int index = (int) Long.remainderUnsigned(hashes[0] + i * hashes[1], numBits);
+            bits[index >>> 3] |= (1 << (index & 7));
+        }
+    }
+
+    // The keys are hashes already, so we only mix them with the tweak and derive the indices by double hashing.
+    private long[] getHashes(byte[] key) {
+        byte[] hash = key.length >= 16 ? key : Hash.getSha256Hash(key);
+        ByteBuffer byteBuffer = ByteBuffer.wrap(hash);
+        long h1 = mix(byteBuffer.getLong(0) ^ tweak);
+        // h2 must be odd to not repeat indices in case numBits is a power of 2
+        long h2 = mix(byteBuffer.getLong(8) + tweak) | 1;
+        return new long[]{h1, h2};
+    }
+
+    // Finalizer of MurmurHash3
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -44,13 +44,27 @@ public abstract class GetDataRequest extends NetworkEnvelope implements Extended
     @Nullable
     protected final String version;
 
+    // Added at v1.7.6
+    // Bloom filter of the keys the requester has already. Sent instead of excludedKeys to peers supporting
+    // Capability.EXCLUDED_KEYS_FILTER.
+    @Nullable
+    protected final ExcludedKeysFilter excludedKeysFilter;
+
     public GetDataRequest(int messageVersion,
                           int nonce,
                           Set<byte[]> excludedKeys,
-                          @Nullable String version) {
+                          @Nullable String version,
+                          @Nullable ExcludedKeysFilter excludedKeysFilter) {
         super(messageVersion);
         this.nonce = nonce;
         this.excludedKeys = excludedKeys;
         this.version = version;
+        this.excludedKeysFilter = excludedKeysFilter;
+    }
+
+    protected String getExcludedKeysInfo() {
+        return excludedKeysFilter != null ?
+                "an excluded keys filter of " + excludedKeysFilter.getNumBytes() / 1000d + " kB" :
+                excludedKeys.size() + " excluded key entries";
     }
 }
@@ -56,6 +56,12 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
     private final boolean isGetUpdatedDataResponse;
     private final Capabilities supportedCapabilities;
 
+    // Added at v1.7.6
+    // If the requester supports Capability.CHUNKED_GET_DATA_RESPONSE the response is split into several messages
+    // of bounded size. All chunks carry the requestNonce. Old responses are a single chunk with index 0.
+    private final int chunkIndex;
+    private final boolean moreChunksFollow;
+
     public GetDataResponse(@NotNull Set<ProtectedStorageEntry> dataSet,
                            @NotNull Set<PersistableNetworkPayload> persistableNetworkPayloadSet,
                            int requestNonce,
@@ -64,6 +70,22 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
                 persistableNetworkPayloadSet,
                 requestNonce,
                 isGetUpdatedDataResponse,
+                0,
+                false);
+    }
+
+    public GetDataResponse(@NotNull Set<ProtectedStorageEntry> dataSet,
+                           @NotNull Set<PersistableNetworkPayload> persistableNetworkPayloadSet,
+                           int requestNonce,
+                           boolean isGetUpdatedDataResponse,
+                           int chunkIndex,
+                           boolean moreChunksFollow) {
+        this(dataSet,
+                persistableNetworkPayloadSet,
+                requestNonce,
+                isGetUpdatedDataResponse,
+                chunkIndex,
+                moreChunksFollow,
                 Capabilities.app,
                 Version.getP2PMessageVersion());
     }
@@ -76,6 +98,8 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
                             @NotNull Set<PersistableNetworkPayload> persistableNetworkPayloadSet,
                             int requestNonce,
                             boolean isGetUpdatedDataResponse,
+                            int chunkIndex,
+                            boolean moreChunksFollow,
                             @NotNull Capabilities supportedCapabilities,
                             int messageVersion) {
         super(messageVersion);
@@ -84,6 +108,8 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
         this.persistableNetworkPayloadSet = persistableNetworkPayloadSet;
         this.requestNonce = requestNonce;
         this.isGetUpdatedDataResponse = isGetUpdatedDataResponse;
+        this.chunkIndex = chunkIndex;
+        this.moreChunksFollow = moreChunksFollow;
         this.supportedCapabilities = supportedCapabilities;
     }
 
@@ -105,19 +131,23 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
                         .collect(Collectors.toList()))
                 .setRequestNonce(requestNonce)
                 .setIsGetUpdatedDataResponse(isGetUpdatedDataResponse)
+                .setChunkIndex(chunkIndex)
+                .setMoreChunksFollow(moreChunksFollow)
                 .addAllSupportedCapabilities(Capabilities.toIntList(supportedCapabilities));
 
         protobuf.NetworkEnvelope proto = getNetworkEnvelopeBuilder()
                 .setGetDataResponse(builder)
                 .build();
-        log.info("Sending a GetDataResponse with {}", Utilities.readableFileSize(proto.getSerializedSize()));
+        log.info("Sending a GetDataResponse with {}. chunkIndex={}, moreChunksFollow={}",
+                Utilities.readableFileSize(proto.getSerializedSize()), chunkIndex, moreChunksFollow);
         return proto;
     }
 
     public static GetDataResponse fromProto(protobuf.GetDataResponse proto,
                                             NetworkProtoResolver resolver,
                                             int messageVersion) {
-        log.info("Received a GetDataResponse with {}", Utilities.readableFileSize(proto.getSerializedSize()));
+        log.info("Received a GetDataResponse with {}. chunkIndex={}, moreChunksFollow={}",
+                Utilities.readableFileSize(proto.getSerializedSize()), proto.getChunkIndex(), proto.getMoreChunksFollow());
         Set<ProtectedStorageEntry> dataSet = proto.getDataSetList().stream()
                 .map(entry -> (ProtectedStorageEntry) resolver.fromProto(entry)).collect(Collectors.toSet());
         Set<PersistableNetworkPayload> persistableNetworkPayloadSet = proto.getPersistableNetworkPayloadItemsList().stream()
@@ -126,6 +156,8 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
                 persistableNetworkPayloadSet,
                 proto.getRequestNonce(),
                 proto.getIsGetUpdatedDataResponse(),
+                proto.getChunkIndex(),
+                proto.getMoreChunksFollow(),
                 Capabilities.fromIntList(proto.getSupportedCapabilitiesList()),
                 messageVersion);
     }
@@ -134,4 +166,9 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
     public Class<? extends InitialDataRequest> associatedRequest() {
         return isGetUpdatedDataResponse ? GetUpdatedDataRequest.class : PreliminaryGetDataRequest.class;
     }
+
+    @Override
+    public boolean isLastMessageOfResponse() {
+        return !moreChunksFollow;
+    }
 }
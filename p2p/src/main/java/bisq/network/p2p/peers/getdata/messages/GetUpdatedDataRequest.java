@@ -46,9 +46,17 @@ public final class GetUpdatedDataRequest extends GetDataRequest implements Sende
     public GetUpdatedDataRequest(NodeAddress senderNodeAddress,
                                  int nonce,
                                  Set<byte[]> excludedKeys) {
+        this(senderNodeAddress, nonce, excludedKeys, null);
+    }
+
+    public GetUpdatedDataRequest(NodeAddress senderNodeAddress,
+                                 int nonce,
+                                 Set<byte[]> excludedKeys,
+                                 @Nullable ExcludedKeysFilter excludedKeysFilter) {
         this(senderNodeAddress,
                 nonce,
                 excludedKeys,
+                excludedKeysFilter,
                 Version.VERSION,
                 Version.getP2PMessageVersion());
     }
@@ -61,12 +69,14 @@ public final class GetUpdatedDataRequest extends GetDataRequest implements Sende
     private GetUpdatedDataRequest(NodeAddress senderNodeAddress,
                                   int nonce,
                                   Set<byte[]> excludedKeys,
+                                  @Nullable ExcludedKeysFilter excludedKeysFilter,
                                   @Nullable String version,
                                   int messageVersion) {
         super(messageVersion,
                 nonce,
                 excludedKeys,
-                version);
+                version,
+                excludedKeysFilter);
         this.senderNodeAddress = senderNodeAddress;
     }
 
@@ -79,23 +89,29 @@ public final class GetUpdatedDataRequest extends GetDataRequest implements Sende
                         .map(ByteString::copyFrom)
                         .collect(Collectors.toList()));
         Optional.ofNullable(version).ifPresent(builder::setVersion);
+        Optional.ofNullable(excludedKeysFilter).ifPresent(e -> builder.setExcludedKeysFilter(e.toProtoMessage()));
         NetworkEnvelope proto = getNetworkEnvelopeBuilder()
                 .setGetUpdatedDataRequest(builder)
                 .build();
-        log.info("Sending a GetUpdatedDataRequest with {} kB and {} excluded key entries. Requesters version={}",
-                proto.getSerializedSize() / 1000d, excludedKeys.size(), version);
+        log.info("Sending a GetUpdatedDataRequest with {} kB and {}. Requesters version={}",
+                proto.getSerializedSize() / 1000d, getExcludedKeysInfo(), version);
         return proto;
     }
 
     public static GetUpdatedDataRequest fromProto(protobuf.GetUpdatedDataRequest proto, int messageVersion) {
         Set<byte[]> excludedKeys = ProtoUtil.byteSetFromProtoByteStringList(proto.getExcludedKeysList());
+        ExcludedKeysFilter excludedKeysFilter = proto.hasExcludedKeysFilter() ?
+                ExcludedKeysFilter.fromProto(proto.getExcludedKeysFilter()) :
+                null;
         String requestersVersion = ProtoUtil.stringOrNullFromProto(proto.getVersion());
-        log.info("Received a GetUpdatedDataRequest with {} kB and {} excluded key entries. Requesters version={}",
-                proto.getSerializedSize() / 1000d, excludedKeys.size(), requestersVersion);
-        return new GetUpdatedDataRequest(NodeAddress.fromProto(proto.getSenderNodeAddress()),
+        GetUpdatedDataRequest request = new GetUpdatedDataRequest(NodeAddress.fromProto(proto.getSenderNodeAddress()),
                 proto.getNonce(),
                 excludedKeys,
+                excludedKeysFilter,
                 requestersVersion,
                 messageVersion);
+        log.info("Received a GetUpdatedDataRequest with {} kB and {}. Requesters version={}",
+                proto.getSerializedSize() / 1000d, request.getExcludedKeysInfo(), requestersVersion);
+        return request;
     }
 }
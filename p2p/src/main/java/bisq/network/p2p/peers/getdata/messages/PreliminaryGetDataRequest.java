@@ -45,8 +45,15 @@ public final class PreliminaryGetDataRequest extends GetDataRequest implements A
     private final Capabilities supportedCapabilities;
 
     public PreliminaryGetDataRequest(int nonce, Set<byte[]> excludedKeys) {
+        this(nonce, excludedKeys, null);
+    }
+
+    public PreliminaryGetDataRequest(int nonce,
+                                     Set<byte[]> excludedKeys,
+                                     @Nullable ExcludedKeysFilter excludedKeysFilter) {
         this(nonce,
                 excludedKeys,
+                excludedKeysFilter,
                 Version.VERSION,
                 Capabilities.app,
                 Version.getP2PMessageVersion());
@@ -59,10 +66,11 @@ public final class PreliminaryGetDataRequest extends GetDataRequest implements A
 
     private PreliminaryGetDataRequest(int nonce,
                                       Set<byte[]> excludedKeys,
+                                      @Nullable ExcludedKeysFilter excludedKeysFilter,
                                       @Nullable String version,
                                       Capabilities supportedCapabilities,
                                       int messageVersion) {
-        super(messageVersion, nonce, excludedKeys, version);
+        super(messageVersion, nonce, excludedKeys, version, excludedKeysFilter);
 
         this.supportedCapabilities = supportedCapabilities;
     }
@@ -76,23 +84,29 @@ public final class PreliminaryGetDataRequest extends GetDataRequest implements A
                         .map(ByteString::copyFrom)
                         .collect(Collectors.toList()));
         Optional.ofNullable(version).ifPresent(builder::setVersion);
+        Optional.ofNullable(excludedKeysFilter).ifPresent(e -> builder.setExcludedKeysFilter(e.toProtoMessage()));
         NetworkEnvelope proto = getNetworkEnvelopeBuilder()
                 .setPreliminaryGetDataRequest(builder)
                 .build();
-        log.info("Sending a PreliminaryGetDataRequest with {} kB and {} excluded key entries. Requesters version={}",
-                proto.getSerializedSize() / 1000d, excludedKeys.size(), version);
+        log.info("Sending a PreliminaryGetDataRequest with {} kB and {}. Requesters version={}",
+                proto.getSerializedSize() / 1000d, getExcludedKeysInfo(), version);
         return proto;
     }
 
     public static PreliminaryGetDataRequest fromProto(protobuf.PreliminaryGetDataRequest proto, int messageVersion) {
         Set<byte[]> excludedKeys = ProtoUtil.byteSetFromProtoByteStringList(proto.getExcludedKeysList());
+        ExcludedKeysFilter excludedKeysFilter = proto.hasExcludedKeysFilter() ?
+                ExcludedKeysFilter.fromProto(proto.getExcludedKeysFilter()) :
+                null;
         String requestersVersion = ProtoUtil.stringOrNullFromProto(proto.getVersion());
-        log.info("Received a PreliminaryGetDataRequest with {} kB and {} excluded key entries. Requesters version={}",
-                proto.getSerializedSize() / 1000d, excludedKeys.size(), requestersVersion);
-        return new PreliminaryGetDataRequest(proto.getNonce(),
+        PreliminaryGetDataRequest request = new PreliminaryGetDataRequest(proto.getNonce(),
                 excludedKeys,
+                excludedKeysFilter,
                 requestersVersion,
                 Capabilities.fromIntList(proto.getSupportedCapabilitiesList()),
                 messageVersion);
+        log.info("Received a PreliminaryGetDataRequest with {} kB and {}. Requesters version={}",
+                proto.getSerializedSize() / 1000d, request.getExcludedKeysInfo(), requestersVersion);
+        return request;
     }
 }
@@ -0,0 +1,376 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Open addressing hash map for keys which are cryptographic hashes of a fixed length (e.g. the 20 byte hashes of
+ * AccountAgeWitness or SignedWitness). The keys are stored in a flat long[] instead of a ByteArray and a byte[]
+ * object per entry, and we do not need a node object per entry as HashMap does. That saves about half of the memory
+ * of a HashMap with large maps.
+ * <p>
+ * As the keys are hashes already we use their first 8 bytes as hash code. Keys of another length are supported but
+ * are kept in a regular HashMap. Null values are not supported. Not thread safe.
+ */
+public final class HashKeyedMap<V> extends AbstractMap<P2PDataStorage.ByteArray, V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float MAX_LOAD_FACTOR = 0.7f;
+
+    private final int keyLength;
+    private final int longsPerKey;
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    // Keys with another length than keyLength
+    private final Map<P2PDataStorage.ByteArray, V> otherKeys = new HashMap<>();
+    private final Set<Entry<P2PDataStorage.ByteArray, V>> entrySet = new EntrySet();
+
+    public HashKeyedMap(int keyLength) {
+        this(keyLength, DEFAULT_CAPACITY);
+    }
+
+    public HashKeyedMap(int keyLength, int expectedSize) {
+        checkArgument(keyLength >= 8, "keyLength must be at least 8");
+        this.keyLength = keyLength;
+        this.longsPerKey = (keyLength + 7) / 8;
+        allocate(tableSizeFor(expectedSize));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Map
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public int size() {
+        return size + otherKeys.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof P2PDataStorage.ByteArray)) {
+            return null;
+        }
+        byte[] bytes = ((P2PDataStorage.ByteArray) key).bytes;
+        if (bytes.length != keyLength) {
+            return otherKeys.get(key);
+        }
+        int slot = findSlot(bytes);
+        return (V) values[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V put(P2PDataStorage.ByteArray key, V value) {
+        requireNonNull(value, "Null values are not supported");
+        if (key.bytes.length != keyLength) {
+            return otherKeys.put(key, value);
+        }
+        int slot = findSlot(key.bytes);
+        V previous = (V) values[slot];
+        if (previous == null) {
+            writeKey(slot, key.bytes);
+            size++;
+        }
+        values[slot] = value;
+        if (previous == null && size > values.length * MAX_LOAD_FACTOR) {
+            resize(values.length * 2);
+        }
+        return previous;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(Object key) {
+        if (!(key instanceof P2PDataStorage.ByteArray)) {
+            return null;
+        }
+        byte[] bytes = ((P2PDataStorage.ByteArray) key).bytes;
+        if (bytes.length != keyLength) {
+            return otherKeys.remove(key);
+        }
+        int slot = findSlot(bytes);
+        V previous = (V) values[slot];
+        if (previous != null) {
+            removeSlot(slot);
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        allocate(DEFAULT_CAPACITY);
+        otherKeys.clear();
+    }
+
+    @Override
+    public Set<Entry<P2PDataStorage.ByteArray, V>> entrySet() {
+        return entrySet;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void allocate(int capacity) {
+        keys = new long[capacity * longsPerKey];
+        values = new Object[capacity];
+        size = 0;
+    }
+
+    // Returns the slot of the key or the empty slot where it would get inserted
+    private int findSlot(byte[] key) {
+        int mask = values.length - 1;
+        int slot = slotOf(key, mask);
+        while (values[slot] != null && !keyEquals(slot, key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int slotOf(byte[] key, int mask) {
+        return (int) mix(getLong(key, 0)) & mask;
+    }
+
+    private int slotOfStoredKey(int slot, int mask) {
+        return (int) mix(keys[slot * longsPerKey]) & mask;
+    }
+
+    private boolean keyEquals(int slot, byte[] key) {
+        int base = slot * longsPerKey;
+        for (int i = 0; i < longsPerKey; i++) {
+            if (keys[base + i] != getLong(key, i * 8)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeKey(int slot, byte[] key) {
+        int base = slot * longsPerKey;
+        for (int i = 0; i < longsPerKey; i++) {
+            keys[base + i] = getLong(key, i * 8);
+        }
+    }
+
+    private P2PDataStorage.ByteArray readKey(int slot) {
+        int base = slot * longsPerKey;
+        byte[] key = new byte[keyLength];
+        for (int i = 0; i < keyLength; i++) {
+            key[i] = (byte) (keys[base + i / 8] >>> (56 - (i % 8) * 8));
+        }
+        return new P2PDataStorage.ByteArray(key);
+    }
+
+    // Big endian, padded with zeros at the end of the key
+    private long getLong(byte[] key, int offset) {
+        long result = 0;
+        for (int i = 0; i < 8; i++) {
+            int index = offset + i;
+            result = (result << 8) | (index < key.length ? key[index] & 0xff : 0);
+        }
+        return result;
+    }
+
+    private void removeSlot(int slot) {
+        removeSlot(slot, (from, to) -> {
+        });
+    }
+
+    // Backward shift deletion, so we do not need tombstones. The listener gets notified about each entry which gets
+    // moved to another slot.
+    private void removeSlot(int slot, SlotMoveListener listener) {
+        int mask = values.length - 1;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (values[next] != null) {
+            int home = slotOfStoredKey(next, mask);
+            // We move the entry into the hole if its home slot is not between the hole and its current slot
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                System.arraycopy(keys, next * longsPerKey, keys, hole * longsPerKey, longsPerKey);
+                values[hole] = values[next];
+                listener.onMoved(next, hole);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[hole] = null;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldSize = size;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int oldSlot = 0; oldSlot < oldValues.length; oldSlot++) {
+            if (oldValues[oldSlot] != null) {
+                int slot = (int) mix(oldKeys[oldSlot * longsPerKey]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                System.arraycopy(oldKeys, oldSlot * longsPerKey, keys, slot * longsPerKey, longsPerKey);
+                values[slot] = oldValues[oldSlot];
+            }
+        }
+        size = oldSize;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * MAX_LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // Finalizer of MurmurHash3. The keys are hashes already, but we mix to be safe against keys with a common prefix.
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private interface SlotMoveListener {
+        void onMoved(int from, int to);
+    }
+
+    // Iterates over the slots from the end to the start, so removing an entry only moves entries which were iterated
+    // already into its slot. Only entries which wrap around from the start of the table to a slot we passed already
+    // would be missed, those are collected and returned after the slots, as it is done by fastutil.
+    private final class EntryIterator implements Iterator<Entry<P2PDataStorage.ByteArray, V>> {
+        private final long[] iteratedKeys = keys;
+        private final Iterator<Entry<P2PDataStorage.ByteArray, V>> otherKeysIterator = otherKeys.entrySet().iterator();
+        private final List<Entry<P2PDataStorage.ByteArray, V>> wrappedEntries = new ArrayList<>();
+        // The next slot to look at. Empty slots are skipped lazily, as removing an entry can empty a slot below it.
+        private int slot = values.length - 1;
+        private int wrappedIndex;
+        // The slot of the entry returned last, -1 if it was not returned from a slot
+        private int lastSlot = -1;
+        @Nullable
+        private Entry<P2PDataStorage.ByteArray, V> lastWrappedEntry;
+        private boolean canRemove;
+        private boolean isLastFromOtherKeys;
+
+        @Override
+        public boolean hasNext() {
+            slot = previousSlot(slot);
+            return slot >= 0 || wrappedIndex < wrappedEntries.size() || otherKeysIterator.hasNext();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Entry<P2PDataStorage.ByteArray, V> next() {
+            if (iteratedKeys != keys) {
+                throw new ConcurrentModificationException();
+            }
+            lastSlot = -1;
+            lastWrappedEntry = null;
+            isLastFromOtherKeys = false;
+            slot = previousSlot(slot);
+            if (slot >= 0) {
+                Entry<P2PDataStorage.ByteArray, V> entry = new SimpleImmutableEntry<>(readKey(slot), (V) values[slot]);
+                lastSlot = slot;
+                slot--;
+                canRemove = true;
+                return entry;
+            }
+            if (wrappedIndex < wrappedEntries.size()) {
+                lastWrappedEntry = wrappedEntries.get(wrappedIndex++);
+                canRemove = true;
+                return lastWrappedEntry;
+            }
+            Entry<P2PDataStorage.ByteArray, V> entry = otherKeysIterator.next();
+            isLastFromOtherKeys = true;
+            canRemove = true;
+            return entry;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            if (iteratedKeys != keys) {
+                throw new ConcurrentModificationException();
+            }
+            canRemove = false;
+            if (lastSlot >= 0) {
+                int removedSlot = lastSlot;
+                removeSlot(removedSlot, (from, to) -> {
+                    // The slots below removedSlot are not iterated yet, the others are
+                    if (from < removedSlot && to >= removedSlot) {
+                        wrappedEntries.add(new SimpleImmutableEntry<>(readKey(to), (V) values[to]));
+                    }
+                });
+            } else if (lastWrappedEntry != null) {
+                // All slots are iterated already, so we do not care about moved entries
+                HashKeyedMap.this.remove(lastWrappedEntry.getKey());
+            } else if (isLastFromOtherKeys) {
+                otherKeysIterator.remove();
+            }
+        }
+
+        private int previousSlot(int from) {
+            int previous = from;
+            while (previous >= 0 && values[previous] == null) {
+                previous--;
+            }
+            return previous;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<P2PDataStorage.ByteArray, V>> {
+        @Override
+        public Iterator<Entry<P2PDataStorage.ByteArray, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return HashKeyedMap.this.size();
+        }
+    }
+}
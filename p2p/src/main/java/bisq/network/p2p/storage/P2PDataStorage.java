@@ -25,6 +25,7 @@ import bisq.network.p2p.network.MessageListener;
 import bisq.network.p2p.network.NetworkNode;
 import bisq.network.p2p.peers.BroadcastHandler;
 import bisq.network.p2p.peers.Broadcaster;
+import bisq.network.p2p.peers.getdata.messages.ExcludedKeysFilter;
 import bisq.network.p2p.peers.getdata.messages.GetDataRequest;
 import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
 import bisq.network.p2p.peers.getdata.messages.GetUpdatedDataRequest;
@@ -61,6 +62,7 @@ import bisq.common.app.Capabilities;
 import bisq.common.crypto.CryptoException;
 import bisq.common.crypto.Hash;
 import bisq.common.crypto.Sig;
+import bisq.common.handlers.ResultHandler;
 import bisq.common.persistence.PersistenceManager;
 import bisq.common.proto.network.NetworkEnvelope;
 import bisq.common.proto.network.NetworkPayload;
@@ -78,6 +80,11 @@ import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.fxmisc.easybind.EasyBind;
 import org.fxmisc.easybind.monadic.MonadicBinding;
@@ -103,8 +110,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -113,8 +122,11 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
+import org.jetbrains.annotations.NotNull;
+
 import javax.annotation.Nullable;
 
 @Slf4j
@@ -129,6 +141,9 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     public static final int CHECK_TTL_INTERVAL_SEC = 60;
 
     private boolean initialRequestApplied = false;
+    // The peer whose (possibly chunked) GetDataResponse is applied as initial request
+    @Nullable
+    private NodeAddress initialRequestSender;
 
     private final Broadcaster broadcaster;
     @VisibleForTesting
@@ -160,6 +175,15 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     @Setter
     private Predicate<ProtectedStoragePayload> filterPredicate; //Set from FilterManager
 
+    // Used for building the GetDataResponses. Gets created at the first request and updated when we add new
+    // PersistableNetworkPayloads.
+    @Nullable
+    private PersistableNetworkPayloadIndex persistableNetworkPayloadIndex;
+
+    // Used for verifying the ProtectedStorageEntries of GetDataResponses in parallel. Gets created at the first response.
+    @Nullable
+    private ListeningExecutorService verificationExecutor;
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -265,14 +289,47 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      * Returns a PreliminaryGetDataRequest that can be sent to a peer node to request missing Payload data.
      */
     public PreliminaryGetDataRequest buildPreliminaryGetDataRequest(int nonce) {
-        return new PreliminaryGetDataRequest(nonce, getKnownPayloadHashes());
+        return buildPreliminaryGetDataRequest(nonce, false);
+    }
+
+    /**
+     * Returns a PreliminaryGetDataRequest that can be sent to a peer node to request missing Payload data. If
+     * useExcludedKeysFilter is set the known payload hashes are sent as ExcludedKeysFilter, which requires that the
+     * peer supports Capability.EXCLUDED_KEYS_FILTER.
+     */
+    public PreliminaryGetDataRequest buildPreliminaryGetDataRequest(int nonce, boolean useExcludedKeysFilter) {
+        if (useExcludedKeysFilter) {
+            Tuple2<Set<byte[]>, ExcludedKeysFilter> knownPayloadHashes = getKnownPayloadHashesAsFilter();
+            return new PreliminaryGetDataRequest(nonce, knownPayloadHashes.first, knownPayloadHashes.second);
+        } else {
+            return new PreliminaryGetDataRequest(nonce, getKnownPayloadHashes());
+        }
     }
 
     /**
      * Returns a GetUpdatedDataRequest that can be sent to a peer node to request missing Payload data.
      */
     public GetUpdatedDataRequest buildGetUpdatedDataRequest(NodeAddress senderNodeAddress, int nonce) {
-        return new GetUpdatedDataRequest(senderNodeAddress, nonce, getKnownPayloadHashes());
+        return buildGetUpdatedDataRequest(senderNodeAddress, nonce, false);
+    }
+
+    /**
+     * Returns a GetUpdatedDataRequest that can be sent to a peer node to request missing Payload data. If
+     * useExcludedKeysFilter is set the known payload hashes are sent as ExcludedKeysFilter, which requires that the
+     * peer supports Capability.EXCLUDED_KEYS_FILTER.
+     */
+    public GetUpdatedDataRequest buildGetUpdatedDataRequest(NodeAddress senderNodeAddress,
+                                                            int nonce,
+                                                            boolean useExcludedKeysFilter) {
+        if (useExcludedKeysFilter) {
+            Tuple2<Set<byte[]>, ExcludedKeysFilter> knownPayloadHashes = getKnownPayloadHashesAsFilter();
+            return new GetUpdatedDataRequest(senderNodeAddress,
+                    nonce,
+                    knownPayloadHashes.first,
+                    knownPayloadHashes.second);
+        } else {
+            return new GetUpdatedDataRequest(senderNodeAddress, nonce, getKnownPayloadHashes());
+        }
     }
 
     /**
@@ -299,6 +356,24 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         return excludedKeys;
     }
 
+    /**
+     * Returns the known payload hashes as ExcludedKeysFilter, except for the hashes of mailbox entries which are
+     * returned as exact keys. Mailbox entries are not republished by their senders, so a false positive of the
+     * filter would make the receiver miss the message.
+     */
+    private Tuple2<Set<byte[]>, ExcludedKeysFilter> getKnownPayloadHashesAsFilter() {
+        List<byte[]> filteredKeys = new ArrayList<>(getKeysAsByteSet(getMapForDataRequest()));
+        Set<byte[]> exactKeys = new HashSet<>();
+        map.forEach((hash, protectedStorageEntry) -> {
+            if (protectedStorageEntry instanceof ProtectedMailboxStorageEntry) {
+                exactKeys.add(hash.bytes);
+            } else {
+                filteredKeys.add(hash.bytes);
+            }
+        });
+        return new Tuple2<>(exactKeys, ExcludedKeysFilter.fromKeys(filteredKeys));
+    }
+
     /**
      * Returns a GetDataResponse object that contains the Payloads known locally, but not remotely.
      */
@@ -311,23 +386,32 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
         Set<P2PDataStorage.ByteArray> excludedKeysAsByteArray =
                 P2PDataStorage.ByteArray.convertBytesSetToByteArraySet(getDataRequest.getExcludedKeys());
+        ExcludedKeysFilter excludedKeysFilter = getDataRequest.getExcludedKeysFilter();
+        Predicate<ByteArray> isKnown = excludedKeysFilter == null ?
+                excludedKeysAsByteArray::contains :
+                hash -> excludedKeysAsByteArray.contains(hash) || excludedKeysFilter.mightContain(hash.bytes);
+        // The filter is not applied to mailbox entries, as a false positive would lose the message. The requester
+        // sends their hashes as exact keys.
+        Predicate<ByteArray> isKnownProtectedStorageEntry = excludedKeysFilter == null ?
+                excludedKeysAsByteArray::contains :
+                hash -> excludedKeysAsByteArray.contains(hash) ||
+                        (!(map.get(hash) instanceof ProtectedMailboxStorageEntry) &&
+                                excludedKeysFilter.mightContain(hash.bytes));
+        log.info("Num knownHashes {}, size of excludedKeysFilter {} bytes", excludedKeysAsByteArray.size(),
+                excludedKeysFilter != null ? excludedKeysFilter.getNumBytes() : 0);
 
         // Pre v 1.4.0 requests do not have set the requesters version field so it is null.
-        // The methods in HistoricalDataStoreService will return all historical data in that case.
-        // mapForDataResponse contains the filtered by version data from HistoricalDataStoreService as well as all other
-        // maps of the remaining appendOnlyDataStoreServices.
-        Map<ByteArray, PersistableNetworkPayload> mapForDataResponse = getMapForDataResponse(getDataRequest.getVersion());
-        Set<PersistableNetworkPayload> filteredPersistableNetworkPayloads =
-                filterKnownHashes(
-                        mapForDataResponse,
-                        Function.identity(),
-                        excludedKeysAsByteArray,
+        // The index will return all historical data in that case.
+        // We use the index instead of getMapForDataResponse to avoid copying all the maps at each request.
+        Set<PersistableNetworkPayload> filteredPersistableNetworkPayloads = new HashSet<>(
+                getPersistableNetworkPayloadIndex().getPayloadsForDataResponse(
+                        getDataRequest.getVersion(),
+                        isKnown,
                         peerCapabilities,
                         maxEntriesPerType,
-                        wasPersistableNetworkPayloadsTruncated);
-        log.info("{} PersistableNetworkPayload entries remained after filtered by excluded keys. " +
-                        "Original map had {} entries.",
-                filteredPersistableNetworkPayloads.size(), mapForDataResponse.size());
+                        wasPersistableNetworkPayloadsTruncated));
+        log.info("{} PersistableNetworkPayload entries remained after filtered by excluded keys.",
+                filteredPersistableNetworkPayloads.size());
         log.trace("## buildGetDataResponse filteredPersistableNetworkPayloadHashes={}",
                 filteredPersistableNetworkPayloads.stream()
                         .map(e -> Utilities.encodeToHex(e.getHash()))
@@ -337,7 +421,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                 filterKnownHashes(
                         map,
                         ProtectedStorageEntry::getProtectedStoragePayload,
-                        excludedKeysAsByteArray,
+                        isKnownProtectedStorageEntry,
                         peerCapabilities,
                         maxEntriesPerType,
                         wasProtectedStorageEntriesTruncated);
@@ -399,24 +483,44 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         return map;
     }
 
+    private PersistableNetworkPayloadIndex getPersistableNetworkPayloadIndex() {
+        if (persistableNetworkPayloadIndex == null) {
+            persistableNetworkPayloadIndex = new PersistableNetworkPayloadIndex();
+            persistableNetworkPayloadIndex.rebuild(appendOnlyDataStoreService);
+        } else {
+            // In case some data got added to the stores without passing our add methods (e.g. at the conversion of
+            // trade statistics) we rebuild the index.
+            int numLiveEntriesInStores = appendOnlyDataStoreService.getServices().stream()
+                    .mapToInt(service -> service instanceof HistoricalDataStoreService ?
+                            ((HistoricalDataStoreService<?>) service).getMapOfLiveData().size() :
+                            service.getMap().size())
+                    .sum();
+            if (numLiveEntriesInStores != persistableNetworkPayloadIndex.getNumLiveEntries()) {
+                log.info("Our PersistableNetworkPayloadIndex is not in sync with the stores. We rebuild it. " +
+                                "numLiveEntriesInStores={}, numLiveEntriesInIndex={}",
+                        numLiveEntriesInStores, persistableNetworkPayloadIndex.getNumLiveEntries());
+                persistableNetworkPayloadIndex.rebuild(appendOnlyDataStoreService);
+            }
+        }
+        return persistableNetworkPayloadIndex;
+    }
+
     /**
      * Generic function that can be used to filter a Map<ByteArray, ProtectedStorageEntry || PersistableNetworkPayload>
-     * by a given set of keys and peer capabilities.
+     * by a given predicate for known keys and peer capabilities.
      */
     static private <T extends NetworkPayload> Set<T> filterKnownHashes(
             Map<ByteArray, T> toFilter,
             Function<T, ? extends NetworkPayload> objToPayload,
-            Set<ByteArray> knownHashes,
+            Predicate<ByteArray> isKnown,
             Capabilities peerCapabilities,
             int maxEntries,
             AtomicBoolean outTruncated) {
 
-        log.info("Num knownHashes {}", knownHashes.size());
-
         Set<Map.Entry<ByteArray, T>> entries = toFilter.entrySet();
         List<T> dateSortedTruncatablePayloads = entries.stream()
                 .filter(entry -> entry.getValue() instanceof DateSortedTruncatablePayload)
-                .filter(entry -> !knownHashes.contains(entry.getKey()))
+                .filter(entry -> !isKnown.test(entry.getKey()))
                 .map(Map.Entry::getValue)
                 .filter(payload -> shouldTransmitPayloadToPeer(peerCapabilities, objToPayload.apply(payload)))
                 .sorted(Comparator.comparing(payload -> ((DateSortedTruncatablePayload) payload).getDate()))
@@ -434,7 +538,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
         List<T> filteredResults = entries.stream()
                 .filter(entry -> !(entry.getValue() instanceof DateSortedTruncatablePayload))
-                .filter(entry -> !knownHashes.contains(entry.getKey()))
+                .filter(entry -> !isKnown.test(entry.getKey()))
                 .map(Map.Entry::getValue)
                 .filter(payload -> shouldTransmitPayloadToPeer(peerCapabilities, objToPayload.apply(payload)))
                 .collect(Collectors.toList());
@@ -491,18 +595,114 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      * or domain listeners.
      */
     public void processGetDataResponse(GetDataResponse getDataResponse, NodeAddress sender) {
-        final Set<ProtectedStorageEntry> dataSet = getDataResponse.getDataSet();
-        Set<PersistableNetworkPayload> persistableNetworkPayloadSet = getDataResponse.getPersistableNetworkPayloadSet();
+        long ts = this.clock.millis();
+        List<VerifiedProtectedStorageEntry> verifiedEntries = verifyProtectedStorageEntries(getDataResponse.getDataSet());
+        log.info("Verifying {} protectedStorageEntries took {} ms.", verifiedEntries.size(), this.clock.millis() - ts);
+        applyGetDataResponse(getDataResponse, verifiedEntries, sender);
+    }
+
+    /**
+     * Same as processGetDataResponse but the signatures of the ProtectedStorageEntries are verified in parallel on
+     * a worker pool. Only the state dependent checks and the changes of the maps are done on the user thread, which
+     * is where the resultHandler gets called when the data is applied.
+     */
+    public void processGetDataResponseAsync(GetDataResponse getDataResponse,
+                                            NodeAddress sender,
+                                            ResultHandler resultHandler) {
+        long ts = this.clock.millis();
+        List<ProtectedStorageEntry> entries = new ArrayList<>(getDataResponse.getDataSet());
+        ListeningExecutorService executor = getVerificationExecutor();
+        int numThreads = getNumVerificationThreads();
+        int chunkSize = Math.max(1, (entries.size() + numThreads - 1) / numThreads);
+        List<ListenableFuture<List<VerifiedProtectedStorageEntry>>> futures = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i += chunkSize) {
+            List<ProtectedStorageEntry> chunk = entries.subList(i, Math.min(i + chunkSize, entries.size()));
+            futures.add(executor.submit(() -> verifyProtectedStorageEntries(chunk)));
+        }
+
+        //noinspection UnstableApiUsage
+        Futures.addCallback(Futures.allAsList(futures), new FutureCallback<>() {
+            @Override
+            public void onSuccess(List<List<VerifiedProtectedStorageEntry>> result) {
+                UserThread.execute(() -> {
+                    List<VerifiedProtectedStorageEntry> verifiedEntries = result.stream()
+                            .flatMap(List::stream)
+                            .collect(Collectors.toList());
+                    log.info("Verifying {} protectedStorageEntries with {} threads took {} ms.",
+                            verifiedEntries.size(), numThreads, clock.millis() - ts);
+                    applyGetDataResponse(getDataResponse, verifiedEntries, sender);
+                    resultHandler.handleResult();
+                });
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable throwable) {
+                log.error("Verifying the protectedStorageEntries failed. We process the GetDataResponse on the " +
+                        "user thread.", throwable);
+                UserThread.execute(() -> {
+                    processGetDataResponse(getDataResponse, sender);
+                    resultHandler.handleResult();
+                });
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Called if the GetDataResponse of a peer did not get completed, e.g. because a chunk timed out. If it was the
+     * initial request the next responding peer provides the ProcessOncePersistableNetworkPayloads.
+     */
+    public void onGetDataResponseAborted(NodeAddress sender) {
+        if (!initialRequestApplied && sender.equals(initialRequestSender)) {
+            log.info("The initial GetDataResponse from {} got aborted. We apply the next response as initial " +
+                    "request.", sender);
+            initialRequestSender = null;
+        }
+    }
+
+    // Does the state independent and expensive parts of the add operation (hashing and signature verification).
+    // Can be called from any thread.
+    private static List<VerifiedProtectedStorageEntry> verifyProtectedStorageEntries(
+            Collection<ProtectedStorageEntry> entries) {
+        return entries.stream()
+                .map(entry -> new VerifiedProtectedStorageEntry(entry,
+                        get32ByteHashAsByteArray(entry.getProtectedStoragePayload()),
+                        entry.isValidForAddOperation()))
+                .collect(Collectors.toList());
+    }
 
-        long ts2 = System.currentTimeMillis();
-        dataSet.forEach(e -> {
-            // We don't broadcast here (last param) as we are only connected to the seed node and would be pointless
-            addProtectedStorageEntry(e, sender, null, false);
+    private void applyGetDataResponse(GetDataResponse getDataResponse,
+                                      List<VerifiedProtectedStorageEntry> verifiedEntries,
+                                      NodeAddress sender) {
+        Set<PersistableNetworkPayload> persistableNetworkPayloadSet = getDataResponse.getPersistableNetworkPayloadSet();
 
+        long ts2 = this.clock.millis();
+        List<ProtectedStorageEntry> addedEntries = new ArrayList<>();
+        verifiedEntries.forEach(e -> {
+            // We don't broadcast here (last param) as we are only connected to the seed node and would be pointless.
+            // We notify the listeners once with all added entries.
+            if (addProtectedStorageEntry(e.getProtectedStorageEntry(),
+                    e.getHashOfPayload(),
+                    e::isValidForAddOperation,
+                    sender,
+                    null,
+                    false,
+                    false)) {
+                addedEntries.add(e.getProtectedStorageEntry());
+            }
         });
-        log.info("Processing {} protectedStorageEntries took {} ms.", dataSet.size(), this.clock.millis() - ts2);
+        if (!addedEntries.isEmpty()) {
+            hashMapChangedListeners.forEach(e -> e.onAdded(addedEntries));
+        }
+        log.info("Processing {} protectedStorageEntries took {} ms.", verifiedEntries.size(), this.clock.millis() - ts2);
 
         ts2 = this.clock.millis();
+        // We apply all chunks of the response of the first peer. Chunks of other peers arriving in between are
+        // treated like later responses.
+        boolean isInitialRequest = !initialRequestApplied &&
+                (initialRequestSender == null || initialRequestSender.equals(sender));
+        if (isInitialRequest) {
+            initialRequestSender = sender;
+        }
         persistableNetworkPayloadSet.forEach(e -> {
             if (e instanceof ProcessOncePersistableNetworkPayload) {
                 // We use an optimized method as many checks are not required in that case to avoid
@@ -512,7 +712,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                 // trade stats stats and all account age witness data.
 
                 // We only apply it once from first response
-                if (!initialRequestApplied) {
+                if (isInitialRequest) {
                     addPersistableNetworkPayloadFromInitialRequest(e);
 
                 }
@@ -527,7 +727,23 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         // We only process PersistableNetworkPayloads implementing ProcessOncePersistableNetworkPayload once. It can cause performance
         // issues and since the data is rarely out of sync it is not worth it to apply them from multiple peers during
         // startup.
-        initialRequestApplied = true;
+        if (isInitialRequest && !getDataResponse.isMoreChunksFollow()) {
+            initialRequestApplied = true;
+        }
+    }
+
+    private ListeningExecutorService getVerificationExecutor() {
+        if (verificationExecutor == null) {
+            int numThreads = getNumVerificationThreads();
+            verificationExecutor = Utilities.getListeningExecutorService("P2PDataStorage-verification-%d",
+                    numThreads, numThreads, 60, new LinkedBlockingQueue<>());
+        }
+        return verificationExecutor;
+    }
+
+    // We leave one core for the user thread but use at max 4 threads
+    private static int getNumVerificationThreads() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -537,6 +753,11 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     public void shutDown() {
         if (removeExpiredEntriesTimer != null)
             removeExpiredEntriesTimer.stop();
+
+        if (verificationExecutor != null)
+            verificationExecutor.shutdownNow();
+
+        appendOnlyDataStoreService.shutDown();
     }
 
     @VisibleForTesting
@@ -696,6 +917,9 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         if (!payloadHashAlreadyInStore) {
             wasAdded = appendOnlyDataStoreService.put(hashAsByteArray, payload);
             if (wasAdded) {
+                if (persistableNetworkPayloadIndex != null) {
+                    persistableNetworkPayloadIndex.add(hashAsByteArray, payload);
+                }
                 appendOnlyDataStoreListeners.forEach(e -> e.onAdded(payload));
             }
         }
@@ -716,7 +940,9 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         byte[] hash = payload.getHash();
         if (payload.verifyHashSize()) {
             ByteArray hashAsByteArray = new ByteArray(hash);
-            appendOnlyDataStoreService.put(hashAsByteArray, payload);
+            if (appendOnlyDataStoreService.put(hashAsByteArray, payload) && persistableNetworkPayloadIndex != null) {
+                persistableNetworkPayloadIndex.add(hashAsByteArray, payload);
+            }
         } else {
             log.warn("We got a hash exceeding our permitted size");
         }
@@ -741,8 +967,29 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                                              @Nullable NodeAddress sender,
                                              @Nullable BroadcastHandler.Listener listener,
                                              boolean allowBroadcast) {
+        return addProtectedStorageEntry(protectedStorageEntry,
+                get32ByteHashAsByteArray(protectedStorageEntry.getProtectedStoragePayload()),
+                protectedStorageEntry::isValidForAddOperation,
+                sender,
+                listener,
+                allowBroadcast,
+                true);
+    }
+
+    /**
+     * @param hashOfPayload The hash of the ProtectedStoragePayload, might be pre-computed by the caller
+     * @param isValidForAddOperation Supplies the result of protectedStorageEntry.isValidForAddOperation(), which might
+     *                               have been pre-computed by the caller. It is only called if the cheaper checks passed.
+     * @param notifyListeners If false the caller is responsible for notifying the hashMapChangedListeners
+     */
+    private boolean addProtectedStorageEntry(ProtectedStorageEntry protectedStorageEntry,
+                                             ByteArray hashOfPayload,
+                                             BooleanSupplier isValidForAddOperation,
+                                             @Nullable NodeAddress sender,
+                                             @Nullable BroadcastHandler.Listener listener,
+                                             boolean allowBroadcast,
+                                             boolean notifyListeners) {
         ProtectedStoragePayload protectedStoragePayload = protectedStorageEntry.getProtectedStoragePayload();
-        ByteArray hashOfPayload = get32ByteHashAsByteArray(protectedStoragePayload);
 
         //log.trace("## call addProtectedStorageEntry hash={}, map={}", hashOfPayload, printMap());
 
@@ -778,7 +1025,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         }
 
         // Verify the ProtectedStorageEntry is well formed and valid for the add operation
-        if (!protectedStorageEntry.isValidForAddOperation()) {
+        if (!isValidForAddOperation.getAsBoolean()) {
             log.trace("## !isValidForAddOperation hash={}", hashOfPayload);
             return false;
         }
@@ -798,7 +1045,9 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
         // This is an updated entry. Record it and signal listeners.
         map.put(hashOfPayload, protectedStorageEntry);
-        hashMapChangedListeners.forEach(e -> e.onAdded(Collections.singletonList(protectedStorageEntry)));
+        if (notifyListeners) {
+            hashMapChangedListeners.forEach(e -> e.onAdded(Collections.singletonList(protectedStorageEntry)));
+        }
 
         // Record the updated sequence number and persist it. Higher delay so we can batch more items.
         sequenceNumberMap.put(hashOfPayload, new MapValue(protectedStorageEntry.getSequenceNumber(), this.clock.millis()));
@@ -1190,10 +1439,11 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      * Used as key object in map for cryptographic hash of stored data as byte[] as primitive data type cannot be
      * used as key
      */
-    @EqualsAndHashCode
     public static final class ByteArray implements PersistablePayload {
         // That object is saved to disc. We need to take care of changes to not break deserialization.
         public final byte[] bytes;
+        // ByteArray is used as key in large maps, so we cache the hash code. 0 means not computed yet.
+        private int hashCode;
 
         public ByteArray(byte[] bytes) {
             this.bytes = bytes;
@@ -1208,6 +1458,27 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                 throw new IllegalArgumentException("Cannot create P2PDataStorage.ByteArray with empty byte[] array argument.");
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ByteArray)) {
+                return false;
+            }
+            return Arrays.equals(bytes, ((ByteArray) o).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = hashCode;
+            if (result == 0) {
+                result = Arrays.hashCode(bytes);
+                hashCode = result;
+            }
+            return result;
+        }
+
         @Override
         public String toString() {
             return "ByteArray{" +
@@ -1270,4 +1541,14 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
             return new MapValue(proto.getSequenceNr(), proto.getTimeStamp());
         }
     }
+
+    /**
+     * Result of the state independent checks of a ProtectedStorageEntry from a GetDataResponse.
+     */
+    @Value
+    private static class VerifiedProtectedStorageEntry {
+        ProtectedStorageEntry protectedStorageEntry;
+        ByteArray hashOfPayload;
+        boolean validForAddOperation;
+    }
 }
@@ -0,0 +1,255 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.storage.payload.CapabilityRequiringPayload;
+import bisq.network.p2p.storage.payload.DateSortedTruncatablePayload;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+import bisq.network.p2p.storage.persistence.AppendOnlyDataStoreService;
+import bisq.network.p2p.storage.persistence.HistoricalDataStoreService;
+
+import bisq.common.app.Capabilities;
+import bisq.common.app.Version;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Index over the PersistableNetworkPayloads of all AppendOnlyDataStoreServices used for building GetDataResponses.
+ * <p>
+ * The payloads are bucketed by the version of the historical store they come from (live data and data of non
+ * historical stores use the live bucket) and inside a bucket by the capabilities they require. DateSortedTruncatablePayloads
+ * are kept in a date sorted set. That way a response can be assembled without copying all stores into a new map,
+ * without checking the capabilities of each payload and without sorting the DateSortedTruncatablePayloads at each
+ * request.
+ * <p>
+ * New payloads are added by P2PDataStorage. Not thread safe, it is expected to be used from the user thread.
+ */
+@Slf4j
+class PersistableNetworkPayloadIndex {
+    private static final Comparator<Entry> DATE_COMPARATOR = Comparator
+            .comparing((Entry entry) -> ((DateSortedTruncatablePayload) entry.payload).getDate())
+            .thenComparing(entry -> entry.hash.bytes, PersistableNetworkPayloadIndex::compareBytes);
+
+    private static class Entry {
+        private final P2PDataStorage.ByteArray hash;
+        private final PersistableNetworkPayload payload;
+        // null for live data
+        @Nullable
+        private final String version;
+
+        Entry(P2PDataStorage.ByteArray hash, PersistableNetworkPayload payload, @Nullable String version) {
+            this.hash = hash;
+            this.payload = payload;
+            this.version = version;
+        }
+    }
+
+    private static class Bucket {
+        private final List<Entry> entries = new ArrayList<>();
+        private final Map<Capabilities, List<Entry>> capabilityRequiringEntries = new HashMap<>();
+    }
+
+    private final Bucket liveBucket = new Bucket();
+    private final Map<String, Bucket> historicalBuckets = new LinkedHashMap<>();
+    private final TreeSet<Entry> dateSortedEntries = new TreeSet<>(DATE_COMPARATOR);
+    private int numLiveEntries;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void rebuild(AppendOnlyDataStoreService appendOnlyDataStoreService) {
+        long ts = System.currentTimeMillis();
+        clear();
+
+        // We add first the live data so that in case a payload would be in the live and in a historical store it ends
+        // up in the live bucket and is delivered to all requesters.
+        Set<P2PDataStorage.ByteArray> added = new HashSet<>();
+        appendOnlyDataStoreService.getServices().forEach(service -> {
+            Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> liveMap = service instanceof HistoricalDataStoreService ?
+                    ((HistoricalDataStoreService<?>) service).getMapOfLiveData() :
+                    service.getMap();
+            liveMap.forEach((hash, payload) -> {
+                if (added.add(hash)) {
+                    add(hash, payload, null);
+                }
+            });
+        });
+        appendOnlyDataStoreService.getServices().stream()
+                .filter(service -> service instanceof HistoricalDataStoreService)
+                .map(service -> (HistoricalDataStoreService<?>) service)
+                .forEach(service -> service.getHistoricalMapsByVersion().forEach((version, historicalMap) ->
+                        historicalMap.forEach((hash, payload) -> {
+                            if (added.add(hash)) {
+                                add(hash, payload, version);
+                            }
+                        })));
+
+        log.info("Rebuilding the PersistableNetworkPayloadIndex with {} entries took {} ms",
+                added.size(), System.currentTimeMillis() - ts);
+    }
+
+    void add(P2PDataStorage.ByteArray hash, PersistableNetworkPayload payload) {
+        add(hash, payload, null);
+    }
+
+    int getNumLiveEntries() {
+        return numLiveEntries;
+    }
+
+    /**
+     * @return The payloads which are not known by the requester, are part of the live data or of a historical
+     * store newer than the requesters version and which are supported by the peers capabilities. If the result
+     * would exceed maxEntries it gets truncated and outTruncated is set.
+     * The DateSortedTruncatablePayloads are added after the other payloads and get limited to the most recent
+     * maxItems entries.
+     */
+    List<PersistableNetworkPayload> getPayloadsForDataResponse(@Nullable String requestersVersion,
+                                                               Predicate<P2PDataStorage.ByteArray> isKnown,
+                                                               Capabilities peerCapabilities,
+                                                               int maxEntries,
+                                                               AtomicBoolean outTruncated) {
+        List<Bucket> buckets = new ArrayList<>();
+        buckets.add(liveBucket);
+        Set<String> includedVersions = new HashSet<>();
+        historicalBuckets.forEach((version, bucket) -> {
+            // Old nodes not sending the version will get delivered all data
+            if (requestersVersion == null || Version.isNewVersion(version, requestersVersion)) {
+                buckets.add(bucket);
+                includedVersions.add(version);
+            }
+        });
+
+        List<PersistableNetworkPayload> result = new ArrayList<>();
+        for (Bucket bucket : buckets) {
+            addUnknown(bucket.entries, isKnown, result);
+            bucket.capabilityRequiringEntries.forEach((requiredCapabilities, entries) -> {
+                if (peerCapabilities.containsAll(requiredCapabilities)) {
+                    addUnknown(entries, isKnown, result);
+                }
+            });
+        }
+        log.info("Num filtered non-dateSortedTruncatablePayloads {}", result.size());
+
+        // We iterate from the most recent entry and stop once we have maxItems entries.
+        List<PersistableNetworkPayload> dateSortedTruncatablePayloads = new ArrayList<>();
+        int maxItems = Integer.MAX_VALUE;
+        Iterator<Entry> iterator = dateSortedEntries.descendingIterator();
+        while (iterator.hasNext() && dateSortedTruncatablePayloads.size() < maxItems) {
+            Entry entry = iterator.next();
+            if ((entry.version == null || includedVersions.contains(entry.version)) &&
+                    !isKnown.test(entry.hash) &&
+                    isSupportedByPeer(entry.payload, peerCapabilities)) {
+                if (dateSortedTruncatablePayloads.isEmpty()) {
+                    maxItems = ((DateSortedTruncatablePayload) entry.payload).maxItems();
+                }
+                dateSortedTruncatablePayloads.add(entry.payload);
+            }
+        }
+        Collections.reverse(dateSortedTruncatablePayloads);
+        log.info("Num filtered dateSortedTruncatablePayloads {}", dateSortedTruncatablePayloads.size());
+
+        // The non-dateSortedTruncatablePayloads have higher prio, so we added dateSortedTruncatablePayloads
+        // after those so in case we need to truncate we first truncate the dateSortedTruncatablePayloads.
+        result.addAll(dateSortedTruncatablePayloads);
+        if (result.size() > maxEntries) {
+            outTruncated.set(true);
+            log.info("Num truncated filteredResults {}", maxEntries);
+            return result.subList(0, maxEntries);
+        } else {
+            log.info("Num filteredResults {}", result.size());
+            return result;
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void add(P2PDataStorage.ByteArray hash, PersistableNetworkPayload payload, @Nullable String version) {
+        Entry entry = new Entry(hash, payload, version);
+        if (version == null) {
+            numLiveEntries++;
+        }
+
+        if (payload instanceof DateSortedTruncatablePayload) {
+            dateSortedEntries.add(entry);
+            return;
+        }
+
+        Bucket bucket = version == null ? liveBucket : historicalBuckets.computeIfAbsent(version, v -> new Bucket());
+        if (payload instanceof CapabilityRequiringPayload) {
+            Capabilities requiredCapabilities = ((CapabilityRequiringPayload) payload).getRequiredCapabilities();
+            bucket.capabilityRequiringEntries.computeIfAbsent(requiredCapabilities, c -> new ArrayList<>()).add(entry);
+        } else {
+            bucket.entries.add(entry);
+        }
+    }
+
+    private void clear() {
+        liveBucket.entries.clear();
+        liveBucket.capabilityRequiringEntries.clear();
+        historicalBuckets.clear();
+        dateSortedEntries.clear();
+        numLiveEntries = 0;
+    }
+
+    private static void addUnknown(List<Entry> entries,
+                                   Predicate<P2PDataStorage.ByteArray> isKnown,
+                                   List<PersistableNetworkPayload> result) {
+        for (Entry entry : entries) {
+            if (!isKnown.test(entry.hash)) {
+                result.add(entry.payload);
+            }
+        }
+    }
+
+    private static boolean isSupportedByPeer(PersistableNetworkPayload payload, Capabilities peerCapabilities) {
+        return !(payload instanceof CapabilityRequiringPayload) ||
+                peerCapabilities.containsAll(((CapabilityRequiringPayload) payload).getRequiredCapabilities());
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int diff = Byte.compare(a[i], b[i]);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+}
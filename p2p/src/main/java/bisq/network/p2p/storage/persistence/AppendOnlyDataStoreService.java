@@ -78,6 +78,12 @@ public class AppendOnlyDataStoreService {
         services.forEach(service -> service.readFromResourcesSync(postFix));
     }
 
+    public void shutDown() {
+        services.stream()
+                .filter(service -> service instanceof HistoricalDataStoreService)
+                .forEach(service -> ((HistoricalDataStoreService<?>) service).shutDown());
+    }
+
     public Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> getMap(PersistableNetworkPayload payload) {
         return findService(payload)
                 .map(service -> service instanceof HistoricalDataStoreService ?
@@ -20,6 +20,7 @@ package bisq.network.p2p.storage.persistence;
 import bisq.network.p2p.storage.P2PDataStorage;
 import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 
+import bisq.common.UserThread;
 import bisq.common.app.DevEnv;
 import bisq.common.app.Version;
 import bisq.common.persistence.PersistenceManager;
@@ -27,24 +28,43 @@ import bisq.common.persistence.PersistenceManager;
 import com.google.common.collect.ImmutableMap;
 
 import java.io.File;
+import java.io.IOException;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
 /**
  * Manages historical data stores tagged with the release versions.
  * New data is added to the default map in the store (live data). Historical data is created from resource files.
  * For initial data requests we only use the live data as the users version is sent with the
  * request so the responding (seed)node can figure out if we miss any of the historical data.
+ * The historical stores are converted to MappedPayloadStore files at the first start-up, so later start-ups do not
+ * parse them and the payloads are only decoded when they are accessed.
+ * New live data is appended to a PersistableNetworkPayloadLog instead of rewriting the whole store file. Once the log
+ * got large enough we write the store file and delete the compacted log segments.
  */
 @Slf4j
 public abstract class HistoricalDataStoreService<T extends PersistableNetworkPayloadStore<? extends PersistableNetworkPayload>> extends MapStoreService<T, PersistableNetworkPayload> {
-    private ImmutableMap<String, PersistableNetworkPayloadStore<? extends PersistableNetworkPayload>> storesByVersion;
-    // Cache to avoid that we have to recreate the historical data at each request
-    private ImmutableMap<P2PDataStorage.ByteArray, PersistableNetworkPayload> allHistoricalPayloads;
+    // We compact the log if it contains more records or segments
+    private static final int MAX_LOG_RECORDS = 5000;
+    private static final int MAX_LOG_SEGMENTS = 20;
+    private static final String MAPPED_FILE_POST_FIX = "_mapped";
+
+    // Historical data by version. The maps are views on memory mapped files if available.
+    private ImmutableMap<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> historicalMapsByVersion;
+    // View on all historical maps
+    private Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> allHistoricalPayloads;
+    // Null until the store was read
+    @Nullable
+    private PersistableNetworkPayloadLog payloadLog;
+    private boolean compactionInProgress;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -60,14 +80,13 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
     // API
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    // We give back a map of our live map and all historical maps newer than the requested version.
+    // We give back an unmodifiable view on our live map and all historical maps newer than the requested version.
     // If requestersVersion is null we return all historical data.
     public Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> getMapSinceVersion(String requestersVersion) {
-        // We add all our live data
-        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> result = new HashMap<>(store.getMap());
+        List<Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> maps = new ArrayList<>();
 
         // If we have a store with a newer version than the requesters version we will add those as well.
-        storesByVersion.entrySet().stream()
+        historicalMapsByVersion.entrySet().stream()
                 .filter(entry -> {
                     // Old nodes not sending the version will get delivered all data
                     if (requestersVersion == null) {
@@ -87,22 +106,25 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
                             requestersVersion, storeVersion, details);
                     return newVersion;
                 })
-                .map(e -> e.getValue().getMap())
-                .forEach(result::putAll);
+                .map(Map.Entry::getValue)
+                .forEach(maps::add);
 
-        log.info("We found {} entries since requesters version {}",
-                result.size(), requestersVersion);
-        return result;
+        // We add all our live data
+        return new UnionMapView<>(store.getMap(), maps);
     }
 
     public Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> getMapOfLiveData() {
         return store.getMap();
     }
 
+    // Historical data by version. Empty if we have not read the resource files yet.
+    public Map<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> getHistoricalMapsByVersion() {
+        return historicalMapsByVersion != null ? historicalMapsByVersion : ImmutableMap.of();
+    }
+
+    // Unmodifiable view on the live data and all historical data.
     public Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> getMapOfAllData() {
-        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> result = new HashMap<>(getMapOfLiveData());
-        result.putAll(allHistoricalPayloads);
-        return result;
+        return new UnionMapView<>(getMapOfLiveData(), List.of(allHistoricalPayloads));
     }
 
 
@@ -124,7 +146,7 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
         }
 
         getMapOfLiveData().put(hash, payload);
-        requestPersistence();
+        persist(payload);
     }
 
     @Override
@@ -137,7 +159,7 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
         // So it will be always null. We still keep the return type as we override the method from MapStoreService which
         // follow the Map.putIfAbsent signature.
         getMapOfLiveData().put(hash, payload);
-        requestPersistence();
+        persist(payload);
         return null;
     }
 
@@ -148,19 +170,25 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
             log.info("We have created the {} store for the live data and filled it with {} entries from the persisted data.",
                     getFileName(), getMapOfLiveData().size());
 
+            // We add the data appended to the log after the store file was written the last time. That has to happen
+            // before we read the historical stores so data contained in those gets pruned.
+            payloadLog = new PersistableNetworkPayloadLog(new File(absolutePathOfStorageDir),
+                    getFileName(),
+                    persistenceManager.getPersistenceProtoResolver());
+            payloadLog.readAll().forEach(payload ->
+                    getMapOfLiveData().putIfAbsent(new P2PDataStorage.ByteArray(payload.getHash()), payload));
+
             // Now we add our historical data stores.
-            Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> allHistoricalPayloads = new HashMap<>();
-            Map<String, PersistableNetworkPayloadStore<? extends PersistableNetworkPayload>> storesByVersion = new HashMap<>();
+            Map<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> historicalMapsByVersion = new HashMap<>();
             AtomicInteger numFiles = new AtomicInteger(Version.HISTORICAL_RESOURCE_FILE_VERSION_TAGS.size());
             Version.HISTORICAL_RESOURCE_FILE_VERSION_TAGS.forEach(version -> readHistoricalStoreFromResources(version,
                     postFix,
-                    allHistoricalPayloads,
-                    storesByVersion,
+                    historicalMapsByVersion,
                     () -> {
                         if (numFiles.decrementAndGet() == 0) {
                             // At last iteration we set the immutable map
-                            this.allHistoricalPayloads = ImmutableMap.copyOf(allHistoricalPayloads);
-                            this.storesByVersion = ImmutableMap.copyOf(storesByVersion);
+                            this.historicalMapsByVersion = ImmutableMap.copyOf(historicalMapsByVersion);
+                            this.allHistoricalPayloads = new UnionMapView<>(new ArrayList<>(historicalMapsByVersion.values()));
                             completeHandler.run();
                         }
                     }));
@@ -174,29 +202,63 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
 
     private void readHistoricalStoreFromResources(String version,
                                                   String postFix,
-                                                  Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> allHistoricalPayloads,
-                                                  Map<String, PersistableNetworkPayloadStore<? extends PersistableNetworkPayload>> storesByVersion,
+                                                  Map<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> historicalMapsByVersion,
                                                   Runnable completeHandler) {
 
         String fileName = getFileName() + "_" + version;
-        boolean wasCreatedFromResources = makeFileFromResourceFile(fileName, postFix);
+        makeFileFromResourceFile(fileName, postFix);
+
+        new Thread(() -> {
+            Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> historicalMap = readHistoricalMap(fileName);
+            UserThread.execute(() -> {
+                // If resource file does not exist we do not create a new store as it would never get filled.
+                if (historicalMap != null) {
+                    historicalMapsByVersion.put(version, historicalMap);
+                    log.info("We have read from {} {} historical items.", fileName, historicalMap.size());
+                    pruneStore(historicalMap, version);
+                }
+                completeHandler.run();
+            });
+        }, "HistoricalDataStoreService-read-" + fileName).start();
+    }
+
+    // Called from a thread. We use the MappedPayloadStore file if it exists. Otherwise we parse the store file and
+    // convert it to a MappedPayloadStore file so that we do not need to parse it at the next start-up.
+    @Nullable
+    private Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> readHistoricalMap(String fileName) {
+        File storeFile = new File(absolutePathOfStorageDir, fileName);
+        File mappedFile = new File(absolutePathOfStorageDir, fileName + MAPPED_FILE_POST_FIX);
+        if (mappedFile.exists() && mappedFile.lastModified() >= storeFile.lastModified()) {
+            try {
+                return MappedPayloadStore.read(mappedFile, persistenceManager.getPersistenceProtoResolver()).getMap();
+            } catch (IOException e) {
+                log.warn("Could not read {}. We read {} instead. {}", mappedFile, fileName, e.toString());
+            }
+        }
+
+        T persisted = persistenceManager.getPersisted(fileName);
+        if (persisted == null) {
+            return null;
+        }
 
-        // If resource file does not exist we do not create a new store as it would never get filled.
-        persistenceManager.readPersisted(fileName, persisted -> {
-                    storesByVersion.put(version, persisted);
-                    allHistoricalPayloads.putAll(persisted.getMap());
-                    log.info("We have read from {} {} historical items.", fileName, persisted.getMap().size());
-                    pruneStore(persisted, version);
-                    completeHandler.run();
-                },
-                completeHandler::run);
+        try {
+            long ts = System.currentTimeMillis();
+            MappedPayloadStore.write(mappedFile, persisted.getMap());
+            MappedPayloadStore mappedPayloadStore = MappedPayloadStore.read(mappedFile,
+                    persistenceManager.getPersistenceProtoResolver());
+            log.info("Converting {} to a MappedPayloadStore file took {} ms", fileName, System.currentTimeMillis() - ts);
+            return mappedPayloadStore.getMap();
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not convert {} to a MappedPayloadStore file. {}", fileName, e.toString());
+            return persisted.getMap();
+        }
     }
 
-    private void pruneStore(PersistableNetworkPayloadStore<? extends PersistableNetworkPayload> historicalStore,
+    private void pruneStore(Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> historicalMap,
                             String version) {
         Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> mapOfLiveData = getMapOfLiveData();
         int preLive = mapOfLiveData.size();
-        mapOfLiveData.keySet().removeAll(historicalStore.getMap().keySet());
+        mapOfLiveData.keySet().removeIf(historicalMap::containsKey);
         int postLive = mapOfLiveData.size();
         if (preLive > postLive) {
             log.info("We pruned data from our live data store which are already contained in the historical data store with version {}. " +
@@ -208,6 +270,46 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
         requestPersistence();
     }
 
+    public void shutDown() {
+        if (payloadLog != null) {
+            payloadLog.shutDown();
+        }
+    }
+
+    private void persist(PersistableNetworkPayload payload) {
+        if (payloadLog == null) {
+            requestPersistence();
+            return;
+        }
+
+        payloadLog.append(payload);
+        maybeCompactLog();
+    }
+
+    private void maybeCompactLog() {
+        // Before the app is initialized the PersistenceManager does not write to disk
+        if (compactionInProgress ||
+                !PersistenceManager.isAllServicesInitialized() ||
+                (payloadLog.getNumRecords() < MAX_LOG_RECORDS && payloadLog.getNumSegments() < MAX_LOG_SEGMENTS)) {
+            return;
+        }
+
+        // Data appended from now on goes to a new segment which we keep. We delete the old segments only if the
+        // store file got written, as the write is skipped before the app is initialized and on errors.
+        compactionInProgress = true;
+        int lastSegmentNumber = payloadLog.rotate();
+        File storeFile = new File(absolutePathOfStorageDir, getFileName());
+        long lastModified = storeFile.lastModified();
+        persistenceManager.persistNow(() -> {
+            compactionInProgress = false;
+            if (storeFile.lastModified() != lastModified) {
+                payloadLog.deleteSegmentsUpTo(lastSegmentNumber);
+            } else {
+                log.warn("{} was not written. We keep the log segments.", getFileName());
+            }
+        });
+    }
+
     private boolean anyMapContainsKey(P2PDataStorage.ByteArray hash) {
         return getMapOfLiveData().containsKey(hash) || allHistoricalPayloads.containsKey(hash);
     }
@@ -0,0 +1,378 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import bisq.common.file.FileUtil;
+import bisq.common.proto.ProtoResolver;
+import bisq.common.proto.ProtobufferRuntimeException;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read-only store of PersistableNetworkPayloads in a memory mapped file. It is used for the historical data stores
+ * which never change once they got released, but are only needed for a few lookups and for old-version peers.
+ * <p>
+ * File format (big endian):
+ * <pre>
+ * header: magic (int), format version (int), number of entries (int), hash length (int)
+ * index:  for each entry sorted by hash: hash (hash length bytes), offset (int), length (int)
+ * data:   serialized protobuf.PersistableNetworkPayload messages
+ * </pre>
+ * Lookups do a binary search on the index. Payloads are only decoded when their value is accessed. The most recently
+ * used decoded payloads are kept in a bounded cache, so a lookup followed by a get or repeated gets of the same
+ * payloads do not decode them again, while the heap does not hold all payloads.
+ */
+@Slf4j
+public final class MappedPayloadStore {
+    private static final int MAGIC = 0x4d505331; // "MPS1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAX_CACHED_PAYLOADS = 10_000;
+
+    private final ByteBuffer buffer;
+    private final ProtoResolver protoResolver;
+    private final int numEntries;
+    private final int hashLength;
+    private final int indexEntrySize;
+    private final Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map = new MappedMap();
+    // Decoded payloads by index in least recently used order. The store is used from multiple threads.
+    private final Map<Integer, PersistableNetworkPayload> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, PersistableNetworkPayload> eldest) {
+                    return size() > MAX_CACHED_PAYLOADS;
+                }
+            });
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Write, read
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Writes the payloads to file. The file is written to a temp file first and renamed at the end, so an existing
+     * file is either the complete old or new one.
+     *
+     * @throws IllegalArgumentException if the hashes do not have the same length
+     */
+    public static void write(File file, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> payloads)
+            throws IOException {
+        List<Map.Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> entries = new ArrayList<>(payloads.entrySet());
+        entries.sort((o1, o2) -> Arrays.compareUnsigned(o1.getKey().bytes, o2.getKey().bytes));
+        int hashLength = entries.isEmpty() ? 1 : entries.get(0).getKey().bytes.length;
+        List<byte[]> serializedPayloads = new ArrayList<>(entries.size());
+        for (Map.Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload> entry : entries) {
+            if (entry.getKey().bytes.length != hashLength) {
+                throw new IllegalArgumentException("All hashes must have the same length");
+            }
+            serializedPayloads.add(entry.getValue().toProtoMessage().toByteArray());
+        }
+
+        File tempFile = new File(file.getParentFile(), "temp_" + file.getName());
+        try (FileOutputStream fileOutputStream = new FileOutputStream(tempFile)) {
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(FORMAT_VERSION);
+            outputStream.writeInt(entries.size());
+            outputStream.writeInt(hashLength);
+
+            long offset = HEADER_SIZE + (long) entries.size() * (hashLength + 8);
+            for (int i = 0; i < entries.size(); i++) {
+                int length = serializedPayloads.get(i).length;
+                if (offset + length > Integer.MAX_VALUE) {
+                    throw new IOException("Payloads exceed the max. file size of a MappedPayloadStore");
+                }
+                outputStream.write(entries.get(i).getKey().bytes);
+                outputStream.writeInt((int) offset);
+                outputStream.writeInt(length);
+                offset += length;
+            }
+            for (byte[] serializedPayload : serializedPayloads) {
+                outputStream.write(serializedPayload);
+            }
+            outputStream.flush();
+            fileOutputStream.getFD().sync();
+        } catch (IOException e) {
+            if (!tempFile.delete()) {
+                log.warn("Could not delete {}", tempFile);
+            }
+            throw e;
+        }
+        FileUtil.renameFile(tempFile, file);
+    }
+
+    /**
+     * Maps the file into memory and validates its header and index.
+     *
+     * @throws IOException if the file cannot be read or is not a valid MappedPayloadStore file
+     */
+    public static MappedPayloadStore read(File file, ProtoResolver protoResolver) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Invalid size of " + file + ": " + channel.size());
+            }
+            // The mapping stays valid after the channel got closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return new MappedPayloadStore(buffer, protoResolver, file);
+    }
+
+    private MappedPayloadStore(ByteBuffer buffer, ProtoResolver protoResolver, File file) throws IOException {
+        this.buffer = buffer;
+        this.protoResolver = protoResolver;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException(file + " is not a MappedPayloadStore file of version " + FORMAT_VERSION);
+        }
+        numEntries = buffer.getInt(8);
+        hashLength = buffer.getInt(12);
+        indexEntrySize = hashLength + 8;
+        if (numEntries < 0 || hashLength <= 0 ||
+                HEADER_SIZE + (long) numEntries * indexEntrySize > buffer.capacity()) {
+            throw new IOException("Invalid header of " + file);
+        }
+        for (int i = 0; i < numEntries; i++) {
+            long offset = getOffset(i);
+            int length = getLength(i);
+            if (offset < HEADER_SIZE || length < 0 || offset + length > buffer.capacity()) {
+                throw new IOException("Invalid index entry " + i + " of " + file);
+            }
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return An unmodifiable map view on the payloads. Iterating over the keys does not decode the payloads.
+     */
+    public Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> getMap() {
+        return map;
+    }
+
+    public int size() {
+        return numEntries;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private int indexOf(Object key) {
+        if (!(key instanceof P2PDataStorage.ByteArray)) {
+            return -1;
+        }
+        byte[] hash = ((P2PDataStorage.ByteArray) key).bytes;
+        if (hash.length != hashLength) {
+            return -1;
+        }
+
+        int low = 0;
+        int high = numEntries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int result = compareHashAt(mid, hash);
+            if (result < 0) {
+                low = mid + 1;
+            } else if (result > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // We only use absolute reads on the shared buffer so it can be used from multiple threads
+    private int compareHashAt(int index, byte[] hash) {
+        int position = HEADER_SIZE + index * indexEntrySize;
+        for (int i = 0; i < hashLength; i++) {
+            int result = Byte.compareUnsigned(buffer.get(position + i), hash[i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private P2PDataStorage.ByteArray getHashAt(int index) {
+        int position = HEADER_SIZE + index * indexEntrySize;
+        byte[] hash = new byte[hashLength];
+        for (int i = 0; i < hashLength; i++) {
+            hash[i] = buffer.get(position + i);
+        }
+        return new P2PDataStorage.ByteArray(hash);
+    }
+
+    private int getOffset(int index) {
+        return buffer.getInt(HEADER_SIZE + index * indexEntrySize + hashLength);
+    }
+
+    private int getLength(int index) {
+        return buffer.getInt(HEADER_SIZE + index * indexEntrySize + hashLength + 4);
+    }
+
+    private PersistableNetworkPayload getPayload(int index) {
+        PersistableNetworkPayload payload = cache.get(index);
+        if (payload == null) {
+            // Two threads might decode the same payload, which is harmless as it is immutable
+            payload = decode(index);
+            cache.put(index, payload);
+        }
+        return payload;
+    }
+
+    private PersistableNetworkPayload decode(int index) {
+        ByteBuffer slice = buffer.duplicate();
+        int offset = getOffset(index);
+        slice.position(offset);
+        slice.limit(offset + getLength(index));
+        try {
+            protobuf.PersistableNetworkPayload proto = protobuf.PersistableNetworkPayload.parseFrom(slice);
+            return (PersistableNetworkPayload) protoResolver.fromProto(proto);
+        } catch (InvalidProtocolBufferException e) {
+            throw new ProtobufferRuntimeException("Decoding payload " + index + " of MappedPayloadStore failed", e);
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Map view
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private final class MappedMap extends AbstractMap<P2PDataStorage.ByteArray, PersistableNetworkPayload> {
+        private final Set<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> entrySet = new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> iterator() {
+                return new Iterator<>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < numEntries;
+                    }
+
+                    @Override
+                    public Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return new LazyEntry(index++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return numEntries;
+            }
+        };
+
+        @Override
+        public Set<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> entrySet() {
+            return entrySet;
+        }
+
+        @Override
+        public int size() {
+            return numEntries;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public PersistableNetworkPayload get(Object key) {
+            int index = indexOf(key);
+            return index >= 0 ? getPayload(index) : null;
+        }
+    }
+
+    private final class LazyEntry implements Map.Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload> {
+        private final int index;
+        private final P2PDataStorage.ByteArray key;
+
+        private LazyEntry(int index) {
+            this.index = index;
+            this.key = getHashAt(index);
+        }
+
+        @Override
+        public P2PDataStorage.ByteArray getKey() {
+            return key;
+        }
+
+        @Override
+        public PersistableNetworkPayload getValue() {
+            return getPayload(index);
+        }
+
+        @Override
+        public PersistableNetworkPayload setValue(PersistableNetworkPayload value) {
+            throw new UnsupportedOperationException("MappedPayloadStore is read-only");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return key.equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(getValue());
+        }
+    }
+}
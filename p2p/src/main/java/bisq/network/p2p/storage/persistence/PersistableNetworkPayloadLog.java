@@ -0,0 +1,275 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import bisq.common.Timer;
+import bisq.common.UserThread;
+import bisq.common.proto.ProtoResolver;
+import bisq.common.util.Utilities;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Append-only log of the PersistableNetworkPayloads which got added to a store since its store file was written the
+ * last time. Adding a payload costs one small append instead of rewriting the whole store file.
+ * <p>
+ * The log consists of segment files named {storeFileName}_log_{segmentNumber}. Each segment contains length delimited
+ * protobuf.PersistableNetworkPayload records. At each start-up a new segment is used, so an incomplete record at the
+ * end of a segment caused by a crash is only skipped at reading. For compaction the owner rotates to a new segment,
+ * writes the store file and deletes the segments up to the rotated one once the store file is written.
+ * <p>
+ * The data is written to the file at each append, so it survives a crash of the application. We batch the fsync calls
+ * which protect against a crash of the OS, as the data can be requested again from the network in the worst case.
+ * Not thread safe, it is expected to be used from the user thread.
+ */
+@Slf4j
+public class PersistableNetworkPayloadLog {
+    private static final long SYNC_DELAY_SEC = 5;
+
+    private final File dir;
+    private final String segmentFilePrefix;
+    private final ProtoResolver protoResolver;
+
+    // Segments of previous sessions and of previous rotations which are not compacted yet, by segment number
+    private final TreeMap<Integer, File> closedSegments = new TreeMap<>();
+    private int currentSegmentNumber;
+    @Nullable
+    private FileChannel currentSegment;
+    private int numRecordsInCurrentSegment;
+    // Number of records since the last compaction
+    private int numRecords;
+    @Nullable
+    private Timer syncTimer;
+    @Nullable
+    private ExecutorService syncExecutor;
+    private boolean isShutDown;
+
+    public PersistableNetworkPayloadLog(File dir, String storeFileName, ProtoResolver protoResolver) {
+        this.dir = dir;
+        this.segmentFilePrefix = storeFileName + "_log_";
+        this.protoResolver = protoResolver;
+        Pattern segmentFilePattern = Pattern.compile(Pattern.quote(segmentFilePrefix) + "(\\d+)");
+
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Matcher matcher = segmentFilePattern.matcher(file.getName());
+                if (matcher.matches()) {
+                    closedSegments.put(Integer.parseInt(matcher.group(1)), file);
+                }
+            }
+        }
+        currentSegmentNumber = closedSegments.isEmpty() ? 0 : closedSegments.lastKey() + 1;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return All payloads of the segments of previous sessions in the order they got appended.
+     */
+    public List<PersistableNetworkPayload> readAll() {
+        long ts = System.currentTimeMillis();
+        List<PersistableNetworkPayload> result = new ArrayList<>();
+        closedSegments.values().forEach(file -> readSegment(file, result));
+        numRecords = result.size();
+        log.info("Reading {} payloads from {} log segments of {} took {} ms",
+                result.size(), closedSegments.size(), segmentFilePrefix, System.currentTimeMillis() - ts);
+        return result;
+    }
+
+    public void append(PersistableNetworkPayload payload) {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            payload.toProtoMessage().writeDelimitedTo(outputStream);
+            ByteBuffer byteBuffer = ByteBuffer.wrap(outputStream.toByteArray());
+            FileChannel channel = getCurrentSegment();
+            while (byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer);
+            }
+            numRecords++;
+            numRecordsInCurrentSegment++;
+            if (isShutDown) {
+                // Data added while shutting down is synced at once as the sync executor is stopped
+                channel.force(false);
+            } else {
+                maybeScheduleSync();
+            }
+        } catch (IOException e) {
+            // The data is still in memory and gets persisted with the next write of the store file
+            log.error("Appending to log segment {} failed", getSegmentFile(currentSegmentNumber), e);
+        }
+    }
+
+    /**
+     * Closes the current segment. Following appends go to a new segment.
+     *
+     * @return The number of the last segment which contains data appended before that call.
+     */
+    public int rotate() {
+        int lastSegmentNumber = currentSegmentNumber;
+        if (currentSegment != null) {
+            closeCurrentSegment();
+            closedSegments.put(currentSegmentNumber, getSegmentFile(currentSegmentNumber));
+        }
+        currentSegmentNumber++;
+        numRecordsInCurrentSegment = 0;
+        return lastSegmentNumber;
+    }
+
+    /**
+     * Deletes the closed segments with a number up to segmentNumber. To be called once their data is contained in
+     * the store file.
+     */
+    public void deleteSegmentsUpTo(int segmentNumber) {
+        List<Integer> toDelete = new ArrayList<>(closedSegments.headMap(segmentNumber, true).keySet());
+        toDelete.forEach(number -> {
+            File file = closedSegments.remove(number);
+            if (!file.delete()) {
+                log.warn("Could not delete log segment {}", file);
+            }
+        });
+        if (closedSegments.isEmpty()) {
+            numRecords = numRecordsInCurrentSegment;
+        }
+    }
+
+    // Number of records since the last compaction, including those of previous sessions.
+    public int getNumRecords() {
+        return numRecords;
+    }
+
+    public int getNumSegments() {
+        return closedSegments.size() + (currentSegment != null ? 1 : 0);
+    }
+
+    /**
+     * Syncs and closes the current segment and stops the sync executor. To be called at shutdown of the app.
+     */
+    public void shutDown() {
+        isShutDown = true;
+        closeCurrentSegment();
+        if (syncExecutor != null) {
+            syncExecutor.shutdown();
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void readSegment(File file, List<PersistableNetworkPayload> result) {
+        try (InputStream inputStream = new FileInputStream(file)) {
+            while (true) {
+                protobuf.PersistableNetworkPayload proto = protobuf.PersistableNetworkPayload.parseDelimitedFrom(inputStream);
+                if (proto == null) {
+                    break;
+                }
+                result.add((PersistableNetworkPayload) protoResolver.fromProto(proto));
+            }
+        } catch (Throwable t) {
+            // Can be caused by an incomplete record at the end if the app crashed while writing. We keep the
+            // records we could read.
+            log.warn("Reading log segment {} failed after {} records. {}", file, result.size(), t.toString());
+        }
+    }
+
+    private FileChannel getCurrentSegment() throws IOException {
+        // We create the segment file only at the first append to not create empty files at each start-up
+        if (currentSegment == null) {
+            currentSegment = FileChannel.open(getSegmentFile(currentSegmentNumber).toPath(),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return currentSegment;
+    }
+
+    private void maybeScheduleSync() {
+        if (syncTimer == null) {
+            syncTimer = UserThread.runAfter(() -> {
+                syncTimer = null;
+                FileChannel channel = currentSegment;
+                if (channel != null) {
+                    getSyncExecutor().execute(() -> sync(channel));
+                }
+            }, SYNC_DELAY_SEC);
+        }
+    }
+
+    private void sync(FileChannel channel) {
+        try {
+            if (channel.isOpen()) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            log.warn("Syncing log segment failed. {}", e.toString());
+        }
+    }
+
+    private void closeCurrentSegment() {
+        if (syncTimer != null) {
+            syncTimer.stop();
+            syncTimer = null;
+        }
+        if (currentSegment != null) {
+            try {
+                currentSegment.force(false);
+                currentSegment.close();
+            } catch (IOException e) {
+                log.warn("Closing log segment failed. {}", e.toString());
+            }
+            currentSegment = null;
+        }
+    }
+
+    private ExecutorService getSyncExecutor() {
+        if (syncExecutor == null) {
+            syncExecutor = Utilities.getSingleThreadExecutor("Sync-" + segmentFilePrefix + "to-disk");
+        }
+        return syncExecutor;
+    }
+
+    private File getSegmentFile(int segmentNumber) {
+        return new File(dir, segmentFilePrefix + segmentNumber);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Unmodifiable view on the union of several maps. If a key is contained in multiple maps the entry of the first map
+ * is used. Only the first map may change (e.g. the live data), the other maps must not change (e.g. the historical
+ * data). Changes of the first map are reflected in the view.
+ * <p>
+ * The number of keys of the maps which do not change is counted once, so size() only iterates over the keys of the
+ * first map if it can change.
+ */
+final class UnionMapView<K, V> extends AbstractMap<K, V> {
+    private final List<Map<K, ? extends V>> maps;
+    private final boolean isFirstMapMutable;
+    // Number of keys of the maps which do not change, without the keys contained in a previous map. -1 until counted.
+    private volatile int numKeysOfFixedMaps = -1;
+
+    // None of the maps must change
+    UnionMapView(List<? extends Map<K, ? extends V>> maps) {
+        this.maps = List.copyOf(maps);
+        this.isFirstMapMutable = false;
+    }
+
+    // Only mutableMap can change, it has precedence over the fixedMaps
+    UnionMapView(Map<K, ? extends V> mutableMap, List<? extends Map<K, ? extends V>> fixedMaps) {
+        List<Map<K, ? extends V>> maps = new ArrayList<>();
+        maps.add(mutableMap);
+        maps.addAll(fixedMaps);
+        this.maps = List.copyOf(maps);
+        this.isFirstMapMutable = true;
+    }
+
+    @Override
+    public int size() {
+        int firstFixedMapIndex = isFirstMapMutable ? 1 : 0;
+        int size = getNumKeysOfFixedMaps(firstFixedMapIndex);
+        if (isFirstMapMutable) {
+            for (K key : maps.get(0).keySet()) {
+                if (!isContainedInMaps(key, 1, maps.size())) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public V get(Object key) {
+        for (Map<K, ? extends V> map : maps) {
+            V value = map.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return maps.stream().anyMatch(map -> map.containsKey(key));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return maps.stream().allMatch(Map::isEmpty);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return UnionMapView.this.size();
+            }
+        };
+    }
+
+    private int getNumKeysOfFixedMaps(int firstFixedMapIndex) {
+        if (numKeysOfFixedMaps < 0) {
+            int count = 0;
+            for (int i = firstFixedMapIndex; i < maps.size(); i++) {
+                if (i == firstFixedMapIndex) {
+                    count += maps.get(i).size();
+                    continue;
+                }
+                for (K key : maps.get(i).keySet()) {
+                    if (!isContainedInMaps(key, firstFixedMapIndex, i)) {
+                        count++;
+                    }
+                }
+            }
+            numKeysOfFixedMaps = count;
+        }
+        return numKeysOfFixedMaps;
+    }
+
+    private boolean isContainedInMaps(Object key, int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            if (maps.get(i).containsKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        private int mapIndex;
+        private Iterator<? extends Entry<K, ? extends V>> current;
+        private Entry<K, ? extends V> next;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (current == null || !current.hasNext()) {
+                    if (mapIndex >= maps.size()) {
+                        return false;
+                    }
+                    current = maps.get(mapIndex++).entrySet().iterator();
+                    continue;
+                }
+
+                Entry<K, ? extends V> candidate = current.next();
+                if (!isContainedInPreviousMap(candidate.getKey())) {
+                    next = candidate;
+                }
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> result = (Entry<K, V>) next;
+            next = null;
+            return result;
+        }
+
+        private boolean isContainedInPreviousMap(K key) {
+            // mapIndex points to the map after the current one
+            return isContainedInMaps(key, 0, mapIndex - 1);
+        }
+    }
+}
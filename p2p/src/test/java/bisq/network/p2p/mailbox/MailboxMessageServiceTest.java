@@ -0,0 +1,228 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.mailbox;
+
+import bisq.network.crypto.EncryptionService;
+import bisq.network.p2p.DecryptedMessageWithPubKey;
+import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.PrefixedSealedAndSignedMessage;
+import bisq.network.p2p.TestUtils;
+import bisq.network.p2p.mocks.MockMailboxPayload;
+import bisq.network.p2p.network.NetworkNode;
+import bisq.network.p2p.peers.PeerManager;
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.MailboxStoragePayload;
+import bisq.network.p2p.storage.payload.ProtectedMailboxStorageEntry;
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+
+import bisq.common.UserThread;
+import bisq.common.app.Version;
+import bisq.common.crypto.Encryption;
+import bisq.common.crypto.KeyRing;
+import bisq.common.crypto.SealedAndSigned;
+import bisq.common.persistence.PersistenceManager;
+
+import javax.crypto.SecretKey;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+
+import java.time.Clock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MailboxMessageServiceTest {
+    private final static Logger log = LoggerFactory.getLogger(MailboxMessageServiceTest.class);
+
+    private final NodeAddress nodeAddress = new NodeAddress("localhost:8000");
+    private KeyPair mySignatureKeyPair;
+    private KeyPair myEncryptionKeyPair;
+    private KeyPair otherSignatureKeyPair;
+    private KeyPair otherEncryptionKeyPair;
+    private EncryptionService encryptionService;
+    private IgnoredMailboxService ignoredMailboxService;
+    private MailboxMessageService mailboxMessageService;
+    private Executor userThreadExecutor;
+    private ExecutorService executor;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        Version.setBaseCryptoNetworkId(1);
+        userThreadExecutor = UserThread.getExecutor();
+        executor = Executors.newSingleThreadExecutor();
+        UserThread.setExecutor(executor);
+
+        mySignatureKeyPair = TestUtils.generateKeyPair();
+        otherSignatureKeyPair = TestUtils.generateKeyPair();
+        myEncryptionKeyPair = Encryption.generateKeyPair();
+        otherEncryptionKeyPair = Encryption.generateKeyPair();
+
+        KeyRing keyRing = mock(KeyRing.class);
+        when(keyRing.getSignatureKeyPair()).thenReturn(mySignatureKeyPair);
+        NetworkNode networkNode = mock(NetworkNode.class);
+        when(networkNode.getNodeAddress()).thenReturn(nodeAddress);
+
+        // We only do the RSA decryption of the secret key, which is the expensive part of the decryption
+        encryptionService = mock(EncryptionService.class);
+        when(encryptionService.decryptAndVerify(any())).thenAnswer(invocation -> {
+            SealedAndSigned sealedAndSigned = invocation.getArgument(0);
+            Encryption.decryptSecretKey(sealedAndSigned.getEncryptedSecretKey(), myEncryptionKeyPair.getPrivate());
+            return new DecryptedMessageWithPubKey(new MockMailboxPayload("msg", nodeAddress),
+                    sealedAndSigned.getSigPublicKey());
+        });
+
+        ignoredMailboxService = new IgnoredMailboxService(mock(PersistenceManager.class));
+        mailboxMessageService = new MailboxMessageService(networkNode,
+                mock(PeerManager.class),
+                mock(P2PDataStorage.class),
+                encryptionService,
+                ignoredMailboxService,
+                mock(PersistenceManager.class),
+                keyRing,
+                Clock.systemDefaultZone(),
+                false);
+    }
+
+    @After
+    public void tearDown() {
+        UserThread.setExecutor(userThreadExecutor);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testEntriesAddressedToOthersAreNotDecrypted() throws Exception {
+        List<ProtectedStorageEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            entries.add(getEntry(otherSignatureKeyPair.getPublic(), otherEncryptionKeyPair.getPublic()));
+        }
+        entries.add(getEntry(mySignatureKeyPair.getPublic(), myEncryptionKeyPair.getPublic()));
+        entries.add(getEntry(mySignatureKeyPair.getPublic(), myEncryptionKeyPair.getPublic()));
+
+        CountDownLatch latch = new CountDownLatch(2);
+        mailboxMessageService.addDecryptedMailboxListener((decryptedMessageWithPubKey, senderNodeAddress) ->
+                latch.countDown());
+        executor.submit(() -> mailboxMessageService.onAdded(entries));
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        verify(encryptionService, times(2)).decryptAndVerify(any());
+    }
+
+    @Test
+    public void testFailedDecryptionIsIgnored() throws Exception {
+        ProtectedMailboxStorageEntry entry = getEntry(mySignatureKeyPair.getPublic(), otherEncryptionKeyPair.getPublic());
+        String uid = entry.getMailboxStoragePayload().getPrefixedSealedAndSignedMessage().getUid();
+        executor.submit(() -> mailboxMessageService.onAdded(List.of(entry))).get();
+        assertTrue(ignoredMailboxService.isIgnored(uid));
+
+        // At the next attempt we do not try to decrypt it again
+        executor.submit(() -> mailboxMessageService.onAdded(List.of(entry))).get();
+        verify(encryptionService, times(1)).decryptAndVerify(any());
+    }
+
+    @Test
+    public void testEntryAddressedToOtherIsNotDecrypted() throws Exception {
+        ProtectedMailboxStorageEntry entry = getEntry(otherSignatureKeyPair.getPublic(), otherEncryptionKeyPair.getPublic());
+        executor.submit(() -> mailboxMessageService.onAdded(List.of(entry))).get();
+        verify(encryptionService, never()).decryptAndVerify(any());
+    }
+
+    // Not a unit test but a benchmark for processing the mailbox entries at startup. Run manually.
+    @Ignore
+    @Test
+    public void testBatchProcessingPerformance() throws Exception {
+        // Usual case: most entries are addressed to other peers
+        runBenchmark(10000, 100, 0);
+        // Worst case: entries claim to be addressed to us but we cannot decrypt them
+        runBenchmark(10000, 100, 9900);
+    }
+
+    private void runBenchmark(int numEntries, int numMine, int numNotDecryptable) throws Exception {
+        // We start with a fresh service for each run
+        tearDown();
+        setup();
+        List<ProtectedStorageEntry> entries = new ArrayList<>();
+        for (int i = 0; i < numEntries; i++) {
+            if (i < numMine) {
+                entries.add(getEntry(mySignatureKeyPair.getPublic(), myEncryptionKeyPair.getPublic()));
+            } else if (i < numMine + numNotDecryptable) {
+                entries.add(getEntry(mySignatureKeyPair.getPublic(), otherEncryptionKeyPair.getPublic()));
+            } else {
+                entries.add(getEntry(otherSignatureKeyPair.getPublic(), otherEncryptionKeyPair.getPublic()));
+            }
+        }
+
+        CountDownLatch latch = new CountDownLatch(numMine);
+        AtomicLong timeToFirstMessage = new AtomicLong();
+        long ts = System.currentTimeMillis();
+        mailboxMessageService.addDecryptedMailboxListener((decryptedMessageWithPubKey, senderNodeAddress) -> {
+            timeToFirstMessage.compareAndSet(0, System.currentTimeMillis() - ts);
+            latch.countDown();
+        });
+        executor.submit(() -> mailboxMessageService.onAdded(entries));
+        assertTrue(latch.await(5, TimeUnit.MINUTES));
+        log.info("Processing {} mailbox entries with {} of them not decryptable took {} ms to the first and {} ms " +
+                        "to the last of our {} messages",
+                numEntries, numNotDecryptable, timeToFirstMessage.get(), System.currentTimeMillis() - ts, numMine);
+    }
+
+    private ProtectedMailboxStorageEntry getEntry(PublicKey receiversSignaturePubKey,
+                                                  PublicKey receiversEncryptionPubKey) throws Exception {
+        SecretKey secretKey = Encryption.generateSecretKey(256);
+        SealedAndSigned sealedAndSigned = new SealedAndSigned(
+                Encryption.encryptSecretKey(secretKey, receiversEncryptionPubKey),
+                new byte[0],
+                new byte[0],
+                otherSignatureKeyPair.getPublic());
+        PrefixedSealedAndSignedMessage prefixedSealedAndSignedMessage = new PrefixedSealedAndSignedMessage(nodeAddress,
+                sealedAndSigned);
+        MailboxStoragePayload mailboxStoragePayload = new MailboxStoragePayload(prefixedSealedAndSignedMessage,
+                otherSignatureKeyPair.getPublic(),
+                receiversSignaturePubKey,
+                MailboxStoragePayload.TTL);
+        return new ProtectedMailboxStorageEntry(mailboxStoragePayload,
+                otherSignatureKeyPair.getPublic(),
+                1,
+                new byte[0],
+                receiversSignaturePubKey,
+                Clock.systemDefaultZone());
+    }
+}
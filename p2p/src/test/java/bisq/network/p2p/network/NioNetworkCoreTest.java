@@ -0,0 +1,220 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import com.google.common.base.Strings;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NioNetworkCoreTest {
+
+    @Test
+    public void testFrameDecoderWithFramesSplitAtEachByte() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        List<protobuf.NetworkEnvelope> envelopes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            // Sizes with a length prefix of one and of two bytes
+            protobuf.NetworkEnvelope envelope = getEnvelope(i * 50);
+            envelopes.add(envelope);
+            envelope.writeDelimitedTo(outputStream);
+        }
+
+        NioNetworkCore.FrameDecoder frameDecoder = new NioNetworkCore.FrameDecoder(1000);
+        List<byte[]> frames = new ArrayList<>();
+        for (byte b : outputStream.toByteArray()) {
+            frameDecoder.decode(ByteBuffer.wrap(new byte[]{b}), frames::add);
+        }
+
+        assertEquals(envelopes.size(), frames.size());
+        for (int i = 0; i < envelopes.size(); i++) {
+            assertArrayEquals(envelopes.get(i).toByteArray(), frames.get(i));
+        }
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testFrameDecoderRejectsTooLargeFrame() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        getEnvelope(200).writeDelimitedTo(outputStream);
+        new NioNetworkCore.FrameDecoder(100).decode(ByteBuffer.wrap(outputStream.toByteArray()), frame -> {
+        });
+    }
+
+    @Test
+    public void testFramesOfConnectionAreDeliveredInOrder() throws Exception {
+        NioNetworkCore nioNetworkCore = new NioNetworkCore("Test");
+        try (ServerSocket serverSocket = ServerSocketChannel.open().bind(new InetSocketAddress(0)).socket();
+             Socket client = new Socket("localhost", serverSocket.getLocalPort());
+             Socket socket = serverSocket.accept()) {
+            List<protobuf.NetworkEnvelope> received = new CopyOnWriteArrayList<>();
+            CountDownLatch endOfStream = new CountDownLatch(1);
+            nioNetworkCore.register(socket.getChannel(), new NioNetworkCore.Handler() {
+                @Override
+                public long onFrame(byte[] frame) {
+                    try {
+                        received.add(protobuf.NetworkEnvelope.parseFrom(frame));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return 0;
+                }
+
+                @Override
+                public void onEndOfStream() {
+                    endOfStream.countDown();
+                }
+
+                @Override
+                public void onReadFailure(Throwable throwable) {
+                }
+            }, 10000);
+
+            OutputStream outputStream = client.getOutputStream();
+            for (int i = 0; i < 500; i++) {
+                getEnvelope(i).writeDelimitedTo(outputStream);
+            }
+            client.shutdownOutput();
+
+            assertTrue(endOfStream.await(10, TimeUnit.SECONDS));
+            assertEquals(500, received.size());
+            for (int i = 0; i < 500; i++) {
+                assertEquals(i, received.get(i).getMessageVersion());
+            }
+        } finally {
+            nioNetworkCore.shutDown();
+        }
+    }
+
+    @Test
+    public void testDeferredFramesAreDeliveredAgainInOrder() throws Exception {
+        NioNetworkCore nioNetworkCore = new NioNetworkCore("Test");
+        try (ServerSocket serverSocket = ServerSocketChannel.open().bind(new InetSocketAddress(0)).socket();
+             Socket client = new Socket("localhost", serverSocket.getLocalPort());
+             Socket socket = serverSocket.accept()) {
+            List<protobuf.NetworkEnvelope> received = new CopyOnWriteArrayList<>();
+            AtomicInteger numDeferrals = new AtomicInteger();
+            CountDownLatch endOfStream = new CountDownLatch(1);
+            nioNetworkCore.register(socket.getChannel(), new NioNetworkCore.Handler() {
+                private boolean deferNext = true;
+
+                @Override
+                public long onFrame(byte[] frame) {
+                    // We defer each frame once
+                    if (deferNext) {
+                        deferNext = false;
+                        numDeferrals.incrementAndGet();
+                        return 20;
+                    }
+                    deferNext = true;
+                    try {
+                        received.add(protobuf.NetworkEnvelope.parseFrom(frame));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return 0;
+                }
+
+                @Override
+                public void onEndOfStream() {
+                    endOfStream.countDown();
+                }
+
+                @Override
+                public void onReadFailure(Throwable throwable) {
+                }
+            }, 10000);
+
+            OutputStream outputStream = client.getOutputStream();
+            for (int i = 0; i < 20; i++) {
+                getEnvelope(i).writeDelimitedTo(outputStream);
+            }
+            client.shutdownOutput();
+
+            assertTrue(endOfStream.await(10, TimeUnit.SECONDS));
+            assertEquals(20, numDeferrals.get());
+            assertEquals(20, received.size());
+            for (int i = 0; i < 20; i++) {
+                assertEquals(i, received.get(i).getMessageVersion());
+            }
+        } finally {
+            nioNetworkCore.shutDown();
+        }
+    }
+
+    @Test
+    public void testReadTimeout() throws Exception {
+        NioNetworkCore nioNetworkCore = new NioNetworkCore("Test");
+        try (ServerSocket serverSocket = ServerSocketChannel.open().bind(new InetSocketAddress(0)).socket();
+             Socket ignored = new Socket("localhost", serverSocket.getLocalPort());
+             Socket socket = serverSocket.accept()) {
+            CompletableFuture<Throwable> readFailure = new CompletableFuture<>();
+            nioNetworkCore.register(socket.getChannel(), new NioNetworkCore.Handler() {
+                @Override
+                public long onFrame(byte[] frame) {
+                    return 0;
+                }
+
+                @Override
+                public void onEndOfStream() {
+                }
+
+                @Override
+                public void onReadFailure(Throwable throwable) {
+                    readFailure.complete(throwable);
+                }
+            }, 500);
+
+            assertTrue(readFailure.get(10, TimeUnit.SECONDS) instanceof SocketTimeoutException);
+        } finally {
+            nioNetworkCore.shutDown();
+        }
+    }
+
+    private static protobuf.NetworkEnvelope getEnvelope(int index) {
+        // We use the message version field as sequence number
+        return protobuf.NetworkEnvelope.newBuilder()
+                .setMessageVersion(index)
+                .setCloseConnectionMessage(protobuf.CloseConnectionMessage.newBuilder()
+                        .setReason(Strings.repeat("x", index)))
+                .build();
+    }
+}
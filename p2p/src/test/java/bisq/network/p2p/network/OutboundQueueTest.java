@@ -0,0 +1,208 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.network.p2p.BundleOfEnvelopes;
+import bisq.network.p2p.CloseConnectionMessage;
+import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.peers.getdata.messages.GetUpdatedDataRequest;
+
+import bisq.common.proto.network.NetworkEnvelope;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OutboundQueueTest {
+
+    @Test
+    public void testPriorityOf() {
+        assertSame(OutboundQueue.Priority.HIGH, OutboundQueue.Priority.of(new CloseConnectionMessage("")));
+        assertSame(OutboundQueue.Priority.NORMAL, OutboundQueue.Priority.of(getNormalMessage(0)));
+        assertSame(OutboundQueue.Priority.LOW, OutboundQueue.Priority.of(new BundleOfEnvelopes()));
+    }
+
+    @Test
+    public void testBurstIsWrittenWithoutDelay() {
+        List<NetworkEnvelope> written = new CopyOnWriteArrayList<>();
+        // Tokens get not refilled within the test
+        OutboundQueue outboundQueue = new OutboundQueue(writer(envelope -> written.add(envelope.getNetworkEnvelope())),
+                100000);
+        for (int i = 0; i < 15; i++) {
+            outboundQueue.send(SerializedEnvelope.of(getNormalMessage(i)), 0);
+        }
+
+        assertEquals(10, written.size());
+        assertEquals(5, outboundQueue.getQueueDepth());
+        outboundQueue.shutDown();
+    }
+
+    @Test
+    public void testHighPriorityIsNotThrottled() {
+        List<NetworkEnvelope> written = new CopyOnWriteArrayList<>();
+        OutboundQueue outboundQueue = new OutboundQueue(writer(envelope -> written.add(envelope.getNetworkEnvelope())),
+                100000);
+        for (int i = 0; i < 20; i++) {
+            outboundQueue.send(SerializedEnvelope.of(new BundleOfEnvelopes()), 0);
+        }
+        CloseConnectionMessage closeConnectionMessage = new CloseConnectionMessage("");
+        outboundQueue.send(SerializedEnvelope.of(closeConnectionMessage), 0);
+
+        assertEquals(11, written.size());
+        assertSame(closeConnectionMessage, written.get(10));
+        outboundQueue.shutDown();
+    }
+
+    @Test
+    public void testQueuedMessagesAreWrittenByPriority() throws InterruptedException {
+        List<NetworkEnvelope> written = new CopyOnWriteArrayList<>();
+        OutboundQueue outboundQueue = new OutboundQueue(writer(envelope -> written.add(envelope.getNetworkEnvelope())),
+                10);
+        for (int i = 0; i < 10; i++) {
+            outboundQueue.send(SerializedEnvelope.of(getNormalMessage(i)), 0);
+        }
+        List<NetworkEnvelope> expected = new ArrayList<>(written);
+
+        List<NetworkEnvelope> broadcastMessages = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            BundleOfEnvelopes bundleOfEnvelopes = new BundleOfEnvelopes();
+            broadcastMessages.add(bundleOfEnvelopes);
+            outboundQueue.send(SerializedEnvelope.of(bundleOfEnvelopes), 0);
+        }
+        for (int i = 10; i < 13; i++) {
+            GetUpdatedDataRequest message = getNormalMessage(i);
+            expected.add(message);
+            outboundQueue.send(SerializedEnvelope.of(message), 0);
+        }
+        expected.addAll(broadcastMessages);
+
+        long timeout = System.currentTimeMillis() + 5000;
+        while (outboundQueue.getQueueDepth() > 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, written);
+    }
+
+    @Test
+    public void testOldestBroadcastMessagesAreDropped() {
+        OutboundQueue outboundQueue = new OutboundQueue(writer(envelope -> {
+        }), 100000);
+        for (int i = 0; i < 1100; i++) {
+            outboundQueue.send(SerializedEnvelope.of(new BundleOfEnvelopes()), 0);
+        }
+
+        // 10 messages got written with the initial tokens
+        assertEquals(1000, outboundQueue.getQueueDepth());
+        assertEquals(90, outboundQueue.getNumDroppedMessages());
+
+        outboundQueue.shutDown();
+        assertEquals(0, outboundQueue.getQueueDepth());
+        outboundQueue.send(SerializedEnvelope.of(new CloseConnectionMessage("")), 0);
+        assertEquals(0, outboundQueue.getQueueDepth());
+    }
+
+    @Test
+    public void testFutureCompletesWhenWrittenOrDropped() throws Exception {
+        OutboundQueue outboundQueue = new OutboundQueue(writer(envelope -> {
+            if (envelope.getNetworkEnvelope() instanceof CloseConnectionMessage) {
+                throw new IllegalStateException();
+            }
+        }), 100000);
+        List<ListenableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 1011; i++) {
+            futures.add(outboundQueue.send(SerializedEnvelope.of(new BundleOfEnvelopes()), 0));
+        }
+        ListenableFuture<Void> failedWrite = outboundQueue.send(SerializedEnvelope.of(new CloseConnectionMessage("")), 0);
+
+        // Written with the initial tokens
+        futures.get(0).get(1, TimeUnit.SECONDS);
+        assertTrue(failedWrite.isDone());
+        assertFailed(failedWrite);
+        // Oldest queued message got dropped as the queue is full
+        assertFailed(futures.get(10));
+        // Still queued
+        ListenableFuture<Void> queued = futures.get(1010);
+        assertFalse(queued.isDone());
+
+        outboundQueue.shutDown();
+        assertFailed(queued);
+        assertFailed(outboundQueue.send(SerializedEnvelope.of(getNormalMessage(0)), 0));
+    }
+
+    @Test
+    public void testPendingWriteDoesNotBlockTheCaller() throws Exception {
+        List<SettableFuture<Void>> pendingWrites = new CopyOnWriteArrayList<>();
+        OutboundQueue outboundQueue = new OutboundQueue((envelope, ts) -> {
+            SettableFuture<Void> pendingWrite = SettableFuture.create();
+            pendingWrites.add(pendingWrite);
+            return pendingWrite;
+        }, 100000);
+        ListenableFuture<Void> first = outboundQueue.send(SerializedEnvelope.of(getNormalMessage(0)), 0);
+        ListenableFuture<Void> second = outboundQueue.send(SerializedEnvelope.of(getNormalMessage(1)), 0);
+
+        // The second message is written after the first one completed
+        assertEquals(1, pendingWrites.size());
+        assertEquals(1, outboundQueue.getQueueDepth());
+        assertFalse(first.isDone());
+
+        pendingWrites.get(0).set(null);
+        first.get(1, TimeUnit.SECONDS);
+        assertEquals(2, pendingWrites.size());
+        assertFalse(second.isDone());
+
+        pendingWrites.get(1).setException(new IllegalStateException());
+        assertFailed(second);
+        outboundQueue.shutDown();
+    }
+
+    private static OutboundQueue.Writer writer(Consumer<SerializedEnvelope> consumer) {
+        return (envelope, ts) -> {
+            consumer.accept(envelope);
+            return Futures.immediateFuture(null);
+        };
+    }
+
+    private static void assertFailed(ListenableFuture<Void> future) throws Exception {
+        assertTrue(future.isDone());
+        try {
+            future.get();
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException ignore) {
+        }
+    }
+
+    private static GetUpdatedDataRequest getNormalMessage(int nonce) {
+        return new GetUpdatedDataRequest(new NodeAddress("localhost:9999"), nonce, new HashSet<>());
+    }
+}
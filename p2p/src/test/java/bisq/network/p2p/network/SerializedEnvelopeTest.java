@@ -0,0 +1,87 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.network.p2p.BundleOfEnvelopes;
+import bisq.network.p2p.CloseConnectionMessage;
+
+import bisq.common.proto.network.NetworkEnvelope;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SerializedEnvelopeTest {
+
+    @Test
+    public void testSingleEnvelopeIsWrittenLikeProto() throws IOException {
+        CloseConnectionMessage message = new CloseConnectionMessage("reason");
+        SerializedEnvelope serializedEnvelope = SerializedEnvelope.of(message);
+
+        assertEquals(message.toProtoNetworkEnvelope().getSerializedSize(), serializedEnvelope.getSerializedSize());
+        assertArrayEquals(toDelimitedBytes(message), toDelimitedBytes(serializedEnvelope));
+    }
+
+    @Test
+    public void testBundleIsWrittenLikeProto() throws IOException {
+        BundleOfEnvelopes bundle = new BundleOfEnvelopes(List.of(new CloseConnectionMessage("a"),
+                new CloseConnectionMessage("b"),
+                new CloseConnectionMessage("c")));
+        SerializedEnvelope serializedEnvelope = SerializedEnvelope.of(bundle);
+
+        assertEquals(bundle.toProtoNetworkEnvelope().getSerializedSize(), serializedEnvelope.getSerializedSize());
+        assertArrayEquals(toDelimitedBytes(bundle), toDelimitedBytes(serializedEnvelope));
+    }
+
+    @Test
+    public void testFilterBundle() throws IOException {
+        CloseConnectionMessage a = new CloseConnectionMessage("a");
+        CloseConnectionMessage b = new CloseConnectionMessage("b");
+        SerializedEnvelope serializedEnvelope = SerializedEnvelope.of(new BundleOfEnvelopes(List.of(a, b)));
+
+        assertSame(serializedEnvelope, serializedEnvelope.filter(envelope -> true));
+        assertNull(serializedEnvelope.filter(envelope -> false));
+
+        SerializedEnvelope filtered = serializedEnvelope.filter(envelope -> envelope == b);
+        List<NetworkEnvelope> envelopes = ((BundleOfEnvelopes) filtered.getNetworkEnvelope()).getEnvelopes();
+        assertEquals(List.of(b), envelopes);
+        assertArrayEquals(toDelimitedBytes(new BundleOfEnvelopes(List.of(b))), toDelimitedBytes(filtered));
+        // The original is not changed, so it can be sent to other peers
+        assertEquals(2, ((BundleOfEnvelopes) serializedEnvelope.getNetworkEnvelope()).getEnvelopes().size());
+    }
+
+    private static byte[] toDelimitedBytes(NetworkEnvelope networkEnvelope) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        networkEnvelope.toProtoNetworkEnvelope().writeDelimitedTo(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] toDelimitedBytes(SerializedEnvelope serializedEnvelope) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        serializedEnvelope.writeDelimitedTo(outputStream);
+        return outputStream.toByteArray();
+    }
+}
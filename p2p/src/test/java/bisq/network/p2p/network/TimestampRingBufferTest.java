@@ -0,0 +1,50 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimestampRingBufferTest {
+
+    @Test
+    public void testKeepsMostRecentTimestamps() {
+        TimestampRingBuffer buffer = new TimestampRingBuffer(3);
+        buffer.add(1);
+        buffer.add(2);
+        assertEquals(2, buffer.size());
+        assertEquals(2, buffer.getRecent(0));
+        assertEquals(1, buffer.getRecent(1));
+
+        buffer.add(3);
+        buffer.add(4);
+        buffer.add(5);
+        assertEquals(3, buffer.size());
+        assertEquals(5, buffer.getRecent(0));
+        assertEquals(4, buffer.getRecent(1));
+        assertEquals(3, buffer.getRecent(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetRecentBeyondSize() {
+        TimestampRingBuffer buffer = new TimestampRingBuffer(3);
+        buffer.add(1);
+        buffer.getRecent(1);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.peers.getdata;
+
+import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
+import bisq.network.p2p.storage.mocks.PersistableNetworkPayloadStub;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import com.google.protobuf.ByteString;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GetDataResponseChunkerTest {
+
+    // Stub with a serialized size of about 100 bytes
+    static class SizedPayloadStub extends PersistableNetworkPayloadStub {
+        SizedPayloadStub(int index) {
+            super(ByteBuffer.allocate(96).putInt(index).array());
+        }
+
+        @Override
+        public protobuf.PersistableNetworkPayload toProtoMessage() {
+            return protobuf.PersistableNetworkPayload.newBuilder()
+                    .setAccountAgeWitness(protobuf.AccountAgeWitness.newBuilder()
+                            .setHash(ByteString.copyFrom(getHash())))
+                    .build();
+        }
+    }
+
+    @Test
+    public void testEmptyResponse() {
+        GetDataResponseChunker chunker = new GetDataResponseChunker(buildGetDataResponse(0), 1000);
+        assertTrue(chunker.hasNext());
+        GetDataResponse chunk = chunker.next();
+        assertEquals(0, chunk.getChunkIndex());
+        assertFalse(chunk.isMoreChunksFollow());
+        assertTrue(chunk.getPersistableNetworkPayloadSet().isEmpty());
+        assertFalse(chunker.hasNext());
+    }
+
+    @Test
+    public void testChunks() {
+        GetDataResponse getDataResponse = buildGetDataResponse(100);
+        GetDataResponseChunker chunker = new GetDataResponseChunker(getDataResponse, 1000);
+
+        List<GetDataResponse> chunks = new ArrayList<>();
+        while (chunker.hasNext()) {
+            chunks.add(chunker.next());
+        }
+
+        assertTrue(chunks.size() >= 10);
+        Set<PersistableNetworkPayload> received = new HashSet<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            GetDataResponse chunk = chunks.get(i);
+            assertEquals(i, chunk.getChunkIndex());
+            assertEquals(i < chunks.size() - 1, chunk.isMoreChunksFollow());
+            assertEquals(getDataResponse.getRequestNonce(), chunk.getRequestNonce());
+            int chunkSize = chunk.getPersistableNetworkPayloadSet().stream()
+                    .mapToInt(payload -> payload.toProtoMessage().getSerializedSize())
+                    .sum();
+            assertTrue(chunkSize <= 1000);
+            received.addAll(chunk.getPersistableNetworkPayloadSet());
+        }
+        assertEquals(getDataResponse.getPersistableNetworkPayloadSet(), received);
+    }
+
+    @Test
+    public void testEntryLargerThanMaxChunkSize() {
+        GetDataResponseChunker chunker = new GetDataResponseChunker(buildGetDataResponse(3), 10);
+        int numChunks = 0;
+        while (chunker.hasNext()) {
+            assertEquals(1, chunker.next().getPersistableNetworkPayloadSet().size());
+            numChunks++;
+        }
+        assertEquals(3, numChunks);
+    }
+
+    private static GetDataResponse buildGetDataResponse(int numPayloads) {
+        Set<PersistableNetworkPayload> payloads = new HashSet<>();
+        for (int i = 0; i < numPayloads; i++) {
+            payloads.add(new SizedPayloadStub(i));
+        }
+        return new GetDataResponse(new HashSet<>(), payloads, 1, false);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.peers.getdata.messages;
+
+import bisq.common.crypto.Hash;
+
+import com.google.protobuf.ByteString;
+
+import java.nio.ByteBuffer;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExcludedKeysFilterTest {
+
+    @Test
+    public void testNoFalseNegatives() {
+        Set<byte[]> keys = createKeys(0, 10_000);
+        ExcludedKeysFilter filter = ExcludedKeysFilter.fromKeys(keys);
+        keys.forEach(key -> assertTrue(filter.mightContain(key)));
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        ExcludedKeysFilter filter = ExcludedKeysFilter.fromKeys(createKeys(0, 10_000));
+        int numFalsePositives = 0;
+        for (byte[] key : createKeys(10_000, 110_000)) {
+            if (filter.mightContain(key)) {
+                numFalsePositives++;
+            }
+        }
+        // Expected are about 100 (0.1%)
+        assertTrue("numFalsePositives=" + numFalsePositives, numFalsePositives < 300);
+    }
+
+    @Test
+    public void testSize() {
+        ExcludedKeysFilter filter = ExcludedKeysFilter.fromKeys(createKeys(0, 100_000));
+        // About 1.8 bytes per key instead of 20 or 32 bytes for the raw hash
+        assertTrue(filter.getNumBytes() < 100_000 * 2);
+    }
+
+    @Test
+    public void testEmpty() {
+        ExcludedKeysFilter filter = ExcludedKeysFilter.fromKeys(new HashSet<>());
+        assertFalse(filter.mightContain(Hash.getSha256Hash(new byte[]{1})));
+    }
+
+    @Test
+    public void testProtoRoundTrip() {
+        Set<byte[]> keys = createKeys(0, 1000);
+        ExcludedKeysFilter filter = ExcludedKeysFilter.fromKeys(keys);
+        ExcludedKeysFilter fromProto = ExcludedKeysFilter.fromProto(filter.toProtoMessage());
+        assertEquals(filter, fromProto);
+        keys.forEach(key -> assertTrue(fromProto.mightContain(key)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidNumHashFunctions() {
+        ExcludedKeysFilter.fromProto(protobuf.ExcludedKeysFilter.newBuilder()
+                .setBits(ByteString.copyFrom(new byte[8]))
+                .setNumHashFunctions(1000)
+                .build());
+    }
+
+    private static Set<byte[]> createKeys(int from, int to) {
+        Set<byte[]> keys = new HashSet<>();
+        for (int i = from; i < to; i++) {
+            // We use 20 byte keys as the hashes of PersistableNetworkPayloads
+            byte[] hash = Hash.getSha256Hash(ByteBuffer.allocate(4).putInt(i).array());
+            keys.add(ByteBuffer.allocate(20).put(hash, 0, 20).array());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.common.crypto.Hash;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HashKeyedMapTest {
+    private final static Logger log = LoggerFactory.getLogger(HashKeyedMapTest.class);
+
+    @Test
+    public void testPutGetRemove() {
+        HashKeyedMap<String> map = new HashKeyedMap<>(20);
+        P2PDataStorage.ByteArray key = toHash(1);
+        assertNull(map.put(key, "a"));
+        assertEquals("a", map.put(key, "b"));
+        assertEquals("b", map.get(new P2PDataStorage.ByteArray(key.bytes.clone())));
+        assertTrue(map.containsKey(key));
+        assertEquals(1, map.size());
+
+        assertEquals("b", map.remove(key));
+        assertFalse(map.containsKey(key));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testKeysWithOtherLength() {
+        HashKeyedMap<String> map = new HashKeyedMap<>(20);
+        P2PDataStorage.ByteArray key = new P2PDataStorage.ByteArray(Hash.getSha256Hash(new byte[]{1}));
+        map.put(key, "a");
+        map.put(toHash(1), "b");
+        assertEquals("a", map.get(key));
+        assertEquals(2, map.size());
+        assertEquals(2, new HashMap<>(map).size());
+    }
+
+    // We compare with a HashMap after random operations. Keys with a common prefix cause collisions.
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(1);
+        List<P2PDataStorage.ByteArray> keys = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            byte[] bytes = new byte[20];
+            random.nextBytes(bytes);
+            if (i % 5 == 0) {
+                ByteBuffer.wrap(bytes).putLong(random.nextInt(4));
+            }
+            keys.add(new P2PDataStorage.ByteArray(bytes));
+        }
+
+        HashKeyedMap<Integer> map = new HashKeyedMap<>(20);
+        Map<P2PDataStorage.ByteArray, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            P2PDataStorage.ByteArray key = keys.get(random.nextInt(keys.size()));
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.put(key, i), map.put(key, i));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, new HashMap<>(map));
+    }
+
+    // Removing entries moves colliding entries into the freed slots, but each entry must still be iterated once
+    @Test
+    public void testIteratorRemove() {
+        Random random = new Random(2);
+        for (int round = 0; round < 20; round++) {
+            HashKeyedMap<Integer> map = new HashKeyedMap<>(20);
+            Map<P2PDataStorage.ByteArray, Integer> expected = new HashMap<>();
+            for (int i = 0; i < 500; i++) {
+                byte[] bytes = new byte[i % 50 == 0 ? 32 : 20];
+                random.nextBytes(bytes);
+                if (i % 3 == 0) {
+                    ByteBuffer.wrap(bytes).putLong(random.nextInt(8));
+                }
+                P2PDataStorage.ByteArray key = new P2PDataStorage.ByteArray(bytes);
+                map.put(key, i);
+                expected.put(key, i);
+            }
+
+            List<P2PDataStorage.ByteArray> iteratedKeys = new ArrayList<>();
+            Iterator<Map.Entry<P2PDataStorage.ByteArray, Integer>> iterator = map.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<P2PDataStorage.ByteArray, Integer> entry = iterator.next();
+                iteratedKeys.add(entry.getKey());
+                if (random.nextBoolean()) {
+                    iterator.remove();
+                    expected.remove(entry.getKey());
+                }
+            }
+            assertEquals(500, iteratedKeys.size());
+            assertEquals(500, new HashSet<>(iteratedKeys).size());
+            assertEquals(expected, new HashMap<>(map));
+            assertEquals(expected.size(), map.size());
+        }
+    }
+
+    @Test
+    public void testRemoveIfOnViews() {
+        HashKeyedMap<Integer> map = new HashKeyedMap<>(20);
+        for (int i = 0; i < 1000; i++) {
+            map.put(toHash(i), i);
+        }
+
+        map.values().removeIf(value -> value % 2 == 0);
+        assertEquals(500, map.size());
+        map.keySet().removeAll(List.of(toHash(1), toHash(3)));
+        map.entrySet().removeIf(entry -> entry.getValue() == 5);
+        assertEquals(497, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 1 && i > 5, map.containsKey(toHash(i)));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testIteratorRemoveTwice() {
+        HashKeyedMap<Integer> map = new HashKeyedMap<>(20);
+        map.put(toHash(1), 1);
+        Iterator<P2PDataStorage.ByteArray> iterator = map.keySet().iterator();
+        iterator.next();
+        iterator.remove();
+        iterator.remove();
+    }
+
+    // Not a unit test but a benchmark comparing HashKeyedMap with HashMap. Run manually.
+    @Ignore
+    @Test
+    public void testPerformanceAndFootprint() {
+        int numEntries = 500_000;
+        List<P2PDataStorage.ByteArray> keys = new ArrayList<>(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            keys.add(toHash(i));
+        }
+        Object value = new Object();
+
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int run = 0; run < 3; run++) {
+            long memoryBefore = getUsedMemory();
+            long ts = System.nanoTime();
+            Map<P2PDataStorage.ByteArray, Object> hashMap = new HashMap<>();
+            // We use copies of the keys as the map holds the keys of the payloads otherwise
+            keys.forEach(key -> hashMap.put(new P2PDataStorage.ByteArray(key.bytes.clone()), value));
+            long insertHashMap = System.nanoTime() - ts;
+            long footprintHashMap = getUsedMemory() - memoryBefore;
+            ts = System.nanoTime();
+            keys.forEach(hashMap::get);
+            long lookupHashMap = System.nanoTime() - ts;
+            hashMap.clear();
+
+            memoryBefore = getUsedMemory();
+            ts = System.nanoTime();
+            Map<P2PDataStorage.ByteArray, Object> hashKeyedMap = new HashKeyedMap<>(20);
+            keys.forEach(key -> hashKeyedMap.put(key, value));
+            long insertHashKeyedMap = System.nanoTime() - ts;
+            long footprintHashKeyedMap = getUsedMemory() - memoryBefore;
+            ts = System.nanoTime();
+            keys.forEach(hashKeyedMap::get);
+            long lookupHashKeyedMap = System.nanoTime() - ts;
+            hashKeyedMap.clear();
+
+            stringBuilder.append("\n").append(numEntries).append(" entries: HashMap insert ")
+                    .append(insertHashMap / 1_000_000).append(" ms, lookup ").append(lookupHashMap / 1_000_000)
+                    .append(" ms, footprint ").append(footprintHashMap / 1024).append(" kB; HashKeyedMap insert ")
+                    .append(insertHashKeyedMap / 1_000_000).append(" ms, lookup ").append(lookupHashKeyedMap / 1_000_000)
+                    .append(" ms, footprint ").append(footprintHashKeyedMap / 1024).append(" kB");
+        }
+        log.info(stringBuilder.toString());
+    }
+
+    private static long getUsedMemory() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static P2PDataStorage.ByteArray toHash(int value) {
+        byte[] hash = Hash.getSha256Hash(ByteBuffer.allocate(4).putInt(value).array());
+        return new P2PDataStorage.ByteArray(ByteBuffer.allocate(20).put(hash, 0, 20).array());
+    }
+}
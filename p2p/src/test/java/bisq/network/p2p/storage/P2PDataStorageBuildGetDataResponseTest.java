@@ -20,6 +20,7 @@ package bisq.network.p2p.storage;
 import bisq.network.p2p.NodeAddress;
 import bisq.network.p2p.TestUtils;
 import bisq.network.p2p.network.NetworkNode;
+import bisq.network.p2p.peers.getdata.messages.ExcludedKeysFilter;
 import bisq.network.p2p.peers.getdata.messages.GetDataRequest;
 import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
 import bisq.network.p2p.peers.getdata.messages.GetUpdatedDataRequest;
@@ -27,6 +28,7 @@ import bisq.network.p2p.peers.getdata.messages.PreliminaryGetDataRequest;
 import bisq.network.p2p.storage.mocks.PersistableNetworkPayloadStub;
 import bisq.network.p2p.storage.payload.CapabilityRequiringPayload;
 import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+import bisq.network.p2p.storage.payload.ProtectedMailboxStorageEntry;
 import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
 import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
 
@@ -41,6 +43,7 @@ import java.security.NoSuchAlgorithmException;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -63,6 +66,10 @@ public class P2PDataStorageBuildGetDataResponseTest {
 
         abstract GetDataRequest buildGetDataRequest(int nonce, Set<byte[]> knownKeys);
 
+        abstract GetDataRequest buildGetDataRequest(int nonce,
+                                                    Set<byte[]> knownKeys,
+                                                    ExcludedKeysFilter excludedKeysFilter);
+
         @Mock
         NetworkNode networkNode;
 
@@ -135,6 +142,19 @@ public class P2PDataStorageBuildGetDataResponseTest {
             return stub;
         }
 
+        private ProtectedStorageEntry getProtectedMailboxStorageEntry() throws NoSuchAlgorithmException {
+            KeyPair ownerKeys = TestUtils.generateKeyPair();
+            ProtectedStoragePayload protectedStoragePayload = mock(ProtectedStoragePayload.class);
+            Message messageMock = mock(Message.class);
+            when(messageMock.toByteArray()).thenReturn(Sig.getPublicKeyBytes(ownerKeys.getPublic()));
+            when(protectedStoragePayload.toProtoMessage()).thenReturn(messageMock);
+
+            ProtectedMailboxStorageEntry stub = mock(ProtectedMailboxStorageEntry.class);
+            when(stub.getOwnerPubKey()).thenReturn(ownerKeys.getPublic());
+            when(stub.getProtectedStoragePayload()).thenReturn(protectedStoragePayload);
+            return stub;
+        }
+
         // TESTCASE: Given a GetDataRequest w/ unknown PNP, nothing is sent back
         @Test
         public void buildGetDataResponse_unknownPNPDoNothing() {
@@ -462,10 +482,87 @@ public class P2PDataStorageBuildGetDataResponseTest {
             Assert.assertTrue(getDataResponse.getPersistableNetworkPayloadSet().isEmpty());
             Assert.assertTrue(getDataResponse.getDataSet().contains(onlyLocal));
         }
+
+        // TESTCASE: Given a GetDataRequest w/ PSE in the excluded keys filter, nothing is sent back
+        @Test
+        public void buildGetDataResponse_PSEInFilterDoNothing() throws NoSuchAlgorithmException {
+            ProtectedStorageEntry fromPeerAndLocal = getProtectedStorageEntryForAdd();
+            this.testState.mockedStorage.addProtectedStorageEntry(
+                    fromPeerAndLocal, this.localNodeAddress, null);
+
+            ExcludedKeysFilter excludedKeysFilter = ExcludedKeysFilter.fromKeys(
+                    List.of(P2PDataStorage.get32ByteHash(fromPeerAndLocal.getProtectedStoragePayload())));
+            GetDataRequest getDataRequest = this.buildGetDataRequest(1, new HashSet<>(), excludedKeysFilter);
+
+            GetDataResponse getDataResponse = this.testState.mockedStorage.buildGetDataResponse(
+                    getDataRequest, 1, new AtomicBoolean(false), new AtomicBoolean(false), new Capabilities());
+
+            Assert.assertTrue(getDataResponse.getDataSet().isEmpty());
+        }
+
+        // TESTCASE: Given a GetDataRequest w/ an unknown mailbox entry matching the excluded keys filter (as a false
+        // positive would), send it back as only the exact keys are used for mailbox entries
+        @Test
+        public void buildGetDataResponse_unknownMailboxEntryInFilterSendBack() throws NoSuchAlgorithmException {
+            ProtectedStorageEntry onlyLocal = getProtectedMailboxStorageEntry();
+            this.testState.mockedStorage.addProtectedMailboxStorageEntryToMap(onlyLocal);
+
+            ExcludedKeysFilter excludedKeysFilter = ExcludedKeysFilter.fromKeys(
+                    List.of(P2PDataStorage.get32ByteHash(onlyLocal.getProtectedStoragePayload())));
+            GetDataRequest getDataRequest = this.buildGetDataRequest(1, new HashSet<>(), excludedKeysFilter);
+
+            GetDataResponse getDataResponse = this.testState.mockedStorage.buildGetDataResponse(
+                    getDataRequest, 1, new AtomicBoolean(false), new AtomicBoolean(false), new Capabilities());
+
+            Assert.assertTrue(getDataResponse.getDataSet().contains(onlyLocal));
+        }
+
+        // TESTCASE: Given a GetDataRequest w/ a known mailbox entry in the exact keys, nothing is sent back
+        @Test
+        public void buildGetDataResponse_knownMailboxEntryWithFilterDoNothing() throws NoSuchAlgorithmException {
+            ProtectedStorageEntry fromPeerAndLocal = getProtectedMailboxStorageEntry();
+            this.testState.mockedStorage.addProtectedMailboxStorageEntryToMap(fromPeerAndLocal);
+
+            byte[] hash = P2PDataStorage.get32ByteHash(fromPeerAndLocal.getProtectedStoragePayload());
+            GetDataRequest getDataRequest = this.buildGetDataRequest(1,
+                    new HashSet<>(Collections.singletonList(hash)),
+                    ExcludedKeysFilter.fromKeys(List.of()));
+
+            GetDataResponse getDataResponse = this.testState.mockedStorage.buildGetDataResponse(
+                    getDataRequest, 1, new AtomicBoolean(false), new AtomicBoolean(false), new Capabilities());
+
+            Assert.assertTrue(getDataResponse.getDataSet().isEmpty());
+        }
+
+        // TESTCASE: The requester sends the hashes of its mailbox entries as exact keys and all others in the filter
+        @Test
+        public void buildGetDataRequest_mailboxEntriesAsExactKeys() throws NoSuchAlgorithmException {
+            ProtectedStorageEntry mailboxEntry = getProtectedMailboxStorageEntry();
+            this.testState.mockedStorage.addProtectedMailboxStorageEntryToMap(mailboxEntry);
+            ProtectedStorageEntry protectedStorageEntry = getProtectedStorageEntryForAdd();
+            this.testState.mockedStorage.addProtectedStorageEntry(
+                    protectedStorageEntry, this.localNodeAddress, null);
+
+            GetDataRequest getDataRequest = this.testState.mockedStorage.buildPreliminaryGetDataRequest(1, true);
+
+            byte[] mailboxEntryHash = P2PDataStorage.get32ByteHash(mailboxEntry.getProtectedStoragePayload());
+            byte[] protectedStorageEntryHash =
+                    P2PDataStorage.get32ByteHash(protectedStorageEntry.getProtectedStoragePayload());
+            Assert.assertEquals(1, getDataRequest.getExcludedKeys().size());
+            Assert.assertArrayEquals(mailboxEntryHash, getDataRequest.getExcludedKeys().iterator().next());
+            Assert.assertTrue(getDataRequest.getExcludedKeysFilter().mightContain(protectedStorageEntryHash));
+        }
     }
 
     public static class P2PDataStorageBuildGetDataResponseTestPreliminary extends P2PDataStorageBuildGetDataResponseTestBase {
 
+        @Override
+        GetDataRequest buildGetDataRequest(int nonce,
+                                           Set<byte[]> knownKeys,
+                                           ExcludedKeysFilter excludedKeysFilter) {
+            return new PreliminaryGetDataRequest(nonce, knownKeys, excludedKeysFilter);
+        }
+
         @Override
         GetDataRequest buildGetDataRequest(int nonce, Set<byte[]> knownKeys) {
             return new PreliminaryGetDataRequest(nonce, knownKeys);
@@ -474,6 +571,13 @@ public class P2PDataStorageBuildGetDataResponseTest {
 
     public static class P2PDataStorageBuildGetDataResponseTestUpdated extends P2PDataStorageBuildGetDataResponseTestBase {
 
+        @Override
+        GetDataRequest buildGetDataRequest(int nonce,
+                                           Set<byte[]> knownKeys,
+                                           ExcludedKeysFilter excludedKeysFilter) {
+            return new GetUpdatedDataRequest(new NodeAddress("peer", 10), nonce, knownKeys, excludedKeysFilter);
+        }
+
         @Override
         GetDataRequest buildGetDataRequest(int nonce, Set<byte[]> knownKeys) {
             return new GetUpdatedDataRequest(new NodeAddress("peer", 10), nonce, knownKeys);
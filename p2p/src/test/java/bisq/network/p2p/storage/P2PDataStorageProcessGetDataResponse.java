@@ -30,19 +30,28 @@ import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockitoAnnotations;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import org.mockito.MockitoAnnotations;
-
 public class P2PDataStorageProcessGetDataResponse {
     private TestState testState;
 
@@ -74,6 +83,18 @@ public class P2PDataStorageProcessGetDataResponse {
                 false);
     }
 
+    static private GetDataResponse buildGetDataResponseChunk(PersistableNetworkPayload persistableNetworkPayload,
+                                                             int chunkIndex,
+                                                             boolean moreChunksFollow) {
+        return new GetDataResponse(
+                new HashSet<>(),
+                new HashSet<>(Collections.singletonList(persistableNetworkPayload)),
+                1,
+                false,
+                chunkIndex,
+                moreChunksFollow);
+    }
+
     /**
      * Generates a unique ProtectedStorageEntry that is valid for add. This is used to initialize P2PDataStorage state
      * so the tests can validate the correct behavior. Adds of identical payloads with different sequence numbers
@@ -214,6 +235,75 @@ public class P2PDataStorageProcessGetDataResponse {
                 beforeState, addFromSecondProcess, false, false, false);
     }
 
+    // TESTCASE: All chunks of the first GetDataResponse add ProcessOncePersistableNetworkPayloads, a later response
+    // does not (LazyProcessed)
+    @Test
+    public void processGetDataResponse_allChunksOfFirstResponseUpdateState_LazyProcessed() {
+        PersistableNetworkPayload fromFirstChunk = new LazyPersistableNetworkPayloadStub(new byte[] { 1 });
+        PersistableNetworkPayload fromSecondChunk = new LazyPersistableNetworkPayloadStub(new byte[] { 2 });
+        PersistableNetworkPayload fromLastChunk = new LazyPersistableNetworkPayloadStub(new byte[] { 3 });
+        PersistableNetworkPayload fromLaterResponse = new LazyPersistableNetworkPayloadStub(new byte[] { 4 });
+
+        TestState.SavedTestState beforeState = this.testState.saveTestState(fromFirstChunk);
+        this.testState.mockedStorage.processGetDataResponse(
+                buildGetDataResponseChunk(fromFirstChunk, 0, true), this.peerNodeAddress);
+        this.testState.verifyPersistableAdd(beforeState, fromFirstChunk, true, false, false);
+
+        beforeState = this.testState.saveTestState(fromSecondChunk);
+        this.testState.mockedStorage.processGetDataResponse(
+                buildGetDataResponseChunk(fromSecondChunk, 1, true), this.peerNodeAddress);
+        this.testState.verifyPersistableAdd(beforeState, fromSecondChunk, true, false, false);
+
+        beforeState = this.testState.saveTestState(fromLastChunk);
+        this.testState.mockedStorage.processGetDataResponse(
+                buildGetDataResponseChunk(fromLastChunk, 2, false), this.peerNodeAddress);
+        this.testState.verifyPersistableAdd(beforeState, fromLastChunk, true, false, false);
+
+        beforeState = this.testState.saveTestState(fromLaterResponse);
+        this.testState.mockedStorage.processGetDataResponse(
+                buildGetDataResponse(fromLaterResponse), this.peerNodeAddress);
+        this.testState.verifyPersistableAdd(beforeState, fromLaterResponse, false, false, false);
+    }
+
+    // TESTCASE: A chunk of another peer arriving while the first response is applied does not add
+    // ProcessOncePersistableNetworkPayloads (LazyProcessed)
+    @Test
+    public void processGetDataResponse_chunkOfOtherPeerNoPNPUpdates_LazyProcessed() {
+        PersistableNetworkPayload fromFirstPeer = new LazyPersistableNetworkPayloadStub(new byte[] { 1 });
+        PersistableNetworkPayload fromOtherPeer = new LazyPersistableNetworkPayloadStub(new byte[] { 2 });
+        PersistableNetworkPayload fromFirstPeerLastChunk = new LazyPersistableNetworkPayloadStub(new byte[] { 3 });
+
+        this.testState.mockedStorage.processGetDataResponse(
+                buildGetDataResponseChunk(fromFirstPeer, 0, true), this.peerNodeAddress);
+
+        TestState.SavedTestState beforeState = this.testState.saveTestState(fromOtherPeer);
+        this.testState.mockedStorage.processGetDataResponse(
+                buildGetDataResponseChunk(fromOtherPeer, 0, true), new NodeAddress("otherPeer", 8080));
+        this.testState.verifyPersistableAdd(beforeState, fromOtherPeer, false, false, false);
+
+        beforeState = this.testState.saveTestState(fromFirstPeerLastChunk);
+        this.testState.mockedStorage.processGetDataResponse(
+                buildGetDataResponseChunk(fromFirstPeerLastChunk, 1, false), this.peerNodeAddress);
+        this.testState.verifyPersistableAdd(beforeState, fromFirstPeerLastChunk, true, false, false);
+    }
+
+    // TESTCASE: If the chunked response of the first peer gets aborted the response of the next peer adds
+    // ProcessOncePersistableNetworkPayloads (LazyProcessed)
+    @Test
+    public void processGetDataResponse_abortedFirstResponseNextPeerUpdatesState_LazyProcessed() {
+        PersistableNetworkPayload fromFirstPeer = new LazyPersistableNetworkPayloadStub(new byte[] { 1 });
+        PersistableNetworkPayload fromNextPeer = new LazyPersistableNetworkPayloadStub(new byte[] { 2 });
+
+        this.testState.mockedStorage.processGetDataResponse(
+                buildGetDataResponseChunk(fromFirstPeer, 0, true), this.peerNodeAddress);
+        this.testState.mockedStorage.onGetDataResponseAborted(this.peerNodeAddress);
+
+        TestState.SavedTestState beforeState = this.testState.saveTestState(fromNextPeer);
+        this.testState.mockedStorage.processGetDataResponse(
+                buildGetDataResponse(fromNextPeer), new NodeAddress("nextPeer", 8080));
+        this.testState.verifyPersistableAdd(beforeState, fromNextPeer, true, false, false);
+    }
+
     // TESTCASE: GetDataResponse w/ missing PSE is added with no broadcast or listener signal
     // XXXBUGXXX: We signal listeners for all ProtectedStorageEntrys
     @Test
@@ -260,4 +350,26 @@ public class P2PDataStorageProcessGetDataResponse {
         this.testState.verifyProtectedStorageAdd(
                 beforeState, protectedStorageEntry, true, true, false, true);
     }
+
+    // TESTCASE: processGetDataResponseAsync adds all PSEs and signals the listeners once with all of them
+    @Test
+    public void processGetDataResponseAsync_newPSEsSignalListenersOnce() throws Exception {
+        List<ProtectedStorageEntry> protectedStorageEntries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            protectedStorageEntries.add(getProtectedStorageEntryForAdd());
+        }
+        HashMapChangedListener hashMapChangedListener = mock(HashMapChangedListener.class);
+        this.testState.mockedStorage.addHashMapChangedListener(hashMapChangedListener);
+
+        GetDataResponse getDataResponse = buildGetDataResponse(protectedStorageEntries, Collections.emptyList());
+        CountDownLatch latch = new CountDownLatch(1);
+        this.testState.mockedStorage.processGetDataResponseAsync(getDataResponse, this.peerNodeAddress, latch::countDown);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        final ArgumentCaptor<Collection<ProtectedStorageEntry>> argument = ArgumentCaptor.forClass(Collection.class);
+        verify(hashMapChangedListener, times(1)).onAdded(argument.capture());
+        assertEquals(new HashSet<>(protectedStorageEntries), new HashSet<>(argument.getValue()));
+        protectedStorageEntries.forEach(entry ->
+                assertTrue(this.testState.mockedStorage.getMap().containsValue(entry)));
+    }
 }
@@ -0,0 +1,202 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.storage.mocks.AppendOnlyDataStoreServiceFake;
+import bisq.network.p2p.storage.mocks.PersistableNetworkPayloadStub;
+import bisq.network.p2p.storage.payload.CapabilityRequiringPayload;
+import bisq.network.p2p.storage.payload.DateSortedTruncatablePayload;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import bisq.common.app.Capabilities;
+import bisq.common.app.Capability;
+
+import java.nio.ByteBuffer;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PersistableNetworkPayloadIndexTest {
+    private final static Logger log = LoggerFactory.getLogger(PersistableNetworkPayloadIndexTest.class);
+
+    static class DateSortedPayloadStub extends PersistableNetworkPayloadStub implements DateSortedTruncatablePayload {
+        private final Date date;
+        private final int maxItems;
+
+        DateSortedPayloadStub(byte[] hash, long date, int maxItems) {
+            super(hash);
+            this.date = new Date(date);
+            this.maxItems = maxItems;
+        }
+
+        @Override
+        public Date getDate() {
+            return date;
+        }
+
+        @Override
+        public int maxItems() {
+            return maxItems;
+        }
+    }
+
+    static class CapabilityRequiringPayloadStub extends PersistableNetworkPayloadStub implements CapabilityRequiringPayload {
+        private final Capabilities capabilities;
+
+        CapabilityRequiringPayloadStub(byte[] hash, Capabilities capabilities) {
+            super(hash);
+            this.capabilities = capabilities;
+        }
+
+        @Override
+        public Capabilities getRequiredCapabilities() {
+            return capabilities;
+        }
+    }
+
+    private AppendOnlyDataStoreServiceFake appendOnlyDataStoreService;
+    private PersistableNetworkPayloadIndex index;
+
+    @Before
+    public void setup() {
+        appendOnlyDataStoreService = new AppendOnlyDataStoreServiceFake();
+        index = new PersistableNetworkPayloadIndex();
+    }
+
+    @Test
+    public void testFilterKnownHashes() {
+        PersistableNetworkPayload known = put(new PersistableNetworkPayloadStub(toHash(1)));
+        PersistableNetworkPayload unknown = put(new PersistableNetworkPayloadStub(toHash(2)));
+        index.rebuild(appendOnlyDataStoreService);
+
+        AtomicBoolean truncated = new AtomicBoolean();
+        List<PersistableNetworkPayload> result = index.getPayloadsForDataResponse(null,
+                Set.of(new P2PDataStorage.ByteArray(known.getHash()))::contains,
+                new Capabilities(),
+                100,
+                truncated);
+        assertEquals(List.of(unknown), result);
+        assertFalse(truncated.get());
+    }
+
+    @Test
+    public void testCapabilities() {
+        put(new CapabilityRequiringPayloadStub(toHash(1), new Capabilities(Capability.MEDIATION)));
+        index.rebuild(appendOnlyDataStoreService);
+
+        assertTrue(getPayloads(new Capabilities(), 100).isEmpty());
+        assertEquals(1, getPayloads(new Capabilities(Capability.MEDIATION), 100).size());
+    }
+
+    @Test
+    public void testAddAfterRebuild() {
+        index.rebuild(appendOnlyDataStoreService);
+        PersistableNetworkPayload payload = put(new PersistableNetworkPayloadStub(toHash(1)));
+        index.add(new P2PDataStorage.ByteArray(payload.getHash()), payload);
+
+        assertEquals(1, index.getNumLiveEntries());
+        assertEquals(List.of(payload), getPayloads(new Capabilities(), 100));
+    }
+
+    @Test
+    public void testDateSortedTruncation() {
+        // We add them in reverse order to ensure sorting is applied
+        for (int i = 9; i >= 0; i--) {
+            put(new DateSortedPayloadStub(toHash(i), i * 1000L, 3));
+        }
+        PersistableNetworkPayload regular = put(new PersistableNetworkPayloadStub(toHash(100)));
+        index.rebuild(appendOnlyDataStoreService);
+
+        List<PersistableNetworkPayload> result = getPayloads(new Capabilities(), 100);
+        // The non date sorted payloads come first, then the 3 most recent date sorted ones in ascending order
+        assertEquals(4, result.size());
+        assertEquals(regular, result.get(0));
+        assertEquals(7000L, ((DateSortedTruncatablePayload) result.get(1)).getDate().getTime());
+        assertEquals(8000L, ((DateSortedTruncatablePayload) result.get(2)).getDate().getTime());
+        assertEquals(9000L, ((DateSortedTruncatablePayload) result.get(3)).getDate().getTime());
+
+        AtomicBoolean truncated = new AtomicBoolean();
+        result = index.getPayloadsForDataResponse(null, hash -> false, new Capabilities(), 2, truncated);
+        assertEquals(2, result.size());
+        assertEquals(regular, result.get(0));
+        assertTrue(truncated.get());
+    }
+
+    // Not a unit test but a benchmark for building the response data from the index. Run manually.
+    @Ignore
+    @Test
+    public void testBuildResponsePerformance() {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int numEntries : new int[]{50_000, 200_000, 500_000}) {
+            setup();
+            Set<P2PDataStorage.ByteArray> knownHashes = new HashSet<>();
+            for (int i = 0; i < numEntries; i++) {
+                PersistableNetworkPayload payload = i % 2 == 0 ?
+                        new PersistableNetworkPayloadStub(toHash(i)) :
+                        new DateSortedPayloadStub(toHash(i), i, 3000);
+                put(payload);
+                // The requester knows about 90% of the data
+                if (i % 10 != 0) {
+                    knownHashes.add(new P2PDataStorage.ByteArray(payload.getHash()));
+                }
+            }
+            long ts = System.currentTimeMillis();
+            index.rebuild(appendOnlyDataStoreService);
+            long rebuildDuration = System.currentTimeMillis() - ts;
+
+            int numRuns = 20;
+            ts = System.currentTimeMillis();
+            for (int i = 0; i < numRuns; i++) {
+                index.getPayloadsForDataResponse(null, knownHashes::contains, new Capabilities(), 10_000,
+                        new AtomicBoolean());
+            }
+            stringBuilder.append("\nBuilding response data from ").append(numEntries)
+                    .append(" entries took ").append((System.currentTimeMillis() - ts) / (double) numRuns)
+                    .append(" ms in average. Rebuilding the index took ").append(rebuildDuration).append(" ms.");
+        }
+        log.info(stringBuilder.toString());
+    }
+
+    private List<PersistableNetworkPayload> getPayloads(Capabilities peerCapabilities, int maxEntries) {
+        return index.getPayloadsForDataResponse(null, hash -> false, peerCapabilities, maxEntries,
+                new AtomicBoolean());
+    }
+
+    private PersistableNetworkPayload put(PersistableNetworkPayload payload) {
+        appendOnlyDataStoreService.put(new P2PDataStorage.ByteArray(payload.getHash()), payload);
+        return payload;
+    }
+
+    private static byte[] toHash(int value) {
+        return ByteBuffer.allocate(20).putInt(value).array();
+    }
+}
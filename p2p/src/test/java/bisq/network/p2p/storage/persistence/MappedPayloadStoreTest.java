@@ -0,0 +1,134 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static bisq.network.p2p.storage.persistence.PersistableNetworkPayloadLogTest.PROTO_RESOLVER;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MappedPayloadStoreTest {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("mappedPayloadStore", null).toFile();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testLookup() throws IOException {
+        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> payloads = createPayloads(1000);
+        MappedPayloadStore.write(file, payloads);
+        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map = MappedPayloadStore.read(file, PROTO_RESOLVER).getMap();
+
+        assertEquals(1000, map.size());
+        payloads.keySet().forEach(hash -> {
+            assertTrue(map.containsKey(hash));
+            assertArrayEquals(hash.bytes, map.get(hash).getHash());
+        });
+        P2PDataStorage.ByteArray unknownHash = createHash(1000);
+        assertFalse(map.containsKey(unknownHash));
+        assertNull(map.get(unknownHash));
+        assertFalse(map.containsKey(new P2PDataStorage.ByteArray(new byte[]{1})));
+    }
+
+    @Test
+    public void testIteration() throws IOException {
+        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> payloads = createPayloads(100);
+        MappedPayloadStore.write(file, payloads);
+        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map = MappedPayloadStore.read(file, PROTO_RESOLVER).getMap();
+
+        assertEquals(payloads.keySet(), new HashSet<>(map.keySet()));
+        map.forEach((hash, payload) -> assertArrayEquals(hash.bytes, payload.getHash()));
+    }
+
+    @Test
+    public void testDecodedPayloadsAreCached() throws IOException {
+        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> payloads = createPayloads(10);
+        MappedPayloadStore.write(file, payloads);
+        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map = MappedPayloadStore.read(file, PROTO_RESOLVER).getMap();
+
+        P2PDataStorage.ByteArray hash = createHash(3);
+        PersistableNetworkPayload payload = map.get(hash);
+        assertSame(payload, map.get(hash));
+        map.entrySet().stream()
+                .filter(entry -> entry.getKey().equals(hash))
+                .forEach(entry -> assertSame(payload, entry.getValue()));
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        MappedPayloadStore.write(file, new HashMap<>());
+        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map = MappedPayloadStore.read(file, PROTO_RESOLVER).getMap();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(createHash(0)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() throws IOException {
+        MappedPayloadStore.write(file, createPayloads(1));
+        MappedPayloadStore.read(file, PROTO_RESOLVER).getMap().remove(createHash(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidFile() throws IOException {
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(new byte[100]);
+        }
+        MappedPayloadStore.read(file, PROTO_RESOLVER);
+    }
+
+    private static Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> createPayloads(int numPayloads) {
+        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> payloads = new HashMap<>();
+        for (int i = 0; i < numPayloads; i++) {
+            P2PDataStorage.ByteArray hash = createHash(i);
+            payloads.put(hash, new PersistableNetworkPayloadLogTest.SerializablePayloadStub(hash.bytes));
+        }
+        return payloads;
+    }
+
+    private static P2PDataStorage.ByteArray createHash(int index) {
+        return new P2PDataStorage.ByteArray(ByteBuffer.allocate(20).putInt(index * 7919).array());
+    }
+}
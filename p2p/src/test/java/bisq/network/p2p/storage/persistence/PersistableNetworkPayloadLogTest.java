@@ -0,0 +1,166 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.network.p2p.storage.mocks.PersistableNetworkPayloadStub;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import bisq.common.Payload;
+import bisq.common.proto.ProtoResolver;
+import bisq.common.proto.persistable.PersistablePayload;
+
+import com.google.protobuf.ByteString;
+
+import java.nio.file.Files;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PersistableNetworkPayloadLogTest {
+    private static final String STORE_FILE_NAME = "TestStore";
+
+    static class SerializablePayloadStub extends PersistableNetworkPayloadStub {
+        SerializablePayloadStub(byte[] hash) {
+            super(hash);
+        }
+
+        @Override
+        public protobuf.PersistableNetworkPayload toProtoMessage() {
+            return protobuf.PersistableNetworkPayload.newBuilder()
+                    .setAccountAgeWitness(protobuf.AccountAgeWitness.newBuilder()
+                            .setHash(ByteString.copyFrom(getHash())))
+                    .build();
+        }
+    }
+
+    static final ProtoResolver PROTO_RESOLVER = new ProtoResolver() {
+        @Override
+        public Payload fromProto(protobuf.PaymentAccountPayload proto) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PersistablePayload fromProto(protobuf.PersistableNetworkPayload proto) {
+            return new SerializablePayloadStub(proto.getAccountAgeWitness().getHash().toByteArray());
+        }
+    };
+
+    private File dir;
+    private PersistableNetworkPayloadLog payloadLog;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("payloadLog").toFile();
+        payloadLog = new PersistableNetworkPayloadLog(dir, STORE_FILE_NAME, PROTO_RESOLVER);
+    }
+
+    @After
+    public void tearDown() {
+        payloadLog.shutDown();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testAppendAndReadAtNextStartup() {
+        for (int i = 0; i < 10; i++) {
+            payloadLog.append(new SerializablePayloadStub(new byte[]{(byte) i}));
+        }
+        payloadLog.shutDown();
+
+        payloadLog = new PersistableNetworkPayloadLog(dir, STORE_FILE_NAME, PROTO_RESOLVER);
+        List<PersistableNetworkPayload> payloads = payloadLog.readAll();
+        assertEquals(10, payloads.size());
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(new byte[]{(byte) i}, payloads.get(i).getHash());
+        }
+        assertEquals(10, payloadLog.getNumRecords());
+    }
+
+    @Test
+    public void testAllPayloadsAreReadAfterShutDown() {
+        payloadLog.append(new SerializablePayloadStub(new byte[]{1}));
+        payloadLog.rotate();
+        payloadLog.append(new SerializablePayloadStub(new byte[]{2}));
+        payloadLog.shutDown();
+        // Data added by other services while shutting down is still written
+        payloadLog.append(new SerializablePayloadStub(new byte[]{3}));
+        payloadLog.shutDown();
+
+        payloadLog = new PersistableNetworkPayloadLog(dir, STORE_FILE_NAME, PROTO_RESOLVER);
+        List<PersistableNetworkPayload> payloads = payloadLog.readAll();
+        assertEquals(3, payloads.size());
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(new byte[]{(byte) (i + 1)}, payloads.get(i).getHash());
+        }
+    }
+
+    @Test
+    public void testDeleteSegmentsUpToRotatedSegment() {
+        payloadLog.append(new SerializablePayloadStub(new byte[]{1}));
+        int lastSegmentNumber = payloadLog.rotate();
+        payloadLog.append(new SerializablePayloadStub(new byte[]{2}));
+        assertEquals(2, payloadLog.getNumSegments());
+
+        payloadLog.deleteSegmentsUpTo(lastSegmentNumber);
+        assertEquals(1, payloadLog.getNumSegments());
+        assertEquals(1, payloadLog.getNumRecords());
+        payloadLog.shutDown();
+
+        payloadLog = new PersistableNetworkPayloadLog(dir, STORE_FILE_NAME, PROTO_RESOLVER);
+        List<PersistableNetworkPayload> payloads = payloadLog.readAll();
+        assertEquals(1, payloads.size());
+        assertArrayEquals(new byte[]{2}, payloads.get(0).getHash());
+    }
+
+    @Test
+    public void testIncompleteRecordIsSkipped() throws IOException {
+        payloadLog.append(new SerializablePayloadStub(new byte[]{1}));
+        payloadLog.append(new SerializablePayloadStub(new byte[]{2}));
+        payloadLog.shutDown();
+
+        // Simulate a crash while writing a record: The length prefix announces more bytes than written
+        try (FileOutputStream outputStream = new FileOutputStream(new File(dir, STORE_FILE_NAME + "_log_0"), true)) {
+            outputStream.write(new byte[]{50, 1, 2});
+        }
+
+        payloadLog = new PersistableNetworkPayloadLog(dir, STORE_FILE_NAME, PROTO_RESOLVER);
+        assertEquals(2, payloadLog.readAll().size());
+
+        // New data goes to a new segment
+        payloadLog.append(new SerializablePayloadStub(new byte[]{3}));
+        payloadLog.shutDown();
+        payloadLog = new PersistableNetworkPayloadLog(dir, STORE_FILE_NAME, PROTO_RESOLVER);
+        assertEquals(3, payloadLog.readAll().size());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class UnionMapViewTest {
+
+    @Test
+    public void testSizeWithDuplicateKeys() {
+        Map<Integer, String> first = Map.of(1, "a", 2, "b");
+        Map<Integer, String> second = Map.of(2, "c", 3, "d");
+        Map<Integer, String> third = Map.of(1, "e", 4, "f");
+        UnionMapView<Integer, String> view = new UnionMapView<>(List.of(first, second, third));
+
+        assertEquals(4, view.size());
+        assertEquals(4, view.entrySet().size());
+        assertEquals("b", view.get(2));
+        assertEquals(Map.of(1, "a", 2, "b", 3, "d", 4, "f"), new HashMap<>(view));
+    }
+
+    @Test
+    public void testSizeReflectsChangesOfMutableMap() {
+        Map<Integer, String> mutableMap = new HashMap<>();
+        UnionMapView<Integer, String> view = new UnionMapView<>(mutableMap,
+                List.of(Map.of(1, "a", 2, "b"), Map.of(2, "c", 3, "d")));
+        assertEquals(3, view.size());
+
+        mutableMap.put(4, "e");
+        assertEquals(4, view.size());
+
+        // A key which is in the fixed maps as well is only counted once
+        mutableMap.put(1, "f");
+        assertEquals(4, view.size());
+        assertEquals("f", view.get(1));
+
+        mutableMap.clear();
+        assertEquals(3, view.size());
+        assertEquals("a", view.get(1));
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.relay;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a gateway which accepts all notifications after a fixed latency. Used for load tests of the relay
+ * without sending real notifications.
+ */
+class FakePushSender implements PushSender {
+    private final long latencyMs;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FakePushSender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    FakePushSender(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    @Override
+    public CompletableFuture<String> send(PushRequest pushRequest) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        executor.schedule(() -> future.complete(SUCCESS), latencyMs, TimeUnit.MILLISECONDS);
+        return future;
+    }
+}
@@ -37,7 +37,9 @@ import static spark.Spark.port;
 public class RelayMain {
     private static final Logger log = LoggerFactory.getLogger(RelayMain.class);
     private static final String VERSION = "0.1.0";
-    private static RelayService relayService;
+    // Set the system property to a latency in ms to use a fake gateway instead of APNs and FCM for load tests
+    private static final String FAKE_GATEWAY_LATENCY_MS = "fakeGatewayLatencyMs";
+    private static RelayQueue relayQueue;
 
     static {
         // Need to set default locale initially otherwise we get problems at non-English OS
@@ -87,9 +89,20 @@ public class RelayMain {
 
         port(port);
 
-        relayService = new RelayService(appleCertPwPath, appleCertPath, appleBundleId, androidCertPath);
+        PushSender pushSender;
+        String fakeGatewayLatencyMs = System.getProperty(FAKE_GATEWAY_LATENCY_MS);
+        if (fakeGatewayLatencyMs != null) {
+            log.warn("We use a fake gateway with a latency of {} ms. No notifications will be sent.", fakeGatewayLatencyMs);
+            pushSender = new FakePushSender(Long.parseLong(fakeGatewayLatencyMs));
+        } else {
+            pushSender = new RelayService(appleCertPwPath, appleCertPath, appleBundleId, androidCertPath);
+        }
+        relayQueue = new RelayQueue(pushSender);
+        relayQueue.start();
 
         handleRelay();
+        handleStatus();
+        handleMetrics();
 
         keepRunning();
     }
@@ -103,13 +116,35 @@ public class RelayMain {
             String encryptedMessage = new String(Hex.decodeHex(request.queryParams("msg").toCharArray()), "UTF-8");
             log.info("isAndroid={}\nuseSound={}\napsTokenHex={}\nencryptedMessage={}", isAndroid, useSound, token,
                 encryptedMessage);
-            if (isAndroid) {
-                return relayService.sendAndroidMessage(token, encryptedMessage, useSound);
-            } else {
-                boolean isProduction = request.queryParams("isProduction").equalsIgnoreCase("true");
-                boolean isContentAvailable = request.queryParams("isContentAvailable").equalsIgnoreCase("true");
-                return relayService.sendAppleMessage(isProduction, isContentAvailable, token, encryptedMessage, useSound);
+            boolean isProduction = !isAndroid && request.queryParams("isProduction").equalsIgnoreCase("true");
+            boolean isContentAvailable = !isAndroid && request.queryParams("isContentAvailable").equalsIgnoreCase("true");
+            PushRequest pushRequest = new PushRequest(isAndroid, isProduction, isContentAvailable, token,
+                encryptedMessage, useSound);
+
+            // We respond once the request is queued and do not wait for the gateway. The Bisq app expects status
+            // 200 with SUCCESS as body, so we cannot use 202 without breaking existing clients. Failures of the send
+            // are reported at /status.
+            if (relayQueue.add(pushRequest) == RelayQueue.Result.REJECTED) {
+                response.status(503);
+                return "Error: Relay is overloaded. Please try again later.";
             }
+            return PushSender.SUCCESS;
+        });
+    }
+
+    // Responds with the error if the last send to that token failed, e.g. because the token is not valid anymore.
+    // Otherwise with SUCCESS.
+    private static void handleStatus() {
+        get("/status", (request, response) -> {
+            String token = new String(Hex.decodeHex(request.queryParams("token").toCharArray()), "UTF-8");
+            return relayQueue.getFailure(token).orElse(PushSender.SUCCESS);
+        });
+    }
+
+    private static void handleMetrics() {
+        get("/metrics", (request, response) -> {
+            response.type("application/json");
+            return relayQueue.getMetricsAsJson();
         });
     }
 
@@ -0,0 +1,226 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.relay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decouples the handling of relay requests from the round trip to the APNs and FCM gateways.
+ * <p>
+ * Requests are added to a bounded queue and the caller gets an immediate result. A dispatcher thread takes the
+ * requests in batches and hands them to the PushSender, which sends them asynchronously. The number of sends
+ * waiting for the gateway response is limited, so a slow gateway causes the queue to fill up and new requests to
+ * get rejected instead of an unbounded growth of pending requests.
+ * <p>
+ * A request identical to one which is queued or in flight is not sent again. Those are retries of clients which
+ * did not get our response in time. Distinct messages to the same token are all sent, as each of them is a separately
+ * encrypted notification for the app.
+ * <p>
+ * As the caller does not wait for the gateway, the failure of the last send to a token is recorded until a later send
+ * to that token succeeds or the failure expires. It is reported by the /status endpoint, so the app can still learn
+ * about e.g. an invalid token.
+ */
+class RelayQueue {
+    private static final Logger log = LoggerFactory.getLogger(RelayQueue.class);
+
+    enum Result {
+        ADDED,
+        DUPLICATE,
+        REJECTED
+    }
+
+    static final int QUEUE_CAPACITY = 10_000;
+    static final int BATCH_SIZE = 100;
+    static final int MAX_IN_FLIGHT = 1000;
+    static final int MAX_RECORDED_FAILURES = 10_000;
+    static final long FAILURE_TTL_MS = TimeUnit.DAYS.toMillis(1);
+
+    private static class Failure {
+        private final String errorMessage;
+        private final long time;
+
+        Failure(String errorMessage, long time) {
+            this.errorMessage = errorMessage;
+            this.time = time;
+        }
+    }
+
+    private final PushSender pushSender;
+    private final LongSupplier clock;
+    private final BlockingQueue<PushRequest> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // Keys of the requests which are queued or in flight
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+    private final Semaphore inFlightPermits = new Semaphore(MAX_IN_FLIGHT);
+    // Failure of the last send by token
+    private final Map<String, Failure> failuresByToken = new ConcurrentHashMap<>();
+    private final Thread dispatcher;
+
+    private final AtomicLong numReceived = new AtomicLong();
+    private final AtomicLong numDuplicates = new AtomicLong();
+    private final AtomicLong numRejected = new AtomicLong();
+    private final AtomicLong numSent = new AtomicLong();
+    private final AtomicLong numFailed = new AtomicLong();
+    private final AtomicLong numBatches = new AtomicLong();
+    private final AtomicLong sumLatencyMs = new AtomicLong();
+
+    RelayQueue(PushSender pushSender) {
+        this(pushSender, System::currentTimeMillis);
+    }
+
+    // The clock is only used for the expiry of failures. Tests can pass their own.
+    RelayQueue(PushSender pushSender, LongSupplier clock) {
+        this.pushSender = pushSender;
+        this.clock = clock;
+        dispatcher = new Thread(this::dispatch, "RelayQueue.dispatcher");
+        dispatcher.setDaemon(true);
+    }
+
+    void start() {
+        dispatcher.start();
+    }
+
+    void shutDown() {
+        dispatcher.interrupt();
+    }
+
+    Result add(PushRequest pushRequest) {
+        numReceived.incrementAndGet();
+        String key = pushRequest.getKey();
+        if (!pendingKeys.add(key)) {
+            numDuplicates.incrementAndGet();
+            return Result.DUPLICATE;
+        }
+        if (!queue.offer(pushRequest)) {
+            pendingKeys.remove(key);
+            numRejected.incrementAndGet();
+            log.warn("Relay queue is full. We reject the request.");
+            return Result.REJECTED;
+        }
+        return Result.ADDED;
+    }
+
+    /**
+     * @return The error message if the last send to that token failed within the FAILURE_TTL_MS.
+     */
+    Optional<String> getFailure(String token) {
+        Failure failure = failuresByToken.get(token);
+        if (failure == null || isExpired(failure, clock.getAsLong())) {
+            return Optional.empty();
+        }
+        return Optional.of(failure.errorMessage);
+    }
+
+    String getMetricsAsJson() {
+        long sent = numSent.get();
+        long failed = numFailed.get();
+        long completed = sent + failed;
+        return "{" +
+            "\"received\":" + numReceived.get() +
+            ",\"duplicates\":" + numDuplicates.get() +
+            ",\"rejected\":" + numRejected.get() +
+            ",\"sent\":" + sent +
+            ",\"failed\":" + failed +
+            ",\"batches\":" + numBatches.get() +
+            ",\"queued\":" + queue.size() +
+            ",\"inFlight\":" + (MAX_IN_FLIGHT - inFlightPermits.availablePermits()) +
+            ",\"recordedFailures\":" + failuresByToken.size() +
+            ",\"avgLatencyMs\":" + (completed > 0 ? sumLatencyMs.get() / completed : 0) +
+            "}";
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void dispatch() {
+        List<PushRequest> batch = new ArrayList<>(BATCH_SIZE);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                numBatches.incrementAndGet();
+                for (PushRequest pushRequest : batch) {
+                    inFlightPermits.acquire();
+                    send(pushRequest);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                log.error("Dispatching relay requests failed", t);
+            } finally {
+                batch.clear();
+            }
+        }
+        log.info("Relay queue dispatcher stopped");
+    }
+
+    private void send(PushRequest pushRequest) {
+        CompletableFuture<String> future;
+        try {
+            future = pushSender.send(pushRequest);
+        } catch (Throwable t) {
+            future = CompletableFuture.completedFuture("Error: " + t.toString());
+        }
+        future.whenComplete((result, throwable) -> {
+            inFlightPermits.release();
+            pendingKeys.remove(pushRequest.getKey());
+            sumLatencyMs.addAndGet(System.currentTimeMillis() - pushRequest.getCreationTime());
+            if (throwable == null && PushSender.SUCCESS.equals(result)) {
+                numSent.incrementAndGet();
+                failuresByToken.remove(pushRequest.getToken());
+            } else {
+                numFailed.incrementAndGet();
+                log.warn("Sending {} failed. result={}, throwable={}", pushRequest, result, String.valueOf(throwable));
+                recordFailure(pushRequest.getToken(), throwable == null ? result : "Error: " + throwable);
+            }
+        });
+    }
+
+    private void recordFailure(String token, String errorMessage) {
+        long now = clock.getAsLong();
+        if (failuresByToken.size() >= MAX_RECORDED_FAILURES) {
+            // Failures of tokens which are not used anymore
+            failuresByToken.values().removeIf(failure -> isExpired(failure, now));
+            if (failuresByToken.size() >= MAX_RECORDED_FAILURES) {
+                log.warn("Too many recorded failures. We do not record the failure of that send.");
+                return;
+            }
+        }
+        failuresByToken.put(token, new Failure(errorMessage, now));
+    }
+
+    private static boolean isExpired(Failure failure, long now) {
+        return now - failure.time > FAILURE_TTL_MS;
+    }
+}
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 
@@ -31,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 
 
+import com.google.api.core.ApiFuture;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
@@ -45,12 +47,13 @@ import com.turo.pushy.apns.util.ApnsPayloadBuilder;
 import com.turo.pushy.apns.util.SimpleApnsPushNotification;
 import com.turo.pushy.apns.util.concurrent.PushNotificationFuture;
 
-class RelayService {
+/**
+ * Sends the push notifications to the APNs and FCM gateways. Sending does not block, the returned futures get
+ * completed once the gateway has responded.
+ */
+class RelayService implements PushSender {
     private static final Logger log = LoggerFactory.getLogger(RelayMain.class);
     private static final String ANDROID_DATABASE_URL = "https://bisqnotifications.firebaseio.com";
-    // Used in Bisq app to check for success state. We won't want a code dependency just for that string so we keep it
-    // duplicated in core and here. Must not be changed.
-    private static final String SUCCESS = "success";
 
     private final String appleBundleId;
 
@@ -97,7 +100,18 @@ class RelayService {
         }
     }
 
-    String sendAppleMessage(boolean isProduction, boolean isContentAvailable, String apsTokenHex, String encryptedMessage, boolean useSound) {
+    @Override
+    public CompletableFuture<String> send(PushRequest pushRequest) {
+        if (pushRequest.isAndroid()) {
+            return sendAndroidMessage(pushRequest.getToken(), pushRequest.getEncryptedMessage(),
+                pushRequest.isUseSound());
+        } else {
+            return sendAppleMessage(pushRequest.isProduction(), pushRequest.isContentAvailable(),
+                pushRequest.getToken(), pushRequest.getEncryptedMessage(), pushRequest.isUseSound());
+        }
+    }
+
+    private CompletableFuture<String> sendAppleMessage(boolean isProduction, boolean isContentAvailable, String apsTokenHex, String encryptedMessage, boolean useSound) {
         ApnsPayloadBuilder payloadBuilder = new ApnsPayloadBuilder();
         if (useSound)
             payloadBuilder.setSoundFileName("default");
@@ -111,11 +125,19 @@ class RelayService {
         ApnsClient apnsClient = isProduction ? productionApnsClient : devApnsClient;
         PushNotificationFuture<SimpleApnsPushNotification, PushNotificationResponse<SimpleApnsPushNotification>>
             notificationFuture = apnsClient.sendNotification(simpleApnsPushNotification);
-        try {
-            PushNotificationResponse<SimpleApnsPushNotification> pushNotificationResponse = notificationFuture.get();
+        CompletableFuture<String> future = new CompletableFuture<>();
+        // The listener is called from the netty event loop of the APNs client once the gateway has responded
+        notificationFuture.addListener(f -> {
+            if (!notificationFuture.isSuccess()) {
+                log.error(notificationFuture.cause().toString());
+                future.complete("Error: " + notificationFuture.cause().toString());
+                return;
+            }
+
+            PushNotificationResponse<SimpleApnsPushNotification> pushNotificationResponse = notificationFuture.getNow();
             if (pushNotificationResponse.isAccepted()) {
                 log.info("Push notification accepted by APNs gateway.");
-                return SUCCESS;
+                future.complete(SUCCESS);
             } else {
                 String msg1 = "Notification rejected by the APNs gateway: " +
                     pushNotificationResponse.getRejectionReason();
@@ -125,16 +147,13 @@ class RelayService {
                         pushNotificationResponse.getTokenInvalidationTimestamp();
 
                 log.info(msg1 + msg2);
-                return "Error: " + msg1 + msg2;
+                future.complete("Error: " + msg1 + msg2);
             }
-        } catch (InterruptedException | ExecutionException e) {
-            log.error(e.toString());
-            e.printStackTrace();
-            return "Error: " + e.toString();
-        }
+        });
+        return future;
     }
 
-    String sendAndroidMessage(String apsTokenHex, String encryptedMessage, boolean useSound) {
+    private CompletableFuture<String> sendAndroidMessage(String apsTokenHex, String encryptedMessage, boolean useSound) {
         Message.Builder messageBuilder = Message.builder();
         Notification notification = new Notification("Bisq", "Notification");
         messageBuilder.setNotification(notification);
@@ -143,14 +162,20 @@ class RelayService {
         if (useSound)
             messageBuilder.putData("sound", "default");
         Message message = messageBuilder.build();
-        try {
-            FirebaseMessaging firebaseMessaging = FirebaseMessaging.getInstance();
-            firebaseMessaging.send(message);
-            return SUCCESS;
-        } catch (FirebaseMessagingException e) {
-            log.error(e.toString());
-            e.printStackTrace();
-            return "Error: " + e.toString();
-        }
+        FirebaseMessaging firebaseMessaging = FirebaseMessaging.getInstance();
+        ApiFuture<String> apiFuture = firebaseMessaging.sendAsync(message);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        // The listener is called once the FCM gateway has responded, so the get call does not block
+        apiFuture.addListener(() -> {
+            try {
+                apiFuture.get();
+                future.complete(SUCCESS);
+            } catch (InterruptedException | ExecutionException e) {
+                Throwable cause = e.getCause() instanceof FirebaseMessagingException ? e.getCause() : e;
+                log.error(cause.toString());
+                future.complete("Error: " + cause.toString());
+            }
+        }, Runnable::run);
+        return future;
     }
 }
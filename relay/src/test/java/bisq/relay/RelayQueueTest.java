@@ -0,0 +1,112 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.relay;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RelayQueueTest {
+    private RelayQueue relayQueue;
+
+    @After
+    public void tearDown() {
+        if (relayQueue != null) {
+            relayQueue.shutDown();
+        }
+    }
+
+    @Test
+    public void testIdenticalRequestIsNotSentTwice() throws InterruptedException {
+        relayQueue = new RelayQueue(new FakePushSender(100));
+
+        assertEquals(RelayQueue.Result.ADDED, relayQueue.add(getPushRequest("token", "msg")));
+        assertEquals(RelayQueue.Result.DUPLICATE, relayQueue.add(getPushRequest("token", "msg")));
+        // Other messages to the same token are sent
+        assertEquals(RelayQueue.Result.ADDED, relayQueue.add(getPushRequest("token", "msg2")));
+
+        // Once the send completed the same request can be added again
+        relayQueue.start();
+        waitUntil(() -> relayQueue.getMetricsAsJson().contains("\"sent\":2"));
+        assertEquals(RelayQueue.Result.ADDED, relayQueue.add(getPushRequest("token", "msg")));
+        assertTrue(relayQueue.getMetricsAsJson().contains("\"duplicates\":1"));
+    }
+
+    @Test
+    public void testRequestIsRejectedIfQueueIsFull() {
+        // We do not start the dispatcher, so the requests stay queued
+        relayQueue = new RelayQueue(new FakePushSender(0));
+        for (int i = 0; i < RelayQueue.QUEUE_CAPACITY; i++) {
+            assertEquals(RelayQueue.Result.ADDED, relayQueue.add(getPushRequest("token", "msg" + i)));
+        }
+
+        assertEquals(RelayQueue.Result.REJECTED, relayQueue.add(getPushRequest("token", "msg")));
+        assertTrue(relayQueue.getMetricsAsJson().contains("\"rejected\":1"));
+        // A rejected request is not pending, so a retry is not treated as duplicate
+        assertEquals(RelayQueue.Result.REJECTED, relayQueue.add(getPushRequest("token", "msg")));
+    }
+
+    @Test
+    public void testFailureIsReportedUntilExpiredOrNextSuccess() throws InterruptedException {
+        AtomicLong now = new AtomicLong(1000);
+        FakePushSender fakePushSender = new FakePushSender(0);
+        relayQueue = new RelayQueue(pushRequest -> pushRequest.getEncryptedMessage().startsWith("fail") ?
+                CompletableFuture.completedFuture("Error: BadDeviceToken") :
+                fakePushSender.send(pushRequest),
+                now::get);
+        relayQueue.start();
+
+        relayQueue.add(getPushRequest("token", "fail1"));
+        waitUntil(() -> relayQueue.getFailure("token").isPresent());
+        assertEquals(Optional.of("Error: BadDeviceToken"), relayQueue.getFailure("token"));
+        // The failure is not removed by reading it and only reported for that token
+        assertEquals(Optional.of("Error: BadDeviceToken"), relayQueue.getFailure("token"));
+        assertFalse(relayQueue.getFailure("otherToken").isPresent());
+
+        now.addAndGet(RelayQueue.FAILURE_TTL_MS + 1);
+        assertFalse(relayQueue.getFailure("token").isPresent());
+
+        relayQueue.add(getPushRequest("token", "fail2"));
+        waitUntil(() -> relayQueue.getFailure("token").isPresent());
+
+        relayQueue.add(getPushRequest("token", "msg"));
+        waitUntil(() -> !relayQueue.getFailure("token").isPresent());
+        assertTrue(relayQueue.getMetricsAsJson().contains("\"failed\":2"));
+        assertTrue(relayQueue.getMetricsAsJson().contains("\"sent\":1"));
+    }
+
+    private static PushRequest getPushRequest(String token, String encryptedMessage) {
+        return new PushRequest(false, true, false, token, encryptedMessage, true);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Condition not met within timeout", System.currentTimeMillis() < timeout);
+            Thread.sleep(10);
+        }
+    }
+}